@@ -55,6 +55,7 @@ import org.apache.pinot.common.utils.request.RequestUtils;
 import org.apache.pinot.core.auth.Actions;
 import org.apache.pinot.core.auth.TargetType;
 import org.apache.pinot.query.QueryEnvironment;
+import org.apache.pinot.query.QueryPlanCache;
 import org.apache.pinot.query.catalog.PinotCatalog;
 import org.apache.pinot.query.mailbox.MailboxService;
 import org.apache.pinot.query.planner.physical.DispatchablePlanFragment;
@@ -83,6 +84,7 @@ public class MultiStageBrokerRequestHandler extends BaseBrokerRequestHandler {
   private final WorkerManager _workerManager;
   private final QueryDispatcher _queryDispatcher;
   private final PinotCatalog _catalog;
+  private final QueryPlanCache _planCache;
 
   public MultiStageBrokerRequestHandler(PinotConfiguration config, String brokerId, BrokerRoutingManager routingManager,
       AccessControlFactory accessControlFactory, QueryQuotaManager queryQuotaManager, TableCache tableCache) {
@@ -92,6 +94,20 @@ public class MultiStageBrokerRequestHandler extends BaseBrokerRequestHandler {
     _workerManager = new WorkerManager(hostname, port, _routingManager);
     _queryDispatcher = new QueryDispatcher(new MailboxService(hostname, port, config));
     _catalog = new PinotCatalog(tableCache);
+    int planCacheMaxSize = config.getProperty(CommonConstants.Broker.CONFIG_OF_MULTI_STAGE_PLAN_CACHE_MAX_SIZE,
+        CommonConstants.Broker.DEFAULT_MULTI_STAGE_PLAN_CACHE_MAX_SIZE);
+    if (planCacheMaxSize > 0) {
+      long planCacheExpireMs = config.getProperty(CommonConstants.Broker.CONFIG_OF_MULTI_STAGE_PLAN_CACHE_EXPIRE_MS,
+          CommonConstants.Broker.DEFAULT_MULTI_STAGE_PLAN_CACHE_EXPIRE_MS);
+      _planCache = new QueryPlanCache(planCacheMaxSize, planCacheExpireMs);
+      // The cached plans depend on the table configs and schemas, so invalidate them on any change
+      tableCache.registerTableConfigChangeListener(tableConfigs -> _planCache.invalidateAll());
+      tableCache.registerSchemaChangeListener(schemas -> _planCache.invalidateAll());
+      LOGGER.info("Enabled multi-stage plan cache with max size: {}, expire: {}ms", planCacheMaxSize,
+          planCacheExpireMs);
+    } else {
+      _planCache = null;
+    }
     LOGGER.info("Initialized MultiStageBrokerRequestHandler on host: {}, port: {} with broker id: {}, timeout: {}ms, "
             + "query log max length: {}, query log max rate: {}", hostname, port, _brokerId, _brokerTimeoutMs,
         _queryLogger.getMaxQueryLengthToLog(), _queryLogger.getLogRateLimit());
@@ -133,7 +149,7 @@ public class MultiStageBrokerRequestHandler extends BaseBrokerRequestHandler {
       Long timeoutMsFromQueryOption = QueryOptionsUtils.getTimeoutMs(queryOptions);
       queryTimeoutMs = timeoutMsFromQueryOption != null ? timeoutMsFromQueryOption : _brokerTimeoutMs;
       String database = DatabaseUtils.extractDatabaseFromQueryRequest(queryOptions, httpHeaders);
-      QueryEnvironment queryEnvironment = new QueryEnvironment(database, _tableCache, _workerManager);
+      QueryEnvironment queryEnvironment = new QueryEnvironment(database, _tableCache, _workerManager, _planCache);
       switch (sqlNodeAndOptions.getSqlNode().getKind()) {
         case EXPLAIN:
           queryPlanResult = queryEnvironment.explainQuery(query, sqlNodeAndOptions, requestId);
@@ -153,6 +169,10 @@ public class MultiStageBrokerRequestHandler extends BaseBrokerRequestHandler {
         case SELECT:
         default:
           queryPlanResult = queryEnvironment.planQuery(query, sqlNodeAndOptions, requestId);
+          if (_planCache != null) {
+            _brokerMetrics.addMeteredGlobalValue(queryPlanResult.isPlanCacheHit()
+                ? BrokerMeter.MULTI_STAGE_PLAN_CACHE_HITS : BrokerMeter.MULTI_STAGE_PLAN_CACHE_MISSES, 1);
+          }
           break;
       }
     } catch (DatabaseConflictException e) {
@@ -44,6 +44,7 @@ import org.apache.pinot.broker.routing.adaptiveserverselector.AdaptiveServerSele
 import org.apache.pinot.broker.routing.adaptiveserverselector.AdaptiveServerSelectorFactory;
 import org.apache.pinot.broker.routing.instanceselector.InstanceSelector;
 import org.apache.pinot.broker.routing.instanceselector.InstanceSelectorFactory;
+import org.apache.pinot.broker.routing.segmentmetadata.SegmentNumDocsManager;
 import org.apache.pinot.broker.routing.segmentmetadata.SegmentZkMetadataFetchListener;
 import org.apache.pinot.broker.routing.segmentmetadata.SegmentZkMetadataFetcher;
 import org.apache.pinot.broker.routing.segmentpartition.SegmentPartitionMetadataManager;
@@ -528,12 +529,20 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     if (partitionMetadataManager != null) {
       segmentZkMetadataFetcher.register(partitionMetadataManager);
     }
+    // Track the table num docs when the segment ZK metadata is already fetched, or when it is explicitly enabled
+    SegmentNumDocsManager numDocsManager = null;
+    if (!segmentZkMetadataFetcher.getListeners().isEmpty() || _pinotConfig.getProperty(
+        CommonConstants.Broker.CONFIG_OF_ENABLE_TABLE_NUM_DOCS_MANAGER,
+        CommonConstants.Broker.DEFAULT_ENABLE_TABLE_NUM_DOCS_MANAGER)) {
+      numDocsManager = new SegmentNumDocsManager();
+      segmentZkMetadataFetcher.register(numDocsManager);
+    }
     segmentZkMetadataFetcher.init(idealState, externalView, preSelectedOnlineSegments);
 
     RoutingEntry routingEntry =
         new RoutingEntry(tableNameWithType, idealStatePath, externalViewPath, segmentPreSelector, segmentSelector,
             segmentPruners, instanceSelector, idealStateVersion, externalViewVersion, segmentZkMetadataFetcher,
-            timeBoundaryManager, partitionMetadataManager, queryTimeoutMs);
+            timeBoundaryManager, partitionMetadataManager, numDocsManager, queryTimeoutMs);
     if (_routingEntryMap.put(tableNameWithType, routingEntry) == null) {
       LOGGER.info("Built routing for table: {}", tableNameWithType);
     } else {
@@ -701,6 +710,17 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     return routingEntry._instanceSelector.getServingInstances();
   }
 
+  @Nullable
+  @Override
+  public Long getTableNumDocs(String tableNameWithType) {
+    RoutingEntry routingEntry = _routingEntryMap.get(tableNameWithType);
+    if (routingEntry == null) {
+      return null;
+    }
+    SegmentNumDocsManager numDocsManager = routingEntry.getNumDocsManager();
+    return numDocsManager != null ? numDocsManager.getTableNumDocs() : null;
+  }
+
   /**
    * Returns the table-level query timeout in milliseconds for the given table, or {@code null} if the timeout is not
    * configured in the table config.
@@ -719,6 +739,7 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     final SegmentSelector _segmentSelector;
     final List<SegmentPruner> _segmentPruners;
     final SegmentPartitionMetadataManager _partitionMetadataManager;
+    final SegmentNumDocsManager _numDocsManager;
     final InstanceSelector _instanceSelector;
     final Long _queryTimeoutMs;
     final SegmentZkMetadataFetcher _segmentZkMetadataFetcher;
@@ -733,7 +754,8 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
         SegmentPreSelector segmentPreSelector, SegmentSelector segmentSelector, List<SegmentPruner> segmentPruners,
         InstanceSelector instanceSelector, int lastUpdateIdealStateVersion, int lastUpdateExternalViewVersion,
         SegmentZkMetadataFetcher segmentZkMetadataFetcher, @Nullable TimeBoundaryManager timeBoundaryManager,
-        @Nullable SegmentPartitionMetadataManager partitionMetadataManager, @Nullable Long queryTimeoutMs) {
+        @Nullable SegmentPartitionMetadataManager partitionMetadataManager,
+        @Nullable SegmentNumDocsManager numDocsManager, @Nullable Long queryTimeoutMs) {
       _tableNameWithType = tableNameWithType;
       _idealStatePath = idealStatePath;
       _externalViewPath = externalViewPath;
@@ -745,6 +767,7 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
       _lastUpdateExternalViewVersion = lastUpdateExternalViewVersion;
       _timeBoundaryManager = timeBoundaryManager;
       _partitionMetadataManager = partitionMetadataManager;
+      _numDocsManager = numDocsManager;
       _queryTimeoutMs = queryTimeoutMs;
       _segmentZkMetadataFetcher = segmentZkMetadataFetcher;
     }
@@ -775,6 +798,11 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
       return _partitionMetadataManager;
     }
 
+    @Nullable
+    SegmentNumDocsManager getNumDocsManager() {
+      return _numDocsManager;
+    }
+
     Long getQueryTimeoutMs() {
       return _queryTimeoutMs;
     }
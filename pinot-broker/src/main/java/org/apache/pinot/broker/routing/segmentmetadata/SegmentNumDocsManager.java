@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.routing.segmentmetadata;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.IdealState;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.pinot.common.metadata.segment.SegmentZKMetadata;
+
+
+/**
+ * The {@code SegmentNumDocsManager} tracks the number of documents of the online segments of a table based on the
+ * cached segment ZK metadata, which is used as the table row count estimate by the multi-stage query planner.
+ *
+ * <p>Segments without ZK metadata or without valid total docs (e.g. consuming segments) are not counted.
+ */
+public class SegmentNumDocsManager implements SegmentZkMetadataFetchListener {
+  private static final long INVALID_NUM_DOCS = -1L;
+
+  private final Map<String, Long> _segmentNumDocsMap = new HashMap<>();
+
+  private volatile long _tableNumDocs;
+
+  @Override
+  public synchronized void init(IdealState idealState, ExternalView externalView, List<String> onlineSegments,
+      List<ZNRecord> znRecords) {
+    int numSegments = onlineSegments.size();
+    for (int i = 0; i < numSegments; i++) {
+      _segmentNumDocsMap.put(onlineSegments.get(i), getNumDocs(znRecords.get(i)));
+    }
+    computeTableNumDocs();
+  }
+
+  @Override
+  public synchronized void onAssignmentChange(IdealState idealState, ExternalView externalView,
+      Set<String> onlineSegments, List<String> pulledSegments, List<ZNRecord> znRecords) {
+    int numSegments = pulledSegments.size();
+    for (int i = 0; i < numSegments; i++) {
+      _segmentNumDocsMap.put(pulledSegments.get(i), getNumDocs(znRecords.get(i)));
+    }
+    _segmentNumDocsMap.keySet().retainAll(onlineSegments);
+    computeTableNumDocs();
+  }
+
+  @Override
+  public synchronized void refreshSegment(String segment, @Nullable ZNRecord znRecord) {
+    _segmentNumDocsMap.put(segment, getNumDocs(znRecord));
+    computeTableNumDocs();
+  }
+
+  private static long getNumDocs(@Nullable ZNRecord znRecord) {
+    if (znRecord == null) {
+      return INVALID_NUM_DOCS;
+    }
+    return new SegmentZKMetadata(znRecord).getTotalDocs();
+  }
+
+  private void computeTableNumDocs() {
+    long tableNumDocs = 0;
+    for (long numDocs : _segmentNumDocsMap.values()) {
+      if (numDocs > 0) {
+        tableNumDocs += numDocs;
+      }
+    }
+    _tableNumDocs = tableNumDocs;
+  }
+
+  public long getTableNumDocs() {
+    return _tableNumDocs;
+  }
+}
@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.routing.segmentmetadata;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.IdealState;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.pinot.common.metadata.segment.SegmentZKMetadata;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+
+
+public class SegmentNumDocsManagerTest {
+
+  @Test
+  public void testTableNumDocs() {
+    IdealState idealState = mock(IdealState.class);
+    ExternalView externalView = mock(ExternalView.class);
+    SegmentNumDocsManager numDocsManager = new SegmentNumDocsManager();
+
+    // segments without ZK metadata or total docs (e.g. consuming segments) are not counted
+    numDocsManager.init(idealState, externalView, List.of("seg0", "seg1", "seg2", "seg3"),
+        Arrays.asList(getZNRecord("seg0", 100), getZNRecord("seg1", 200), getZNRecord("seg2", -1), null));
+    assertEquals(numDocsManager.getTableNumDocs(), 300);
+
+    // removed segments are not counted, and new segments are counted
+    numDocsManager.onAssignmentChange(idealState, externalView, Set.of("seg1", "seg2", "seg4"), List.of("seg4"),
+        List.of(getZNRecord("seg4", 400)));
+    assertEquals(numDocsManager.getTableNumDocs(), 600);
+
+    // refreshed segment replaces the old num docs
+    numDocsManager.refreshSegment("seg1", getZNRecord("seg1", 50));
+    assertEquals(numDocsManager.getTableNumDocs(), 450);
+    numDocsManager.refreshSegment("seg2", getZNRecord("seg2", 10));
+    assertEquals(numDocsManager.getTableNumDocs(), 460);
+  }
+
+  private static ZNRecord getZNRecord(String segment, long totalDocs) {
+    SegmentZKMetadata segmentZKMetadata = new SegmentZKMetadata(segment);
+    if (totalDocs >= 0) {
+      segmentZKMetadata.setTotalDocs(totalDocs);
+    }
+    return segmentZKMetadata.toZNRecord();
+  }
+}
@@ -147,7 +147,16 @@ public enum BrokerMeter implements AbstractMetrics.Meter {
    * For each query with at least one window function, this meter is increased as many times as window functions in the
    * query.
    */
-  WINDOW_COUNT("queries", true),;
+  WINDOW_COUNT("queries", true),
+
+  /**
+   * Number of multi-stage queries whose optimized logical plan is fetched from the plan cache.
+   */
+  MULTI_STAGE_PLAN_CACHE_HITS("queries", true),
+  /**
+   * Number of multi-stage queries whose optimized logical plan is not found in the plan cache.
+   */
+  MULTI_STAGE_PLAN_CACHE_MISSES("queries", true);
 
   private final String _brokerMeterName;
   private final String _unit;
@@ -75,7 +75,11 @@ public enum ServerGauge implements AbstractMetrics.Gauge {
   // Needed to track if valid doc id snapshots are present for faster restarts
   UPSERT_VALID_DOC_ID_SNAPSHOT_COUNT("upsertValidDocIdSnapshotCount", false),
   UPSERT_PRIMARY_KEYS_IN_SNAPSHOT_COUNT("upsertPrimaryKeysInSnapshotCount", false),
-  REALTIME_INGESTION_OFFSET_LAG("offsetLag", false);
+  REALTIME_INGESTION_OFFSET_LAG("offsetLag", false),
+  // Bytes received by the multi-stage mailboxes but not yet consumed by the receive operators
+  MULTI_STAGE_MAILBOX_PENDING_BYTES("bytes", true),
+  // OpChains registered with the cooperative OpChain scheduler and not finished yet, including the yielded ones
+  MULTI_STAGE_SCHEDULED_OPCHAINS("opChains", true);
 
   private final String _gaugeName;
   private final String _unit;
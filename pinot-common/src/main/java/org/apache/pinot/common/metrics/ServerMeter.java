@@ -157,7 +157,25 @@ public enum ServerMeter implements AbstractMetrics.Meter {
    * That means that if a stage has 10 workers and all of them reach the limit, this will be increased by 1.
    * But if a single query has 2 different window operators and each one reaches the limit, this will be increased by 2.
    */
-  WINDOW_TIMES_MAX_ROWS_REACHED("times", true);
+  WINDOW_TIMES_MAX_ROWS_REACHED("times", true),
+
+  /**
+   * Number of segments whose filter result is fetched from the filter result cache.
+   */
+  FILTER_RESULT_CACHE_HITS("segments", true),
+  /**
+   * Number of segments whose filter result is not found in the filter result cache.
+   */
+  FILTER_RESULT_CACHE_MISSES("segments", true),
+
+  /**
+   * Number of segments whose aggregation result is fetched from the segment result cache.
+   */
+  SEGMENT_RESULT_CACHE_HITS("segments", true),
+  /**
+   * Number of segments whose aggregation result is not found in the segment result cache.
+   */
+  SEGMENT_RESULT_CACHE_MISSES("segments", true);
 
   private final String _meterName;
   private final String _unit;
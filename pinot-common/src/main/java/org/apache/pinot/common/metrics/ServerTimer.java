@@ -83,7 +83,12 @@ public enum ServerTimer implements AbstractMetrics.Timer {
    * Remember that each stage may have several workers and each one will have a receive mailbox for each worker it is
    * reading from. This is the sum of all time waiting.
    */
-  RECEIVE_UPSTREAM_WAIT_CPU_TIME_MS("millis", true);
+  RECEIVE_UPSTREAM_WAIT_CPU_TIME_MS("millis", true),
+  /**
+   * Time the runnable OpChains wait in the queue of the cooperative OpChain scheduler before being run by a worker.
+   * This is only recorded when the cooperative scheduler is enabled.
+   */
+  MULTI_STAGE_OPCHAIN_QUEUE_WAIT_TIME_MS("millis", true);
 
   private final String _timerName;
   private final boolean _global;
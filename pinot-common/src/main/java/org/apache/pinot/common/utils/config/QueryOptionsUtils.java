@@ -28,6 +28,7 @@ import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nullable;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
 import org.apache.pinot.spi.config.table.FieldConfig;
 import org.apache.pinot.spi.utils.CommonConstants;
 import org.apache.pinot.spi.utils.CommonConstants.Broker.Request.QueryOptionKey;
@@ -135,6 +136,10 @@ public class QueryOptionsUtils {
     return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.AND_SCAN_REORDERING));
   }
 
+  public static boolean isAdaptiveAndFilterReorderingEnabled(Map<String, String> queryOptions) {
+    return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.ADAPTIVE_AND_FILTER_REORDERING));
+  }
+
   public static boolean isSkipUpsert(Map<String, String> queryOptions) {
     return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.SKIP_UPSERT));
   }
@@ -160,6 +165,14 @@ public class QueryOptionsUtils {
     return "false".equalsIgnoreCase(queryOptions.get(QueryOptionKey.USE_SCAN_REORDER_OPTIMIZATION));
   }
 
+  public static boolean isSkipFilterResultCache(Map<String, String> queryOptions) {
+    return "false".equalsIgnoreCase(queryOptions.get(QueryOptionKey.USE_FILTER_RESULT_CACHE));
+  }
+
+  public static boolean isSkipSegmentResultCache(Map<String, String> queryOptions) {
+    return "false".equalsIgnoreCase(queryOptions.get(QueryOptionKey.USE_SEGMENT_RESULT_CACHE));
+  }
+
   @Nullable
   public static Map<String, Set<FieldConfig.IndexType>> getSkipIndexes(Map<String, String> queryOptions) {
     // Example config:  skipIndexes='col1=inverted,range&col2=inverted'
@@ -267,6 +280,18 @@ public class QueryOptionsUtils {
     return maxInitResultCap != null ? Integer.parseInt(maxInitResultCap) : null;
   }
 
+  @Nullable
+  public static Integer getPartialAggBypassMinRows(Map<String, String> queryOptions) {
+    String minRows = queryOptions.get(QueryOptionKey.PARTIAL_AGG_BYPASS_MIN_ROWS);
+    return minRows != null ? Integer.parseInt(minRows) : null;
+  }
+
+  @Nullable
+  public static Double getPartialAggBypassGroupsRatio(Map<String, String> queryOptions) {
+    String groupsRatio = queryOptions.get(QueryOptionKey.PARTIAL_AGG_BYPASS_GROUPS_RATIO);
+    return groupsRatio != null ? Double.parseDouble(groupsRatio) : null;
+  }
+
   @Nullable
   public static Integer getGroupTrimThreshold(Map<String, String> queryOptions) {
     String groupByTrimThreshold = queryOptions.get(QueryOptionKey.GROUP_TRIM_THRESHOLD);
@@ -307,6 +332,24 @@ public class QueryOptionsUtils {
     return windowOverflowModeStr != null ? WindowOverFlowMode.valueOf(windowOverflowModeStr) : null;
   }
 
+  @Nullable
+  public static Integer getMaxRowsInSort(Map<String, String> queryOptions) {
+    String maxRowsInSort = queryOptions.get(QueryOptionKey.MAX_ROWS_IN_SORT);
+    return maxRowsInSort != null ? Integer.parseInt(maxRowsInSort) : null;
+  }
+
+  @Nullable
+  public static ChunkCompressionType getMailboxCompressionType(Map<String, String> queryOptions) {
+    String compressionType = queryOptions.get(QueryOptionKey.MAILBOX_COMPRESSION_TYPE);
+    return compressionType != null ? ChunkCompressionType.valueOf(compressionType.toUpperCase()) : null;
+  }
+
+  @Nullable
+  public static Integer getMailboxCompressionThresholdBytes(Map<String, String> queryOptions) {
+    String thresholdBytes = queryOptions.get(QueryOptionKey.MAILBOX_COMPRESSION_THRESHOLD_BYTES);
+    return thresholdBytes != null ? Integer.parseInt(thresholdBytes) : null;
+  }
+
   public static boolean isSkipUnavailableServers(Map<String, String> queryOptions) {
     return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.SKIP_UNAVAILABLE_SERVERS));
   }
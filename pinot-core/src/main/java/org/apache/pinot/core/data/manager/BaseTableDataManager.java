@@ -58,6 +58,7 @@ import org.apache.pinot.common.utils.TarGzCompressionUtils;
 import org.apache.pinot.common.utils.config.TierConfigUtils;
 import org.apache.pinot.common.utils.fetcher.SegmentFetcherFactory;
 import org.apache.pinot.core.data.manager.offline.ImmutableSegmentDataManager;
+import org.apache.pinot.core.plan.SegmentKeyedCache;
 import org.apache.pinot.core.util.PeerServerSegmentFinder;
 import org.apache.pinot.segment.local.data.manager.SegmentDataManager;
 import org.apache.pinot.segment.local.data.manager.TableDataManager;
@@ -547,6 +548,8 @@ public abstract class BaseTableDataManager implements TableDataManager {
     _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.DELETED_SEGMENT_COUNT, 1L);
     _serverMetrics.addValueToTableGauge(_tableNameWithType, ServerGauge.DOCUMENT_COUNT,
         -segmentDataManager.getSegment().getSegmentMetadata().getTotalDocs());
+    SegmentMetadata segmentMetadata = segmentDataManager.getSegment().getSegmentMetadata();
+    SegmentKeyedCache.invalidateSegment(segmentMetadata.getTableName(), segmentName, segmentMetadata.getCrc());
     segmentDataManager.destroy();
     _logger.info("Closed segment: {}", segmentName);
   }
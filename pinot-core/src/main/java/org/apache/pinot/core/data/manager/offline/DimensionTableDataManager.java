@@ -42,6 +42,7 @@ import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.data.readers.GenericRow;
 import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.ByteArray;
 
 
 /**
@@ -265,7 +266,12 @@ public class DimensionTableDataManager extends OfflineTableDataManager {
             }
             Object[] values = new Object[numPrimaryKeyColumns];
             for (int j = 0; j < numPrimaryKeyColumns; j++) {
-              values[j] = recordReader.getValue(i, primaryKeyColumns.get(j));
+              Object value = recordReader.getValue(i, primaryKeyColumns.get(j));
+              // Wrap BYTES values the same way as GenericRow.getPrimaryKey() so that they can be looked up
+              if (value instanceof byte[]) {
+                value = new ByteArray((byte[]) value);
+              }
+              values[j] = value;
             }
             lookupTable.put(new PrimaryKey(values), new LookupRecordLocation(recordReader, i));
           }
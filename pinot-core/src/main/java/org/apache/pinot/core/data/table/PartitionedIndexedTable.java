@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.data.table;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.query.request.context.QueryContext;
+
+
+/**
+ * Thread safe {@link Table} implementation which partitions the records on the hash of the key, where each partition
+ * is backed by a {@link SimpleIndexedTable} that is merged by at most one thread at a time and trimmed independently.
+ * <p>Records are buffered into a {@link RecordBatch} (typically all the records from one segment), which is scattered
+ * into the partitions on {@link #upsert(RecordBatch)}. The batches are handed over to the partitions via lock-free
+ * queues, and whichever thread acquires the merging flag of a partition drains its queue, so that the upserting threads
+ * never block on each other.
+ * <p>With ORDER BY, the trim threshold is split across the partitions (lower bounded by {@code 2 * trimSize}), and each
+ * partition keeps {@code trimSize} records when trimmed. Without ORDER BY, each partition stops accepting new keys once
+ * it reaches {@code resultSize}, and at most {@code resultSize} records are kept after {@link #finish(boolean)}.
+ */
+@SuppressWarnings("rawtypes")
+public class PartitionedIndexedTable extends IndexedTable {
+  private final Partition[] _partitions;
+
+  public PartitionedIndexedTable(DataSchema dataSchema, QueryContext queryContext, int resultSize, int trimSize,
+      int trimThreshold, int numPartitions) {
+    this(dataSchema, false, queryContext, resultSize, trimSize, trimThreshold, numPartitions);
+  }
+
+  public PartitionedIndexedTable(DataSchema dataSchema, boolean hasFinalInput, QueryContext queryContext,
+      int resultSize, int trimSize, int trimThreshold, int numPartitions) {
+    super(dataSchema, hasFinalInput, queryContext, resultSize, trimSize, trimThreshold, new HashMap<>());
+    Preconditions.checkArgument(numPartitions > 0, "Number of partitions must be positive");
+
+    int partitionTrimThreshold = trimThreshold / numPartitions;
+    _partitions = new Partition[numPartitions];
+    for (int i = 0; i < numPartitions; i++) {
+      _partitions[i] = new Partition(
+          new SimpleIndexedTable(dataSchema, hasFinalInput, queryContext, resultSize, trimSize,
+              partitionTrimThreshold));
+    }
+  }
+
+  public int getNumPartitions() {
+    return _partitions.length;
+  }
+
+  /**
+   * Returns a new batch to buffer records for this table. The batch is not thread safe.
+   */
+  public RecordBatch newRecordBatch() {
+    return new RecordBatch(_partitions.length);
+  }
+
+  /**
+   * Thread safe upsert of a single record. Prefer {@link #upsert(RecordBatch)} to amortize the hand-over overhead.
+   */
+  @Override
+  public boolean upsert(Key key, Record record) {
+    RecordBatch recordBatch = newRecordBatch();
+    recordBatch.add(key, record);
+    upsert(recordBatch);
+    return true;
+  }
+
+  /**
+   * Thread safe upsert of all the records in the given batch. The batch should not be reused afterwards.
+   */
+  public void upsert(RecordBatch recordBatch) {
+    int numPartitions = _partitions.length;
+    for (int i = 0; i < numPartitions; i++) {
+      RecordBatch.Chunk chunk = recordBatch._chunks[i];
+      if (chunk != null) {
+        _partitions[i]._pendingChunks.offer(chunk);
+      }
+    }
+    // Start from a random partition to spread the merging work across the threads
+    int startPartitionId = ThreadLocalRandom.current().nextInt(numPartitions);
+    for (int i = 0; i < numPartitions; i++) {
+      _partitions[(startPartitionId + i) % numPartitions].tryMerge();
+    }
+  }
+
+  @Override
+  public void finish(boolean sort, boolean storeFinalResult) {
+    // NOTE: All the upserts should be done before calling finish, so the pending chunks should have been drained. Merge
+    //       them again just in case.
+    for (Partition partition : _partitions) {
+      partition.tryMerge();
+      SimpleIndexedTable partitionTable = partition._table;
+      Map<Key, Record> partitionLookupMap = partitionTable._lookupMap;
+      if (_hasOrderBy) {
+        if (partitionLookupMap.size() > _trimSize) {
+          partitionTable.resize();
+        }
+        _lookupMap.putAll(partitionLookupMap);
+      } else {
+        for (Map.Entry<Key, Record> entry : partitionLookupMap.entrySet()) {
+          if (_lookupMap.size() >= _resultSize) {
+            break;
+          }
+          _lookupMap.put(entry.getKey(), entry.getValue());
+        }
+      }
+      partitionLookupMap.clear();
+    }
+    super.finish(sort, storeFinalResult);
+  }
+
+  @Override
+  public int size() {
+    if (_topRecords != null) {
+      return _topRecords.size();
+    }
+    int size = _lookupMap.size();
+    for (Partition partition : _partitions) {
+      size += partition._table._lookupMap.size();
+    }
+    return size;
+  }
+
+  @Override
+  public int getNumResizes() {
+    int numResizes = super.getNumResizes();
+    for (Partition partition : _partitions) {
+      numResizes += partition._table.getNumResizes();
+    }
+    return numResizes;
+  }
+
+  @Override
+  public long getResizeTimeMs() {
+    long resizeTimeMs = super.getResizeTimeMs();
+    for (Partition partition : _partitions) {
+      resizeTimeMs += partition._table.getResizeTimeMs();
+    }
+    return resizeTimeMs;
+  }
+
+  /**
+   * Returns the partition id of the given key. The hash is mixed and the high bits are used so that the keys within a
+   * partition are still well distributed in the hash map of the partition.
+   */
+  private static int getPartitionId(Key key, int numPartitions) {
+    int hash = key.hashCode() * 0x9E3779B9;
+    return (int) (((hash & 0xFFFFFFFFL) * numPartitions) >>> 32);
+  }
+
+  private static class Partition {
+    final SimpleIndexedTable _table;
+    final Queue<RecordBatch.Chunk> _pendingChunks = new ConcurrentLinkedQueue<>();
+    final AtomicBoolean _merging = new AtomicBoolean();
+
+    Partition(SimpleIndexedTable table) {
+      _table = table;
+    }
+
+    /**
+     * Drains the pending chunks into the partition table if no other thread is merging the partition. The queue is
+     * re-checked after releasing the flag so that chunks offered while the flag was held are not left behind.
+     */
+    void tryMerge() {
+      while (!_pendingChunks.isEmpty() && _merging.compareAndSet(false, true)) {
+        try {
+          RecordBatch.Chunk chunk;
+          while ((chunk = _pendingChunks.poll()) != null) {
+            List<Key> keys = chunk._keys;
+            List<Record> records = chunk._records;
+            int numRecords = keys.size();
+            for (int i = 0; i < numRecords; i++) {
+              _table.upsert(keys.get(i), records.get(i));
+            }
+          }
+        } finally {
+          _merging.set(false);
+        }
+      }
+    }
+  }
+
+  /**
+   * Buffer of records scattered into per-partition chunks.
+   */
+  public static class RecordBatch {
+    private final Chunk[] _chunks;
+
+    private RecordBatch(int numPartitions) {
+      _chunks = new Chunk[numPartitions];
+    }
+
+    public void add(Key key, Record record) {
+      int partitionId = getPartitionId(key, _chunks.length);
+      Chunk chunk = _chunks[partitionId];
+      if (chunk == null) {
+        chunk = new Chunk();
+        _chunks[partitionId] = chunk;
+      }
+      chunk._keys.add(key);
+      chunk._records.add(record);
+    }
+
+    private static class Chunk {
+      final List<Key> _keys = new ArrayList<>();
+      final List<Record> _records = new ArrayList<>();
+    }
+  }
+}
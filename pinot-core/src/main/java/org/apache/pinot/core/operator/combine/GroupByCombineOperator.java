@@ -26,12 +26,14 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import javax.annotation.Nullable;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.core.common.Operator;
 import org.apache.pinot.core.data.table.ConcurrentIndexedTable;
 import org.apache.pinot.core.data.table.IndexedTable;
 import org.apache.pinot.core.data.table.IntermediateRecord;
 import org.apache.pinot.core.data.table.Key;
+import org.apache.pinot.core.data.table.PartitionedIndexedTable;
 import org.apache.pinot.core.data.table.Record;
 import org.apache.pinot.core.data.table.UnboundedConcurrentIndexedTable;
 import org.apache.pinot.core.operator.AcquireReleaseColumnsSegmentOperator;
@@ -50,6 +52,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Combine operator for group-by queries.
+ * <p>When the query is executed with multiple tasks, the results are merged into a {@link PartitionedIndexedTable}
+ * where each task buffers the records of a segment into a batch, and the partitions are merged without locking.
  * TODO: Use CombineOperatorUtils.getNumThreadsForQuery() to get the parallelism of the query instead of using
  *       all threads
  */
@@ -136,7 +140,13 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
             if (_indexedTable == null) {
               DataSchema dataSchema = resultsBlock.getDataSchema();
               // NOTE: Use trimSize as resultSize on server size.
-              if (_trimThreshold >= MAX_TRIM_THRESHOLD) {
+              if (_numTasks > 1) {
+                // Partition the table on the key hash so that the worker threads merge into different partitions
+                // without contending on the same map and lock.
+                _indexedTable =
+                    new PartitionedIndexedTable(dataSchema, _queryContext, _trimSize, _trimSize, _trimThreshold,
+                        _numTasks);
+              } else if (_trimThreshold >= MAX_TRIM_THRESHOLD) {
                 // special case of trim threshold where it is set to max value.
                 // there won't be any trimming during upsert in this case.
                 // thus we can avoid the overhead of read-lock and write-lock
@@ -157,6 +167,10 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
 
         // Merge aggregation group-by result.
         // Iterate over the group-by keys, for each key, update the group-by result in the indexedTable
+        IndexedTable indexedTable = _indexedTable;
+        PartitionedIndexedTable.RecordBatch recordBatch =
+            indexedTable instanceof PartitionedIndexedTable ? ((PartitionedIndexedTable) indexedTable).newRecordBatch()
+                : null;
         Collection<IntermediateRecord> intermediateRecords = resultsBlock.getIntermediateRecords();
         // Count the number of merged keys
         int mergedKeys = 0;
@@ -175,7 +189,7 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
               for (int i = 0; i < _numAggregationFunctions; i++) {
                 values[_numGroupByExpressions + i] = aggregationGroupByResult.getResultForGroupId(i, groupId);
               }
-              _indexedTable.upsert(new Key(keys), new Record(values));
+              upsert(indexedTable, recordBatch, new Key(keys), new Record(values));
               Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(mergedKeys);
               mergedKeys++;
             }
@@ -183,11 +197,14 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
         } else {
           for (IntermediateRecord intermediateResult : intermediateRecords) {
             //TODO: change upsert api so that it accepts intermediateRecord directly
-            _indexedTable.upsert(intermediateResult._key, intermediateResult._record);
+            upsert(indexedTable, recordBatch, intermediateResult._key, intermediateResult._record);
             Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(mergedKeys);
             mergedKeys++;
           }
         }
+        if (recordBatch != null) {
+          ((PartitionedIndexedTable) indexedTable).upsert(recordBatch);
+        }
       } finally {
         if (operator instanceof AcquireReleaseColumnsSegmentOperator) {
           ((AcquireReleaseColumnsSegmentOperator) operator).release();
@@ -196,6 +213,15 @@ public class GroupByCombineOperator extends BaseSingleBlockCombineOperator<Group
     }
   }
 
+  private static void upsert(IndexedTable indexedTable, @Nullable PartitionedIndexedTable.RecordBatch recordBatch,
+      Key key, Record record) {
+    if (recordBatch != null) {
+      recordBatch.add(key, record);
+    } else {
+      indexedTable.upsert(key, record);
+    }
+  }
+
   @Override
   public void onProcessSegmentsException(Throwable t) {
     _processingException.compareAndSet(null, t);
@@ -64,8 +64,10 @@ public final class AndDocIdSet implements BlockDocIdSet {
 
   public AndDocIdSet(List<BlockDocIdSet> docIdSets, @Nullable Map<String, String> queryOptions) {
     _docIdSets = docIdSets;
+    // NOTE: Keep the order decided within AndFilterOperator when it is adaptively reordered
     _cardinalityBasedRankingForScan =
-        queryOptions != null && QueryOptionsUtils.isAndScanReorderingEnabled(queryOptions);
+        queryOptions != null && QueryOptionsUtils.isAndScanReorderingEnabled(queryOptions)
+            && !QueryOptionsUtils.isAdaptiveAndFilterReorderingEnabled(queryOptions);
   }
 
   @Override
@@ -20,36 +20,69 @@ package org.apache.pinot.core.operator.filter;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
+import org.apache.pinot.core.common.BlockDocIdIterator;
 import org.apache.pinot.core.common.BlockDocIdSet;
 import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.dociditerators.ScanBasedDocIdIterator;
 import org.apache.pinot.core.operator.docidsets.AndDocIdSet;
 import org.apache.pinot.core.operator.docidsets.EmptyDocIdSet;
 import org.apache.pinot.core.operator.docidsets.MatchAllDocIdSet;
 import org.apache.pinot.core.operator.docidsets.NotDocIdSet;
 import org.apache.pinot.core.operator.docidsets.OrDocIdSet;
+import org.apache.pinot.core.util.trace.TraceContext;
+import org.apache.pinot.spi.trace.InvocationRecording;
 import org.apache.pinot.spi.trace.Tracing;
 import org.roaringbitmap.buffer.BufferFastAggregation;
 import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
 
+/**
+ * The {@code AndFilterOperator} performs AND on all the child filter operators, which are ordered by
+ * {@link FilterOperatorUtils} based on their static priorities.
+ * <p>When adaptive reordering is enabled via the query option, the scan based children (which are applied one after
+ * another on the docs matched so far) are reordered before the first evaluation based on their selectivity measured on
+ * a sample of the docs within the segment, and their cost per doc estimated from the column encoding and data type.
+ * Children that are expensive and not selective are applied late, when fewer docs are left to be scanned. The chosen
+ * order is reflected in the EXPLAIN and trace output.
+ */
 public class AndFilterOperator extends BaseFilterOperator {
   private static final String EXPLAIN_NAME = "FILTER_AND";
+  private static final String ADAPTIVE_REORDERING_EXPLAIN_ATTRIBUTE = "(adaptiveReordering:true)";
+
+  // The selectivity of the scan based children is measured on a few runs of contiguous docs spread across the segment,
+  // so that only a few chunks of the (possibly compressed) raw forward indexes are read
+  static final int NUM_SAMPLED_RUNS = 4;
+  static final int NUM_DOCS_PER_SAMPLED_RUN = 1024;
+  static final int NUM_SAMPLED_DOCS = NUM_SAMPLED_RUNS * NUM_DOCS_PER_SAMPLED_RUN;
+  // Smaller segments are not reordered because the sampling would be comparable to the actual scan
+  static final int MIN_NUM_DOCS_TO_REORDER = 32 * NUM_SAMPLED_DOCS;
+  // Estimated cost per doc of the expression filters, relative to the scan based filters (see
+  // ScanBasedFilterOperator.getEstimatedCostPerDoc())
+  private static final int EXPRESSION_FILTER_COST_PER_DOC = 16;
 
-  private final List<BaseFilterOperator> _filterOperators;
   private final Map<String, String> _queryOptions;
+  private final boolean _adaptiveReorderingEnabled;
+  private List<BaseFilterOperator> _filterOperators;
+  private boolean _reordered;
 
   public AndFilterOperator(List<BaseFilterOperator> filterOperators, @Nullable Map<String, String> queryOptions,
       int numDocs, boolean nullHandlingEnabled) {
     super(numDocs, nullHandlingEnabled);
     _filterOperators = filterOperators;
     _queryOptions = queryOptions;
+    _adaptiveReorderingEnabled =
+        queryOptions != null && QueryOptionsUtils.isAdaptiveAndFilterReorderingEnabled(queryOptions);
   }
 
   @Override
   protected BlockDocIdSet getTrues() {
+    reorderChildOperators();
     Tracing.activeRecording().setNumChildren(_filterOperators.size());
     List<BlockDocIdSet> blockDocIdSets = new ArrayList<>(_filterOperators.size());
     for (BaseFilterOperator filterOperator : _filterOperators) {
@@ -60,6 +93,7 @@ public class AndFilterOperator extends BaseFilterOperator {
 
   @Override
   protected BlockDocIdSet getFalses() {
+    reorderChildOperators();
     List<BlockDocIdSet> blockDocIdSets = new ArrayList<>(_filterOperators.size());
     for (BaseFilterOperator filterOperator : _filterOperators) {
       BlockDocIdSet trues = filterOperator.getTrues();
@@ -111,11 +145,107 @@ public class AndFilterOperator extends BaseFilterOperator {
 
   @Override
   public List<Operator> getChildOperators() {
+    reorderChildOperators();
     return new ArrayList<>(_filterOperators);
   }
 
   @Override
   public String toExplainString() {
-    return EXPLAIN_NAME;
+    return _adaptiveReorderingEnabled ? EXPLAIN_NAME + ADAPTIVE_REORDERING_EXPLAIN_ATTRIBUTE : EXPLAIN_NAME;
+  }
+
+  /**
+   * Reorders the scan based child filter operators (once) when adaptive reordering is enabled. The scan based children
+   * are evaluated on the same sampled docs, and ranked by {@code costPerDoc / (1 - selectivity)} so that the children
+   * which filter out the most docs per unit of cost are applied first. The cost is estimated statically instead of
+   * timed on the sampled docs, which would be too noisy at this scale. The other children keep their positions.
+   */
+  private void reorderChildOperators() {
+    if (!_adaptiveReorderingEnabled || _reordered) {
+      return;
+    }
+    _reordered = true;
+    if (_numDocs < MIN_NUM_DOCS_TO_REORDER) {
+      return;
+    }
+    int numFilterOperators = _filterOperators.size();
+    List<Integer> scanBasedIndexes = new ArrayList<>();
+    for (int i = 0; i < numFilterOperators; i++) {
+      BaseFilterOperator filterOperator = _filterOperators.get(i);
+      if (filterOperator instanceof ScanBasedFilterOperator || filterOperator instanceof ExpressionFilterOperator) {
+        scanBasedIndexes.add(i);
+      }
+    }
+    int numScanBasedFilterOperators = scanBasedIndexes.size();
+    if (numScanBasedFilterOperators < 2) {
+      return;
+    }
+
+    // Spread the sampled runs evenly across the segment to not be biased by the order of the docs
+    MutableRoaringBitmap sampledDocIds = new MutableRoaringBitmap();
+    for (int i = 0; i < NUM_SAMPLED_RUNS; i++) {
+      long startDocId = (long) i * _numDocs / NUM_SAMPLED_RUNS;
+      sampledDocIds.add(startDocId, startDocId + NUM_DOCS_PER_SAMPLED_RUN);
+    }
+    List<SampledFilterOperator> sampledFilterOperators = new ArrayList<>(numScanBasedFilterOperators);
+    for (int index : scanBasedIndexes) {
+      BaseFilterOperator filterOperator = _filterOperators.get(index);
+      BlockDocIdIterator docIdIterator = filterOperator.getTrues().iterator();
+      if (!(docIdIterator instanceof ScanBasedDocIdIterator)) {
+        // Cannot be sampled (e.g. IS_NULL on expression), keep it at the end
+        sampledFilterOperators.add(new SampledFilterOperator(filterOperator, Double.POSITIVE_INFINITY));
+        continue;
+      }
+      int numMatchingDocs = ((ScanBasedDocIdIterator) docIdIterator).applyAnd(sampledDocIds).getCardinality();
+      int numFilteredDocs = NUM_SAMPLED_DOCS - numMatchingDocs;
+      double rank = numFilteredDocs > 0 ? (double) getEstimatedCostPerDoc(filterOperator) * NUM_SAMPLED_DOCS
+          / numFilteredDocs : Double.MAX_VALUE;
+      sampledFilterOperators.add(new SampledFilterOperator(filterOperator, rank));
+    }
+    // NOTE: Sort is stable, so the children with the same rank keep the order decided within FilterOperatorUtils
+    sampledFilterOperators.sort(Comparator.comparingDouble(sampledFilterOperator -> sampledFilterOperator._rank));
+
+    List<BaseFilterOperator> filterOperators = new ArrayList<>(_filterOperators);
+    for (int i = 0; i < numScanBasedFilterOperators; i++) {
+      filterOperators.set(scanBasedIndexes.get(i), sampledFilterOperators.get(i)._filterOperator);
+    }
+    _filterOperators = filterOperators;
+    recordFilterOrder();
+  }
+
+  private static int getEstimatedCostPerDoc(BaseFilterOperator filterOperator) {
+    if (filterOperator instanceof ScanBasedFilterOperator) {
+      return ((ScanBasedFilterOperator) filterOperator).getEstimatedCostPerDoc();
+    }
+    return EXPRESSION_FILTER_COST_PER_DOC;
+  }
+
+  private void recordFilterOrder() {
+    InvocationRecording recording = Tracing.activeRecording();
+    boolean traceEnabled = TraceContext.traceEnabled();
+    if (recording.isEnabled() || traceEnabled) {
+      StringBuilder stringBuilder = new StringBuilder();
+      for (BaseFilterOperator filterOperator : _filterOperators) {
+        if (stringBuilder.length() > 0) {
+          stringBuilder.append(',');
+        }
+        stringBuilder.append(filterOperator.toExplainString());
+      }
+      String filterOrder = stringBuilder.toString();
+      recording.setFilterOrder(filterOrder);
+      if (traceEnabled) {
+        TraceContext.logInfo(EXPLAIN_NAME + " Order", filterOrder);
+      }
+    }
+  }
+
+  private static class SampledFilterOperator {
+    final BaseFilterOperator _filterOperator;
+    final double _rank;
+
+    SampledFilterOperator(BaseFilterOperator filterOperator, double rank) {
+      _filterOperator = filterOperator;
+      _rank = rank;
+    }
   }
 }
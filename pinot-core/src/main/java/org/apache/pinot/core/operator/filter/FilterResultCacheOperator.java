@@ -0,0 +1,221 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalInt;
+import javax.annotation.Nullable;
+import org.apache.pinot.core.common.BlockDocIdIterator;
+import org.apache.pinot.core.common.BlockDocIdSet;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.dociditerators.BitmapBasedDocIdIterator;
+import org.apache.pinot.core.operator.dociditerators.ScanBasedDocIdIterator;
+import org.apache.pinot.core.operator.dociditerators.SortedDocIdIterator;
+import org.apache.pinot.core.plan.FilterResultCache;
+import org.apache.pinot.segment.spi.Constants;
+import org.roaringbitmap.BatchIterator;
+import org.roaringbitmap.RoaringBitmapWriter;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * The <code>FilterResultCacheOperator</code> class puts the matching doc ids of the wrapped filter operator into the
+ * {@link FilterResultCache} as they are consumed. The filter is still evaluated lazily (e.g. selection queries with
+ * LIMIT can terminate early) and reports the entries scanned. The doc ids are only cached when all of them are iterated
+ * in order, or when the filter is already solved into a bitmap.
+ */
+public class FilterResultCacheOperator extends BaseFilterOperator {
+  private static final String EXPLAIN_NAME = "FILTER_RESULT_CACHE";
+
+  private final BaseFilterOperator _filterOperator;
+  private final FilterResultCache _cache;
+  private final FilterResultCache.Key _key;
+
+  public FilterResultCacheOperator(BaseFilterOperator filterOperator, FilterResultCache cache,
+      FilterResultCache.Key key, int numDocs, boolean nullHandlingEnabled) {
+    super(numDocs, nullHandlingEnabled);
+    _filterOperator = filterOperator;
+    _cache = cache;
+    _key = key;
+  }
+
+  @Override
+  public List<Operator> getChildOperators() {
+    return Collections.singletonList(_filterOperator);
+  }
+
+  @Nullable
+  @Override
+  public String toExplainString() {
+    return EXPLAIN_NAME;
+  }
+
+  @Override
+  protected BlockDocIdSet getTrues() {
+    return new CachingDocIdSet(_filterOperator.nextBlock().getBlockDocIdSet());
+  }
+
+  @Override
+  protected BlockDocIdSet getNulls() {
+    return _filterOperator.getNulls();
+  }
+
+  @Override
+  public boolean isResultEmpty() {
+    return _filterOperator.isResultEmpty();
+  }
+
+  @Override
+  public boolean isResultMatchingAll() {
+    return _filterOperator.isResultMatchingAll();
+  }
+
+  @Override
+  public boolean canOptimizeCount() {
+    return _filterOperator.canOptimizeCount();
+  }
+
+  @Override
+  public int getNumMatchingDocs() {
+    return _filterOperator.getNumMatchingDocs();
+  }
+
+  @Override
+  public boolean canProduceBitmaps() {
+    return _filterOperator.canProduceBitmaps();
+  }
+
+  @Override
+  public BitmapCollection getBitmaps() {
+    BitmapCollection bitmaps = _filterOperator.getBitmaps();
+    // NOTE: Bitmaps produced by the filter operator do not handle nulls
+    if (_nullHandlingEnabled) {
+      return bitmaps;
+    }
+    return new BitmapCollection(_numDocs, false, _cache.put(_key, bitmaps.reduce().toMutableRoaringBitmap()));
+  }
+
+  /**
+   * Doc id set caching the doc ids returned by its iterator.
+   */
+  private class CachingDocIdSet implements BlockDocIdSet {
+    final BlockDocIdSet _docIdSet;
+
+    CachingDocIdSet(BlockDocIdSet docIdSet) {
+      _docIdSet = docIdSet;
+    }
+
+    @Override
+    public BlockDocIdIterator iterator() {
+      BlockDocIdIterator docIdIterator = _docIdSet.iterator();
+      if (docIdIterator instanceof BitmapBasedDocIdIterator) {
+        // Already solved into a bitmap
+        _cache.put(_key, ((BitmapBasedDocIdIterator) docIdIterator).getDocIds().toMutableRoaringBitmap());
+        return docIdIterator;
+      }
+      if (docIdIterator instanceof SortedDocIdIterator) {
+        // Cheap to evaluate, and the doc id ranges are used when intersected with other iterators
+        return docIdIterator;
+      }
+      // NOTE: Keep the scan based iterator type so that it can still be intersected efficiently
+      if (docIdIterator instanceof ScanBasedDocIdIterator) {
+        return new CachingScanBasedDocIdIterator((ScanBasedDocIdIterator) docIdIterator);
+      }
+      return new CachingDocIdIterator(docIdIterator);
+    }
+
+    @Override
+    public long getNumEntriesScannedInFilter() {
+      return _docIdSet.getNumEntriesScannedInFilter();
+    }
+
+    @Override
+    public BlockDocIdSet toNonScanDocIdSet() {
+      BlockDocIdSet nonScanDocIdSet = _docIdSet.toNonScanDocIdSet();
+      return nonScanDocIdSet != _docIdSet ? new CachingDocIdSet(nonScanDocIdSet) : this;
+    }
+  }
+
+  /**
+   * Doc id iterator recording the doc ids, which are cached when the iteration is done. Recording is stopped when the
+   * iteration skips doc ids.
+   */
+  private class CachingDocIdIterator implements BlockDocIdIterator {
+    final BlockDocIdIterator _docIdIterator;
+    RoaringBitmapWriter<MutableRoaringBitmap> _docIdsWriter =
+        RoaringBitmapWriter.bufferWriter().runCompress(false).get();
+
+    CachingDocIdIterator(BlockDocIdIterator docIdIterator) {
+      _docIdIterator = docIdIterator;
+    }
+
+    @Override
+    public int next() {
+      int docId = _docIdIterator.next();
+      if (_docIdsWriter != null) {
+        if (docId != Constants.EOF) {
+          _docIdsWriter.add(docId);
+        } else {
+          _cache.put(_key, _docIdsWriter.get());
+          _docIdsWriter = null;
+        }
+      }
+      return docId;
+    }
+
+    @Override
+    public int advance(int targetDocId) {
+      _docIdsWriter = null;
+      return _docIdIterator.advance(targetDocId);
+    }
+  }
+
+  private class CachingScanBasedDocIdIterator extends CachingDocIdIterator implements ScanBasedDocIdIterator {
+    final ScanBasedDocIdIterator _scanBasedDocIdIterator;
+
+    CachingScanBasedDocIdIterator(ScanBasedDocIdIterator scanBasedDocIdIterator) {
+      super(scanBasedDocIdIterator);
+      _scanBasedDocIdIterator = scanBasedDocIdIterator;
+    }
+
+    @Override
+    public MutableRoaringBitmap applyAnd(BatchIterator batchIterator, OptionalInt firstDoc, OptionalInt lastDoc) {
+      _docIdsWriter = null;
+      return _scanBasedDocIdIterator.applyAnd(batchIterator, firstDoc, lastDoc);
+    }
+
+    @Override
+    public MutableRoaringBitmap applyAnd(ImmutableRoaringBitmap docIds) {
+      _docIdsWriter = null;
+      return _scanBasedDocIdIterator.applyAnd(docIds);
+    }
+
+    @Override
+    public long getNumEntriesScanned() {
+      return _scanBasedDocIdIterator.getNumEntriesScanned();
+    }
+
+    @Override
+    public float getEstimatedCardinality(boolean isAndDocIdSet) {
+      return _scanBasedDocIdIterator.getEstimatedCardinality(isAndDocIdSet);
+    }
+  }
+}
@@ -28,8 +28,10 @@ import org.apache.pinot.core.operator.docidsets.MVScanDocIdSet;
 import org.apache.pinot.core.operator.docidsets.SVScanDocIdSet;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
 import org.apache.pinot.segment.spi.datasource.DataSource;
 import org.apache.pinot.segment.spi.datasource.DataSourceMetadata;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
 
 
 public class ScanBasedFilterOperator extends BaseColumnFilterOperator {
@@ -77,6 +79,27 @@ public class ScanBasedFilterOperator extends BaseColumnFilterOperator {
     return stringBuilder.append(')').toString();
   }
 
+  /**
+   * Returns the estimated relative cost of evaluating the predicate on a doc, based on the encoding and data type of
+   * the column: dictionary ids and fixed width raw values are cheap to read and compare, while variable width raw
+   * values are more expensive, and reading from compressed chunks or multi-value entries adds to the cost.
+   */
+  public int getEstimatedCostPerDoc() {
+    ForwardIndexReader<?> forwardIndex = _dataSource.getForwardIndex();
+    assert forwardIndex != null;
+    int cost;
+    if (forwardIndex.isDictionaryEncoded()) {
+      cost = 1;
+    } else {
+      cost = forwardIndex.getStoredType().isFixedWidth() ? 2 : 8;
+      ChunkCompressionType compressionType = forwardIndex.getCompressionType();
+      if (compressionType != null && compressionType != ChunkCompressionType.PASS_THROUGH) {
+        cost *= 2;
+      }
+    }
+    return _dataSource.getDataSourceMetadata().isSingleValue() ? cost : 2 * cost;
+  }
+
   /**
    * Returns the metadata of the data source associated with the scan filter.
    * TODO: Replace this with a priority method for all filter operators
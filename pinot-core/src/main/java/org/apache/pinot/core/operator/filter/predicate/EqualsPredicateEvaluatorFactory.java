@@ -125,13 +125,12 @@ public class EqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // reimplemented here to ensure applySV can be inlined, and the doc id is always copied with the cursor advanced
+      // only on match so that the loop is free of data-dependent branches
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        int value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += applySV(values[i]) ? 1 : 0;
       }
       return matches;
     }
@@ -190,13 +189,12 @@ public class EqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // reimplemented here to ensure applySV can be inlined, and the doc id is always copied with the cursor advanced
+      // only on match so that the loop is free of data-dependent branches
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        int value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += applySV(values[i]) ? 1 : 0;
       }
       return matches;
     }
@@ -243,13 +241,12 @@ public class EqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, long[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // reimplemented here to ensure applySV can be inlined, and the doc id is always copied with the cursor advanced
+      // only on match so that the loop is free of data-dependent branches
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        long value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += applySV(values[i]) ? 1 : 0;
       }
       return matches;
     }
@@ -291,13 +288,12 @@ public class EqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, float[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // reimplemented here to ensure applySV can be inlined, and the doc id is always copied with the cursor advanced
+      // only on match so that the loop is free of data-dependent branches
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        float value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += applySV(values[i]) ? 1 : 0;
       }
       return matches;
     }
@@ -339,13 +335,12 @@ public class EqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, double[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // reimplemented here to ensure applySV can be inlined, and the doc id is always copied with the cursor advanced
+      // only on match so that the loop is free of data-dependent branches
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        double value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += applySV(values[i]) ? 1 : 0;
       }
       return matches;
     }
@@ -120,13 +120,12 @@ public class NotEqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // reimplemented here to ensure applySV can be inlined, and the doc id is always copied with the cursor advanced
+      // only on match so that the loop is free of data-dependent branches
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        int value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += applySV(values[i]) ? 1 : 0;
       }
       return matches;
     }
@@ -175,13 +174,12 @@ public class NotEqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // reimplemented here to ensure applySV can be inlined, and the doc id is always copied with the cursor advanced
+      // only on match so that the loop is free of data-dependent branches
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        int value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += applySV(values[i]) ? 1 : 0;
       }
       return matches;
     }
@@ -217,13 +215,12 @@ public class NotEqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, long[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // reimplemented here to ensure applySV can be inlined, and the doc id is always copied with the cursor advanced
+      // only on match so that the loop is free of data-dependent branches
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        long value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += applySV(values[i]) ? 1 : 0;
       }
       return matches;
     }
@@ -259,13 +256,12 @@ public class NotEqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, float[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // reimplemented here to ensure applySV can be inlined, and the doc id is always copied with the cursor advanced
+      // only on match so that the loop is free of data-dependent branches
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        float value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += applySV(values[i]) ? 1 : 0;
       }
       return matches;
     }
@@ -301,13 +297,12 @@ public class NotEqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, double[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // reimplemented here to ensure applySV can be inlined, and the doc id is always copied with the cursor advanced
+      // only on match so that the loop is free of data-dependent branches
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        double value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += applySV(values[i]) ? 1 : 0;
       }
       return matches;
     }
@@ -218,18 +218,17 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public boolean applySV(int dictId) {
-      return _startDictId <= dictId && _endDictId > dictId;
+      return _startDictId <= dictId & _endDictId > dictId;
     }
 
     @Override
     public int applySV(int limit, int[] docIds, int[] dictIds) {
-      // reimplemented here to ensure applySV can be inlined
+      // reimplemented here to ensure applySV can be inlined, and the doc id is always copied with the cursor advanced
+      // only on match so that the loop is free of data-dependent branches
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        int dictId = dictIds[i];
-        if (applySV(dictId)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += applySV(dictIds[i]) ? 1 : 0;
       }
       return matches;
     }
@@ -362,18 +361,17 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public boolean applySV(int value) {
-      return value >= _inclusiveLowerBound && value <= _inclusiveUpperBound;
+      return value >= _inclusiveLowerBound & value <= _inclusiveUpperBound;
     }
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // reimplemented here to ensure applySV can be inlined, and the doc id is always copied with the cursor advanced
+      // only on match so that the loop is free of data-dependent branches
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        int value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += applySV(values[i]) ? 1 : 0;
       }
       return matches;
     }
@@ -418,18 +416,17 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public boolean applySV(long value) {
-      return value >= _inclusiveLowerBound && value <= _inclusiveUpperBound;
+      return value >= _inclusiveLowerBound & value <= _inclusiveUpperBound;
     }
 
     @Override
     public int applySV(int limit, int[] docIds, long[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // reimplemented here to ensure applySV can be inlined, and the doc id is always copied with the cursor advanced
+      // only on match so that the loop is free of data-dependent branches
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        long value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += applySV(values[i]) ? 1 : 0;
       }
       return matches;
     }
@@ -474,18 +471,17 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public boolean applySV(float value) {
-      return value >= _inclusiveLowerBound && value <= _inclusiveUpperBound;
+      return value >= _inclusiveLowerBound & value <= _inclusiveUpperBound;
     }
 
     @Override
     public int applySV(int limit, int[] docIds, float[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // reimplemented here to ensure applySV can be inlined, and the doc id is always copied with the cursor advanced
+      // only on match so that the loop is free of data-dependent branches
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        float value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += applySV(values[i]) ? 1 : 0;
       }
       return matches;
     }
@@ -530,18 +526,17 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public boolean applySV(double value) {
-      return value >= _inclusiveLowerBound && value <= _inclusiveUpperBound;
+      return value >= _inclusiveLowerBound & value <= _inclusiveUpperBound;
     }
 
     @Override
     public int applySV(int limit, int[] docIds, double[] values) {
-      // reimplemented here to ensure applySV can be inlined
+      // reimplemented here to ensure applySV can be inlined, and the doc id is always copied with the cursor advanced
+      // only on match so that the loop is free of data-dependent branches
       int matches = 0;
       for (int i = 0; i < limit; i++) {
-        double value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
+        docIds[matches] = docIds[i];
+        matches += applySV(values[i]) ? 1 : 0;
       }
       return matches;
     }
@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.query;
+
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.BaseOperator;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.plan.SegmentResultCache;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.segment.spi.IndexSegment;
+
+
+/**
+ * The <code>SegmentResultCacheOperator</code> class serves the segment level results from the
+ * {@link SegmentResultCache} when they are cached, or executes the child operator and caches its results otherwise.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class SegmentResultCacheOperator extends BaseOperator<BaseResultsBlock> {
+  private static final String EXPLAIN_NAME = "SEGMENT_RESULT_CACHE";
+
+  private final QueryContext _queryContext;
+  private final IndexSegment _indexSegment;
+  private final SegmentResultCache _cache;
+  private final SegmentResultCache.Key _key;
+  private final SegmentResultCache.CachedResult _cachedResult;
+  private final Operator<BaseResultsBlock> _childOperator;
+
+  /**
+   * Constructor for the operator, where exactly one of the cached result and the child operator should be provided.
+   */
+  public SegmentResultCacheOperator(QueryContext queryContext, IndexSegment indexSegment, SegmentResultCache cache,
+      SegmentResultCache.Key key, @Nullable SegmentResultCache.CachedResult cachedResult,
+      @Nullable Operator childOperator) {
+    assert (cachedResult == null) != (childOperator == null);
+    _queryContext = queryContext;
+    _indexSegment = indexSegment;
+    _cache = cache;
+    _key = key;
+    _cachedResult = cachedResult;
+    _childOperator = childOperator;
+  }
+
+  @Override
+  protected BaseResultsBlock getNextBlock() {
+    if (_cachedResult != null) {
+      return _cachedResult.toResultsBlock(_queryContext);
+    }
+    return _cache.put(_key, _childOperator.nextBlock(), _childOperator.getExecutionStatistics().getNumDocsScanned());
+  }
+
+  @Override
+  public List<Operator> getChildOperators() {
+    return _childOperator != null ? Collections.singletonList(_childOperator) : Collections.emptyList();
+  }
+
+  @Override
+  public IndexSegment getIndexSegment() {
+    return _indexSegment;
+  }
+
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    if (_cachedResult != null) {
+      // Nothing is scanned when the results are served from the cache
+      return new ExecutionStatistics(_cachedResult.getNumDocsScanned(), 0, 0,
+          _indexSegment.getSegmentMetadata().getTotalDocs());
+    }
+    return _childOperator.getExecutionStatistics();
+  }
+
+  @Override
+  public String toExplainString() {
+    return EXPLAIN_NAME;
+  }
+}
@@ -39,6 +39,7 @@ import org.apache.pinot.core.operator.filter.BitmapBasedFilterOperator;
 import org.apache.pinot.core.operator.filter.EmptyFilterOperator;
 import org.apache.pinot.core.operator.filter.ExpressionFilterOperator;
 import org.apache.pinot.core.operator.filter.FilterOperatorUtils;
+import org.apache.pinot.core.operator.filter.FilterResultCacheOperator;
 import org.apache.pinot.core.operator.filter.H3InclusionIndexFilterOperator;
 import org.apache.pinot.core.operator.filter.H3IndexFilterOperator;
 import org.apache.pinot.core.operator.filter.JsonMatchFilterOperator;
@@ -52,8 +53,10 @@ import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluatorProvide
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.segment.local.realtime.impl.invertedindex.NativeMutableTextIndex;
 import org.apache.pinot.segment.local.segment.index.readers.text.NativeTextIndexReader;
+import org.apache.pinot.segment.spi.ImmutableSegment;
 import org.apache.pinot.segment.spi.IndexSegment;
 import org.apache.pinot.segment.spi.SegmentContext;
+import org.apache.pinot.segment.spi.SegmentMetadata;
 import org.apache.pinot.segment.spi.datasource.DataSource;
 import org.apache.pinot.segment.spi.index.reader.JsonIndexReader;
 import org.apache.pinot.segment.spi.index.reader.NullValueVectorReader;
@@ -61,6 +64,7 @@ import org.apache.pinot.segment.spi.index.reader.TextIndexReader;
 import org.apache.pinot.segment.spi.index.reader.VectorIndexReader;
 import org.apache.pinot.spi.config.table.FieldConfig;
 import org.apache.pinot.spi.exception.BadQueryRequestException;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
 
@@ -90,7 +94,7 @@ public class FilterPlanNode implements PlanNode {
     int numDocs = _indexSegment.getSegmentMetadata().getTotalDocs();
 
     if (_filter != null) {
-      BaseFilterOperator filterOperator = constructPhysicalOperator(_filter, numDocs);
+      BaseFilterOperator filterOperator = getFilterOperator(numDocs);
       if (queryableDocIdsSnapshot != null) {
         BaseFilterOperator validDocFilter = new BitmapBasedFilterOperator(queryableDocIdsSnapshot, false, numDocs);
         return FilterOperatorUtils.getAndFilterOperator(_queryContext, Arrays.asList(filterOperator, validDocFilter),
@@ -105,6 +109,43 @@ public class FilterPlanNode implements PlanNode {
     }
   }
 
+  /**
+   * Returns the filter operator for the filter, where the filter result is fetched from (or put into when the filter is
+   * executed) the {@link FilterResultCache} when possible.
+   */
+  private BaseFilterOperator getFilterOperator(int numDocs) {
+    FilterResultCache filterResultCache = FilterResultCache.getInstance();
+    if (filterResultCache == null || !canUseFilterResultCache()) {
+      return constructPhysicalOperator(_filter, numDocs);
+    }
+    SegmentMetadata segmentMetadata = _indexSegment.getSegmentMetadata();
+    FilterResultCache.Key key =
+        new FilterResultCache.Key(segmentMetadata.getTableName(), _indexSegment.getSegmentName(),
+            segmentMetadata.getCrc(), _queryContext.isNullHandlingEnabled(), _filter);
+    ImmutableRoaringBitmap docIds = filterResultCache.get(key);
+    if (docIds != null) {
+      return new BitmapBasedFilterOperator(docIds, false, numDocs);
+    }
+    BaseFilterOperator filterOperator = constructPhysicalOperator(_filter, numDocs);
+    // Do not cache the trivial results, or a single predicate already solved with a bitmap index
+    if (filterOperator.isResultEmpty() || filterOperator.isResultMatchingAll() || (
+        _filter.getType() == FilterContext.Type.PREDICATE && filterOperator.canProduceBitmaps())) {
+      return filterOperator;
+    }
+    return new FilterResultCacheOperator(filterOperator, filterResultCache, key, numDocs,
+        _queryContext.isNullHandlingEnabled());
+  }
+
+  /**
+   * Filter result cache only applies to immutable segments without star-tree (star-tree relies on the predicate
+   * evaluators collected when constructing the filter operator), and is not used for explain queries.
+   */
+  private boolean canUseFilterResultCache() {
+    return _indexSegment instanceof ImmutableSegment && _indexSegment.getStarTrees() == null
+        && !_queryContext.isSkipFilterResultCache() && !_queryContext.isExplain()
+        && _indexSegment.getSegmentMetadata().getCrc() != null;
+  }
+
   /**
    * Returns a mapping from predicates to their evaluators.
    */
@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.common.request.context.FilterContext;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Server level cache of the filter results (matching doc ids) of the immutable segments, keyed on the table name,
+ * segment name, segment CRC, null handling and the normalized filter expression (see
+ * {@link #normalize(FilterContext)}). The doc ids are stored as serialized bitmaps in direct (off-heap) buffers, and
+ * the cache is bounded by the total size of the serialized bitmaps.
+ *
+ * <p>The cache is disabled by default, and enabled via the query executor config
+ * {@code pinot.server.query.executor.filter.result.cache.max.size.bytes}. The entries of a segment are invalidated when
+ * the segment is closed (replaced or unloaded) by the table data manager. Hits and misses are reported via
+ * {@link ServerMeter#FILTER_RESULT_CACHE_HITS} and {@link ServerMeter#FILTER_RESULT_CACHE_MISSES}.
+ */
+public class FilterResultCache extends SegmentKeyedCache<FilterResultCache.Key, ImmutableRoaringBitmap> {
+  @VisibleForTesting
+  FilterResultCache(long maxSizeBytes) {
+    super(maxSizeBytes, ServerMeter.FILTER_RESULT_CACHE_HITS, ServerMeter.FILTER_RESULT_CACHE_MISSES);
+  }
+
+  /**
+   * Initializes the server level filter result cache with the given max size in bytes, or disables it when the max
+   * size is not positive.
+   */
+  public static void init(long maxSizeBytes) {
+    init(FilterResultCache.class, maxSizeBytes, FilterResultCache::new);
+  }
+
+  /**
+   * Returns the server level filter result cache, or {@code null} if it is disabled.
+   */
+  @Nullable
+  public static FilterResultCache getInstance() {
+    return getInstance(FilterResultCache.class);
+  }
+
+  @Override
+  protected long getSizeInBytes(Key key, ImmutableRoaringBitmap docIds) {
+    return key._filter.toString().length() + docIds.serializedSizeInBytes();
+  }
+
+  /**
+   * Caches and returns the given matching doc ids, which are run-optimized in place.
+   */
+  public ImmutableRoaringBitmap put(Key key, MutableRoaringBitmap docIds) {
+    docIds.runOptimize();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(docIds.serializedSizeInBytes());
+    docIds.serialize(buffer);
+    buffer.flip();
+    ImmutableRoaringBitmap cachedDocIds = new ImmutableRoaringBitmap(buffer);
+    cacheValue(key, cachedDocIds);
+    return cachedDocIds;
+  }
+
+  /**
+   * Returns the filter with the children of the AND and OR filters in a canonical order, so that the filters only
+   * differing in the order of the children share the cached results. The order is based on the hash code of the
+   * children, so filters with colliding children might not be normalized to the same filter, which only causes cache
+   * misses.
+   */
+  public static FilterContext normalize(FilterContext filter) {
+    List<FilterContext> children = filter.getChildren();
+    switch (filter.getType()) {
+      case AND:
+      case OR:
+        List<FilterContext> normalizedChildren = new ArrayList<>(children.size());
+        for (FilterContext child : children) {
+          normalizedChildren.add(normalize(child));
+        }
+        normalizedChildren.sort(Comparator.comparingInt(FilterContext::hashCode));
+        return filter.getType() == FilterContext.Type.AND ? FilterContext.forAnd(normalizedChildren)
+            : FilterContext.forOr(normalizedChildren);
+      case NOT:
+        return FilterContext.forNot(normalize(children.get(0)));
+      default:
+        return filter;
+    }
+  }
+
+  public static class Key extends SegmentKeyedCache.Key {
+    private final boolean _nullHandlingEnabled;
+    private final FilterContext _filter;
+
+    public Key(String tableName, String segmentName, String segmentCrc, boolean nullHandlingEnabled,
+        FilterContext filter) {
+      super(tableName, segmentName, segmentCrc);
+      _nullHandlingEnabled = nullHandlingEnabled;
+      _filter = normalize(filter);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!super.equals(o)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return _nullHandlingEnabled == key._nullHandlingEnabled && _filter.equals(key._filter);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(super.hashCode(), _nullHandlingEnabled, _filter);
+    }
+  }
+}
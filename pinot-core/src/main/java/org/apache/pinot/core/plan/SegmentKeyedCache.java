@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Base class of the server level caches of the immutable segment results, keyed on the table name, segment name,
+ * segment CRC and the query dependent parts defined by the subclass key. The cache is bounded by the estimated size of
+ * the entries.
+ *
+ * <p>Each type of cache has at most one server level instance, which is enabled via {@link #init(Class, long,
+ * LongFunction)}. The entries of a segment are invalidated from all the enabled caches via
+ * {@link #invalidateSegment(String, String, String)} when the segment is closed (replaced or unloaded) by the table
+ * data manager.
+ */
+public abstract class SegmentKeyedCache<K extends SegmentKeyedCache.Key, V> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentKeyedCache.class);
+  // Rough overhead of each cache entry besides the size estimated by the subclass
+  private static final int ENTRY_OVERHEAD_BYTES = 256;
+  // Enabled cache instances by type
+  private static final Map<Class<?>, SegmentKeyedCache<?, ?>> INSTANCES = new ConcurrentHashMap<>();
+
+  private final Cache<K, V> _cache;
+  private final ServerMeter _hitsMeter;
+  private final ServerMeter _missesMeter;
+
+  protected SegmentKeyedCache(long maxSizeBytes, ServerMeter hitsMeter, ServerMeter missesMeter) {
+    _cache = CacheBuilder.newBuilder().maximumWeight(maxSizeBytes).weigher(
+            (K key, V value) -> (int) Math.min(Integer.MAX_VALUE, ENTRY_OVERHEAD_BYTES + getSizeInBytes(key, value)))
+        .build();
+    _hitsMeter = hitsMeter;
+    _missesMeter = missesMeter;
+  }
+
+  /**
+   * Initializes the server level cache of the given type with the given max size in bytes, or disables it when the max
+   * size is not positive.
+   */
+  protected static <C extends SegmentKeyedCache<?, ?>> void init(Class<C> cacheClass, long maxSizeBytes,
+      LongFunction<C> cacheFactory) {
+    if (maxSizeBytes > 0) {
+      LOGGER.info("Initializing {} with max size: {} bytes", cacheClass.getSimpleName(), maxSizeBytes);
+      INSTANCES.put(cacheClass, cacheFactory.apply(maxSizeBytes));
+    } else {
+      INSTANCES.remove(cacheClass);
+    }
+  }
+
+  /**
+   * Returns the server level cache of the given type, or {@code null} if it is disabled.
+   */
+  @Nullable
+  protected static <C extends SegmentKeyedCache<?, ?>> C getInstance(Class<C> cacheClass) {
+    return cacheClass.cast(INSTANCES.get(cacheClass));
+  }
+
+  /**
+   * Invalidates all the cached entries of the given segment from the enabled caches. The segment CRC is matched so that
+   * the entries of the segment replacing the closed one are kept.
+   */
+  public static void invalidateSegment(String tableName, String segmentName, @Nullable String segmentCrc) {
+    if (segmentCrc == null) {
+      return;
+    }
+    for (SegmentKeyedCache<?, ?> cache : INSTANCES.values()) {
+      cache._cache.asMap().keySet().removeIf(key -> key.isSegment(tableName, segmentName, segmentCrc));
+    }
+  }
+
+  /**
+   * Returns the estimated size in bytes of the given entry, besides the fixed overhead of each entry.
+   */
+  protected abstract long getSizeInBytes(K key, V value);
+
+  /**
+   * Returns the cached value for the given key, or {@code null} if it is not cached.
+   */
+  @Nullable
+  public V get(K key) {
+    V value = _cache.getIfPresent(key);
+    ServerMetrics.get().addMeteredGlobalValue(value != null ? _hitsMeter : _missesMeter, 1L);
+    return value;
+  }
+
+  protected void cacheValue(K key, V value) {
+    _cache.put(key, value);
+  }
+
+  @VisibleForTesting
+  long size() {
+    return _cache.size();
+  }
+
+  /**
+   * Key of the cached entries, where the subclasses add the query dependent parts.
+   */
+  public static class Key {
+    private final String _tableName;
+    private final String _segmentName;
+    private final String _segmentCrc;
+
+    public Key(String tableName, String segmentName, String segmentCrc) {
+      _tableName = tableName;
+      _segmentName = segmentName;
+      _segmentCrc = segmentCrc;
+    }
+
+    boolean isSegment(String tableName, String segmentName, String segmentCrc) {
+      return _segmentName.equals(segmentName) && _segmentCrc.equals(segmentCrc) && _tableName.equals(tableName);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return _tableName.equals(key._tableName) && _segmentName.equals(key._segmentName) && _segmentCrc.equals(
+          key._segmentCrc);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_tableName, _segmentName, _segmentCrc);
+    }
+  }
+}
@@ -0,0 +1,382 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.CustomObject;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.common.request.context.ExpressionContext;
+import org.apache.pinot.common.request.context.FilterContext;
+import org.apache.pinot.common.request.context.OrderByExpressionContext;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.common.ObjectSerDeUtils;
+import org.apache.pinot.core.data.table.IntermediateRecord;
+import org.apache.pinot.core.data.table.Record;
+import org.apache.pinot.core.operator.blocks.results.AggregationResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
+import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import org.apache.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Server level cache of the segment level intermediate results of the aggregation and group-by queries on the immutable
+ * segments, keyed on the table name, segment name, segment CRC and the fingerprint of the query (see
+ * {@link #getQueryFingerprint(QueryContext)}). The cache is bounded by the estimated size of the cached results.
+ *
+ * <p>Intermediate results are merged in place by the combine operator, so mutable intermediate results (e.g. sets and
+ * sketches) are stored serialized and deserialized on each hit, while immutable values (numbers, strings and bytes)
+ * are shared.
+ *
+ * <p>The cache is disabled by default, and enabled via the query executor config
+ * {@code pinot.server.query.executor.segment.result.cache.max.size.bytes}. The entries of a segment are invalidated
+ * when the segment is closed (replaced or unloaded) by the table data manager. Hits and misses are reported via
+ * {@link ServerMeter#SEGMENT_RESULT_CACHE_HITS} and {@link ServerMeter#SEGMENT_RESULT_CACHE_MISSES}.
+ */
+@SuppressWarnings("rawtypes")
+public class SegmentResultCache extends SegmentKeyedCache<SegmentResultCache.Key, SegmentResultCache.CachedResult> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultCache.class);
+  // Rough overhead of each cached row and value
+  private static final int ROW_OVERHEAD_BYTES = 32;
+  private static final int VALUE_OVERHEAD_BYTES = 24;
+
+  @VisibleForTesting
+  SegmentResultCache(long maxSizeBytes) {
+    super(maxSizeBytes, ServerMeter.SEGMENT_RESULT_CACHE_HITS, ServerMeter.SEGMENT_RESULT_CACHE_MISSES);
+  }
+
+  /**
+   * Initializes the server level segment result cache with the given max size in bytes, or disables it when the max
+   * size is not positive.
+   */
+  public static void init(long maxSizeBytes) {
+    init(SegmentResultCache.class, maxSizeBytes, SegmentResultCache::new);
+  }
+
+  /**
+   * Returns the server level segment result cache, or {@code null} if it is disabled.
+   */
+  @Nullable
+  public static SegmentResultCache getInstance() {
+    return getInstance(SegmentResultCache.class);
+  }
+
+  @Override
+  protected long getSizeInBytes(Key key, CachedResult cachedResult) {
+    return key._queryFingerprint._sizeInBytes + cachedResult._sizeInBytes;
+  }
+
+  /**
+   * Returns the fingerprint of the parts of the query that determine the segment level intermediate results of an
+   * aggregation or group-by query. Query options not captured here (e.g. timeout) do not affect the segment results.
+   */
+  public static QueryFingerprint getQueryFingerprint(QueryContext queryContext) {
+    return new QueryFingerprint(queryContext);
+  }
+
+  /**
+   * Caches the given segment level results block if it is supported, and returns the results block to be used in place
+   * of the given one. Must be invoked before the results block is merged because the intermediate results are modified
+   * in place when merged.
+   */
+  public BaseResultsBlock put(Key key, BaseResultsBlock resultsBlock, long numDocsScanned) {
+    DataSchema dataSchema;
+    List<Object[]> rows;
+    boolean numGroupsLimitReached;
+    if (resultsBlock instanceof AggregationResultsBlock) {
+      dataSchema = null;
+      rows = Collections.singletonList(((AggregationResultsBlock) resultsBlock).getResults().toArray());
+      numGroupsLimitReached = false;
+    } else if (resultsBlock instanceof GroupByResultsBlock) {
+      GroupByResultsBlock groupByResultsBlock = (GroupByResultsBlock) resultsBlock;
+      Collection<IntermediateRecord> intermediateRecords = groupByResultsBlock.getIntermediateRecords();
+      if (intermediateRecords == null) {
+        if (groupByResultsBlock.getAggregationGroupByResult() == null) {
+          return resultsBlock;
+        }
+        // NOTE: Some group-by results can only be extracted once (e.g. sorted funnel count), so convert them into
+        //       intermediate records to be shared by the cache and the returned results block.
+        intermediateRecords = toIntermediateRecords(groupByResultsBlock);
+        GroupByResultsBlock convertedResultsBlock =
+            new GroupByResultsBlock(groupByResultsBlock.getDataSchema(), intermediateRecords,
+                groupByResultsBlock.getQueryContext());
+        convertedResultsBlock.setNumGroupsLimitReached(groupByResultsBlock.isNumGroupsLimitReached());
+        resultsBlock = convertedResultsBlock;
+      }
+      dataSchema = groupByResultsBlock.getDataSchema().clone();
+      rows = new ArrayList<>(intermediateRecords.size());
+      for (IntermediateRecord intermediateRecord : intermediateRecords) {
+        rows.add(intermediateRecord._record.getValues());
+      }
+      numGroupsLimitReached = groupByResultsBlock.isNumGroupsLimitReached();
+    } else {
+      return resultsBlock;
+    }
+    try {
+      CachedValues cachedValues = new CachedValues(rows.size());
+      for (Object[] row : rows) {
+        cachedValues.addRow(row);
+      }
+      cacheValue(key, new CachedResult(dataSchema, cachedValues, numGroupsLimitReached, numDocsScanned));
+    } catch (Exception e) {
+      // Intermediate result without serializer, skip caching
+      LOGGER.debug("Caught exception while caching segment result, skip caching", e);
+    }
+    return resultsBlock;
+  }
+
+  private static List<IntermediateRecord> toIntermediateRecords(GroupByResultsBlock resultsBlock) {
+    QueryContext queryContext = resultsBlock.getQueryContext();
+    assert queryContext.getGroupByExpressions() != null && queryContext.getAggregationFunctions() != null;
+    int numGroupByExpressions = queryContext.getGroupByExpressions().size();
+    int numAggregationFunctions = queryContext.getAggregationFunctions().length;
+    int numColumns = numGroupByExpressions + numAggregationFunctions;
+    AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
+    List<IntermediateRecord> intermediateRecords = new ArrayList<>();
+    Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
+    while (groupKeyIterator.hasNext()) {
+      GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+      Object[] keys = groupKey._keys;
+      Object[] values = Arrays.copyOf(keys, numColumns);
+      int groupId = groupKey._groupId;
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        values[numGroupByExpressions + i] = aggregationGroupByResult.getResultForGroupId(i, groupId);
+      }
+      intermediateRecords.add(newIntermediateRecord(keys, values));
+    }
+    return intermediateRecords;
+  }
+
+  // NOTE: Key is shadowed by the cache key
+  private static IntermediateRecord newIntermediateRecord(Object[] keys, Object[] values) {
+    return new IntermediateRecord(new org.apache.pinot.core.data.table.Key(keys), new Record(values), null);
+  }
+
+  /**
+   * Cached intermediate results of a segment, which can be converted into a new results block on each hit.
+   */
+  public static class CachedResult {
+    // Null for aggregation only queries
+    private final DataSchema _dataSchema;
+    private final CachedValues _values;
+    private final boolean _numGroupsLimitReached;
+    private final long _numDocsScanned;
+    private final long _sizeInBytes;
+
+    private CachedResult(@Nullable DataSchema dataSchema, CachedValues values, boolean numGroupsLimitReached,
+        long numDocsScanned) {
+      _dataSchema = dataSchema;
+      _values = values;
+      _numGroupsLimitReached = numGroupsLimitReached;
+      _numDocsScanned = numDocsScanned;
+      _sizeInBytes = values._sizeInBytes;
+    }
+
+    public long getNumDocsScanned() {
+      return _numDocsScanned;
+    }
+
+    /**
+     * Returns a new results block with a copy of the cached intermediate results.
+     */
+    public BaseResultsBlock toResultsBlock(QueryContext queryContext) {
+      if (_dataSchema == null) {
+        return new AggregationResultsBlock(queryContext.getAggregationFunctions(),
+            new ArrayList<>(Arrays.asList(_values.getRow(0))), queryContext);
+      }
+      assert queryContext.getGroupByExpressions() != null;
+      int numGroupByExpressions = queryContext.getGroupByExpressions().size();
+      int numRows = _values.getNumRows();
+      List<IntermediateRecord> intermediateRecords = new ArrayList<>(numRows);
+      for (int i = 0; i < numRows; i++) {
+        Object[] values = _values.getRow(i);
+        intermediateRecords.add(newIntermediateRecord(Arrays.copyOf(values, numGroupByExpressions), values));
+      }
+      GroupByResultsBlock resultsBlock =
+          new GroupByResultsBlock(_dataSchema.clone(), intermediateRecords, queryContext);
+      resultsBlock.setNumGroupsLimitReached(_numGroupsLimitReached);
+      return resultsBlock;
+    }
+  }
+
+  /**
+   * Rows of cached values, where the mutable values are stored serialized.
+   */
+  private static class CachedValues {
+    final List<Object[]> _rows;
+    long _sizeInBytes;
+
+    CachedValues(int expectedNumRows) {
+      _rows = new ArrayList<>(expectedNumRows);
+    }
+
+    void addRow(Object[] values) {
+      int numValues = values.length;
+      Object[] row = new Object[numValues];
+      long sizeInBytes = ROW_OVERHEAD_BYTES;
+      for (int i = 0; i < numValues; i++) {
+        Object value = values[i];
+        if (value == null || value instanceof Integer || value instanceof Long || value instanceof Float
+            || value instanceof Double) {
+          row[i] = value;
+          sizeInBytes += VALUE_OVERHEAD_BYTES;
+        } else if (value instanceof String) {
+          row[i] = value;
+          sizeInBytes += VALUE_OVERHEAD_BYTES + 2L * ((String) value).length();
+        } else if (value instanceof ByteArray) {
+          row[i] = value;
+          sizeInBytes += VALUE_OVERHEAD_BYTES + ((ByteArray) value).length();
+        } else if (value instanceof BigDecimal) {
+          row[i] = value;
+          sizeInBytes += VALUE_OVERHEAD_BYTES + ((BigDecimal) value).unscaledValue().bitLength() / 8;
+        } else {
+          int objectType = ObjectSerDeUtils.ObjectType.getObjectType(value).getValue();
+          byte[] bytes = ObjectSerDeUtils.serialize(value, objectType);
+          row[i] = new SerializedValue(objectType, bytes);
+          sizeInBytes += VALUE_OVERHEAD_BYTES + bytes.length;
+        }
+      }
+      _rows.add(row);
+      _sizeInBytes += sizeInBytes;
+    }
+
+    int getNumRows() {
+      return _rows.size();
+    }
+
+    Object[] getRow(int rowId) {
+      Object[] row = _rows.get(rowId);
+      int numValues = row.length;
+      Object[] values = new Object[numValues];
+      for (int i = 0; i < numValues; i++) {
+        Object value = row[i];
+        if (value instanceof SerializedValue) {
+          SerializedValue serializedValue = (SerializedValue) value;
+          values[i] = ObjectSerDeUtils.deserialize(
+              new CustomObject(serializedValue._objectType, ByteBuffer.wrap(serializedValue._bytes)));
+        } else {
+          values[i] = value;
+        }
+      }
+      return values;
+    }
+  }
+
+  private static class SerializedValue {
+    final int _objectType;
+    final byte[] _bytes;
+
+    SerializedValue(int objectType, byte[] bytes) {
+      _objectType = objectType;
+      _bytes = bytes;
+    }
+  }
+
+  /**
+   * Query fingerprint compared structurally on the query context objects, so that queries only differing in the types
+   * of the literals (e.g. {@code 1} vs {@code '1'}) do not share the cached results.
+   */
+  public static class QueryFingerprint {
+    private final List<ExpressionContext> _selectExpressions;
+    private final FilterContext _filter;
+    private final List<ExpressionContext> _groupByExpressions;
+    private final FilterContext _havingFilter;
+    private final List<OrderByExpressionContext> _orderByExpressions;
+    private final int _limit;
+    private final boolean _nullHandlingEnabled;
+    private final int _numGroupsLimit;
+    private final int _minSegmentGroupTrimSize;
+    private final Map<ExpressionContext, ExpressionContext> _expressionOverrideHints;
+    // Rough size used to weigh the cache entries
+    private final int _sizeInBytes;
+
+    private QueryFingerprint(QueryContext queryContext) {
+      _selectExpressions = queryContext.getSelectExpressions();
+      _filter = queryContext.getFilter();
+      _groupByExpressions = queryContext.getGroupByExpressions();
+      _havingFilter = queryContext.getHavingFilter();
+      _orderByExpressions = queryContext.getOrderByExpressions();
+      _limit = queryContext.getLimit();
+      _nullHandlingEnabled = queryContext.isNullHandlingEnabled();
+      _numGroupsLimit = queryContext.getNumGroupsLimit();
+      _minSegmentGroupTrimSize = queryContext.getMinSegmentGroupTrimSize();
+      _expressionOverrideHints = queryContext.getExpressionOverrideHints();
+      _sizeInBytes = 2 * (String.valueOf(_selectExpressions).length() + String.valueOf(_filter).length()
+          + String.valueOf(_groupByExpressions).length() + String.valueOf(_havingFilter).length()
+          + String.valueOf(_orderByExpressions).length() + String.valueOf(_expressionOverrideHints).length());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof QueryFingerprint)) {
+        return false;
+      }
+      QueryFingerprint that = (QueryFingerprint) o;
+      return _limit == that._limit && _nullHandlingEnabled == that._nullHandlingEnabled
+          && _numGroupsLimit == that._numGroupsLimit && _minSegmentGroupTrimSize == that._minSegmentGroupTrimSize
+          && _selectExpressions.equals(that._selectExpressions) && Objects.equals(_filter, that._filter)
+          && Objects.equals(_groupByExpressions, that._groupByExpressions) && Objects.equals(_havingFilter,
+          that._havingFilter) && Objects.equals(_orderByExpressions, that._orderByExpressions)
+          && Objects.equals(_expressionOverrideHints, that._expressionOverrideHints);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_selectExpressions, _filter, _groupByExpressions, _havingFilter, _orderByExpressions, _limit,
+          _nullHandlingEnabled, _numGroupsLimit, _minSegmentGroupTrimSize, _expressionOverrideHints);
+    }
+  }
+
+  public static class Key extends SegmentKeyedCache.Key {
+    private final QueryFingerprint _queryFingerprint;
+
+    public Key(String tableName, String segmentName, String segmentCrc, QueryFingerprint queryFingerprint) {
+      super(tableName, segmentName, segmentCrc);
+      _queryFingerprint = queryFingerprint;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return super.equals(o) && _queryFingerprint.equals(((Key) o)._queryFingerprint);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(super.hashCode(), _queryFingerprint);
+    }
+  }
+}
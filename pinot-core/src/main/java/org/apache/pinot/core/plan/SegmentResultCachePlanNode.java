@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan;
+
+import org.apache.pinot.core.operator.query.SegmentResultCacheOperator;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.SegmentContext;
+import org.apache.pinot.segment.spi.SegmentMetadata;
+
+
+/**
+ * Wrapper of the segment-level plan node for aggregation and group-by queries which serves the segment results from the
+ * {@link SegmentResultCache}. The child plan is not run when the results are cached.
+ */
+public class SegmentResultCachePlanNode implements PlanNode {
+  private final PlanNode _childPlanNode;
+  private final IndexSegment _indexSegment;
+  private final QueryContext _queryContext;
+  private final SegmentResultCache _cache;
+  private final SegmentResultCache.QueryFingerprint _queryFingerprint;
+
+  public SegmentResultCachePlanNode(PlanNode childPlanNode, SegmentContext segmentContext, QueryContext queryContext,
+      SegmentResultCache cache, SegmentResultCache.QueryFingerprint queryFingerprint) {
+    _childPlanNode = childPlanNode;
+    _indexSegment = segmentContext.getIndexSegment();
+    _queryContext = queryContext;
+    _cache = cache;
+    _queryFingerprint = queryFingerprint;
+  }
+
+  /**
+   * Returns whether the results of the given segment can be cached. Only immutable segments without valid doc ids (i.e.
+   * not upsert or dedup) are cached because the results of the other segments can change over time.
+   */
+  public static boolean canUseSegmentResultCache(SegmentContext segmentContext) {
+    IndexSegment indexSegment = segmentContext.getIndexSegment();
+    return indexSegment instanceof ImmutableSegment && indexSegment.getValidDocIds() == null
+        && segmentContext.getQueryableDocIdsSnapshot() == null && indexSegment.getSegmentMetadata().getCrc() != null;
+  }
+
+  @Override
+  public SegmentResultCacheOperator run() {
+    SegmentMetadata segmentMetadata = _indexSegment.getSegmentMetadata();
+    SegmentResultCache.Key key =
+        new SegmentResultCache.Key(segmentMetadata.getTableName(), _indexSegment.getSegmentName(),
+            segmentMetadata.getCrc(), _queryFingerprint);
+    SegmentResultCache.CachedResult cachedResult = _cache.get(key);
+    if (cachedResult != null) {
+      return new SegmentResultCacheOperator(_queryContext, _indexSegment, _cache, key, cachedResult, null);
+    }
+    return new SegmentResultCacheOperator(_queryContext, _indexSegment, _cache, key, null, _childPlanNode.run());
+  }
+}
@@ -25,6 +25,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.pinot.common.metrics.ServerMetrics;
@@ -37,11 +38,14 @@ import org.apache.pinot.core.plan.AcquireReleaseColumnsSegmentPlanNode;
 import org.apache.pinot.core.plan.AggregationPlanNode;
 import org.apache.pinot.core.plan.CombinePlanNode;
 import org.apache.pinot.core.plan.DistinctPlanNode;
+import org.apache.pinot.core.plan.FilterResultCache;
 import org.apache.pinot.core.plan.GlobalPlanImplV0;
 import org.apache.pinot.core.plan.GroupByPlanNode;
 import org.apache.pinot.core.plan.InstanceResponsePlanNode;
 import org.apache.pinot.core.plan.Plan;
 import org.apache.pinot.core.plan.PlanNode;
+import org.apache.pinot.core.plan.SegmentResultCache;
+import org.apache.pinot.core.plan.SegmentResultCachePlanNode;
 import org.apache.pinot.core.plan.SelectionPlanNode;
 import org.apache.pinot.core.plan.StreamingInstanceResponsePlanNode;
 import org.apache.pinot.core.plan.StreamingSelectionPlanNode;
@@ -86,6 +90,15 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
   // set as pinot.server.query.executor.groupby.trim.threshold
   public static final String GROUPBY_TRIM_THRESHOLD_KEY = "groupby.trim.threshold";
   public static final int DEFAULT_GROUPBY_TRIM_THRESHOLD = 1_000_000;
+  // Instance config key for the max size of the filter result cache of the immutable segments, 0 to disable the cache
+  // Set as pinot.server.query.executor.filter.result.cache.max.size.bytes
+  public static final String FILTER_RESULT_CACHE_MAX_SIZE_BYTES_KEY = "filter.result.cache.max.size.bytes";
+  public static final long DEFAULT_FILTER_RESULT_CACHE_MAX_SIZE_BYTES = 0L;
+  // Instance config key for the max size of the aggregation segment result cache of the immutable segments, 0 to
+  // disable the cache
+  // Set as pinot.server.query.executor.segment.result.cache.max.size.bytes
+  public static final String SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES_KEY = "segment.result.cache.max.size.bytes";
+  public static final long DEFAULT_SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES = 0L;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(InstancePlanMakerImplV2.class);
 
@@ -128,6 +141,10 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     _groupByTrimThreshold = queryExecutorConfig.getProperty(GROUPBY_TRIM_THRESHOLD_KEY, DEFAULT_GROUPBY_TRIM_THRESHOLD);
     Preconditions.checkState(_groupByTrimThreshold > 0,
         "Invalid configurable: groupByTrimThreshold: %d must be positive", _groupByTrimThreshold);
+    FilterResultCache.init(queryExecutorConfig.getProperty(FILTER_RESULT_CACHE_MAX_SIZE_BYTES_KEY,
+        DEFAULT_FILTER_RESULT_CACHE_MAX_SIZE_BYTES));
+    SegmentResultCache.init(queryExecutorConfig.getProperty(SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES_KEY,
+        DEFAULT_SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES));
     LOGGER.info("Initialized plan maker with maxExecutionThreads: {}, maxInitialResultHolderCapacity: {}, "
             + "numGroupsLimit: {}, minSegmentGroupTrimSize: {}, minServerGroupTrimSize: {}, groupByTrimThreshold: {}",
         _maxExecutionThreads, _maxInitialResultHolderCapacity, _numGroupsLimit, _minSegmentGroupTrimSize,
@@ -141,20 +158,23 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     int numSegments = segmentContexts.size();
     List<PlanNode> planNodes = new ArrayList<>(numSegments);
     List<FetchContext> fetchContexts;
+    SegmentResultCache segmentResultCache = getSegmentResultCache(queryContext);
+    SegmentResultCache.QueryFingerprint queryFingerprint =
+        segmentResultCache != null ? SegmentResultCache.getQueryFingerprint(queryContext) : null;
     if (queryContext.isEnablePrefetch()) {
       fetchContexts = new ArrayList<>(numSegments);
       for (SegmentContext segmentContext : segmentContexts) {
         FetchContext fetchContext =
             _fetchPlanner.planFetchForProcessing(segmentContext.getIndexSegment(), queryContext);
         fetchContexts.add(fetchContext);
-        planNodes.add(
-            new AcquireReleaseColumnsSegmentPlanNode(makeSegmentPlanNode(segmentContext, queryContext), segmentContext,
-                fetchContext));
+        planNodes.add(new AcquireReleaseColumnsSegmentPlanNode(
+            makeSegmentPlanNode(segmentContext, queryContext, segmentResultCache, queryFingerprint), segmentContext,
+            fetchContext));
       }
     } else {
       fetchContexts = Collections.emptyList();
       for (SegmentContext segmentContext : segmentContexts) {
-        planNodes.add(makeSegmentPlanNode(segmentContext, queryContext));
+        planNodes.add(makeSegmentPlanNode(segmentContext, queryContext, segmentResultCache, queryFingerprint));
       }
     }
 
@@ -163,6 +183,30 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
         new InstanceResponsePlanNode(combinePlanNode, segmentContexts, fetchContexts, queryContext));
   }
 
+  /**
+   * Returns the segment result cache if it is enabled and applicable to the query, or {@code null} otherwise.
+   */
+  @Nullable
+  private static SegmentResultCache getSegmentResultCache(QueryContext queryContext) {
+    SegmentResultCache segmentResultCache = SegmentResultCache.getInstance();
+    if (segmentResultCache == null || queryContext.isSkipSegmentResultCache() || queryContext.isExplain()
+        || !QueryContextUtils.isAggregationQuery(queryContext)) {
+      return null;
+    }
+    return segmentResultCache;
+  }
+
+  private PlanNode makeSegmentPlanNode(SegmentContext segmentContext, QueryContext queryContext,
+      @Nullable SegmentResultCache segmentResultCache,
+      @Nullable SegmentResultCache.QueryFingerprint queryFingerprint) {
+    PlanNode planNode = makeSegmentPlanNode(segmentContext, queryContext);
+    if (segmentResultCache != null && SegmentResultCachePlanNode.canUseSegmentResultCache(segmentContext)) {
+      return new SegmentResultCachePlanNode(planNode, segmentContext, queryContext, segmentResultCache,
+          queryFingerprint);
+    }
+    return planNode;
+  }
+
   private void applyQueryOptions(QueryContext queryContext) {
     Map<String, String> queryOptions = queryContext.getQueryOptions();
 
@@ -175,6 +219,12 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     // Set skipScanFilterReorder
     queryContext.setSkipScanFilterReorder(QueryOptionsUtils.isSkipScanFilterReorder(queryOptions));
 
+    // Set skipFilterResultCache
+    queryContext.setSkipFilterResultCache(QueryOptionsUtils.isSkipFilterResultCache(queryOptions));
+
+    // Set skipSegmentResultCache
+    queryContext.setSkipSegmentResultCache(QueryOptionsUtils.isSkipSegmentResultCache(queryOptions));
+
     queryContext.setSkipIndexes(QueryOptionsUtils.getSkipIndexes(queryOptions));
 
     // Set maxExecutionThreads
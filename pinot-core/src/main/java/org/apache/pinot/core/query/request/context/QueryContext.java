@@ -108,6 +108,10 @@ public class QueryContext {
   private boolean _skipStarTree;
   // Whether to skip reordering scan filters for the query
   private boolean _skipScanFilterReorder;
+  // Whether to skip the server level filter result cache for the query
+  private boolean _skipFilterResultCache;
+  // Whether to skip the server level segment result cache for the query
+  private boolean _skipSegmentResultCache;
   // Maximum number of threads used to execute the query
   private int _maxExecutionThreads = InstancePlanMakerImplV2.DEFAULT_MAX_EXECUTION_THREADS;
   // The following properties apply to group-by queries
@@ -344,6 +348,22 @@ public class QueryContext {
     _skipScanFilterReorder = skipScanFilterReorder;
   }
 
+  public boolean isSkipFilterResultCache() {
+    return _skipFilterResultCache;
+  }
+
+  public void setSkipFilterResultCache(boolean skipFilterResultCache) {
+    _skipFilterResultCache = skipFilterResultCache;
+  }
+
+  public boolean isSkipSegmentResultCache() {
+    return _skipSegmentResultCache;
+  }
+
+  public void setSkipSegmentResultCache(boolean skipSegmentResultCache) {
+    _skipSegmentResultCache = skipSegmentResultCache;
+  }
+
   public int getMaxExecutionThreads() {
     return _maxExecutionThreads;
   }
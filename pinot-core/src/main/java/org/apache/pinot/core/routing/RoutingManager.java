@@ -83,4 +83,13 @@ public interface RoutingManager {
    */
   @Nullable
   Set<String> getServingInstances(String tableNameWithType);
+
+  /**
+   * Returns the total number of documents of the online segments of the given table, or {@code null} if it is not
+   * tracked for the table. This is an estimate to be used for query planning, e.g. consuming segments are not counted.
+   */
+  @Nullable
+  default Long getTableNumDocs(String tableNameWithType) {
+    return null;
+  }
 }
@@ -139,6 +139,94 @@ public class IndexedTableTest {
     testNonConcurrent(indexedTable, mergeTable);
     indexedTable.finish(true);
     checkSurvivors(indexedTable, survivors);
+
+    // Test PartitionedIndexedTable
+    indexedTable = new PartitionedIndexedTable(dataSchema, queryContext, 5, TRIM_SIZE, TRIM_THRESHOLD, 4);
+    mergeTable = new SimpleIndexedTable(dataSchema, queryContext, 10, TRIM_SIZE, TRIM_THRESHOLD);
+    testNonConcurrent(indexedTable, mergeTable);
+    indexedTable.finish(true);
+    checkSurvivors(indexedTable, survivors);
+  }
+
+  @Test
+  public void testPartitionedIndexedTable()
+      throws Exception {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext(
+        "SELECT SUM(m1), MAX(m2) FROM testTable GROUP BY d1 ORDER BY SUM(m1) DESC, d1");
+    DataSchema dataSchema = new DataSchema(new String[]{"d1", "sum(m1)", "max(m2)"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.DOUBLE, ColumnDataType.DOUBLE
+    });
+    int numKeys = 1000;
+    int numThreads = 4;
+    int numBatchesPerThread = 10;
+    PartitionedIndexedTable indexedTable =
+        new PartitionedIndexedTable(dataSchema, queryContext, 5, numKeys, 2 * numKeys, numThreads);
+
+    // Each thread upserts all the keys in each batch, where key i has value i for both SUM(m1) and MAX(m2)
+    ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+    try {
+      List<Callable<Void>> tasks = new ArrayList<>();
+      for (int i = 0; i < numThreads; i++) {
+        tasks.add(() -> {
+          for (int j = 0; j < numBatchesPerThread; j++) {
+            PartitionedIndexedTable.RecordBatch recordBatch = indexedTable.newRecordBatch();
+            for (int k = 0; k < numKeys; k++) {
+              recordBatch.add(getKey(new Object[]{k}), getRecord(new Object[]{k, (double) k, (double) k}));
+            }
+            indexedTable.upsert(recordBatch);
+          }
+          return null;
+        });
+      }
+      for (Future<Void> future : executorService.invokeAll(tasks)) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executorService.shutdown();
+    }
+    Assert.assertEquals(indexedTable.size(), numKeys);
+
+    indexedTable.finish(true);
+    Assert.assertEquals(indexedTable.size(), 5);
+    Iterator<Record> iterator = indexedTable.iterator();
+    for (int i = 0; i < 5; i++) {
+      int key = numKeys - 1 - i;
+      Assert.assertEquals(iterator.next().getValues(),
+          new Object[]{key, (double) key * numThreads * numBatchesPerThread, (double) key});
+    }
+  }
+
+  @Test
+  public void testPartitionedIndexedTableWithoutOrderBy() {
+    QueryContext queryContext =
+        QueryContextConverterUtils.getQueryContext("SELECT SUM(m1), MAX(m2) FROM testTable GROUP BY d1");
+    DataSchema dataSchema = new DataSchema(new String[]{"d1", "sum(m1)", "max(m2)"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.DOUBLE, ColumnDataType.DOUBLE
+    });
+    PartitionedIndexedTable indexedTable =
+        new PartitionedIndexedTable(dataSchema, queryContext, 5, TRIM_SIZE, TRIM_THRESHOLD, 4);
+    PartitionedIndexedTable.RecordBatch recordBatch = indexedTable.newRecordBatch();
+    for (int i = 0; i < 100; i++) {
+      recordBatch.add(getKey(new Object[]{i}), getRecord(new Object[]{i, 1d, 1d}));
+    }
+    indexedTable.upsert(recordBatch);
+    // Each partition accepts up to 5 keys
+    Assert.assertEquals(indexedTable.size(), 20);
+
+    // Existing keys should still be updated
+    recordBatch = indexedTable.newRecordBatch();
+    for (int i = 0; i < 100; i++) {
+      recordBatch.add(getKey(new Object[]{i}), getRecord(new Object[]{i, 1d, 1d}));
+    }
+    indexedTable.upsert(recordBatch);
+    Assert.assertEquals(indexedTable.size(), 20);
+
+    indexedTable.finish(false);
+    Assert.assertEquals(indexedTable.size(), 5);
+    Iterator<Record> iterator = indexedTable.iterator();
+    while (iterator.hasNext()) {
+      Assert.assertEquals(iterator.next().getValues()[1], 2d);
+    }
   }
 
   @DataProvider(name = "initDataProvider")
@@ -23,12 +23,24 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
 import org.apache.pinot.core.common.BlockDocIdIterator;
+import org.apache.pinot.core.common.BlockDocIdSet;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.dociditerators.ScanBasedDocIdIterator;
 import org.apache.pinot.segment.spi.Constants;
+import org.apache.pinot.spi.utils.CommonConstants.Broker.Request.QueryOptionKey;
+import org.roaringbitmap.IntConsumer;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
 
 public class AndFilterOperatorTest {
 
@@ -234,4 +246,96 @@ public class AndFilterOperatorTest {
         ImmutableList.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
     Assert.assertEquals(TestUtils.getDocIds(andFilterOperator.getFalses()), Collections.emptyList());
   }
+
+  @Test
+  public void testAdaptiveReordering() {
+    int numDocs = AndFilterOperator.MIN_NUM_DOCS_TO_REORDER;
+    BaseFilterOperator nonSelectiveOperator = mockScanBasedFilterOperator("nonSelective", docId -> true, 1);
+    BaseFilterOperator selectiveOperator = mockScanBasedFilterOperator("selective", docId -> false, 1);
+    BaseFilterOperator indexOperator = new TestFilterOperator(new int[]{1, 2, 3}, numDocs);
+
+    // Static order should be kept without the query option
+    AndFilterOperator andFilterOperator =
+        new AndFilterOperator(new ArrayList<>(Arrays.asList(indexOperator, nonSelectiveOperator, selectiveOperator)),
+            null, numDocs, false);
+    Assert.assertEquals(andFilterOperator.getChildOperators(),
+        Arrays.asList(indexOperator, nonSelectiveOperator, selectiveOperator));
+    Assert.assertEquals(andFilterOperator.toExplainString(), "FILTER_AND");
+
+    // Scan based children should be reordered based on the selectivity, and the other children should keep positions
+    Map<String, String> queryOptions = Map.of(QueryOptionKey.ADAPTIVE_AND_FILTER_REORDERING, "true");
+    andFilterOperator =
+        new AndFilterOperator(new ArrayList<>(Arrays.asList(indexOperator, nonSelectiveOperator, selectiveOperator)),
+            queryOptions, numDocs, false);
+    List<Operator> childOperators = andFilterOperator.getChildOperators();
+    Assert.assertEquals(childOperators, Arrays.asList(indexOperator, selectiveOperator, nonSelectiveOperator));
+    Assert.assertEquals(andFilterOperator.toExplainString(), "FILTER_AND(adaptiveReordering:true)");
+
+    // Selectivity should outweigh the estimated cost, and the cost should break the ties
+    BaseFilterOperator expensiveSelectiveOperator =
+        mockScanBasedFilterOperator("expensiveSelective", docId -> docId % 10 == 0, 8);
+    BaseFilterOperator cheapNonSelectiveOperator =
+        mockScanBasedFilterOperator("cheapNonSelective", docId -> docId % 10 != 0, 1);
+    BaseFilterOperator expensiveNonSelectiveOperator =
+        mockScanBasedFilterOperator("expensiveNonSelective", docId -> docId % 10 != 0, 2);
+    andFilterOperator = new AndFilterOperator(new ArrayList<>(
+        Arrays.asList(expensiveNonSelectiveOperator, cheapNonSelectiveOperator, expensiveSelectiveOperator)),
+        queryOptions, numDocs, false);
+    Assert.assertEquals(andFilterOperator.getChildOperators(),
+        Arrays.asList(expensiveSelectiveOperator, cheapNonSelectiveOperator, expensiveNonSelectiveOperator));
+
+    // Small segments should not be reordered
+    andFilterOperator = new AndFilterOperator(new ArrayList<>(Arrays.asList(nonSelectiveOperator, selectiveOperator)),
+        queryOptions, numDocs - 1, false);
+    Assert.assertEquals(andFilterOperator.getChildOperators(), Arrays.asList(nonSelectiveOperator, selectiveOperator));
+  }
+
+  @Test
+  public void testAdaptiveReorderingSamplesContiguousRuns() {
+    int numDocs = AndFilterOperator.MIN_NUM_DOCS_TO_REORDER;
+    List<ImmutableRoaringBitmap> sampledDocIds = new ArrayList<>();
+    BaseFilterOperator filterOperator1 = mockScanBasedFilterOperator("filter1", docId -> true, 1, sampledDocIds);
+    BaseFilterOperator filterOperator2 = mockScanBasedFilterOperator("filter2", docId -> true, 1, sampledDocIds);
+    new AndFilterOperator(new ArrayList<>(Arrays.asList(filterOperator1, filterOperator2)),
+        Map.of(QueryOptionKey.ADAPTIVE_AND_FILTER_REORDERING, "true"), numDocs, false).getChildOperators();
+    Assert.assertEquals(sampledDocIds.size(), 2);
+    ImmutableRoaringBitmap docIds = sampledDocIds.get(0);
+    Assert.assertEquals(sampledDocIds.get(1), docIds);
+    Assert.assertEquals(docIds.getCardinality(), AndFilterOperator.NUM_SAMPLED_DOCS);
+    MutableRoaringBitmap runs = docIds.toMutableRoaringBitmap();
+    runs.runOptimize();
+    Assert.assertTrue(runs.hasRunCompression());
+    for (int i = 0; i < AndFilterOperator.NUM_SAMPLED_RUNS; i++) {
+      int startDocId = i * (numDocs / AndFilterOperator.NUM_SAMPLED_RUNS);
+      Assert.assertEquals(docIds.rangeCardinality(startDocId, startDocId + AndFilterOperator.NUM_DOCS_PER_SAMPLED_RUN),
+          AndFilterOperator.NUM_DOCS_PER_SAMPLED_RUN);
+    }
+  }
+
+  private static BaseFilterOperator mockScanBasedFilterOperator(String name, IntPredicate matcher, int costPerDoc) {
+    return mockScanBasedFilterOperator(name, matcher, costPerDoc, new ArrayList<>());
+  }
+
+  private static BaseFilterOperator mockScanBasedFilterOperator(String name, IntPredicate matcher, int costPerDoc,
+      List<ImmutableRoaringBitmap> sampledDocIds) {
+    ScanBasedDocIdIterator docIdIterator = mock(ScanBasedDocIdIterator.class);
+    when(docIdIterator.applyAnd(any(ImmutableRoaringBitmap.class))).thenAnswer(invocation -> {
+      ImmutableRoaringBitmap docIds = invocation.getArgument(0);
+      sampledDocIds.add(docIds);
+      MutableRoaringBitmap matchingDocIds = new MutableRoaringBitmap();
+      docIds.forEach((IntConsumer) docId -> {
+        if (matcher.test(docId)) {
+          matchingDocIds.add(docId);
+        }
+      });
+      return matchingDocIds;
+    });
+    BlockDocIdSet docIdSet = mock(BlockDocIdSet.class);
+    when(docIdSet.iterator()).thenReturn(docIdIterator);
+    ScanBasedFilterOperator filterOperator = mock(ScanBasedFilterOperator.class);
+    when(filterOperator.getTrues()).thenReturn(docIdSet);
+    when(filterOperator.getEstimatedCostPerDoc()).thenReturn(costPerDoc);
+    when(filterOperator.toExplainString()).thenReturn(name);
+    return filterOperator;
+  }
 }
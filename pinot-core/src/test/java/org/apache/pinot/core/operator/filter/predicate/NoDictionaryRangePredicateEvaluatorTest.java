@@ -19,6 +19,7 @@
 package org.apache.pinot.core.operator.filter.predicate;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import org.apache.pinot.common.request.context.ExpressionContext;
 import org.apache.pinot.common.request.context.predicate.RangePredicate;
 import org.apache.pinot.spi.data.FieldSpec;
@@ -392,6 +393,60 @@ public class NoDictionaryRangePredicateEvaluatorTest {
     }
   }
 
+  @Test
+  public void testBatchApplySV() {
+    int numValues = 1000;
+    int[] intValues = new int[numValues];
+    long[] longValues = new long[numValues];
+    float[] floatValues = new float[numValues];
+    double[] doubleValues = new double[numValues];
+    for (int i = 0; i < numValues; i++) {
+      int value = PredicateEvaluatorTestUtils.RANDOM.nextInt(200) - 100;
+      intValues[i] = value;
+      longValues[i] = value;
+      floatValues[i] = value;
+      doubleValues[i] = value;
+    }
+    for (String rangeString : new String[]{"[-10\00010]", "(-10\00010)", "(*\0000]", "(0\000*)", "(*\000*)",
+        "[10\000-10]"}) {
+      PredicateEvaluator predicateEvaluator = buildRangePredicate(rangeString, FieldSpec.DataType.INT);
+      int[] docIds = getDocIds(numValues);
+      int numMatches = predicateEvaluator.applySV(numValues, docIds, intValues.clone());
+      int[] expectedDocIds = getDocIds(numValues);
+      int expectedNumMatches = 0;
+      for (int i = 0; i < numValues; i++) {
+        if (predicateEvaluator.applySV(intValues[i])) {
+          expectedDocIds[expectedNumMatches++] = i;
+        }
+      }
+      Assert.assertEquals(numMatches, expectedNumMatches);
+      Assert.assertEquals(Arrays.copyOf(docIds, numMatches), Arrays.copyOf(expectedDocIds, expectedNumMatches));
+
+      predicateEvaluator = buildRangePredicate(rangeString, FieldSpec.DataType.LONG);
+      docIds = getDocIds(numValues);
+      Assert.assertEquals(predicateEvaluator.applySV(numValues, docIds, longValues.clone()), expectedNumMatches);
+      Assert.assertEquals(Arrays.copyOf(docIds, numMatches), Arrays.copyOf(expectedDocIds, expectedNumMatches));
+
+      predicateEvaluator = buildRangePredicate(rangeString, FieldSpec.DataType.FLOAT);
+      docIds = getDocIds(numValues);
+      Assert.assertEquals(predicateEvaluator.applySV(numValues, docIds, floatValues.clone()), expectedNumMatches);
+      Assert.assertEquals(Arrays.copyOf(docIds, numMatches), Arrays.copyOf(expectedDocIds, expectedNumMatches));
+
+      predicateEvaluator = buildRangePredicate(rangeString, FieldSpec.DataType.DOUBLE);
+      docIds = getDocIds(numValues);
+      Assert.assertEquals(predicateEvaluator.applySV(numValues, docIds, doubleValues.clone()), expectedNumMatches);
+      Assert.assertEquals(Arrays.copyOf(docIds, numMatches), Arrays.copyOf(expectedDocIds, expectedNumMatches));
+    }
+  }
+
+  private static int[] getDocIds(int numDocs) {
+    int[] docIds = new int[numDocs];
+    for (int i = 0; i < numDocs; i++) {
+      docIds[i] = i;
+    }
+    return docIds;
+  }
+
   private PredicateEvaluator buildRangePredicate(String rangeString, FieldSpec.DataType dataType) {
     RangePredicate predicate = new RangePredicate(COLUMN_EXPRESSION, rangeString);
     return RangePredicateEvaluatorFactory.newRawValueBasedEvaluator(predicate, dataType);
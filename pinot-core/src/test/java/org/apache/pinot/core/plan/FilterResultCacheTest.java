@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.pinot.common.request.context.FilterContext;
+import org.apache.pinot.common.request.context.RequestContextUtils;
+import org.apache.pinot.core.common.BlockDocIdIterator;
+import org.apache.pinot.core.operator.filter.BaseFilterOperator;
+import org.apache.pinot.core.operator.filter.BitmapBasedFilterOperator;
+import org.apache.pinot.core.operator.filter.BitmapCollection;
+import org.apache.pinot.core.operator.filter.FilterResultCacheOperator;
+import org.apache.pinot.core.operator.filter.TestFilterOperator;
+import org.apache.pinot.segment.spi.Constants;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+
+public class FilterResultCacheTest {
+  private static final String TABLE_NAME = "testTable";
+  private static final FilterContext FILTER =
+      RequestContextUtils.getFilter(RequestContextUtils.getExpression("col1 > 10 AND col2 = 'foo'"));
+
+  @AfterMethod
+  public void tearDown() {
+    FilterResultCache.init(0);
+  }
+
+  @Test
+  public void testCacheScanBasedFilterResult() {
+    FilterResultCache.init(1024 * 1024);
+    FilterResultCache cache = FilterResultCache.getInstance();
+    assertNotNull(cache);
+    FilterResultCache.Key key = new FilterResultCache.Key(TABLE_NAME, "segment0", "crc0", false, FILTER);
+    assertNull(cache.get(key));
+
+    // Doc ids are cached when the filter is executed
+    BaseFilterOperator filterOperator =
+        new FilterResultCacheOperator(new TestFilterOperator(new int[]{1, 3, 5, 7}, 10), cache, key, 10, false);
+    assertEquals(getDocIds(filterOperator), List.of(1, 3, 5, 7));
+    ImmutableRoaringBitmap docIds = cache.get(key);
+    assertNotNull(docIds);
+    assertEquals(docIds.toArray(), new int[]{1, 3, 5, 7});
+    // Filter is matched by value
+    FilterContext sameFilter =
+        RequestContextUtils.getFilter(RequestContextUtils.getExpression("col1 > 10 AND col2 = 'foo'"));
+    assertSame(cache.get(new FilterResultCache.Key(TABLE_NAME, "segment0", "crc0", false, sameFilter)), docIds);
+    // Different null handling, CRC or filter should not match
+    assertNull(cache.get(new FilterResultCache.Key(TABLE_NAME, "segment0", "crc0", true, FILTER)));
+    assertNull(cache.get(new FilterResultCache.Key(TABLE_NAME, "segment0", "crc1", false, FILTER)));
+    FilterContext otherFilter =
+        RequestContextUtils.getFilter(RequestContextUtils.getExpression("col1 > 10 AND col2 = 'bar'"));
+    assertNull(cache.get(new FilterResultCache.Key(TABLE_NAME, "segment0", "crc0", false, otherFilter)));
+  }
+
+  @Test
+  public void testNotCachePartialFilterResult() {
+    FilterResultCache.init(1024 * 1024);
+    FilterResultCache cache = FilterResultCache.getInstance();
+    assertNotNull(cache);
+    FilterResultCache.Key key = new FilterResultCache.Key(TABLE_NAME, "segment0", "crc0", false, FILTER);
+
+    // Early terminated
+    BlockDocIdIterator iterator =
+        new FilterResultCacheOperator(new TestFilterOperator(new int[]{1, 3, 5, 7}, 10), cache, key, 10, false)
+            .nextBlock().getBlockDocIdSet().iterator();
+    assertEquals(iterator.next(), 1);
+    assertNull(cache.get(key));
+
+    // Doc ids skipped
+    iterator = new FilterResultCacheOperator(new TestFilterOperator(new int[]{1, 3, 5, 7}, 10), cache, key, 10, false)
+        .nextBlock().getBlockDocIdSet().iterator();
+    assertEquals(iterator.advance(4), 5);
+    assertEquals(iterator.next(), 7);
+    assertEquals(iterator.next(), Constants.EOF);
+    assertNull(cache.get(key));
+  }
+
+  @Test
+  public void testCacheBitmapBasedFilterResult() {
+    FilterResultCache.init(1024 * 1024);
+    FilterResultCache cache = FilterResultCache.getInstance();
+    assertNotNull(cache);
+    FilterResultCache.Key key = new FilterResultCache.Key(TABLE_NAME, "segment0", "crc0", false, FILTER);
+    MutableRoaringBitmap bitmap = MutableRoaringBitmap.bitmapOf(2, 4, 6);
+    // Doc ids already solved into a bitmap are cached without iterating them, and exclusive bitmap should be inverted
+    new FilterResultCacheOperator(new BitmapBasedFilterOperator(bitmap, true, 8), cache, key, 8, false).nextBlock()
+        .getBlockDocIdSet().iterator();
+    assertEquals(cache.get(key).toArray(), new int[]{0, 1, 3, 5, 7});
+
+    FilterResultCache.Key otherKey = new FilterResultCache.Key(TABLE_NAME, "segment1", "crc1", false, FILTER);
+    BitmapCollection bitmaps =
+        new FilterResultCacheOperator(new BitmapBasedFilterOperator(bitmap, true, 8), cache, otherKey, 8, false)
+            .getBitmaps();
+    assertEquals(bitmaps.reduce().toArray(), new int[]{0, 1, 3, 5, 7});
+    assertEquals(cache.get(otherKey).toArray(), new int[]{0, 1, 3, 5, 7});
+  }
+
+  @Test
+  public void testNormalizeFilter() {
+    FilterResultCache.Key key = new FilterResultCache.Key(TABLE_NAME, "segment0", "crc0", false, FILTER);
+    FilterContext reorderedFilter =
+        RequestContextUtils.getFilter(RequestContextUtils.getExpression("col2 = 'foo' AND col1 > 10"));
+    assertEquals(new FilterResultCache.Key(TABLE_NAME, "segment0", "crc0", false, reorderedFilter), key);
+
+    FilterContext nestedFilter = RequestContextUtils.getFilter(
+        RequestContextUtils.getExpression("col1 > 10 AND (col2 = 'foo' OR NOT (col3 = 1 OR col4 = 2))"));
+    FilterContext reorderedNestedFilter = RequestContextUtils.getFilter(
+        RequestContextUtils.getExpression("(NOT (col4 = 2 OR col3 = 1) OR col2 = 'foo') AND col1 > 10"));
+    assertEquals(FilterResultCache.normalize(reorderedNestedFilter), FilterResultCache.normalize(nestedFilter));
+    assertNotEquals(FilterResultCache.normalize(nestedFilter), FilterResultCache.normalize(FILTER));
+  }
+
+  private static List<Integer> getDocIds(BaseFilterOperator filterOperator) {
+    List<Integer> docIds = new ArrayList<>();
+    BlockDocIdIterator iterator = filterOperator.nextBlock().getBlockDocIdSet().iterator();
+    int docId;
+    while ((docId = iterator.next()) != Constants.EOF) {
+      docIds.add(docId);
+    }
+    return docIds;
+  }
+}
@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan;
+
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+
+public class SegmentKeyedCacheTest {
+  private static final String TABLE_NAME = "testTable";
+
+  @AfterMethod
+  public void tearDown() {
+    SegmentKeyedCache.init(TestCache.class, 0, TestCache::new);
+    SegmentKeyedCache.init(OtherTestCache.class, 0, OtherTestCache::new);
+  }
+
+  @Test
+  public void testGet() {
+    TestCache cache = new TestCache(1024 * 1024);
+    TestCache.Key key = new TestCache.Key(TABLE_NAME, "segment0", "crc0");
+    assertNull(cache.get(key));
+    cache.cacheValue(key, "value");
+    assertEquals(cache.get(new TestCache.Key(TABLE_NAME, "segment0", "crc0")), "value");
+    // Different table, segment or CRC should not match
+    assertNull(cache.get(new TestCache.Key("otherTable", "segment0", "crc0")));
+    assertNull(cache.get(new TestCache.Key(TABLE_NAME, "segment1", "crc0")));
+    assertNull(cache.get(new TestCache.Key(TABLE_NAME, "segment0", "crc1")));
+  }
+
+  @Test
+  public void testInvalidateSegment() {
+    SegmentKeyedCache.init(TestCache.class, 1024 * 1024, TestCache::new);
+    TestCache cache = SegmentKeyedCache.getInstance(TestCache.class);
+    assertNotNull(cache);
+    TestCache.Key key0 = new TestCache.Key(TABLE_NAME, "segment0", "crc0");
+    TestCache.Key key1 = new TestCache.Key(TABLE_NAME, "segment1", "crc1");
+    TestCache.Key replacingKey0 = new TestCache.Key(TABLE_NAME, "segment0", "crc2");
+    cache.cacheValue(key0, "value0");
+    cache.cacheValue(key1, "value1");
+    cache.cacheValue(replacingKey0, "value2");
+    assertEquals(cache.size(), 3);
+    // Entries of the segment should be invalidated from all the enabled caches
+    SegmentKeyedCache.init(OtherTestCache.class, 1024 * 1024, OtherTestCache::new);
+    OtherTestCache otherCache = SegmentKeyedCache.getInstance(OtherTestCache.class);
+    assertNotNull(otherCache);
+    otherCache.cacheValue(key0, "value0");
+
+    SegmentKeyedCache.invalidateSegment(TABLE_NAME, "segment0", "crc0");
+    assertEquals(cache.size(), 2);
+    assertNull(cache.get(key0));
+    assertNotNull(cache.get(key1));
+    assertNotNull(cache.get(replacingKey0));
+    assertEquals(otherCache.size(), 0);
+  }
+
+  @Test
+  public void testSizeBound() {
+    TestCache cache = new TestCache(1024);
+    for (int i = 0; i < 10; i++) {
+      cache.cacheValue(new TestCache.Key(TABLE_NAME, "segment" + i, "crc"), "x".repeat(100));
+    }
+    assertTrue(cache.size() < 10);
+  }
+
+  @Test
+  public void testInit() {
+    SegmentKeyedCache.init(TestCache.class, 1024, TestCache::new);
+    TestCache cache = SegmentKeyedCache.getInstance(TestCache.class);
+    assertNotNull(cache);
+    assertSame(SegmentKeyedCache.getInstance(TestCache.class), cache);
+    // Caches of different types are enabled separately
+    assertNull(SegmentKeyedCache.getInstance(OtherTestCache.class));
+
+    SegmentKeyedCache.init(TestCache.class, 0, TestCache::new);
+    assertNull(SegmentKeyedCache.getInstance(TestCache.class));
+    // Should be no-op
+    SegmentKeyedCache.invalidateSegment(TABLE_NAME, "segment0", "crc0");
+  }
+
+  private static class TestCache extends SegmentKeyedCache<TestCache.Key, String> {
+    TestCache(long maxSizeBytes) {
+      super(maxSizeBytes, ServerMeter.SEGMENT_RESULT_CACHE_HITS, ServerMeter.SEGMENT_RESULT_CACHE_MISSES);
+    }
+
+    @Override
+    protected long getSizeInBytes(Key key, String value) {
+      return 2L * value.length();
+    }
+
+    private static class Key extends SegmentKeyedCache.Key {
+      Key(String tableName, String segmentName, String segmentCrc) {
+        super(tableName, segmentName, segmentCrc);
+      }
+    }
+  }
+
+  private static class OtherTestCache extends TestCache {
+    OtherTestCache(long maxSizeBytes) {
+      super(maxSizeBytes);
+    }
+  }
+}
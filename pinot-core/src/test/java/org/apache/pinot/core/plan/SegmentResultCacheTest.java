@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.data.table.IntermediateRecord;
+import org.apache.pinot.core.data.table.Key;
+import org.apache.pinot.core.data.table.Record;
+import org.apache.pinot.core.operator.blocks.results.AggregationResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+
+public class SegmentResultCacheTest {
+  private static final String TABLE_NAME = "testTable";
+
+  @AfterMethod
+  public void tearDown() {
+    SegmentResultCache.init(0);
+  }
+
+  @Test
+  public void testCacheAggregationResult() {
+    SegmentResultCache.init(1024 * 1024);
+    SegmentResultCache cache = SegmentResultCache.getInstance();
+    assertNotNull(cache);
+    QueryContext queryContext =
+        QueryContextConverterUtils.getQueryContext("SELECT COUNT(*), DISTINCTCOUNT(col1) FROM testTable");
+    SegmentResultCache.Key key = getKey(queryContext, "segment0", "crc0");
+    assertNull(cache.get(key));
+
+    IntOpenHashSet set = new IntOpenHashSet(new int[]{1, 2, 3});
+    List<Object> results = new ArrayList<>(Arrays.asList(10L, set));
+    cache.put(key, new AggregationResultsBlock(queryContext.getAggregationFunctions(), results, queryContext), 10);
+    // Modify the results after caching, which should not affect the cached results
+    set.add(4);
+
+    SegmentResultCache.CachedResult cachedResult = cache.get(key);
+    assertNotNull(cachedResult);
+    assertEquals(cachedResult.getNumDocsScanned(), 10);
+    AggregationResultsBlock resultsBlock = (AggregationResultsBlock) cachedResult.toResultsBlock(queryContext);
+    assertEquals(resultsBlock.getResults().get(0), 10L);
+    assertEquals(resultsBlock.getResults().get(1), new IntOpenHashSet(new int[]{1, 2, 3}));
+    // Each hit should return a new copy of the mutable results
+    AggregationResultsBlock anotherResultsBlock = (AggregationResultsBlock) cachedResult.toResultsBlock(queryContext);
+    assertNotSame(anotherResultsBlock.getResults().get(1), resultsBlock.getResults().get(1));
+  }
+
+  @Test
+  public void testCacheGroupByResult() {
+    SegmentResultCache.init(1024 * 1024);
+    SegmentResultCache cache = SegmentResultCache.getInstance();
+    assertNotNull(cache);
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext(
+        "SELECT col1, SUM(col2) FROM testTable GROUP BY col1 ORDER BY SUM(col2) DESC");
+    DataSchema dataSchema = new DataSchema(new String[]{"col1", "sum(col2)"},
+        new ColumnDataType[]{ColumnDataType.STRING, ColumnDataType.DOUBLE});
+    List<IntermediateRecord> intermediateRecords = new ArrayList<>();
+    intermediateRecords.add(
+        new IntermediateRecord(new Key(new Object[]{"a"}), new Record(new Object[]{"a", 1.0}), null));
+    intermediateRecords.add(
+        new IntermediateRecord(new Key(new Object[]{"b"}), new Record(new Object[]{"b", 2.0}), null));
+    GroupByResultsBlock resultsBlock = new GroupByResultsBlock(dataSchema, intermediateRecords, queryContext);
+    resultsBlock.setNumGroupsLimitReached(true);
+    SegmentResultCache.Key key = getKey(queryContext, "segment0", "crc0");
+    cache.put(key, resultsBlock, 5);
+    // Merging modifies the record values in place, which should not affect the cached results
+    intermediateRecords.get(0)._record.getValues()[1] = 100.0;
+
+    SegmentResultCache.CachedResult cachedResult = cache.get(key);
+    assertNotNull(cachedResult);
+    GroupByResultsBlock cachedResultsBlock = (GroupByResultsBlock) cachedResult.toResultsBlock(queryContext);
+    assertTrue(cachedResultsBlock.isNumGroupsLimitReached());
+    assertEquals(cachedResultsBlock.getDataSchema(), dataSchema);
+    List<IntermediateRecord> cachedRecords = new ArrayList<>(cachedResultsBlock.getIntermediateRecords());
+    assertEquals(cachedRecords.size(), 2);
+    assertEquals(cachedRecords.get(0)._key, new Key(new Object[]{"a"}));
+    assertEquals(cachedRecords.get(0)._record.getValues(), new Object[]{"a", 1.0});
+    assertEquals(cachedRecords.get(1)._key, new Key(new Object[]{"b"}));
+    assertEquals(cachedRecords.get(1)._record.getValues(), new Object[]{"b", 2.0});
+  }
+
+  @Test
+  public void testQueryFingerprint() {
+    SegmentResultCache.QueryFingerprint fingerprint =
+        getQueryFingerprint("SELECT SUM(col1) FROM testTable WHERE col2 > 10");
+    // Query options that do not affect the segment results should not change the fingerprint
+    assertEquals(getQueryFingerprint("SET timeoutMs = 1000; SELECT SUM(col1) FROM testTable WHERE col2 > 10"),
+        fingerprint);
+    assertNotEquals(getQueryFingerprint("SELECT SUM(col1) FROM testTable WHERE col2 > 20"), fingerprint);
+    assertNotEquals(getQueryFingerprint("SELECT MAX(col1) FROM testTable WHERE col2 > 10"), fingerprint);
+    assertNotEquals(getQueryFingerprint("SELECT SUM(col1) FROM testTable WHERE col2 > 10 GROUP BY col3"), fingerprint);
+
+    // Literals with the same string representation but different types should not share the fingerprint
+    assertEquals(getQueryFingerprint("SELECT SUM(ADD(col1, 1)) FROM testTable"),
+        getQueryFingerprint("SELECT SUM(ADD(col1, 1)) FROM testTable"));
+    assertNotEquals(getQueryFingerprint("SELECT SUM(ADD(col1, 1)) FROM testTable"),
+        getQueryFingerprint("SELECT SUM(ADD(col1, '1')) FROM testTable"));
+    assertNotEquals(getQueryFingerprint("SELECT MAX(COALESCE(col1, NULL)) FROM testTable"),
+        getQueryFingerprint("SELECT MAX(COALESCE(col1, 'null')) FROM testTable"));
+  }
+
+  private static SegmentResultCache.QueryFingerprint getQueryFingerprint(String query) {
+    return SegmentResultCache.getQueryFingerprint(QueryContextConverterUtils.getQueryContext(query));
+  }
+
+  @Test
+  public void testSerializedResultSizeBound() {
+    // Mutable intermediate results are weighed by their serialized size
+    SegmentResultCache cache = new SegmentResultCache(4096);
+    QueryContext queryContext =
+        QueryContextConverterUtils.getQueryContext("SELECT DISTINCTCOUNT(col1) FROM testTable");
+    IntOpenHashSet set = new IntOpenHashSet();
+    for (int i = 0; i < 1000; i++) {
+      set.add(i);
+    }
+    for (int i = 0; i < 10; i++) {
+      cache.put(getKey(queryContext, "segment" + i, "crc"),
+          new AggregationResultsBlock(queryContext.getAggregationFunctions(), new ArrayList<>(List.of(set)),
+              queryContext), 1000);
+    }
+    assertTrue(cache.size() < 10);
+  }
+
+  private static SegmentResultCache.Key getKey(QueryContext queryContext, String segmentName, String segmentCrc) {
+    return new SegmentResultCache.Key(TABLE_NAME, segmentName, segmentCrc,
+        SegmentResultCache.getQueryFingerprint(queryContext));
+  }
+}
@@ -0,0 +1,170 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.pinot.common.request.context.ExpressionContext;
+import org.apache.pinot.common.request.context.predicate.RangePredicate;
+import org.apache.pinot.core.common.BlockDocIdIterator;
+import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.RangePredicateEvaluatorFactory;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Benchmark for the batch predicate evaluation used by the scan based filter, which evaluates a block of decoded values
+ * at a time and compacts the matching doc ids. The per-value evaluation is included as the baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class BenchmarkScanPredicateEvaluators {
+  private static final ExpressionContext COLUMN_EXPRESSION = ExpressionContext.forIdentifier("column");
+  private static final int BATCH_SIZE = BlockDocIdIterator.OPTIMAL_ITERATOR_BATCH_SIZE;
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt =
+        new OptionsBuilder().include(BenchmarkScanPredicateEvaluators.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+
+  @Param("1000000")
+  int _numDocs;
+
+  @Param({"INT", "LONG", "DOUBLE"})
+  DataType _dataType;
+
+  // percentage of the values matching the predicate
+  @Param({"1", "10", "50"})
+  int _selectivity;
+
+  @Param("42")
+  long _seed;
+
+  private PredicateEvaluator _predicateEvaluator;
+  private int[] _intValues;
+  private long[] _longValues;
+  private double[] _doubleValues;
+  private int[] _docIds;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    SplittableRandom random = new SplittableRandom(_seed);
+    _intValues = new int[_numDocs];
+    _longValues = new long[_numDocs];
+    _doubleValues = new double[_numDocs];
+    for (int i = 0; i < _numDocs; i++) {
+      int value = random.nextInt(100);
+      _intValues[i] = value;
+      _longValues[i] = value;
+      _doubleValues[i] = value;
+    }
+    _predicateEvaluator = RangePredicateEvaluatorFactory.newRawValueBasedEvaluator(
+        new RangePredicate(COLUMN_EXPRESSION, "[0\000" + _selectivity + ")"), _dataType);
+    _docIds = new int[BATCH_SIZE];
+  }
+
+  @Benchmark
+  public int batchApplySV() {
+    int numMatches = 0;
+    for (int start = 0; start < _numDocs; start += BATCH_SIZE) {
+      int limit = Math.min(BATCH_SIZE, _numDocs - start);
+      for (int i = 0; i < limit; i++) {
+        _docIds[i] = start + i;
+      }
+      switch (_dataType) {
+        case INT:
+          numMatches +=
+              _predicateEvaluator.applySV(limit, _docIds, Arrays.copyOfRange(_intValues, start, start + limit));
+          break;
+        case LONG:
+          numMatches +=
+              _predicateEvaluator.applySV(limit, _docIds, Arrays.copyOfRange(_longValues, start, start + limit));
+          break;
+        case DOUBLE:
+          numMatches +=
+              _predicateEvaluator.applySV(limit, _docIds, Arrays.copyOfRange(_doubleValues, start, start + limit));
+          break;
+        default:
+          throw new IllegalStateException();
+      }
+    }
+    return numMatches;
+  }
+
+  @Benchmark
+  public int perValueApplySV() {
+    int numMatches = 0;
+    for (int start = 0; start < _numDocs; start += BATCH_SIZE) {
+      int limit = Math.min(BATCH_SIZE, _numDocs - start);
+      int matches = 0;
+      switch (_dataType) {
+        case INT:
+          int[] intValues = Arrays.copyOfRange(_intValues, start, start + limit);
+          for (int i = 0; i < limit; i++) {
+            if (_predicateEvaluator.applySV(intValues[i])) {
+              _docIds[matches++] = start + i;
+            }
+          }
+          break;
+        case LONG:
+          long[] longValues = Arrays.copyOfRange(_longValues, start, start + limit);
+          for (int i = 0; i < limit; i++) {
+            if (_predicateEvaluator.applySV(longValues[i])) {
+              _docIds[matches++] = start + i;
+            }
+          }
+          break;
+        case DOUBLE:
+          double[] doubleValues = Arrays.copyOfRange(_doubleValues, start, start + limit);
+          for (int i = 0; i < limit; i++) {
+            if (_predicateEvaluator.applySV(doubleValues[i])) {
+              _docIds[matches++] = start + i;
+            }
+          }
+          break;
+        default:
+          throw new IllegalStateException();
+      }
+      numMatches += matches;
+    }
+    return numMatches;
+  }
+}
@@ -44,6 +44,28 @@ public class PinotHintOptions {
 
     public static final String NUM_GROUPS_LIMIT = "num_groups_limit";
     public static final String MAX_INITIAL_RESULT_HOLDER_CAPACITY = "max_initial_result_holder_capacity";
+    /**
+     * Mode when the group-by reaches the num groups limit, supported values: BREAK or SPILL.
+     *   BREAK(default): Stop accepting new groups, results might be partial.
+     *   SPILL: Spill the groups into hash partitioned local files, then merge the partitions one at a time.
+     */
+    public static final String GROUP_BY_OVERFLOW_MODE = "group_by_overflow_mode";
+    /**
+     * Number of partitions the groups are split into when the group-by overflow mode is SPILL.
+     */
+    public static final String NUM_SPILL_PARTITIONS = "num_spill_partitions";
+
+    /**
+     * Number of input rows a partial (leaf or intermediate) group-by aggregation processes before checking whether the
+     * pre-aggregation reduces the rows enough. The bypass is disabled by default (0), and enabled by setting a positive
+     * number of rows.
+     */
+    public static final String PARTIAL_AGG_BYPASS_MIN_ROWS = "partial_agg_bypass_min_rows";
+    /**
+     * The partial group-by aggregation is bypassed (each input block is aggregated and sent downstream on its own)
+     * when the ratio of the number of groups to the number of input rows exceeds this threshold.
+     */
+    public static final String PARTIAL_AGG_BYPASS_GROUPS_RATIO = "partial_agg_bypass_groups_ratio";
   }
 
   public static class WindowHintOptions {
@@ -63,16 +85,54 @@ public class PinotHintOptions {
     public static final String JOIN_STRATEGY = "join_strategy";
     public static final String DYNAMIC_BROADCAST_JOIN_STRATEGY = "dynamic_broadcast";
     public static final String HASH_TABLE_JOIN_STRATEGY = "hash_table";
+    /**
+     * Sort both join inputs on the join keys in the exchange, then stream merge them. Only applies to INNER and LEFT
+     * equi-joins, other joins fall back to the hash table strategy. Note that the exchange sorts on the receiver side
+     * after receiving all the rows, so both inputs are still fully materialized in memory.
+     */
+    public static final String SORT_MERGE_JOIN_STRATEGY = "sort_merge";
+    /**
+     * Look up the right rows from the dimension table replicated on each server instead of exchanging the join inputs
+     * and building a hash table. Only applies to INNER, LEFT, SEMI and ANTI equi-joins on all the primary key columns
+     * of a dimension table (right input), whose left input can be planned in the leaf stage, and requires the
+     * dimension table to be loaded on all the servers hosting the left table. Other joins fall back to the hash table
+     * strategy.
+     */
+    public static final String LOOKUP_JOIN_STRATEGY = "lookup";
     /**
      * Max rows allowed to build the right table hash collection.
      */
     public static final String MAX_ROWS_IN_JOIN = "max_rows_in_join";
     /**
-     * Mode when join overflow happens, supported values: THROW or BREAK.
+     * Mode when join overflow happens, supported values: THROW, BREAK or SPILL.
      *   THROW(default): Break right table build process, and throw exception, no JOIN with left table performed.
      *   BREAK: Break right table build process, continue to perform JOIN operation, results might be partial.
+     *   SPILL: Hash partition both tables to local spill files, then join the partitions one at a time.
      */
     public static final String JOIN_OVERFLOW_MODE = "join_overflow_mode";
+    /**
+     * Number of partitions the join inputs are split into when the join overflow mode is SPILL.
+     */
+    public static final String NUM_SPILL_PARTITIONS = "num_spill_partitions";
+    /**
+     * Push a runtime filter on the join key from the right table to the left table leaf stage scan. Only applies to
+     * INNER equi-joins whose left input can be planned in a leaf stage, and whose right input is a single leaf stage
+     * scan (it is scanned twice). The right table keys of the first join key are shipped to the left leaf stage via a
+     * pipeline breaker (same as the dynamic broadcast), and the join is still performed afterward.
+     */
+    public static final String RUNTIME_FILTER = "runtime_filter";
+    /**
+     * Number of receivers the hot join keys (see {@link #SKEW_KEYS}) of the left table are spread across. The right
+     * table rows of the hot keys are replicated to the same receivers so that the spread rows can still be joined, and
+     * the rows of the other keys are hash distributed as usual. Only applies to INNER, LEFT, SEMI and ANTI hash
+     * distributed equi-joins.
+     */
+    public static final String SKEW_SALT_FACTOR = "skew_salt_factor";
+    /**
+     * Comma separated hot values of the first join key, which are handled as requested by {@link #SKEW_SALT_FACTOR}.
+     * Required for the skew handling because both join inputs need to agree on the hot keys.
+     */
+    public static final String SKEW_KEYS = "skew_keys";
     /**
      * Indicat that the join operator(s) within a certain selection scope are colocated
      */
@@ -84,5 +144,14 @@ public class PinotHintOptions {
     public static final String PARTITION_FUNCTION = "partition_function";
     public static final String PARTITION_SIZE = "partition_size";
     public static final String PARTITION_PARALLELISM = "partition_parallelism";
+    /**
+     * Number of leaf stage workers per server for the non-partitioned table scan. The segments of each server are split
+     * across the workers, where each worker runs its own leaf stage and sends to its own mailbox. Takes precedence
+     * over the {@code leafStageParallelism} query option. The {@code multiStageLeafLimit} query option is divided
+     * across the workers of each server. Ignored when the query relies on all the segments of a server being processed
+     * together, i.e. with the {@code is_partitioned_by_group_by_keys} aggregate hint or the
+     * {@code is_colocated_by_join_keys} join hint.
+     */
+    public static final String LEAF_PARALLELISM = "leaf_parallelism";
   }
 }
@@ -19,24 +19,67 @@
 package org.apache.pinot.calcite.rel.rules;
 
 import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
 import org.apache.calcite.plan.RelOptRule;
 import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.RelCollation;
+import org.apache.calcite.rel.RelCollations;
 import org.apache.calcite.rel.RelDistributions;
+import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Filter;
 import org.apache.calcite.rel.core.Join;
 import org.apache.calcite.rel.core.JoinInfo;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.core.Project;
+import org.apache.calcite.rel.core.TableScan;
 import org.apache.calcite.rel.logical.LogicalJoin;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rel.rules.JoinCommuteRule;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexNode;
 import org.apache.calcite.tools.RelBuilderFactory;
+import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
+import org.apache.pinot.calcite.rel.hint.PinotHintStrategyTable;
 import org.apache.pinot.calcite.rel.logical.PinotLogicalExchange;
+import org.apache.pinot.calcite.rel.logical.PinotLogicalSortExchange;
+import org.apache.pinot.query.catalog.PinotTable;
 
 
 /**
  * Special rule for Pinot, this rule is fixed to always insert exchange after JOIN node.
+ *
+ * <p>When the sort merge join strategy is requested via the join hint, the exchanges also sort both inputs on the join
+ * keys (ascending, nulls last) on the receiver side, so that the join can be executed as a streaming merge.
+ *
+ * <p>When the lookup join strategy is requested via the join hint (see
+ * {@link PinotHintOptions.JoinHintOptions#LOOKUP_JOIN_STRATEGY}) and the join can be executed as a lookup join, no
+ * exchange is inserted. The right input (dimension table) is then looked up locally on the servers executing the leaf
+ * stage of the left input. The inputs of an INNER JOIN are swapped when only the left input can be looked up.
+ *
+ * <p>When no join strategy is requested via the join hint and the statistics of all the joined tables are available,
+ * the estimated row counts are used to:
+ * <ul>
+ *   <li>Swap the inputs of an INNER JOIN so that the smaller input is on the right (build) side of the hash join</li>
+ *   <li>Broadcast the right input instead of shuffling both inputs when the right input is small enough and much
+ *   smaller than the left input</li>
+ * </ul>
  */
 public class PinotJoinExchangeNodeInsertRule extends RelOptRule {
   public static final PinotJoinExchangeNodeInsertRule INSTANCE =
       new PinotJoinExchangeNodeInsertRule(PinotRuleUtils.PINOT_REL_FACTORY);
 
+  // Swap the join inputs when the estimated row count of the right input is larger than the left input by this ratio
+  private static final double SWAP_INPUTS_MIN_RATIO = 2.0;
+  // Broadcast the right input when its estimated row count is no more than this number of rows, and is smaller than
+  // the left input by this ratio
+  private static final double BROADCAST_RIGHT_INPUT_MAX_ROWS = 100_000;
+  private static final double BROADCAST_RIGHT_INPUT_MIN_RATIO = 10.0;
+
   public PinotJoinExchangeNodeInsertRule(RelBuilderFactory factory) {
     super(operand(LogicalJoin.class, any()), factory, null);
   }
@@ -63,10 +106,48 @@ public class PinotJoinExchangeNodeInsertRule extends RelOptRule {
     RelNode rightExchange;
     JoinInfo joinInfo = join.analyzeCondition();
 
+    if (canUseLookupJoin(join, leftInput, rightInput, joinInfo.rightKeys)) {
+      // no exchange is inserted for lookup join
+      return;
+    }
+    if (join.getJoinType() == JoinRelType.INNER && canUseLookupJoin(join, rightInput, leftInput, joinInfo.leftKeys)) {
+      // put the dimension table on the right side, lookup join will be used when this rule is applied to the new join
+      RelNode swapped = JoinCommuteRule.swap(join, false, call.builder());
+      if (swapped != null) {
+        call.transformTo(swapped);
+        return;
+      }
+    }
+
+    boolean useTableStatistic = !joinInfo.leftKeys.isEmpty() && useTableStatistic(join);
+    RelMetadataQuery mq = call.getMetadataQuery();
+
+    if (useTableStatistic && join.getJoinType() == JoinRelType.INNER
+        && mq.getRowCount(rightInput) > mq.getRowCount(leftInput) * SWAP_INPUTS_MIN_RATIO) {
+      // put the smaller input on the build side, exchange will be inserted when this rule is applied to the new join
+      RelNode swapped = JoinCommuteRule.swap(join, false, call.builder());
+      if (swapped != null) {
+        call.transformTo(swapped);
+        return;
+      }
+    }
+
     if (joinInfo.leftKeys.isEmpty()) {
       // when there's no JOIN key, use broadcast.
       leftExchange = PinotLogicalExchange.create(leftInput, RelDistributions.RANDOM_DISTRIBUTED);
       rightExchange = PinotLogicalExchange.create(rightInput, RelDistributions.BROADCAST_DISTRIBUTED);
+    } else if (useSortMergeJoin(join)) {
+      // when sort merge join is requested, use hash distribution and sort both inputs on the join keys.
+      leftExchange = PinotLogicalSortExchange.create(leftInput, RelDistributions.hash(joinInfo.leftKeys),
+          getJoinKeyCollation(joinInfo.leftKeys), false, true);
+      rightExchange = PinotLogicalSortExchange.create(rightInput, RelDistributions.hash(joinInfo.rightKeys),
+          getJoinKeyCollation(joinInfo.rightKeys), false, true);
+    } else if (useTableStatistic && canBroadcastRightInput(join.getJoinType())
+        && mq.getRowCount(rightInput) <= BROADCAST_RIGHT_INPUT_MAX_ROWS
+        && mq.getRowCount(rightInput) * BROADCAST_RIGHT_INPUT_MIN_RATIO <= mq.getRowCount(leftInput)) {
+      // when the right input is small, broadcast it to avoid shuffling the left input by the join keys.
+      leftExchange = PinotLogicalExchange.create(leftInput, RelDistributions.RANDOM_DISTRIBUTED);
+      rightExchange = PinotLogicalExchange.create(rightInput, RelDistributions.BROADCAST_DISTRIBUTED);
     } else {
       // when join key exists, use hash distribution.
       leftExchange = PinotLogicalExchange.create(leftInput, RelDistributions.hash(joinInfo.leftKeys));
@@ -79,4 +160,152 @@ public class PinotJoinExchangeNodeInsertRule extends RelOptRule {
             ImmutableList.copyOf(join.getSystemFieldList()));
     call.transformTo(newJoinNode);
   }
+
+  /**
+   * Table statistics are used only when neither join strategy nor colocated join is requested via the join hint, and
+   * the statistics of all the joined tables are available.
+   */
+  private static boolean useTableStatistic(Join join) {
+    return PinotHintStrategyTable.getHintOption(join.getHints(), PinotHintOptions.JOIN_HINT_OPTIONS,
+        PinotHintOptions.JoinHintOptions.JOIN_STRATEGY) == null
+        && PinotHintStrategyTable.getHintOption(join.getHints(), PinotHintOptions.JOIN_HINT_OPTIONS,
+        PinotHintOptions.JoinHintOptions.IS_COLOCATED_BY_JOIN_KEYS) == null
+        && PinotRuleUtils.hasTableStatistic(join.getLeft()) && PinotRuleUtils.hasTableStatistic(join.getRight());
+  }
+
+  /**
+   * Right input can be broadcast when all the left rows are joined independently, i.e. unmatched right rows are not
+   * emitted.
+   */
+  private static boolean canBroadcastRightInput(JoinRelType joinType) {
+    return joinType == JoinRelType.INNER || joinType == JoinRelType.LEFT || joinType == JoinRelType.SEMI
+        || joinType == JoinRelType.ANTI;
+  }
+
+  private static boolean useSortMergeJoin(Join join) {
+    JoinRelType joinType = join.getJoinType();
+    if (joinType != JoinRelType.INNER && joinType != JoinRelType.LEFT) {
+      return false;
+    }
+    return containsJoinStrategy(join, PinotHintOptions.JoinHintOptions.SORT_MERGE_JOIN_STRATEGY);
+  }
+
+  private static boolean containsJoinStrategy(Join join, String strategy) {
+    String joinStrategyString = PinotHintStrategyTable.getHintOption(join.getHints(),
+        PinotHintOptions.JOIN_HINT_OPTIONS, PinotHintOptions.JoinHintOptions.JOIN_STRATEGY);
+    if (joinStrategyString == null) {
+      return false;
+    }
+    for (String joinStrategy : joinStrategyString.split(",")) {
+      if (joinStrategy.trim().equals(strategy)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether the join can be executed as a lookup join with the given probe input on the left and lookup input
+   * on the right, i.e.:
+   * <ul>
+   *   <li>The lookup join strategy is requested via the join hint. It is not used by default because the dimension
+   *   table might not be loaded on all the servers hosting the probe table (e.g. when they are on different tenants),
+   *   which cannot be verified when planning the query</li>
+   *   <li>The join is an INNER, LEFT, SEMI or ANTI JOIN</li>
+   *   <li>The lookup input scans a dimension table (optionally through filters and projects), and the lookup keys are
+   *   exactly the primary key columns of the dimension table</li>
+   *   <li>The probe input can be planned in the leaf stage</li>
+   * </ul>
+   */
+  private static boolean canUseLookupJoin(Join join, RelNode probeInput, RelNode lookupInput,
+      List<Integer> lookupKeys) {
+    if (!containsJoinStrategy(join, PinotHintOptions.JoinHintOptions.LOOKUP_JOIN_STRATEGY)) {
+      return false;
+    }
+    JoinRelType joinType = join.getJoinType();
+    if (joinType != JoinRelType.INNER && joinType != JoinRelType.LEFT && joinType != JoinRelType.SEMI
+        && joinType != JoinRelType.ANTI) {
+      return false;
+    }
+    TableScan tableScan = getLookupTableScan(lookupInput);
+    if (tableScan == null) {
+      return false;
+    }
+    PinotTable pinotTable = tableScan.getTable().unwrap(PinotTable.class);
+    if (pinotTable == null || !pinotTable.isDimTable()) {
+      return false;
+    }
+    List<String> primaryKeyColumns = pinotTable.getPrimaryKeyColumns();
+    if (primaryKeyColumns == null || primaryKeyColumns.isEmpty() || primaryKeyColumns.size() != lookupKeys.size()) {
+      return false;
+    }
+    List<String> fieldNames = tableScan.getRowType().getFieldNames();
+    Set<String> lookupKeyColumns = new HashSet<>();
+    for (int lookupKey : lookupKeys) {
+      int fieldIndex = getTableScanFieldIndex(lookupInput, lookupKey);
+      if (fieldIndex < 0) {
+        return false;
+      }
+      lookupKeyColumns.add(fieldNames.get(fieldIndex));
+    }
+    return lookupKeyColumns.equals(new HashSet<>(primaryKeyColumns)) && canPlanInLeafStage(probeInput);
+  }
+
+  @Nullable
+  private static TableScan getLookupTableScan(RelNode relNode) {
+    relNode = PinotRuleUtils.unboxRel(relNode);
+    if (relNode instanceof TableScan) {
+      return (TableScan) relNode;
+    }
+    if (relNode instanceof Project || relNode instanceof Filter) {
+      return getLookupTableScan(relNode.getInput(0));
+    }
+    return null;
+  }
+
+  /**
+   * Returns the index of the table scan field directly referenced by the given field of the lookup input, or -1 if the
+   * field is computed.
+   */
+  private static int getTableScanFieldIndex(RelNode relNode, int fieldIndex) {
+    relNode = PinotRuleUtils.unboxRel(relNode);
+    if (relNode instanceof Project) {
+      RexNode project = ((Project) relNode).getProjects().get(fieldIndex);
+      return project instanceof RexInputRef ? getTableScanFieldIndex(relNode.getInput(0),
+          ((RexInputRef) project).getIndex()) : -1;
+    }
+    if (relNode instanceof Filter) {
+      return getTableScanFieldIndex(relNode.getInput(0), fieldIndex);
+    }
+    return fieldIndex;
+  }
+
+  /**
+   * Returns whether the input can be planned in the leaf stage, i.e. it is a table scan, optionally through filters,
+   * projects and the left input of other lookup joins.
+   */
+  private static boolean canPlanInLeafStage(RelNode relNode) {
+    relNode = PinotRuleUtils.unboxRel(relNode);
+    if (relNode instanceof TableScan) {
+      return true;
+    }
+    if (relNode instanceof Project || relNode instanceof Filter) {
+      return canPlanInLeafStage(relNode.getInput(0));
+    }
+    if (relNode instanceof Join) {
+      Join join = (Join) relNode;
+      return !PinotRuleUtils.isExchange(join.getLeft()) && !PinotRuleUtils.isExchange(join.getRight())
+          && canUseLookupJoin(join, join.getLeft(), join.getRight(), join.analyzeCondition().rightKeys);
+    }
+    return false;
+  }
+
+  private static RelCollation getJoinKeyCollation(List<Integer> keys) {
+    List<RelFieldCollation> fieldCollations = new ArrayList<>(keys.size());
+    for (int key : keys) {
+      fieldCollations.add(
+          new RelFieldCollation(key, RelFieldCollation.Direction.ASCENDING, RelFieldCollation.NullDirection.LAST));
+    }
+    return RelCollations.of(fieldCollations);
+  }
 }
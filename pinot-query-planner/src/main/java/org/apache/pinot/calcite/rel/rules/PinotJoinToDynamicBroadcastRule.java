@@ -175,9 +175,9 @@ public class PinotJoinToDynamicBroadcastRule extends RelOptRule {
       dynamicBroadcastExchange = PinotLogicalExchange.create(rightInput, dist, PinotRelExchangeType.PIPELINE_BREAKER);
     }
     Join dynamicFilterJoin =
-        new LogicalJoin(join.getCluster(), join.getTraitSet(), left.getInput(), dynamicBroadcastExchange,
-            join.getCondition(), join.getVariablesSet(), join.getJoinType(), join.isSemiJoinDone(),
-            ImmutableList.copyOf(join.getSystemFieldList()));
+        new LogicalJoin(join.getCluster(), join.getTraitSet(), join.getHints(), left.getInput(),
+            dynamicBroadcastExchange, join.getCondition(), join.getVariablesSet(), join.getJoinType(),
+            join.isSemiJoinDone(), ImmutableList.copyOf(join.getSystemFieldList()));
     call.transformTo(dynamicFilterJoin);
   }
 }
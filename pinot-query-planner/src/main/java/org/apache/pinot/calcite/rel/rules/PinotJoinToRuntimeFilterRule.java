@@ -0,0 +1,171 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.calcite.rel.rules;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Filter;
+import org.apache.calcite.rel.core.Join;
+import org.apache.calcite.rel.core.JoinInfo;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.core.Project;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rel.hint.RelHint;
+import org.apache.calcite.rel.logical.LogicalJoin;
+import org.apache.calcite.rel.logical.LogicalProject;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.tools.RelBuilderFactory;
+import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
+import org.apache.pinot.calcite.rel.hint.PinotHintStrategyTable;
+
+
+/**
+ * Special rule for Pinot, this rule adds a runtime filter to an INNER JOIN by inserting a SEMI JOIN on the join key
+ * below the left input of the join:
+ *
+ *             [ Inner Join ]                          [ Inner Join ]
+ *             /            \                          /            \
+ *        [ Left ]        [ Right ]     ==>     [ Semi Join ]      [ Right ]
+ *                                              /           \
+ *                                         [ Left ]     [ Project ]
+ *                                                            |
+ *                                                        [ Right ]
+ *
+ * <p>The SEMI JOIN has a single join key, so once the exchanges are inserted it is turned into a dynamic broadcast by
+ * {@link PinotJoinToDynamicBroadcastRule}: the right table keys are shipped to the left table leaf stage via a
+ * pipeline breaker, and attached to the leaf stage query as a filter, which can leverage the indexes and the segment
+ * pruning of the leaf stage. The filter might be a superset of the right table keys (e.g. a range of the keys when
+ * there are too many of them), which is fine because the INNER JOIN is still performed on top of it.
+ *
+ * <p>Limitations:
+ * <ul>
+ *   <li>The right input is planned and computed twice (once for the runtime filter and once for the join), so this
+ *   rule only applies when the right input is a single leaf stage scan (table scan with optional filters and
+ *   projects), where computing it again costs another leaf stage scan instead of a whole sub-query.</li>
+ *   <li>The runtime filter is only on the first join key, so it is a superset of the join result for multiple join
+ *   keys.</li>
+ * </ul>
+ * This rule only applies when explicitly requested with the {@link PinotHintOptions.JoinHintOptions#RUNTIME_FILTER}
+ * join hint, and should be used when the right table is much smaller than the left table.
+ *
+ * <p>This rule must be applied before the exchanges are inserted.
+ */
+public class PinotJoinToRuntimeFilterRule extends RelOptRule {
+  public static final PinotJoinToRuntimeFilterRule INSTANCE =
+      new PinotJoinToRuntimeFilterRule(PinotRuleUtils.PINOT_REL_FACTORY);
+
+  public PinotJoinToRuntimeFilterRule(RelBuilderFactory factory) {
+    super(operand(LogicalJoin.class, any()), factory, null);
+  }
+
+  @Override
+  public boolean matches(RelOptRuleCall call) {
+    if (call.rels.length < 1 || !(call.rel(0) instanceof Join)) {
+      return false;
+    }
+    Join join = call.rel(0);
+    return join.getJoinType() == JoinRelType.INNER && PinotHintStrategyTable.isHintOptionTrue(join.getHints(),
+        PinotHintOptions.JOIN_HINT_OPTIONS, PinotHintOptions.JoinHintOptions.RUNTIME_FILTER)
+        && !join.analyzeCondition().leftKeys.isEmpty()
+        && !PinotRuleUtils.isExchange(join.getLeft()) && !PinotRuleUtils.isExchange(join.getRight())
+        // the join hints are propagated to the new join, so check whether the runtime filter was already added
+        && !isRuntimeFilter(PinotRuleUtils.unboxRel(join.getLeft()))
+        // the runtime filter can only be pushed when the left input is planned in the leaf stage
+        && PinotRuleUtils.canPushDynamicBroadcastToLeaf(join.getLeft())
+        // the right input is computed twice, so only allow the ones that are cheap to compute again
+        && isLeafScan(join.getRight());
+  }
+
+  @Override
+  public void onMatch(RelOptRuleCall call) {
+    Join join = call.rel(0);
+    RelNode left = join.getLeft();
+    RelNode right = join.getRight();
+    JoinInfo joinInfo = join.analyzeCondition();
+
+    // Use the first join key for the runtime filter, which is a superset of the join result for multiple join keys
+    int leftKey = joinInfo.leftKeys.get(0);
+    int rightKey = joinInfo.rightKeys.get(0);
+    RexBuilder rexBuilder = join.getCluster().getRexBuilder();
+    RelNode rightKeyProject =
+        LogicalProject.create(right, List.of(), List.of(rexBuilder.makeInputRef(right, rightKey)),
+            List.of(right.getRowType().getFieldNames().get(rightKey)));
+    int numLeftFields = left.getRowType().getFieldCount();
+    RexNode semiJoinCondition = rexBuilder.makeCall(SqlStdOperatorTable.EQUALS, rexBuilder.makeInputRef(left, leftKey),
+        new RexInputRef(numLeftFields, rightKeyProject.getRowType().getFieldList().get(0).getType()));
+    // Keep the runtime filter hint on the SEMI JOIN so that the leaf stage knows the filter can be a superset
+    List<RelHint> semiJoinHints = List.of(RelHint.builder(PinotHintOptions.JOIN_HINT_OPTIONS)
+        .hintOption(PinotHintOptions.JoinHintOptions.RUNTIME_FILTER, "true").build());
+    LogicalJoin semiJoin =
+        LogicalJoin.create(left, rightKeyProject, semiJoinHints, semiJoinCondition, join.getVariablesSet(),
+            JoinRelType.SEMI);
+
+    RelNode newJoin =
+        new LogicalJoin(join.getCluster(), join.getTraitSet(), removeRuntimeFilterHint(join.getHints()), semiJoin,
+            right, join.getCondition(), join.getVariablesSet(), join.getJoinType(), join.isSemiJoinDone(),
+            ImmutableList.copyOf(join.getSystemFieldList()));
+    call.transformTo(newJoin);
+  }
+
+  /**
+   * Returns whether the given {@code RelNode} is a table scan with optional filters and projects on top of it, which is
+   * planned as a single leaf stage.
+   */
+  private static boolean isLeafScan(RelNode relNode) {
+    relNode = PinotRuleUtils.unboxRel(relNode);
+    if (relNode instanceof TableScan) {
+      return true;
+    }
+    if (relNode instanceof Project || relNode instanceof Filter) {
+      return isLeafScan(relNode.getInput(0));
+    }
+    return false;
+  }
+
+  private static boolean isRuntimeFilter(RelNode relNode) {
+    return relNode instanceof Join && ((Join) relNode).getJoinType() == JoinRelType.SEMI
+        && PinotHintStrategyTable.isHintOptionTrue(((Join) relNode).getHints(), PinotHintOptions.JOIN_HINT_OPTIONS,
+        PinotHintOptions.JoinHintOptions.RUNTIME_FILTER);
+  }
+
+  private static List<RelHint> removeRuntimeFilterHint(List<RelHint> hints) {
+    List<RelHint> newHints = new ArrayList<>(hints.size());
+    for (RelHint hint : hints) {
+      if (hint.hintName.equals(PinotHintOptions.JOIN_HINT_OPTIONS)) {
+        Map<String, String> kvOptions = new HashMap<>(hint.kvOptions);
+        kvOptions.remove(PinotHintOptions.JoinHintOptions.RUNTIME_FILTER);
+        if (!kvOptions.isEmpty()) {
+          newHints.add(RelHint.builder(hint.hintName).hintOptions(kvOptions).build());
+        }
+      } else {
+        newHints.add(hint);
+      }
+    }
+    return newHints;
+  }
+}
@@ -122,6 +122,8 @@ public class PinotQueryRuleSets {
   public static final Collection<RelOptRule> PINOT_POST_RULES = ImmutableList.of(
       // Evaluate the Literal filter nodes
       CoreRules.FILTER_REDUCE_EXPRESSIONS,
+      // copy top-N sort to the preserving side of LEFT/RIGHT join, this must be done before SortExchangeNodeInsertRule
+      PinotSortJoinCopyRule.INSTANCE,
       // TODO: Merge the following 2 rules into a single rule
       // add an extra exchange for sort
       PinotSortExchangeNodeInsertRule.INSTANCE,
@@ -129,6 +131,8 @@ public class PinotQueryRuleSets {
       PinotSortExchangeCopyRule.SORT_EXCHANGE_COPY,
 
       PinotSingleValueAggregateRemoveRule.INSTANCE,
+      // add runtime filter (as SEMI JOIN) to INNER JOIN, this must be done before exchange is inserted
+      PinotJoinToRuntimeFilterRule.INSTANCE,
       PinotJoinExchangeNodeInsertRule.INSTANCE,
       PinotAggregateExchangeNodeInsertRule.INSTANCE,
       PinotWindowExchangeNodeInsertRule.INSTANCE,
@@ -135,7 +135,8 @@ public class PinotRelDistributionTraitRule extends RelOptRule {
       // TODO: we only map a single RelTrait from the LEFT table, later we should support RIGHT table as well
       assert inputs.size() == 2;
       RelDistribution inputRelDistribution = inputs.get(0).getTraitSet().getDistribution();
-      if (inputRelDistribution != null) {
+      // When the hot keys are spread across multiple receivers, the join output is no longer distributed by the keys
+      if (inputRelDistribution != null && PinotRuleUtils.getSkewSaltFactor((LogicalJoin) node) == 0) {
         // Since we only support LEFT RelTrait propagation, the inputRelDistribution can directly be applied
         // b/c the Join node always puts left relation RowTypes then right relation RowTypes sequentially.
         return inputRelDistribution;
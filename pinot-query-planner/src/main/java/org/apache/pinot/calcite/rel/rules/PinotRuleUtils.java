@@ -18,6 +18,8 @@
  */
 package org.apache.pinot.calcite.rel.rules;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.calcite.plan.Contexts;
 import org.apache.calcite.plan.hep.HepRelVertex;
 import org.apache.calcite.rel.RelNode;
@@ -25,6 +27,7 @@ import org.apache.calcite.rel.core.Aggregate;
 import org.apache.calcite.rel.core.Exchange;
 import org.apache.calcite.rel.core.Filter;
 import org.apache.calcite.rel.core.Join;
+import org.apache.calcite.rel.core.JoinRelType;
 import org.apache.calcite.rel.core.Project;
 import org.apache.calcite.rel.core.RelFactories;
 import org.apache.calcite.rel.core.TableScan;
@@ -33,7 +36,9 @@ import org.apache.calcite.sql.SqlKind;
 import org.apache.calcite.sql2rel.SqlToRelConverter;
 import org.apache.calcite.tools.RelBuilder;
 import org.apache.calcite.tools.RelBuilderFactory;
+import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
 import org.apache.pinot.calcite.rel.hint.PinotHintStrategyTable;
+import org.apache.pinot.query.catalog.PinotTable;
 
 
 public class PinotRuleUtils {
@@ -113,6 +118,64 @@ public class PinotRuleUtils {
     }
   }
 
+  /**
+   * Returns whether the statistics of all the tables scanned under the given {@code RelNode} are available, in which
+   * case the row count estimated by the metadata query is based on the actual table sizes instead of default values.
+   */
+  public static boolean hasTableStatistic(RelNode relNode) {
+    relNode = PinotRuleUtils.unboxRel(relNode);
+    if (relNode instanceof TableScan) {
+      PinotTable pinotTable = relNode.getTable().unwrap(PinotTable.class);
+      return pinotTable != null && pinotTable.hasStatistic();
+    }
+    for (RelNode input : relNode.getInputs()) {
+      if (!hasTableStatistic(input)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of receivers the hot join keys are spread across as requested via the join hint, or 0 when the
+   * skew handling does not apply to the join. It only applies to the joins where unmatched right rows are not emitted,
+   * because the right rows of the hot keys are replicated to multiple receivers, and requires the hot keys to be
+   * specified (see {@link #getSkewKeys(Join)}).
+   */
+  public static int getSkewSaltFactor(Join join) {
+    String skewSaltFactorString = PinotHintStrategyTable.getHintOption(join.getHints(),
+        PinotHintOptions.JOIN_HINT_OPTIONS, PinotHintOptions.JoinHintOptions.SKEW_SALT_FACTOR);
+    if (skewSaltFactorString == null || getSkewKeys(join).isEmpty()) {
+      return 0;
+    }
+    int skewSaltFactor = Integer.parseInt(skewSaltFactorString);
+    JoinRelType joinType = join.getJoinType();
+    if (skewSaltFactor <= 1 || (joinType != JoinRelType.INNER && joinType != JoinRelType.LEFT
+        && joinType != JoinRelType.SEMI && joinType != JoinRelType.ANTI)) {
+      return 0;
+    }
+    return skewSaltFactor;
+  }
+
+  /**
+   * Returns the hot values of the first join key as requested via the join hint, or an empty list if not specified.
+   */
+  public static List<String> getSkewKeys(Join join) {
+    String skewKeysString = PinotHintStrategyTable.getHintOption(join.getHints(), PinotHintOptions.JOIN_HINT_OPTIONS,
+        PinotHintOptions.JoinHintOptions.SKEW_KEYS);
+    if (skewKeysString == null) {
+      return List.of();
+    }
+    List<String> skewKeys = new ArrayList<>();
+    for (String skewKey : skewKeysString.split(",")) {
+      String trimmedSkewKey = skewKey.trim();
+      if (!trimmedSkewKey.isEmpty()) {
+        skewKeys.add(trimmedSkewKey);
+      }
+    }
+    return skewKeys;
+  }
+
   public static String extractFunctionName(RexCall function) {
     SqlKind funcSqlKind = function.getOperator().getKind();
     return funcSqlKind == SqlKind.OTHER_FUNCTION ? function.getOperator().getName() : funcSqlKind.name();
@@ -40,7 +40,7 @@ import org.apache.pinot.query.type.TypeFactory;
 public class PinotSortExchangeCopyRule extends RelRule<RelRule.Config> {
   public static final PinotSortExchangeCopyRule SORT_EXCHANGE_COPY =
       PinotSortExchangeCopyRule.Config.DEFAULT.toRule();
-  private static final int DEFAULT_SORT_EXCHANGE_COPY_THRESHOLD = 10_000;
+  static final int DEFAULT_SORT_EXCHANGE_COPY_THRESHOLD = 10_000;
   private static final TypeFactory TYPE_FACTORY = new TypeFactory();
   private static final RexBuilder REX_BUILDER = new RexBuilder(TYPE_FACTORY);
   private static final RexLiteral REX_ZERO = REX_BUILDER.makeLiteral(0,
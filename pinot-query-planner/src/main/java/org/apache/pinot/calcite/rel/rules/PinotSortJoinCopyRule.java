@@ -0,0 +1,162 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.calcite.rel.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.RelCollation;
+import org.apache.calcite.rel.RelCollations;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Join;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.core.Project;
+import org.apache.calcite.rel.core.Sort;
+import org.apache.calcite.rel.logical.LogicalJoin;
+import org.apache.calcite.rel.logical.LogicalSort;
+import org.apache.calcite.rel.metadata.RelMdUtil;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.tools.RelBuilderFactory;
+import org.apache.pinot.query.planner.logical.RexExpressionUtils;
+
+
+/**
+ * Special rule for Pinot, this rule copies a top-N sort (sort with fetch) on top of a LEFT (or RIGHT) JOIN to the
+ * preserving side of the JOIN when all the sort keys are from the preserving side, optionally through a project:
+ *
+ *            [ Sort ]                                 [ Sort ]
+ *               |                                        |
+ *          [ Project ]                              [ Project ]
+ *               |                                        |
+ *          [ Left Join ]            ==>             [ Left Join ]
+ *          /           \                            /           \
+ *     [ Left ]      [ Right ]                 [ Sort ]        [ Right ]
+ *                                                 |
+ *                                             [ Left ]
+ *
+ * <p>Each row of the preserving side produces at least one output row of the JOIN, so the top-N rows of the JOIN only
+ * come from the top-N rows of the preserving side. The copied sort has fetch of offset + fetch of the original sort,
+ * and the original sort is kept on top of the JOIN.
+ *
+ * <p>The copied sort is then exchanged and copied into the leaf stage by {@link PinotSortExchangeNodeInsertRule} and
+ * {@link PinotSortExchangeCopyRule}, so that the leaf stage only sends the top rows instead of all the rows to the
+ * JOIN. This rule must be applied before the exchanges are inserted.
+ */
+public class PinotSortJoinCopyRule extends RelOptRule {
+  public static final PinotSortJoinCopyRule INSTANCE = new PinotSortJoinCopyRule(PinotRuleUtils.PINOT_REL_FACTORY);
+
+  public PinotSortJoinCopyRule(RelBuilderFactory factory) {
+    super(operand(LogicalSort.class, any()), factory, null);
+  }
+
+  @Override
+  public boolean matches(RelOptRuleCall call) {
+    if (call.rels.length < 1 || !(call.rel(0) instanceof Sort)) {
+      return false;
+    }
+    Sort sort = call.rel(0);
+    if (sort.fetch == null || getFetch(sort) > PinotSortExchangeCopyRule.DEFAULT_SORT_EXCHANGE_COPY_THRESHOLD) {
+      return false;
+    }
+    RelNode input = PinotRuleUtils.unboxRel(sort.getInput());
+    if (input instanceof Project) {
+      input = PinotRuleUtils.unboxRel(((Project) input).getInput());
+    }
+    if (!(input instanceof LogicalJoin)) {
+      return false;
+    }
+    JoinRelType joinType = ((Join) input).getJoinType();
+    return joinType == JoinRelType.LEFT || joinType == JoinRelType.RIGHT;
+  }
+
+  @Override
+  public void onMatch(RelOptRuleCall call) {
+    Sort sort = call.rel(0);
+    RelNode input = PinotRuleUtils.unboxRel(sort.getInput());
+    Project project = null;
+    if (input instanceof Project) {
+      project = (Project) input;
+      input = PinotRuleUtils.unboxRel(project.getInput());
+    }
+    Join join = (Join) input;
+    boolean isLeftJoin = join.getJoinType() == JoinRelType.LEFT;
+    RelNode preservingInput = isLeftJoin ? join.getLeft() : join.getRight();
+    int offset = isLeftJoin ? 0 : join.getLeft().getRowType().getFieldCount();
+    int numPreservingFields = preservingInput.getRowType().getFieldCount();
+
+    // Map the sort keys to the preserving side of the join
+    List<RelFieldCollation> fieldCollations = new ArrayList<>();
+    for (RelFieldCollation fieldCollation : sort.getCollation().getFieldCollations()) {
+      Integer joinFieldIndex = getJoinFieldIndex(project, fieldCollation.getFieldIndex());
+      if (joinFieldIndex == null) {
+        return;
+      }
+      int fieldIndex = joinFieldIndex - offset;
+      if (fieldIndex < 0 || fieldIndex >= numPreservingFields) {
+        return;
+      }
+      fieldCollations.add(fieldCollation.withFieldIndex(fieldIndex));
+    }
+    RelCollation collation = RelCollations.of(fieldCollations);
+    RexBuilder rexBuilder = sort.getCluster().getRexBuilder();
+    RexNode fetch = rexBuilder.makeLiteral(getFetch(sort), sort.getCluster().getTypeFactory()
+        .createSqlType(SqlTypeName.INTEGER));
+    // Don't rewrite anything if the preserving side already returns fewer rows in the same order (e.g. the sort was
+    // already copied)
+    if (RelMdUtil.checkInputForCollationAndLimit(call.getMetadataQuery(), preservingInput, collation, null, fetch)) {
+      return;
+    }
+
+    RelNode sortCopy = LogicalSort.create(preservingInput, collation, null, fetch);
+    RelNode newLeft = isLeftJoin ? sortCopy : join.getLeft();
+    RelNode newRight = isLeftJoin ? join.getRight() : sortCopy;
+    RelNode newJoin = join.copy(join.getTraitSet(), join.getCondition(), newLeft, newRight, join.getJoinType(),
+        join.isSemiJoinDone());
+    RelNode newInput =
+        project != null ? project.copy(project.getTraitSet(), newJoin, project.getProjects(), project.getRowType())
+            : newJoin;
+    call.transformTo(sort.copy(sort.getTraitSet(), newInput, sort.getCollation(), sort.offset, sort.fetch));
+  }
+
+  /**
+   * Returns the offset + fetch of the sort.
+   */
+  private static int getFetch(Sort sort) {
+    int fetch = RexExpressionUtils.getValueAsInt(sort.fetch);
+    return sort.offset != null ? fetch + RexExpressionUtils.getValueAsInt(sort.offset) : fetch;
+  }
+
+  /**
+   * Returns the index of the join field for the given sort key, or {@code null} if the sort key is not a join field.
+   */
+  @Nullable
+  private static Integer getJoinFieldIndex(@Nullable Project project, int fieldIndex) {
+    if (project == null) {
+      return fieldIndex;
+    }
+    RexNode rexNode = project.getProjects().get(fieldIndex);
+    return rexNode instanceof RexInputRef ? ((RexInputRef) rexNode).getIndex() : null;
+  }
+}
@@ -57,6 +57,7 @@ import org.apache.pinot.calcite.sql.fun.PinotOperatorTable;
 import org.apache.pinot.calcite.sql2rel.PinotConvertletTable;
 import org.apache.pinot.common.config.provider.TableCache;
 import org.apache.pinot.query.catalog.PinotCatalog;
+import org.apache.pinot.query.catalog.PinotTable;
 import org.apache.pinot.query.context.PlannerContext;
 import org.apache.pinot.query.planner.PlannerUtils;
 import org.apache.pinot.query.planner.SubPlan;
@@ -96,10 +97,18 @@ public class QueryEnvironment {
   // Pinot extensions
   private final TableCache _tableCache;
   private final WorkerManager _workerManager;
+  private final String _database;
+  private final PinotCatalog _catalog;
+  private final QueryPlanCache _planCache;
 
   public QueryEnvironment(String database, TableCache tableCache, @Nullable WorkerManager workerManager) {
-    PinotCatalog catalog = new PinotCatalog(database, tableCache);
-    CalciteSchema rootSchema = CalciteSchema.createRootSchema(false, false, database, catalog);
+    this(database, tableCache, workerManager, null);
+  }
+
+  public QueryEnvironment(String database, TableCache tableCache, @Nullable WorkerManager workerManager,
+      @Nullable QueryPlanCache planCache) {
+    _catalog = new PinotCatalog(database, tableCache, workerManager);
+    CalciteSchema rootSchema = CalciteSchema.createRootSchema(false, false, database, _catalog);
     _config = Frameworks.newConfigBuilder().traitDefs().operatorTable(PinotOperatorTable.instance())
         .defaultSchema(rootSchema.plus()).sqlToRelConverterConfig(PinotRuleUtils.PINOT_SQL_TO_REL_CONFIG).build();
     _catalogReader = new CalciteCatalogReader(rootSchema, List.of(database), _typeFactory, CONNECTION_CONFIG);
@@ -107,6 +116,13 @@ public class QueryEnvironment {
     _traitProgram = getTraitProgram();
     _tableCache = tableCache;
     _workerManager = workerManager;
+    _database = database;
+    _planCache = planCache;
+  }
+
+  @Nullable
+  private Long getTableNumDocs(String tableName) {
+    return ((PinotTable) _catalog.getTable(tableName)).getNumDocs();
   }
 
   private PlannerContext getPlannerContext() {
@@ -128,12 +144,22 @@ public class QueryEnvironment {
   public QueryPlannerResult planQuery(String sqlQuery, SqlNodeAndOptions sqlNodeAndOptions, long requestId) {
     try (PlannerContext plannerContext = getPlannerContext()) {
       plannerContext.setOptions(sqlNodeAndOptions.getOptions());
-      RelRoot relRoot = compileQuery(sqlNodeAndOptions.getSqlNode(), plannerContext);
+      // NOTE: The cache key must be computed before compiling the query because the validation rewrites the SqlNode
+      QueryPlanCache.Key planCacheKey =
+          _planCache != null ? _planCache.getKey(_database, sqlNodeAndOptions.getSqlNode()) : null;
+      RelRoot relRoot = planCacheKey != null ? _planCache.get(planCacheKey, this::getTableNumDocs) : null;
+      boolean planCacheHit = relRoot != null;
+      if (!planCacheHit) {
+        relRoot = compileQuery(sqlNodeAndOptions.getSqlNode(), plannerContext);
+        if (planCacheKey != null) {
+          _planCache.put(planCacheKey, relRoot);
+        }
+      }
       // TODO: current code only assume one SubPlan per query, but we should support multiple SubPlans per query.
       // Each SubPlan should be able to run independently from Broker then set the results into the dependent
       // SubPlan for further processing.
       DispatchableSubPlan dispatchableSubPlan = toDispatchableSubPlan(relRoot, plannerContext, requestId);
-      return new QueryPlannerResult(dispatchableSubPlan, null, dispatchableSubPlan.getTableNames());
+      return new QueryPlannerResult(dispatchableSubPlan, null, dispatchableSubPlan.getTableNames(), planCacheHit);
     } catch (CalciteContextException e) {
       throw new RuntimeException("Error composing query plan for '" + sqlQuery + "': " + e.getMessage() + "'", e);
     } catch (Throwable t) {
@@ -207,12 +233,19 @@ public class QueryEnvironment {
     private final DispatchableSubPlan _dispatchableSubPlan;
     private final String _explainPlan;
     private final Set<String> _tableNames;
+    private final boolean _planCacheHit;
 
     QueryPlannerResult(@Nullable DispatchableSubPlan dispatchableSubPlan, @Nullable String explainPlan,
         Set<String> tableNames) {
+      this(dispatchableSubPlan, explainPlan, tableNames, false);
+    }
+
+    QueryPlannerResult(@Nullable DispatchableSubPlan dispatchableSubPlan, @Nullable String explainPlan,
+        Set<String> tableNames, boolean planCacheHit) {
       _dispatchableSubPlan = dispatchableSubPlan;
       _explainPlan = explainPlan;
       _tableNames = tableNames;
+      _planCacheHit = planCacheHit;
     }
 
     public String getExplainPlan() {
@@ -226,6 +259,13 @@ public class QueryEnvironment {
     public Set<String> getTableNames() {
       return _tableNames;
     }
+
+    /**
+     * Returns whether the optimized logical plan was fetched from the {@link QueryPlanCache}.
+     */
+    public boolean isPlanCacheHit() {
+      return _planCacheHit;
+    }
   }
 
   // --------------------------------------------------------------------------
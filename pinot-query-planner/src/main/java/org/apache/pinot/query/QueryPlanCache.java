@@ -0,0 +1,257 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelRoot;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.sql.SqlCall;
+import org.apache.calcite.sql.SqlDataTypeSpec;
+import org.apache.calcite.sql.SqlDynamicParam;
+import org.apache.calcite.sql.SqlIdentifier;
+import org.apache.calcite.sql.SqlIntervalQualifier;
+import org.apache.calcite.sql.SqlLiteral;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.SqlNodeList;
+import org.apache.calcite.sql.SqlOperator;
+import org.apache.calcite.sql.util.SqlBasicVisitor;
+import org.apache.pinot.common.function.FunctionRegistry;
+import org.apache.pinot.query.catalog.PinotTable;
+
+
+/**
+ * The {@code QueryPlanCache} caches the optimized logical plan ({@link RelRoot}) of the multi-stage queries, so that
+ * parsing, validation and optimization can be skipped for the repeated queries. Only the stage splitting and the
+ * worker assignment are performed for each query, because they depend on the query options and the routing.
+ *
+ * <p>The plans are keyed on the database and the normalized SQL (the unparsed {@link SqlNode} with the query options
+ * stripped), so only the queries with the exact same text (modulo formatting and query options) share a plan. The
+ * literals are intentionally not parameterized: the planner rules fold constants, simplify and push down the filters,
+ * and derive the literal types from the literal values, so a plan compiled for one set of literals cannot be rebound
+ * to another set without re-running the optimization that the cache is meant to skip.
+ *
+ * <p>The cached plans are shared by the concurrent queries, and they must be treated as read only: the planner that
+ * produced them is closed, and they are only converted into new {@code PlanNode} trees for each query (see
+ * {@link org.apache.pinot.query.planner.logical.PinotLogicalQueryPlanner#makePlan(RelRoot)}). They must never be
+ * registered with a planner again, or have their metadata queried through the cluster, because neither is thread
+ * safe.
+ *
+ * <p>All the cached plans should be invalidated (see {@link #invalidateAll()}) when any table config or schema
+ * changes. Each cached plan also records the statistics (number of docs) of the scanned tables it was planned with,
+ * because the planner picks the join distribution and build side based on them, and the plan is invalidated on lookup
+ * when the statistics of any of these tables changed. The plans also expire after the configured time.
+ *
+ * <p>Queries calling time dependent functions (e.g. {@code now()}, {@code ago()}) are not cached because these
+ * functions are evaluated during the planning.
+ */
+public class QueryPlanCache {
+  private static final Set<String> TIME_DEPENDENT_FUNCTIONS = Set.of("now", "ago");
+
+  private final Cache<Key, CachedPlan> _cache;
+  // Bumped on each invalidation to prevent caching plans compiled before the invalidation
+  private final AtomicLong _version = new AtomicLong();
+
+  public QueryPlanCache(int maxSize, long expireMs) {
+    _cache = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(expireMs, TimeUnit.MILLISECONDS).build();
+  }
+
+  /**
+   * Returns the cache key for the given query, or {@code null} if the query should not be cached. This method must be
+   * called before the query is validated because the validation rewrites the {@link SqlNode}.
+   */
+  @Nullable
+  public Key getKey(String database, SqlNode sqlNode) {
+    if (sqlNode.accept(TimeDependentFunctionFinder.INSTANCE)) {
+      return null;
+    }
+    return new Key(database, sqlNode.toString(), _version.get());
+  }
+
+  /**
+   * Returns the cached plan for the given key, or {@code null} if it is not cached. The cached plan is invalidated when
+   * the current number of docs (fetched via the given function, {@code null} when not available) of any scanned table
+   * is different from the one the plan was planned with.
+   */
+  @Nullable
+  public RelRoot get(Key key, Function<String, Long> tableNumDocsFetcher) {
+    CachedPlan cachedPlan = _cache.getIfPresent(key);
+    if (cachedPlan == null) {
+      return null;
+    }
+    for (Map.Entry<String, Long> entry : cachedPlan._tableNumDocs.entrySet()) {
+      if (!Objects.equals(tableNumDocsFetcher.apply(entry.getKey()), entry.getValue())) {
+        _cache.asMap().remove(key, cachedPlan);
+        return null;
+      }
+    }
+    return cachedPlan._relRoot;
+  }
+
+  public void put(Key key, RelRoot relRoot) {
+    if (key._version == _version.get()) {
+      deriveRowTypes(relRoot.rel);
+      Map<String, Long> tableNumDocs = new HashMap<>();
+      collectTableNumDocs(relRoot.rel, tableNumDocs);
+      _cache.put(key, new CachedPlan(relRoot, tableNumDocs));
+    }
+  }
+
+  /**
+   * Derives the row types of all the nodes before the plan is shared, because they are lazily derived and cached in
+   * non-volatile fields.
+   */
+  private static void deriveRowTypes(RelNode relNode) {
+    relNode.getRowType();
+    for (RelNode input : relNode.getInputs()) {
+      deriveRowTypes(input);
+    }
+  }
+
+  /**
+   * Collects the number of docs the scanned tables are planned with, keyed on the table name resolved by the catalog.
+   */
+  private static void collectTableNumDocs(RelNode relNode, Map<String, Long> tableNumDocs) {
+    if (relNode instanceof TableScan) {
+      RelOptTable table = relNode.getTable();
+      PinotTable pinotTable = table.unwrap(PinotTable.class);
+      List<String> qualifiedName = table.getQualifiedName();
+      tableNumDocs.put(qualifiedName.get(qualifiedName.size() - 1),
+          pinotTable != null ? pinotTable.getNumDocs() : null);
+      return;
+    }
+    for (RelNode input : relNode.getInputs()) {
+      collectTableNumDocs(input, tableNumDocs);
+    }
+  }
+
+  public long size() {
+    return _cache.size();
+  }
+
+  public void invalidateAll() {
+    _version.incrementAndGet();
+    _cache.invalidateAll();
+  }
+
+  private static class CachedPlan {
+    final RelRoot _relRoot;
+    // Number of docs of the scanned tables when the plan is planned
+    final Map<String, Long> _tableNumDocs;
+
+    CachedPlan(RelRoot relRoot, Map<String, Long> tableNumDocs) {
+      _relRoot = relRoot;
+      _tableNumDocs = tableNumDocs;
+    }
+  }
+
+  public static class Key {
+    private final String _database;
+    private final String _sql;
+    private final long _version;
+
+    private Key(String database, String sql, long version) {
+      _database = database;
+      _sql = sql;
+      _version = version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return _database.equals(key._database) && _sql.equals(key._sql);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_database, _sql);
+    }
+  }
+
+  private static class TimeDependentFunctionFinder extends SqlBasicVisitor<Boolean> {
+    static final TimeDependentFunctionFinder INSTANCE = new TimeDependentFunctionFinder();
+
+    @Override
+    public Boolean visit(SqlCall call) {
+      SqlOperator operator = call.getOperator();
+      if (operator.isDynamicFunction() || !operator.isDeterministic() || TIME_DEPENDENT_FUNCTIONS.contains(
+          FunctionRegistry.canonicalize(operator.getName()))) {
+        return true;
+      }
+      for (SqlNode operand : call.getOperandList()) {
+        if (operand != null && operand.accept(this)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Boolean visit(SqlNodeList nodeList) {
+      for (SqlNode node : nodeList) {
+        if (node != null && node.accept(this)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Boolean visit(SqlLiteral literal) {
+      return false;
+    }
+
+    @Override
+    public Boolean visit(SqlIdentifier id) {
+      return false;
+    }
+
+    @Override
+    public Boolean visit(SqlDataTypeSpec type) {
+      return false;
+    }
+
+    @Override
+    public Boolean visit(SqlDynamicParam param) {
+      return false;
+    }
+
+    @Override
+    public Boolean visit(SqlIntervalQualifier intervalQualifier) {
+      return false;
+    }
+  }
+}
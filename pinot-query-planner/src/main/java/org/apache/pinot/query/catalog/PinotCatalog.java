@@ -33,6 +33,8 @@ import org.apache.calcite.schema.Schemas;
 import org.apache.calcite.schema.Table;
 import org.apache.pinot.common.config.provider.TableCache;
 import org.apache.pinot.common.utils.DatabaseUtils;
+import org.apache.pinot.query.routing.WorkerManager;
+import org.apache.pinot.spi.config.table.TableConfig;
 import org.apache.pinot.spi.utils.builder.TableNameBuilder;
 
 import static java.util.Objects.requireNonNull;
@@ -48,19 +50,27 @@ public class PinotCatalog implements Schema {
 
   private final TableCache _tableCache;
   private final String _databaseName;
+  private final WorkerManager _workerManager;
 
   /**
    * PinotCatalog needs have access to the actual {@link TableCache} object because TableCache hosts the actual
    * table available for query and processes table/segment metadata updates when cluster status changes.
    */
   public PinotCatalog(TableCache tableCache) {
-    _tableCache = tableCache;
-    _databaseName = null;
+    this(null, tableCache, null);
   }
 
   public PinotCatalog(String databaseName, TableCache tableCache) {
+    this(databaseName, tableCache, null);
+  }
+
+  /**
+   * When the {@link WorkerManager} is provided, the table statistics (e.g. row count) are provided to the planner.
+   */
+  public PinotCatalog(String databaseName, TableCache tableCache, @Nullable WorkerManager workerManager) {
     _tableCache = tableCache;
     _databaseName = databaseName;
+    _workerManager = workerManager;
   }
 
   /**
@@ -76,7 +86,21 @@ public class PinotCatalog implements Schema {
     Preconditions.checkArgument(tableName != null, String.format("Table does not exist: '%s'", physicalTableName));
     org.apache.pinot.spi.data.Schema schema = _tableCache.getSchema(tableName);
     Preconditions.checkArgument(schema != null, String.format("Could not find schema for table: '%s'", tableName));
-    return new PinotTable(schema);
+    Long numDocs = _workerManager != null ? _workerManager.getTableNumDocs(tableName) : null;
+    return new PinotTable(schema, numDocs, isDimTable(tableName));
+  }
+
+  /**
+   * Dimension tables are always OFFLINE tables.
+   */
+  private boolean isDimTable(String tableName) {
+    if (TableNameBuilder.isRealtimeTableResource(tableName)) {
+      return false;
+    }
+    String offlineTableName =
+        TableNameBuilder.OFFLINE.tableNameWithType(TableNameBuilder.extractRawTableName(tableName));
+    TableConfig tableConfig = _tableCache.getTableConfig(offlineTableName);
+    return tableConfig != null && tableConfig.isDimTable();
   }
 
   /**
@@ -19,11 +19,15 @@
 package org.apache.pinot.query.catalog;
 
 import com.google.common.base.Preconditions;
+import java.util.List;
+import javax.annotation.Nullable;
 import org.apache.calcite.DataContext;
 import org.apache.calcite.linq4j.Enumerable;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
 import org.apache.calcite.schema.ScannableTable;
+import org.apache.calcite.schema.Statistic;
+import org.apache.calcite.schema.Statistics;
 import org.apache.calcite.schema.impl.AbstractTable;
 import org.apache.pinot.query.type.TypeFactory;
 import org.apache.pinot.spi.data.Schema;
@@ -37,9 +41,21 @@ import org.apache.pinot.spi.data.Schema;
  */
 public class PinotTable extends AbstractTable implements ScannableTable {
   private Schema _schema;
+  private final Long _numDocs;
+  private final boolean _isDimTable;
 
   public PinotTable(Schema schema) {
+    this(schema, null, false);
+  }
+
+  public PinotTable(Schema schema, @Nullable Long numDocs) {
+    this(schema, numDocs, false);
+  }
+
+  public PinotTable(Schema schema, @Nullable Long numDocs, boolean isDimTable) {
     _schema = schema;
+    _numDocs = numDocs;
+    _isDimTable = isDimTable;
   }
 
   @Override
@@ -49,6 +65,44 @@ public class PinotTable extends AbstractTable implements ScannableTable {
     return typeFactory.createRelDataTypeFromSchema(_schema);
   }
 
+  /**
+   * Returns the statistics of the table, where the row count is only available when the number of documents of the
+   * table is known.
+   */
+  @Override
+  public Statistic getStatistic() {
+    return _numDocs != null ? Statistics.of(_numDocs, null) : Statistics.UNKNOWN;
+  }
+
+  /**
+   * Returns the number of documents of the table used as the row count statistic, or {@code null} if it is not
+   * available.
+   */
+  @Nullable
+  public Long getNumDocs() {
+    return _numDocs;
+  }
+
+  /**
+   * Returns whether the statistics (e.g. row count) of the table are available.
+   */
+  public boolean hasStatistic() {
+    return _numDocs != null;
+  }
+
+  /**
+   * Returns whether the table is a dimension table, which is replicated to all the servers of the tenant and can be
+   * looked up by the primary key columns.
+   */
+  public boolean isDimTable() {
+    return _isDimTable;
+  }
+
+  @Nullable
+  public List<String> getPrimaryKeyColumns() {
+    return _schema.getPrimaryKeyColumns();
+  }
+
   @Override
   public boolean isRolledUp(String s) {
     return false;
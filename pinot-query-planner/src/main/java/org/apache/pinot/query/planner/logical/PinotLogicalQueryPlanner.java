@@ -79,6 +79,7 @@ public class PinotLogicalQueryPlanner {
   }
 
   private static PlanFragment planNodeToPlanFragment(PlanNode node) {
+    PlanFragmenter.deduplicatePipelineBreakers(node);
     PlanFragmenter fragmenter = new PlanFragmenter();
     PlanFragmenter.Context fragmenterContext = fragmenter.createContext();
     node = node.visit(fragmenter, fragmenterContext);
@@ -90,7 +91,7 @@ public class PinotLogicalQueryPlanner {
     MailboxSendNode subPlanRootSenderNode =
         new MailboxSendNode(node.getStageId(), node.getDataSchema(), List.of(node), 0,
             PinotRelExchangeType.getDefaultExchangeType(), RelDistribution.Type.BROADCAST_DISTRIBUTED, null, false,
-            null, false);
+            null, false, MailboxSendNode.SkewHandling.NONE, 0, null);
     PlanFragment planFragment1 = new PlanFragment(1, subPlanRootSenderNode, new ArrayList<>());
     planFragmentMap.put(1, planFragment1);
     for (Int2ObjectMap.Entry<IntList> entry : childPlanFragmentIdsMap.int2ObjectEntrySet()) {
@@ -22,7 +22,10 @@ import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
 import org.apache.calcite.rel.RelDistribution;
 import org.apache.pinot.calcite.rel.logical.PinotRelExchangeType;
 import org.apache.pinot.query.planner.PlanFragment;
@@ -53,10 +56,16 @@ import org.apache.pinot.query.planner.plannode.WindowNode;
  * {@link MailboxSendNode} pair;
  * 3. Assign current PlanFragment ID to {@link MailboxReceiveNode};
  * 4. Increment current PlanFragment ID by one and assign it to the {@link MailboxSendNode}.
+ *
+ * Identical pipeline breakers within a PlanFragment (e.g. the same sub-query used in multiple dynamic broadcast joins)
+ * should be deduplicated with {@link #deduplicatePipelineBreakers(PlanNode)} before fragmenting, so that they share
+ * the same sender PlanFragment which is executed only once.
  */
 public class PlanFragmenter implements PlanNodeVisitor<PlanNode, PlanFragmenter.Context> {
   private final Int2ObjectOpenHashMap<PlanFragment> _planFragmentMap = new Int2ObjectOpenHashMap<>();
   private final Int2ObjectOpenHashMap<IntList> _childPlanFragmentIdsMap = new Int2ObjectOpenHashMap<>();
+  // Deduplicated pipeline breakers share the same ExchangeNode instance, which is split into a single sender
+  private final Map<ExchangeNode, MailboxSendNode> _pipelineBreakerSenderMap = new IdentityHashMap<>();
 
   // ROOT PlanFragment ID is 0, current PlanFragment ID starts with 1, next PlanFragment ID starts with 2.
   private int _nextPlanFragmentId = 2;
@@ -144,6 +153,14 @@ public class PlanFragmenter implements PlanNodeVisitor<PlanNode, PlanFragmenter.
     // Split the ExchangeNode to a MailboxReceiveNode and a MailboxSendNode, where MailboxReceiveNode is the leave node
     // of the current PlanFragment, and MailboxSendNode is the root node of the next PlanFragment.
     int receiverPlanFragmentId = context._currentPlanFragmentId;
+    MailboxSendNode existingSendNode = _pipelineBreakerSenderMap.get(node);
+    if (existingSendNode != null) {
+      // Deduplicated pipeline breaker, receive from the existing sender PlanFragment
+      assert existingSendNode.getReceiverStageId() == receiverPlanFragmentId;
+      return new MailboxReceiveNode(receiverPlanFragmentId, existingSendNode.getDataSchema(), List.of(),
+          existingSendNode.getStageId(), node.getExchangeType(), node.getDistributionType(), node.getKeys(),
+          node.getCollations(), node.isSortOnReceiver(), node.isSortOnSender(), existingSendNode);
+    }
     int senderPlanFragmentId = _nextPlanFragmentId++;
     _childPlanFragmentIdsMap.computeIfAbsent(receiverPlanFragmentId, k -> new IntArrayList()).add(senderPlanFragmentId);
 
@@ -155,9 +172,12 @@ public class PlanFragmenter implements PlanNodeVisitor<PlanNode, PlanFragmenter.
     MailboxSendNode mailboxSendNode =
         new MailboxSendNode(senderPlanFragmentId, nextPlanFragmentRoot.getDataSchema(), List.of(nextPlanFragmentRoot),
             receiverPlanFragmentId, exchangeType, distributionType, keys, node.isPrePartitioned(), node.getCollations(),
-            node.isSortOnSender());
+            node.isSortOnSender(), node.getSkewHandling(), node.getSkewSaltFactor(), node.getSkewKeys());
     _planFragmentMap.put(senderPlanFragmentId,
         new PlanFragment(senderPlanFragmentId, mailboxSendNode, new ArrayList<>()));
+    if (exchangeType == PinotRelExchangeType.PIPELINE_BREAKER) {
+      _pipelineBreakerSenderMap.put(node, mailboxSendNode);
+    }
 
     // Return the MailboxReceiveNode as the leave node of the current PlanFragment.
     return new MailboxReceiveNode(receiverPlanFragmentId, nextPlanFragmentRoot.getDataSchema(), List.of(),
@@ -165,10 +185,52 @@ public class PlanFragmenter implements PlanNodeVisitor<PlanNode, PlanFragmenter.
         node.isSortOnSender(), mailboxSendNode);
   }
 
-  private boolean isPlanFragmentSplitter(PlanNode node) {
+  private static boolean isPlanFragmentSplitter(PlanNode node) {
     return ((ExchangeNode) node).getExchangeType() != PinotRelExchangeType.SUB_PLAN;
   }
 
+  /**
+   * Replaces the pipeline breaker {@link ExchangeNode}s that are identical to a previous one within the same
+   * PlanFragment with the previous instance, so that the repeated sub-plan is fragmented and executed only once, and
+   * its result is shared by all the consumers. Must be called before fragmenting because the fragmenting modifies the
+   * plan nodes.
+   */
+  public static void deduplicatePipelineBreakers(PlanNode root) {
+    deduplicatePipelineBreakers(root, new ArrayList<>());
+  }
+
+  private static void deduplicatePipelineBreakers(PlanNode node, List<ExchangeNode> pipelineBreakers) {
+    List<PlanNode> inputs = node.getInputs();
+    for (int i = 0; i < inputs.size(); i++) {
+      PlanNode input = inputs.get(i);
+      if (input instanceof ExchangeNode && isPlanFragmentSplitter(input)) {
+        ExchangeNode exchangeNode = (ExchangeNode) input;
+        if (exchangeNode.getExchangeType() == PinotRelExchangeType.PIPELINE_BREAKER) {
+          ExchangeNode existingExchangeNode = findEqual(pipelineBreakers, exchangeNode);
+          if (existingExchangeNode != null) {
+            inputs.set(i, existingExchangeNode);
+            continue;
+          }
+          pipelineBreakers.add(exchangeNode);
+        }
+        // The input of the ExchangeNode belongs to a new PlanFragment
+        deduplicatePipelineBreakers(exchangeNode, new ArrayList<>());
+      } else {
+        deduplicatePipelineBreakers(input, pipelineBreakers);
+      }
+    }
+  }
+
+  @Nullable
+  private static ExchangeNode findEqual(List<ExchangeNode> exchangeNodes, ExchangeNode target) {
+    for (ExchangeNode exchangeNode : exchangeNodes) {
+      if (exchangeNode.equals(target)) {
+        return exchangeNode;
+      }
+    }
+    return null;
+  }
+
   public static class Context {
     private final int _currentPlanFragmentId;
 
@@ -49,6 +49,7 @@ import org.apache.pinot.calcite.rel.logical.PinotLogicalAggregate;
 import org.apache.pinot.calcite.rel.logical.PinotLogicalExchange;
 import org.apache.pinot.calcite.rel.logical.PinotLogicalSortExchange;
 import org.apache.pinot.calcite.rel.logical.PinotRelExchangeType;
+import org.apache.pinot.calcite.rel.rules.PinotRuleUtils;
 import org.apache.pinot.common.metrics.BrokerMeter;
 import org.apache.pinot.common.metrics.BrokerMetrics;
 import org.apache.pinot.common.utils.DataSchema;
@@ -59,6 +60,7 @@ import org.apache.pinot.query.planner.plannode.AggregateNode;
 import org.apache.pinot.query.planner.plannode.ExchangeNode;
 import org.apache.pinot.query.planner.plannode.FilterNode;
 import org.apache.pinot.query.planner.plannode.JoinNode;
+import org.apache.pinot.query.planner.plannode.MailboxSendNode;
 import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.planner.plannode.PlanNode.NodeHint;
 import org.apache.pinot.query.planner.plannode.ProjectNode;
@@ -257,11 +259,42 @@ public final class RelToPlanNodeConverter {
 
   private JoinNode convertLogicalJoin(LogicalJoin node) {
     JoinInfo joinInfo = node.analyzeCondition();
+    List<PlanNode> inputs = convertInputs(node.getInputs());
+    setSkewHandling(node, inputs);
     return new JoinNode(DEFAULT_STAGE_ID, toDataSchema(node.getRowType()), NodeHint.fromRelHints(node.getHints()),
-        convertInputs(node.getInputs()), node.getJoinType(), joinInfo.leftKeys, joinInfo.rightKeys,
+        inputs, node.getJoinType(), joinInfo.leftKeys, joinInfo.rightKeys,
         RexExpressionUtils.fromRexNodes(joinInfo.nonEquiConditions));
   }
 
+  /**
+   * Enables the skew handling on the hash distributed exchanges of the join inputs when requested via the join hint.
+   * The rows of the hot keys of the left input are spread across multiple receivers, and the rows of the same hot keys
+   * of the right input are replicated to the same receivers.
+   */
+  private static void setSkewHandling(LogicalJoin join, List<PlanNode> inputs) {
+    int skewSaltFactor = PinotRuleUtils.getSkewSaltFactor(join);
+    if (skewSaltFactor == 0) {
+      return;
+    }
+    PlanNode left = inputs.get(0);
+    PlanNode right = inputs.get(1);
+    if (isSkewHandlingSupported(left) && isSkewHandlingSupported(right)) {
+      List<String> skewKeys = PinotRuleUtils.getSkewKeys(join);
+      ((ExchangeNode) left).setSkewHandling(MailboxSendNode.SkewHandling.SPREAD_HOT_KEYS, skewSaltFactor, skewKeys);
+      ((ExchangeNode) right).setSkewHandling(MailboxSendNode.SkewHandling.REPLICATE, skewSaltFactor, skewKeys);
+    }
+  }
+
+  private static boolean isSkewHandlingSupported(PlanNode input) {
+    if (!(input instanceof ExchangeNode)) {
+      return false;
+    }
+    ExchangeNode exchangeNode = (ExchangeNode) input;
+    return exchangeNode.getExchangeType() == PinotRelExchangeType.STREAMING
+        && exchangeNode.getDistributionType() == RelDistribution.Type.HASH_DISTRIBUTED
+        && !exchangeNode.isPrePartitioned();
+  }
+
   private List<PlanNode> convertInputs(List<RelNode> inputs) {
     // NOTE: Inputs can be modified in place. Do not create immutable List here.
     int numInputs = inputs.size();
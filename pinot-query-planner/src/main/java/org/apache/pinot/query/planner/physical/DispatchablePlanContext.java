@@ -129,6 +129,9 @@ public class DispatchablePlanContext {
       if (dispatchablePlanMetadata.getTimeBoundaryInfo() != null) {
         dispatchablePlanFragment.setTimeBoundaryInfo(dispatchablePlanMetadata.getTimeBoundaryInfo());
       }
+      if (dispatchablePlanMetadata.getLeafParallelism() > 1) {
+        dispatchablePlanFragment.setLeafParallelism(dispatchablePlanMetadata.getLeafParallelism());
+      }
     }
     return Arrays.asList(dispatchablePlanFragmentArray);
   }
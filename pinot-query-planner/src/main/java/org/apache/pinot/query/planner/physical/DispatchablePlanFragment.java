@@ -33,6 +33,7 @@ public class DispatchablePlanFragment {
   public static final String TABLE_NAME_KEY = "tableName";
   public static final String TIME_BOUNDARY_COLUMN_KEY = "timeBoundaryInfo.timeColumn";
   public static final String TIME_BOUNDARY_VALUE_KEY = "timeBoundaryInfo.timeValue";
+  public static final String LEAF_PARALLELISM_KEY = "leafParallelism";
   private final PlanFragment _planFragment;
   private final List<WorkerMetadata> _workerMetadataList;
 
@@ -94,6 +95,10 @@ public class DispatchablePlanFragment {
     _customProperties.put(TIME_BOUNDARY_VALUE_KEY, timeBoundaryInfo.getTimeValue());
   }
 
+  public void setLeafParallelism(int leafParallelism) {
+    _customProperties.put(LEAF_PARALLELISM_KEY, Integer.toString(leafParallelism));
+  }
+
   public Map<Integer, Map<String, List<String>>> getWorkerIdToSegmentsMap() {
     return _workerIdToSegmentsMap;
   }
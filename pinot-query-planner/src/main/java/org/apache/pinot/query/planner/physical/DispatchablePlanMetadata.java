@@ -77,6 +77,9 @@ public class DispatchablePlanMetadata implements Serializable {
   // time boundary info
   private TimeBoundaryInfo _timeBoundaryInfo;
 
+  // max number of leaf stage workers the segments of each server are split into
+  private int _leafParallelism = 1;
+
   // physical partition info
   private String _partitionFunction;
   private int _partitionParallelism;
@@ -137,6 +140,14 @@ public class DispatchablePlanMetadata implements Serializable {
     _timeBoundaryInfo = timeBoundaryInfo;
   }
 
+  public int getLeafParallelism() {
+    return _leafParallelism;
+  }
+
+  public void setLeafParallelism(int leafParallelism) {
+    _leafParallelism = leafParallelism;
+  }
+
   public boolean isRequiresSingletonInstance() {
     return _requiresSingletonInstance;
   }
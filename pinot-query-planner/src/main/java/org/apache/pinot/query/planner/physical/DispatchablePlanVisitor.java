@@ -89,14 +89,23 @@ public class DispatchablePlanVisitor implements PlanNodeVisitor<Void, Dispatchab
 
   @Override
   public Void visitJoin(JoinNode node, DispatchablePlanContext context) {
-    node.getInputs().forEach(join -> join.visit(this, context));
+    if (node.isLookupJoin()) {
+      // The dimension table of the lookup join is replicated on all the servers, assign the workers based on the left
+      // input only
+      node.getInputs().get(0).visit(this, context);
+    } else {
+      node.getInputs().forEach(join -> join.visit(this, context));
+    }
     getOrCreateDispatchablePlanMetadata(node, context);
     return null;
   }
 
   @Override
   public Void visitMailboxReceive(MailboxReceiveNode node, DispatchablePlanContext context) {
-    node.getSender().visit(this, context);
+    // The sender might be shared by multiple receivers (deduplicated pipeline breakers), only visit it once
+    if (!context.getDispatchablePlanStageRootMap().containsKey(node.getSenderStageId())) {
+      node.getSender().visit(this, context);
+    }
     getOrCreateDispatchablePlanMetadata(node, context);
     return null;
   }
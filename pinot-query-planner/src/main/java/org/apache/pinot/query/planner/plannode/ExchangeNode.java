@@ -45,6 +45,9 @@ public class ExchangeNode extends BasePlanNode {
   private final boolean _sortOnReceiver;
   // Table names should be set for SUB_PLAN exchange type.
   private final Set<String> _tableNames;
+  private MailboxSendNode.SkewHandling _skewHandling = MailboxSendNode.SkewHandling.NONE;
+  private int _skewSaltFactor;
+  private List<String> _skewKeys = List.of();
 
   public ExchangeNode(int stageId, DataSchema dataSchema, List<PlanNode> inputs, PinotRelExchangeType exchangeType,
       RelDistribution.Type distributionType, @Nullable List<Integer> keys, boolean prePartitioned,
@@ -96,6 +99,24 @@ public class ExchangeNode extends BasePlanNode {
     return _tableNames;
   }
 
+  public MailboxSendNode.SkewHandling getSkewHandling() {
+    return _skewHandling;
+  }
+
+  public int getSkewSaltFactor() {
+    return _skewSaltFactor;
+  }
+
+  public List<String> getSkewKeys() {
+    return _skewKeys;
+  }
+
+  public void setSkewHandling(MailboxSendNode.SkewHandling skewHandling, int skewSaltFactor, List<String> skewKeys) {
+    _skewHandling = skewHandling;
+    _skewSaltFactor = skewSaltFactor;
+    _skewKeys = skewKeys;
+  }
+
   @Override
   public String explain() {
     return "EXCHANGE";
@@ -121,12 +142,14 @@ public class ExchangeNode extends BasePlanNode {
     return _sortOnSender == that._sortOnSender && _sortOnReceiver == that._sortOnReceiver
         && _prePartitioned == that._prePartitioned && _exchangeType == that._exchangeType
         && _distributionType == that._distributionType && Objects.equals(_keys, that._keys) && Objects.equals(
-        _collations, that._collations) && Objects.equals(_tableNames, that._tableNames);
+        _collations, that._collations) && Objects.equals(_tableNames, that._tableNames)
+        && _skewHandling == that._skewHandling && _skewSaltFactor == that._skewSaltFactor && Objects.equals(_skewKeys,
+        that._skewKeys);
   }
 
   @Override
   public int hashCode() {
     return Objects.hash(super.hashCode(), _exchangeType, _distributionType, _keys, _sortOnSender, _sortOnReceiver,
-        _prePartitioned, _collations, _tableNames);
+        _prePartitioned, _collations, _tableNames, _skewHandling, _skewSaltFactor, _skewKeys);
   }
 }
@@ -56,6 +56,15 @@ public class JoinNode extends BasePlanNode {
     return _nonEquiConditions;
   }
 
+  /**
+   * Returns whether the join is a lookup join, where the right input scans a dimension table within the same stage
+   * instead of being exchanged, and the right rows are looked up by the primary key for each left row.
+   */
+  public boolean isLookupJoin() {
+    PlanNode right = getInputs().get(1);
+    return !(right instanceof ExchangeNode) && !(right instanceof MailboxReceiveNode);
+  }
+
   @Override
   public String explain() {
     return "JOIN";
@@ -35,11 +35,15 @@ public class MailboxSendNode extends BasePlanNode {
   private final boolean _prePartitioned;
   private final List<RelFieldCollation> _collations;
   private final boolean _sort;
+  private final SkewHandling _skewHandling;
+  private final int _skewSaltFactor;
+  private final List<String> _skewKeys;
 
   // NOTE: null List is converted to empty List because there is no way to differentiate them in proto during ser/de.
   public MailboxSendNode(int stageId, DataSchema dataSchema, List<PlanNode> inputs, int receiverStageId,
       PinotRelExchangeType exchangeType, RelDistribution.Type distributionType, @Nullable List<Integer> keys,
-      boolean prePartitioned, @Nullable List<RelFieldCollation> collations, boolean sort) {
+      boolean prePartitioned, @Nullable List<RelFieldCollation> collations, boolean sort, SkewHandling skewHandling,
+      int skewSaltFactor, @Nullable List<String> skewKeys) {
     super(stageId, dataSchema, null, inputs);
     _receiverStageId = receiverStageId;
     _exchangeType = exchangeType;
@@ -48,6 +52,9 @@ public class MailboxSendNode extends BasePlanNode {
     _prePartitioned = prePartitioned;
     _collations = collations != null ? collations : List.of();
     _sort = sort;
+    _skewHandling = skewHandling;
+    _skewSaltFactor = skewSaltFactor;
+    _skewKeys = skewKeys != null ? skewKeys : List.of();
   }
 
   public int getReceiverStageId() {
@@ -82,6 +89,24 @@ public class MailboxSendNode extends BasePlanNode {
     return _sort;
   }
 
+  public SkewHandling getSkewHandling() {
+    return _skewHandling;
+  }
+
+  /**
+   * Returns the number of receivers the rows of a hot key can be sent to when skew handling is enabled.
+   */
+  public int getSkewSaltFactor() {
+    return _skewSaltFactor;
+  }
+
+  /**
+   * Returns the hot values (as strings) of the first key that are handled when skew handling is enabled.
+   */
+  public List<String> getSkewKeys() {
+    return _skewKeys;
+  }
+
   @Override
   public String explain() {
     StringBuilder sb = new StringBuilder();
@@ -94,6 +119,9 @@ public class MailboxSendNode extends BasePlanNode {
     if (isSort()) {
       sb.append("[SORTED]");
     }
+    if (_skewHandling != SkewHandling.NONE) {
+      sb.append('[').append(_skewHandling).append(']');
+    }
     return sb.toString();
   }
 
@@ -116,12 +144,24 @@ public class MailboxSendNode extends BasePlanNode {
     MailboxSendNode that = (MailboxSendNode) o;
     return _receiverStageId == that._receiverStageId && _prePartitioned == that._prePartitioned && _sort == that._sort
         && _exchangeType == that._exchangeType && _distributionType == that._distributionType && Objects.equals(_keys,
-        that._keys) && Objects.equals(_collations, that._collations);
+        that._keys) && Objects.equals(_collations, that._collations) && _skewHandling == that._skewHandling
+        && _skewSaltFactor == that._skewSaltFactor && Objects.equals(_skewKeys, that._skewKeys);
   }
 
   @Override
   public int hashCode() {
     return Objects.hash(super.hashCode(), _receiverStageId, _exchangeType, _distributionType, _keys, _prePartitioned,
-        _collations, _sort);
+        _collations, _sort, _skewHandling, _skewSaltFactor, _skewKeys);
+  }
+
+  /**
+   * How the hash distributed exchange handles the skewed keys. The two inputs of a join are handled together with the
+   * same hot keys: the rows of the hot keys on one side are spread across a group of {@code skewSaltFactor} consecutive
+   * receivers starting from the hashed one, and the rows of the hot keys on the other side are replicated to the whole
+   * group, so that each spread row still meets all the rows it joins with. The rows of the other keys are hash
+   * distributed on both sides.
+   */
+  public enum SkewHandling {
+    NONE, SPREAD_HOT_KEYS, REPLICATE
   }
 }
@@ -114,7 +114,8 @@ public class PlanNodeDeserializer {
         protoMailboxSendNode.getReceiverStageId(), convertExchangeType(protoMailboxSendNode.getExchangeType()),
         convertDistributionType(protoMailboxSendNode.getDistributionType()), protoMailboxSendNode.getKeysList(),
         protoMailboxSendNode.getPrePartitioned(), convertCollations(protoMailboxSendNode.getCollationsList()),
-        protoMailboxSendNode.getSort());
+        protoMailboxSendNode.getSort(), convertSkewHandling(protoMailboxSendNode.getSkewHandling()),
+        protoMailboxSendNode.getSkewSaltFactor(), protoMailboxSendNode.getSkewKeysList());
   }
 
   private static ProjectNode deserializeProjectNode(Plan.PlanNode protoNode) {
@@ -278,6 +279,19 @@ public class PlanNodeDeserializer {
     }
   }
 
+  private static MailboxSendNode.SkewHandling convertSkewHandling(Plan.SkewHandling skewHandling) {
+    switch (skewHandling) {
+      case NO_SKEW_HANDLING:
+        return MailboxSendNode.SkewHandling.NONE;
+      case SPREAD_HOT_KEYS:
+        return MailboxSendNode.SkewHandling.SPREAD_HOT_KEYS;
+      case REPLICATE:
+        return MailboxSendNode.SkewHandling.REPLICATE;
+      default:
+        throw new IllegalStateException("Unsupported SkewHandling: " + skewHandling);
+    }
+  }
+
   private static RelDistribution.Type convertDistributionType(Plan.DistributionType distributionType) {
     switch (distributionType) {
       case SINGLETON:
@@ -135,7 +135,8 @@ public class PlanNodeSerializer {
               .setExchangeType(convertExchangeType(node.getExchangeType()))
               .setDistributionType(convertDistributionType(node.getDistributionType())).addAllKeys(node.getKeys())
               .setPrePartitioned(node.isPrePartitioned()).addAllCollations(convertCollations(node.getCollations()))
-              .setSort(node.isSort()).build();
+              .setSort(node.isSort()).setSkewHandling(convertSkewHandling(node.getSkewHandling()))
+              .setSkewSaltFactor(node.getSkewSaltFactor()).addAllSkewKeys(node.getSkewKeys()).build();
       builder.setMailboxSendNode(mailboxSendNode);
       return null;
     }
@@ -288,6 +289,19 @@ public class PlanNodeSerializer {
       }
     }
 
+    private static Plan.SkewHandling convertSkewHandling(MailboxSendNode.SkewHandling skewHandling) {
+      switch (skewHandling) {
+        case NONE:
+          return Plan.SkewHandling.NO_SKEW_HANDLING;
+        case SPREAD_HOT_KEYS:
+          return Plan.SkewHandling.SPREAD_HOT_KEYS;
+        case REPLICATE:
+          return Plan.SkewHandling.REPLICATE;
+        default:
+          throw new IllegalStateException("Unsupported SkewHandling: " + skewHandling);
+      }
+    }
+
     private static Plan.Direction convertDirection(RelFieldCollation.Direction direction) {
       switch (direction) {
         case ASCENDING:
@@ -59,4 +59,13 @@ public class StageMetadata {
     String timeValue = _customProperties.get(DispatchablePlanFragment.TIME_BOUNDARY_VALUE_KEY);
     return timeColumn != null && timeValue != null ? new TimeBoundaryInfo(timeColumn, timeValue) : null;
   }
+
+  /**
+   * Returns the max number of leaf stage workers the segments of each server are split into, where 1 means the
+   * segments of a server are not split.
+   */
+  public int getLeafParallelism() {
+    String leafParallelism = _customProperties.get(DispatchablePlanFragment.LEAF_PARALLELISM_KEY);
+    return leafParallelism != null ? Integer.parseInt(leafParallelism) : 1;
+  }
 }
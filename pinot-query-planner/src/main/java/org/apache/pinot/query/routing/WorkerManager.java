@@ -39,6 +39,7 @@ import org.apache.pinot.core.transport.ServerInstance;
 import org.apache.pinot.query.planner.PlanFragment;
 import org.apache.pinot.query.planner.physical.DispatchablePlanContext;
 import org.apache.pinot.query.planner.physical.DispatchablePlanMetadata;
+import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.planner.plannode.TableScanNode;
 import org.apache.pinot.spi.config.table.TableType;
 import org.apache.pinot.spi.utils.CommonConstants.Broker.Request.QueryOptionKey;
@@ -298,19 +299,146 @@ public class WorkerManager {
         metadata.addUnavailableSegments(tableName, routingTable.getUnavailableSegments());
       }
     }
+    // split the segments of each server across multiple workers when leaf parallelism is configured, where each worker
+    // runs its own leaf stage OpChain on the server.
+    int leafParallelism = getLeafParallelism(metadata, context);
+    if (leafParallelism > 1 && isPartitionDependent(context)) {
+      LOGGER.debug("[RequestId: {}] Ignoring leaf parallelism: {} for table: {} because the query relies on the data "
+          + "partitioning of the servers", context.getRequestId(), leafParallelism, tableName);
+      leafParallelism = 1;
+    }
     int workerId = 0;
     Map<Integer, QueryServerInstance> workerIdToServerInstanceMap = new HashMap<>();
     Map<Integer, Map<String, List<String>>> workerIdToSegmentsMap = new HashMap<>();
     for (Map.Entry<ServerInstance, Map<String, List<String>>> entry : serverInstanceToSegmentsMap.entrySet()) {
-      workerIdToServerInstanceMap.put(workerId, new QueryServerInstance(entry.getKey()));
-      workerIdToSegmentsMap.put(workerId, entry.getValue());
-      workerId++;
+      QueryServerInstance queryServerInstance = new QueryServerInstance(entry.getKey());
+      for (Map<String, List<String>> segmentsMap : splitSegments(entry.getValue(), leafParallelism)) {
+        workerIdToServerInstanceMap.put(workerId, queryServerInstance);
+        workerIdToSegmentsMap.put(workerId, segmentsMap);
+        workerId++;
+      }
     }
     metadata.setWorkerIdToServerInstanceMap(workerIdToServerInstanceMap);
     metadata.setWorkerIdToSegmentsMap(workerIdToSegmentsMap);
+    metadata.setLeafParallelism(leafParallelism);
     metadata.setPartitionFunction(DEFAULT_SHUFFLE_PARTITION_FUNCTION);
   }
 
+  /**
+   * Returns the number of leaf stage workers per server, where the table hint takes precedence over the query option.
+   */
+  private static int getLeafParallelism(DispatchablePlanMetadata metadata, DispatchablePlanContext context) {
+    Map<String, String> tableOptions = metadata.getTableOptions();
+    String leafParallelismStr =
+        tableOptions != null ? tableOptions.get(PinotHintOptions.TableHintOptions.LEAF_PARALLELISM) : null;
+    if (leafParallelismStr == null) {
+      leafParallelismStr = context.getPlannerContext().getOptions().get(QueryOptionKey.LEAF_STAGE_PARALLELISM);
+    }
+    if (leafParallelismStr == null) {
+      return 1;
+    }
+    int leafParallelism = Integer.parseInt(leafParallelismStr);
+    Preconditions.checkState(leafParallelism > 0, "Invalid leaf parallelism: %s", leafParallelism);
+    return leafParallelism;
+  }
+
+  /**
+   * Returns whether the query relies on all the segments of a server being processed by the same worker, i.e. the
+   * aggregate is partitioned by the group-by keys or the join is colocated by the join keys, in which case the segments
+   * of a server cannot be split across multiple workers.
+   */
+  private static boolean isPartitionDependent(DispatchablePlanContext context) {
+    for (PlanNode stageRoot : context.getDispatchablePlanStageRootMap().values()) {
+      if (isPartitionDependent(stageRoot)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isPartitionDependent(PlanNode node) {
+    Map<String, Map<String, String>> hintOptions = node.getNodeHint().getHintOptions();
+    Map<String, String> aggregateOptions = hintOptions.get(PinotHintOptions.AGGREGATE_HINT_OPTIONS);
+    if (aggregateOptions != null && Boolean.parseBoolean(
+        aggregateOptions.get(PinotHintOptions.AggregateOptions.IS_PARTITIONED_BY_GROUP_BY_KEYS))) {
+      return true;
+    }
+    Map<String, String> joinOptions = hintOptions.get(PinotHintOptions.JOIN_HINT_OPTIONS);
+    if (joinOptions != null && Boolean.parseBoolean(
+        joinOptions.get(PinotHintOptions.JoinHintOptions.IS_COLOCATED_BY_JOIN_KEYS))) {
+      return true;
+    }
+    for (PlanNode input : node.getInputs()) {
+      if (isPartitionDependent(input)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Splits the segments (table type to segment list) of a server into at most {@code numWorkers} groups in a
+   * round-robin fashion, so that each group has at least one segment and the groups are balanced across table types.
+   */
+  private static List<Map<String, List<String>>> splitSegments(Map<String, List<String>> tableTypeToSegmentsMap,
+      int numWorkers) {
+    int numSegments = 0;
+    for (List<String> segments : tableTypeToSegmentsMap.values()) {
+      numSegments += segments.size();
+    }
+    numWorkers = Math.min(numWorkers, numSegments);
+    if (numWorkers <= 1) {
+      return Collections.singletonList(tableTypeToSegmentsMap);
+    }
+    List<Map<String, List<String>>> workerSegmentsMaps = new ArrayList<>(numWorkers);
+    for (int i = 0; i < numWorkers; i++) {
+      workerSegmentsMaps.add(new HashMap<>());
+    }
+    int index = 0;
+    for (Map.Entry<String, List<String>> entry : tableTypeToSegmentsMap.entrySet()) {
+      String tableType = entry.getKey();
+      for (String segment : entry.getValue()) {
+        workerSegmentsMaps.get(index++ % numWorkers).computeIfAbsent(tableType, k -> new ArrayList<>()).add(segment);
+      }
+    }
+    return workerSegmentsMaps;
+  }
+
+  /**
+   * Returns the total number of documents of the given table (summing up the OFFLINE and REALTIME table for hybrid
+   * table), or {@code null} if it is not available for the table.
+   */
+  @Nullable
+  public Long getTableNumDocs(String tableName) {
+    TableType tableType = TableNameBuilder.getTableTypeFromTableName(tableName);
+    if (tableType != null) {
+      return _routingManager.getTableNumDocs(tableName);
+    }
+    String offlineTableName = TableNameBuilder.OFFLINE.tableNameWithType(tableName);
+    String realtimeTableName = TableNameBuilder.REALTIME.tableNameWithType(tableName);
+    boolean offlineRoutingExists = _routingManager.routingExists(offlineTableName);
+    boolean realtimeRoutingExists = _routingManager.routingExists(realtimeTableName);
+    if (!offlineRoutingExists && !realtimeRoutingExists) {
+      return null;
+    }
+    long tableNumDocs = 0;
+    if (offlineRoutingExists) {
+      Long offlineNumDocs = _routingManager.getTableNumDocs(offlineTableName);
+      if (offlineNumDocs == null) {
+        return null;
+      }
+      tableNumDocs += offlineNumDocs;
+    }
+    if (realtimeRoutingExists) {
+      Long realtimeNumDocs = _routingManager.getTableNumDocs(realtimeTableName);
+      if (realtimeNumDocs == null) {
+        return null;
+      }
+      tableNumDocs += realtimeNumDocs;
+    }
+    return tableNumDocs;
+  }
+
   /**
    * Acquire routing table for items listed in {@link TableScanNode}.
    *
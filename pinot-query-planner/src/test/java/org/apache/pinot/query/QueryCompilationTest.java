@@ -27,7 +27,10 @@ import java.util.Map;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.apache.calcite.rel.RelDistribution;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.pinot.calcite.rel.logical.PinotRelExchangeType;
 import org.apache.pinot.query.planner.PlannerUtils;
 import org.apache.pinot.query.planner.physical.DispatchablePlanFragment;
 import org.apache.pinot.query.planner.physical.DispatchableSubPlan;
@@ -36,6 +39,7 @@ import org.apache.pinot.query.planner.plannode.BasePlanNode;
 import org.apache.pinot.query.planner.plannode.FilterNode;
 import org.apache.pinot.query.planner.plannode.JoinNode;
 import org.apache.pinot.query.planner.plannode.MailboxReceiveNode;
+import org.apache.pinot.query.planner.plannode.MailboxSendNode;
 import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.planner.plannode.ProjectNode;
 import org.apache.pinot.query.routing.QueryServerInstance;
@@ -74,6 +78,174 @@ public class QueryCompilationTest extends QueryEnvironmentTestBase {
     }
   }
 
+  @Test
+  public void testJoinWithTableStatistic() {
+    QueryEnvironment queryEnvironment =
+        getQueryEnvironment(3, 1, 2, TABLE_SCHEMAS, SERVER1_SEGMENTS, SERVER2_SEGMENTS, PARTITIONED_SEGMENTS_MAP,
+            Map.of("a_REALTIME", 1_000_000L, "b_REALTIME", 1_000L));
+
+    // small table on the right side is broadcast
+    String explainedPlan = queryEnvironment.explainQuery("EXPLAIN PLAN FOR SELECT * FROM a JOIN b ON a.col1 = b.col1",
+        RANDOM_REQUEST_ID_GEN.nextLong());
+    assertTrue(explainedPlan.contains("distribution=[random]"), explainedPlan);
+    assertTrue(explainedPlan.contains("distribution=[broadcast]"), explainedPlan);
+    assertFalse(explainedPlan.contains("distribution=[hash"), explainedPlan);
+
+    // small table on the left side is swapped to the right side, then broadcast
+    explainedPlan = queryEnvironment.explainQuery("EXPLAIN PLAN FOR SELECT * FROM b JOIN a ON a.col1 = b.col1",
+        RANDOM_REQUEST_ID_GEN.nextLong());
+    assertTrue(explainedPlan.contains("LogicalJoin(condition=[=($0, $7)], joinType=[inner])"), explainedPlan);
+    assertTrue(explainedPlan.contains("distribution=[broadcast]"), explainedPlan);
+
+    // small table on the left side of a LEFT JOIN is not swapped, and the large right side is not broadcast
+    explainedPlan = queryEnvironment.explainQuery("EXPLAIN PLAN FOR SELECT * FROM b LEFT JOIN a ON a.col1 = b.col1",
+        RANDOM_REQUEST_ID_GEN.nextLong());
+    assertTrue(explainedPlan.contains("distribution=[hash[0]]"), explainedPlan);
+    assertFalse(explainedPlan.contains("distribution=[broadcast]"), explainedPlan);
+
+    // explicit join strategy is respected
+    explainedPlan = queryEnvironment.explainQuery(
+        "EXPLAIN PLAN FOR SELECT /*+ joinOptions(join_strategy='hash_table') */ * FROM a JOIN b ON a.col1 = b.col1",
+        RANDOM_REQUEST_ID_GEN.nextLong());
+    assertTrue(explainedPlan.contains("distribution=[hash[0]]"), explainedPlan);
+    assertFalse(explainedPlan.contains("distribution=[broadcast]"), explainedPlan);
+
+    // table statistic is not used when not available for all the joined tables
+    explainedPlan = queryEnvironment.explainQuery("EXPLAIN PLAN FOR SELECT * FROM a JOIN c ON a.col1 = c.col1",
+        RANDOM_REQUEST_ID_GEN.nextLong());
+    assertTrue(explainedPlan.contains("distribution=[hash[0]]"), explainedPlan);
+    assertFalse(explainedPlan.contains("distribution=[broadcast]"), explainedPlan);
+  }
+
+  @Test
+  public void testJoinWithSkewHandling() {
+    // rows of the hot keys of the left input are spread, and the ones of the right input are replicated
+    List<MailboxSendNode.SkewHandling> skewHandlings = getSkewHandlings(
+        "SELECT /*+ joinOptions(skew_salt_factor='4', skew_keys='foo, bar') */ * FROM a JOIN b ON a.col1 = b.col1");
+    assertTrue(skewHandlings.contains(MailboxSendNode.SkewHandling.SPREAD_HOT_KEYS), skewHandlings.toString());
+    assertTrue(skewHandlings.contains(MailboxSendNode.SkewHandling.REPLICATE), skewHandlings.toString());
+
+    // unmatched right rows are emitted by RIGHT JOIN, so the right input cannot be replicated
+    skewHandlings = getSkewHandlings(
+        "SELECT /*+ joinOptions(skew_salt_factor='4', skew_keys='foo') */ * FROM a RIGHT JOIN b ON a.col1 = b.col1");
+    assertFalse(skewHandlings.contains(MailboxSendNode.SkewHandling.SPREAD_HOT_KEYS), skewHandlings.toString());
+    assertFalse(skewHandlings.contains(MailboxSendNode.SkewHandling.REPLICATE), skewHandlings.toString());
+
+    // hot keys are required for both inputs to agree on them
+    skewHandlings = getSkewHandlings(
+        "SELECT /*+ joinOptions(skew_salt_factor='4') */ * FROM a JOIN b ON a.col1 = b.col1");
+    assertFalse(skewHandlings.contains(MailboxSendNode.SkewHandling.SPREAD_HOT_KEYS), skewHandlings.toString());
+    assertFalse(skewHandlings.contains(MailboxSendNode.SkewHandling.REPLICATE), skewHandlings.toString());
+
+    // skew handling is not enabled by default
+    skewHandlings = getSkewHandlings("SELECT * FROM a JOIN b ON a.col1 = b.col1");
+    assertFalse(skewHandlings.contains(MailboxSendNode.SkewHandling.SPREAD_HOT_KEYS), skewHandlings.toString());
+  }
+
+  private List<MailboxSendNode.SkewHandling> getSkewHandlings(String query) {
+    List<MailboxSendNode.SkewHandling> skewHandlings = new ArrayList<>();
+    for (DispatchablePlanFragment stagePlan : _queryEnvironment.planQuery(query).getQueryStageList()) {
+      PlanNode fragmentRoot = stagePlan.getPlanFragment().getFragmentRoot();
+      if (fragmentRoot instanceof MailboxSendNode) {
+        MailboxSendNode mailboxSendNode = (MailboxSendNode) fragmentRoot;
+        skewHandlings.add(mailboxSendNode.getSkewHandling());
+        if (mailboxSendNode.getSkewHandling() != MailboxSendNode.SkewHandling.NONE) {
+          assertEquals(mailboxSendNode.getSkewSaltFactor(), 4);
+          assertEquals(mailboxSendNode.getSkewKeys(), List.of("foo", "bar"));
+        }
+      }
+    }
+    return skewHandlings;
+  }
+
+  @Test
+  public void testLookupJoin() {
+    // join on the primary key of the dimension table is planned in the leaf stage of the left table without exchange
+    String query = "SELECT /*+ joinOptions(join_strategy='lookup') */ a.col1, a.col3, dim.col2 FROM a JOIN dim "
+        + "ON a.col1 = dim.col1 WHERE dim.col3 > 0";
+    String explain = _queryEnvironment.explainQuery("EXPLAIN PLAN FOR " + query, RANDOM_REQUEST_ID_GEN.nextLong());
+    assertFalse(explain.contains("PinotLogicalExchange(distribution=[hash"), explain);
+    assertFalse(explain.contains("distribution=[broadcast]"), explain);
+    DispatchablePlanFragment leafFragment = getLeafFragment(_queryEnvironment.planQuery(query));
+    assertEquals(leafFragment.getTableName(), "a");
+    JoinNode joinNode = findJoinNode(leafFragment.getPlanFragment().getFragmentRoot());
+    assertNotNull(joinNode);
+    assertTrue(joinNode.isLookupJoin());
+
+    // LEFT JOIN can also be looked up, and the dimension table on the left side of INNER JOIN is swapped to the right
+    for (String lookupQuery : List.of(
+        "SELECT /*+ joinOptions(join_strategy='lookup') */ * FROM a LEFT JOIN dim ON a.col1 = dim.col1",
+        "SELECT /*+ joinOptions(join_strategy='lookup') */ * FROM dim JOIN a ON a.col1 = dim.col1")) {
+      leafFragment = getLeafFragment(_queryEnvironment.planQuery(lookupQuery));
+      assertEquals(leafFragment.getTableName(), "a");
+      joinNode = findJoinNode(leafFragment.getPlanFragment().getFragmentRoot());
+      assertNotNull(joinNode, lookupQuery);
+      assertTrue(joinNode.isLookupJoin(), lookupQuery);
+    }
+
+    // lookup join is not used by default, and join not on the primary key, RIGHT JOIN, and other requested join
+    // strategy use the hash join
+    for (String hashJoinQuery : List.of("SELECT * FROM a JOIN dim ON a.col1 = dim.col1",
+        "SELECT /*+ joinOptions(join_strategy='lookup') */ * FROM a JOIN dim ON a.col1 = dim.col2",
+        "SELECT /*+ joinOptions(join_strategy='lookup') */ * FROM a RIGHT JOIN dim ON a.col1 = dim.col1",
+        "SELECT /*+ joinOptions(join_strategy='hash_table') */ * FROM a JOIN dim ON a.col1 = dim.col1")) {
+      explain = _queryEnvironment.explainQuery("EXPLAIN PLAN FOR " + hashJoinQuery, RANDOM_REQUEST_ID_GEN.nextLong());
+      assertTrue(explain.contains("PinotLogicalExchange(distribution=[hash[0]]"), explain);
+    }
+  }
+
+  @Nullable
+  private static JoinNode findJoinNode(PlanNode planNode) {
+    if (planNode instanceof JoinNode) {
+      return (JoinNode) planNode;
+    }
+    for (PlanNode input : planNode.getInputs()) {
+      JoinNode joinNode = findJoinNode(input);
+      if (joinNode != null) {
+        return joinNode;
+      }
+    }
+    return null;
+  }
+
+  @Test
+  public void testSortJoinCopy() {
+    String query = "EXPLAIN PLAN FOR SELECT a.col1, a.col3, b.col3 FROM a LEFT JOIN b ON a.col1 = b.col2 "
+        + "ORDER BY a.col3 DESC LIMIT 10 OFFSET 5";
+    String explain = _queryEnvironment.explainQuery(query, RANDOM_REQUEST_ID_GEN.nextLong());
+    // top-N is copied to the left side of LEFT JOIN, and then into the leaf stage
+    //@formatter:off
+    assertEquals(explain,
+        "Execution Plan\n"
+        + "LogicalSort(sort0=[$1], dir0=[DESC], offset=[5], fetch=[10])\n"
+        + "  PinotLogicalSortExchange(distribution=[hash], collation=[[1 DESC]], isSortOnSender=[false], "
+        + "isSortOnReceiver=[true])\n"
+        + "    LogicalSort(sort0=[$1], dir0=[DESC], fetch=[15])\n"
+        + "      LogicalProject(col1=[$0], col3=[$1], col30=[$3])\n"
+        + "        LogicalJoin(condition=[=($0, $2)], joinType=[left])\n"
+        + "          PinotLogicalExchange(distribution=[hash[0]])\n"
+        + "            LogicalSort(sort0=[$1], dir0=[DESC], offset=[0], fetch=[15])\n"
+        + "              PinotLogicalSortExchange(distribution=[hash], collation=[[1 DESC]], isSortOnSender=[false], "
+        + "isSortOnReceiver=[true])\n"
+        + "                LogicalSort(sort0=[$1], dir0=[DESC], fetch=[15])\n"
+        + "                  LogicalProject(col1=[$0], col3=[$2])\n"
+        + "                    LogicalTableScan(table=[[default, a]])\n"
+        + "          PinotLogicalExchange(distribution=[hash[0]])\n"
+        + "            LogicalProject(col2=[$1], col3=[$2])\n"
+        + "              LogicalTableScan(table=[[default, b]])\n");
+    //@formatter:on
+
+    // top-N is not copied when sorted on the non-preserving side, or for INNER JOIN
+    query = "EXPLAIN PLAN FOR SELECT a.col1, a.col3, b.col3 FROM a LEFT JOIN b ON a.col1 = b.col2 "
+        + "ORDER BY b.col3 LIMIT 10";
+    explain = _queryEnvironment.explainQuery(query, RANDOM_REQUEST_ID_GEN.nextLong());
+    assertEquals(StringUtils.countMatches(explain, "LogicalSort("), 2, explain);
+    query = "EXPLAIN PLAN FOR SELECT a.col1, a.col3, b.col3 FROM a JOIN b ON a.col1 = b.col2 "
+        + "ORDER BY a.col3 LIMIT 10";
+    explain = _queryEnvironment.explainQuery(query, RANDOM_REQUEST_ID_GEN.nextLong());
+    assertEquals(StringUtils.countMatches(explain, "LogicalSort("), 2, explain);
+  }
+
   @Test
   public void testAggregateCaseToFilter() {
     // Tests that queries like "SELECT SUM(CASE WHEN col1 = 'a' THEN 1 ELSE 0 END) FROM a" are rewritten to
@@ -91,6 +263,49 @@ public class QueryCompilationTest extends QueryEnvironmentTestBase {
         + "          LogicalTableScan(table=[[default, a]])\n");
   }
 
+  @Test
+  public void testDeduplicatePipelineBreakers() {
+    // The same sub-query is used in 2 dynamic broadcast joins, and should be executed only once
+    String query = "SELECT /*+ joinOptions(join_strategy='dynamic_broadcast') */ a.col1 FROM a "
+        + "WHERE a.col1 IN (SELECT b.col2 FROM b WHERE b.col3 > 0) "
+        + "AND a.col2 IN (SELECT b.col2 FROM b WHERE b.col3 > 0)";
+    DispatchableSubPlan dispatchableSubPlan = _queryEnvironment.planQuery(query);
+    List<MailboxReceiveNode> pipelineBreakers = new ArrayList<>();
+    int numScanStages = 0;
+    for (DispatchablePlanFragment fragment : dispatchableSubPlan.getQueryStageList()) {
+      if (fragment.getTableName() != null) {
+        numScanStages++;
+      }
+      collectPipelineBreakers(fragment.getPlanFragment().getFragmentRoot(), pipelineBreakers);
+    }
+    assertEquals(numScanStages, 2);
+    assertEquals(pipelineBreakers.size(), 2);
+    assertEquals(pipelineBreakers.get(0).getStageId(), pipelineBreakers.get(1).getStageId());
+    assertEquals(pipelineBreakers.get(0).getSenderStageId(), pipelineBreakers.get(1).getSenderStageId());
+
+    // Different sub-queries are not deduplicated
+    query = "SELECT /*+ joinOptions(join_strategy='dynamic_broadcast') */ a.col1 FROM a "
+        + "WHERE a.col1 IN (SELECT b.col2 FROM b WHERE b.col3 > 0) "
+        + "AND a.col2 IN (SELECT b.col2 FROM b WHERE b.col3 > 1)";
+    dispatchableSubPlan = _queryEnvironment.planQuery(query);
+    pipelineBreakers.clear();
+    for (DispatchablePlanFragment fragment : dispatchableSubPlan.getQueryStageList()) {
+      collectPipelineBreakers(fragment.getPlanFragment().getFragmentRoot(), pipelineBreakers);
+    }
+    assertEquals(pipelineBreakers.size(), 2);
+    assertNotEquals(pipelineBreakers.get(0).getSenderStageId(), pipelineBreakers.get(1).getSenderStageId());
+  }
+
+  private static void collectPipelineBreakers(PlanNode node, List<MailboxReceiveNode> pipelineBreakers) {
+    if (node instanceof MailboxReceiveNode
+        && ((MailboxReceiveNode) node).getExchangeType() == PinotRelExchangeType.PIPELINE_BREAKER) {
+      pipelineBreakers.add((MailboxReceiveNode) node);
+    }
+    for (PlanNode input : node.getInputs()) {
+      collectPipelineBreakers(input, pipelineBreakers);
+    }
+  }
+
   private static void assertGroupBySingletonAfterJoin(DispatchableSubPlan dispatchableSubPlan, boolean shouldRewrite) {
     for (int stageId = 0; stageId < dispatchableSubPlan.getQueryStageList().size(); stageId++) {
       if (dispatchableSubPlan.getTableNames().size() == 0 && !PlannerUtils.isRootPlanFragment(stageId)) {
@@ -201,6 +416,53 @@ public class QueryCompilationTest extends QueryEnvironmentTestBase {
     assertEquals(tableScanMetadataList.get(0).getServerInstanceToWorkerIdMap().size(), 2);
   }
 
+  @Test
+  public void testLeafParallelism() {
+    // server1 has 1 segment and server2 has 2 segments for table c
+    String query = "SET leafStageParallelism = 2; SELECT * FROM c";
+    DispatchablePlanFragment leafFragment = getLeafFragment(_queryEnvironment.planQuery(query));
+    assertEquals(leafFragment.getServerInstanceToWorkerIdMap().size(), 2);
+    assertEquals(leafFragment.getWorkerMetadataList().size(), 3);
+    List<String> segments = new ArrayList<>();
+    for (Map<String, List<String>> segmentsMap : leafFragment.getWorkerIdToSegmentsMap().values()) {
+      assertEquals(segmentsMap.size(), 1);
+      List<String> workerSegments = segmentsMap.get("OFFLINE");
+      assertEquals(workerSegments.size(), 1);
+      segments.addAll(workerSegments);
+    }
+    Collections.sort(segments);
+    assertEquals(segments, ImmutableList.of("c1", "c2", "c3"));
+    assertEquals(leafFragment.getCustomProperties().get(DispatchablePlanFragment.LEAF_PARALLELISM_KEY), "2");
+
+    // segments are not split when the query relies on the data partitioning of the servers
+    query = "SET leafStageParallelism = 2; SELECT /*+ aggOptions(is_partitioned_by_group_by_keys='true') */ col1, "
+        + "COUNT(*) FROM c GROUP BY col1";
+    leafFragment = getLeafFragment(_queryEnvironment.planQuery(query));
+    assertEquals(leafFragment.getWorkerMetadataList().size(), 2);
+    assertNull(leafFragment.getCustomProperties().get(DispatchablePlanFragment.LEAF_PARALLELISM_KEY));
+
+    // table hint takes precedence over the query option, and server2 has 1 OFFLINE and 1 REALTIME segment for table d
+    query = "SET leafStageParallelism = 1; SELECT * FROM d /*+ tableOptions(leaf_parallelism='4') */";
+    leafFragment = getLeafFragment(_queryEnvironment.planQuery(query));
+    assertEquals(leafFragment.getServerInstanceToWorkerIdMap().size(), 2);
+    assertEquals(leafFragment.getWorkerMetadataList().size(), 3);
+    for (List<Integer> workerIds : leafFragment.getServerInstanceToWorkerIdMap().values()) {
+      if (workerIds.size() == 2) {
+        for (int workerId : workerIds) {
+          assertEquals(leafFragment.getWorkerIdToSegmentsMap().get(workerId).size(), 1);
+        }
+      }
+    }
+  }
+
+  private static DispatchablePlanFragment getLeafFragment(DispatchableSubPlan dispatchableSubPlan) {
+    List<DispatchablePlanFragment> tableScanMetadataList =
+        dispatchableSubPlan.getQueryStageList().stream().filter(stageMetadata -> stageMetadata.getTableName() != null)
+            .collect(Collectors.toList());
+    assertEquals(tableScanMetadataList.size(), 1);
+    return tableScanMetadataList.get(0);
+  }
+
   // Test that plan query can be run as multi-thread.
   @Test
   public void testPlanQueryMultiThread()
@@ -28,6 +28,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import javax.annotation.Nullable;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.tuple.Pair;
@@ -49,12 +50,15 @@ public class QueryEnvironmentTestBase {
   protected static final Random RANDOM_REQUEST_ID_GEN = new Random();
   public static final Map<String, List<String>> SERVER1_SEGMENTS =
       ImmutableMap.of("a_REALTIME", ImmutableList.of("a1", "a2"), "b_REALTIME", ImmutableList.of("b1"), "c_OFFLINE",
-          ImmutableList.of("c1"), "d_OFFLINE", ImmutableList.of("d1"), "e_OFFLINE", ImmutableList.of("e1"));
+          ImmutableList.of("c1"), "d_OFFLINE", ImmutableList.of("d1"), "e_OFFLINE", ImmutableList.of("e1"),
+          "dim_OFFLINE", ImmutableList.of("dim1"));
   public static final Map<String, List<String>> SERVER2_SEGMENTS =
       ImmutableMap.of("a_REALTIME", ImmutableList.of("a3"), "c_OFFLINE", ImmutableList.of("c2", "c3"),
           "d_REALTIME", ImmutableList.of("d2"), "d_OFFLINE", ImmutableList.of("d3"), "e_REALTIME",
-          ImmutableList.of("e2"), "e_OFFLINE", ImmutableList.of("e3"));
+          ImmutableList.of("e2"), "e_OFFLINE", ImmutableList.of("e3"), "dim_OFFLINE", ImmutableList.of("dim1"));
   public static final Map<String, Schema> TABLE_SCHEMAS = new HashMap<>();
+  // Dimension tables are replicated to all the servers
+  public static final Set<String> DIM_TABLES = Set.of("dim_OFFLINE");
   public static final Map<String, Pair<String, List<List<String>>>> PARTITIONED_SEGMENTS_MAP = new HashMap<>();
   public static final int PARTITION_COUNT = 4;
   public static final Map<String, String> PARTITIONED_TABLES =
@@ -80,6 +84,7 @@ public class QueryEnvironmentTestBase {
     TABLE_SCHEMAS.put("d", getSchemaBuilder("d").build());
     TABLE_SCHEMAS.put("e", getSchemaBuilder("e")
         .addMultiValueDimension("mcol1", FieldSpec.DataType.STRING).build());
+    TABLE_SCHEMAS.put("dim_OFFLINE", getSchemaBuilder("dim").setPrimaryKeyColumns(List.of("col1")).build());
   }
 
   static Schema.SchemaBuilder getSchemaBuilder(String schemaName) {
@@ -237,9 +242,28 @@ public class QueryEnvironmentTestBase {
   public static QueryEnvironment getQueryEnvironment(int reducerPort, int port1, int port2,
       Map<String, Schema> schemaMap, Map<String, List<String>> segmentMap1, Map<String, List<String>> segmentMap2,
       @Nullable Map<String, Pair<String, List<List<String>>>> partitionedSegmentsMap) {
+    return getQueryEnvironment(reducerPort, port1, port2, schemaMap, segmentMap1, segmentMap2, partitionedSegmentsMap,
+        null);
+  }
+
+  public static QueryEnvironment getQueryEnvironment(int reducerPort, int port1, int port2,
+      Map<String, Schema> schemaMap, Map<String, List<String>> segmentMap1, Map<String, List<String>> segmentMap2,
+      @Nullable Map<String, Pair<String, List<List<String>>>> partitionedSegmentsMap,
+      @Nullable Map<String, Long> tableNumDocsMap) {
+    return getQueryEnvironment(reducerPort, port1, port2, schemaMap, segmentMap1, segmentMap2, partitionedSegmentsMap,
+        tableNumDocsMap, null);
+  }
+
+  public static QueryEnvironment getQueryEnvironment(int reducerPort, int port1, int port2,
+      Map<String, Schema> schemaMap, Map<String, List<String>> segmentMap1, Map<String, List<String>> segmentMap2,
+      @Nullable Map<String, Pair<String, List<List<String>>>> partitionedSegmentsMap,
+      @Nullable Map<String, Long> tableNumDocsMap, @Nullable QueryPlanCache planCache) {
     MockRoutingManagerFactory factory = new MockRoutingManagerFactory(port1, port2);
     for (Map.Entry<String, Schema> entry : schemaMap.entrySet()) {
       factory.registerTable(entry.getValue(), entry.getKey());
+      if (DIM_TABLES.contains(entry.getKey())) {
+        factory.registerDimTable(entry.getKey());
+      }
     }
     for (Map.Entry<String, List<String>> entry : segmentMap1.entrySet()) {
       for (String segment : entry.getValue()) {
@@ -272,10 +296,13 @@ public class QueryEnvironmentTestBase {
         partitionInfoMap.put(tableNameWithType, tablePartitionInfo);
       }
     }
+    if (tableNumDocsMap != null) {
+      tableNumDocsMap.forEach(factory::registerTableNumDocs);
+    }
     RoutingManager routingManager = factory.buildRoutingManager(partitionInfoMap);
     TableCache tableCache = factory.buildTableCache();
     return new QueryEnvironment(CommonConstants.DEFAULT_DATABASE, tableCache,
-        new WorkerManager("localhost", reducerPort, routingManager));
+        new WorkerManager("localhost", reducerPort, routingManager), planCache);
   }
 
   /**
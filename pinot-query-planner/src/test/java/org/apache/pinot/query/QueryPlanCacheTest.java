@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.rel.RelRoot;
+import org.apache.pinot.query.planner.explain.PhysicalExplainPlanVisitor;
+import org.apache.pinot.spi.utils.CommonConstants;
+import org.apache.pinot.sql.parsers.CalciteSqlParser;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+
+public class QueryPlanCacheTest {
+  private QueryPlanCache _planCache;
+  private QueryEnvironment _queryEnvironment;
+
+  @BeforeMethod
+  public void setUp() {
+    _planCache = new QueryPlanCache(100, 60_000L);
+    _queryEnvironment = QueryEnvironmentTestBase.getQueryEnvironment(3, 1, 2, QueryEnvironmentTestBase.TABLE_SCHEMAS,
+        QueryEnvironmentTestBase.SERVER1_SEGMENTS, QueryEnvironmentTestBase.SERVER2_SEGMENTS, null, null, _planCache);
+  }
+
+  private QueryEnvironment.QueryPlannerResult planQuery(String sql) {
+    return _queryEnvironment.planQuery(sql, CalciteSqlParser.compileToSqlNodeAndOptions(sql), 0);
+  }
+
+  @Test
+  public void testCacheHit() {
+    String query = "SELECT a.col1, SUM(b.col3) FROM a JOIN b ON a.col1 = b.col2 WHERE a.col3 > 10 GROUP BY a.col1";
+    QueryEnvironment.QueryPlannerResult result = planQuery(query);
+    assertFalse(result.isPlanCacheHit());
+    assertEquals(_planCache.size(), 1);
+
+    // Same query with different formatting and query options should hit the cache, and generate the same plan
+    QueryEnvironment.QueryPlannerResult cachedResult =
+        planQuery("SET timeoutMs = 1000; select a.col1, sum(b.col3)\nfrom a join b on a.col1 = b.col2\n"
+            + "where a.col3 > 10 group by a.col1");
+    assertTrue(cachedResult.isPlanCacheHit());
+    assertEquals(_planCache.size(), 1);
+    assertEquals(cachedResult.getTableNames(), result.getTableNames());
+    assertEquals(PhysicalExplainPlanVisitor.explain(cachedResult.getQueryPlan()),
+        PhysicalExplainPlanVisitor.explain(result.getQueryPlan()));
+
+    // Different literal should not hit the cache
+    assertFalse(planQuery(query.replace("> 10", "> 20")).isPlanCacheHit());
+    assertEquals(_planCache.size(), 2);
+  }
+
+  @Test
+  public void testCachedPlanSharedByConcurrentQueries()
+      throws Exception {
+    String query = "SELECT a.col1, SUM(b.col3) FROM a JOIN b ON a.col1 = b.col2 WHERE a.col3 > 10 GROUP BY a.col1";
+    String explain = PhysicalExplainPlanVisitor.explain(planQuery(query).getQueryPlan());
+    QueryPlanCache.Key key = _planCache.getKey(CommonConstants.DEFAULT_DATABASE,
+        CalciteSqlParser.compileToSqlNodeAndOptions(query).getSqlNode());
+    assertNotNull(key);
+    RelRoot relRoot = _planCache.get(key, tableName -> null);
+    assertNotNull(relRoot);
+    String cachedPlan = RelOptUtil.toString(relRoot.rel);
+
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<QueryEnvironment.QueryPlannerResult>> futures = new ArrayList<>();
+      for (int i = 0; i < 16; i++) {
+        futures.add(executorService.submit(() -> planQuery(query)));
+      }
+      for (Future<QueryEnvironment.QueryPlannerResult> future : futures) {
+        QueryEnvironment.QueryPlannerResult result = future.get();
+        assertTrue(result.isPlanCacheHit());
+        assertEquals(PhysicalExplainPlanVisitor.explain(result.getQueryPlan()), explain);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+    // Cached plan should not be modified
+    assertSame(_planCache.get(key, tableName -> null), relRoot);
+    assertEquals(RelOptUtil.toString(relRoot.rel), cachedPlan);
+  }
+
+  @Test
+  public void testInvalidate() {
+    String query = "SELECT col1, COUNT(*) FROM a GROUP BY col1";
+    assertFalse(planQuery(query).isPlanCacheHit());
+    assertTrue(planQuery(query).isPlanCacheHit());
+    _planCache.invalidateAll();
+    assertEquals(_planCache.size(), 0);
+    assertFalse(planQuery(query).isPlanCacheHit());
+    assertTrue(planQuery(query).isPlanCacheHit());
+  }
+
+  @Test
+  public void testInvalidateOnTableStatisticChange() {
+    String query = "SELECT a.col1, b.col2 FROM a JOIN b ON a.col1 = b.col1";
+    QueryEnvironment queryEnvironment = getQueryEnvironment(Map.of("a_REALTIME", 1_000_000L, "b_REALTIME", 1_000L));
+    QueryEnvironment.QueryPlannerResult result =
+        queryEnvironment.planQuery(query, CalciteSqlParser.compileToSqlNodeAndOptions(query), 0);
+    assertFalse(result.isPlanCacheHit());
+    assertTrue(queryEnvironment.planQuery(query, CalciteSqlParser.compileToSqlNodeAndOptions(query), 0)
+        .isPlanCacheHit());
+
+    // Plan should be invalidated when the table statistic changes because the join strategy depends on it
+    QueryEnvironment updatedQueryEnvironment =
+        getQueryEnvironment(Map.of("a_REALTIME", 1_000_000L, "b_REALTIME", 1_000_000L));
+    QueryEnvironment.QueryPlannerResult updatedResult =
+        updatedQueryEnvironment.planQuery(query, CalciteSqlParser.compileToSqlNodeAndOptions(query), 0);
+    assertFalse(updatedResult.isPlanCacheHit());
+    assertNotEquals(PhysicalExplainPlanVisitor.explain(updatedResult.getQueryPlan()),
+        PhysicalExplainPlanVisitor.explain(result.getQueryPlan()));
+    assertEquals(_planCache.size(), 1);
+    assertTrue(updatedQueryEnvironment.planQuery(query, CalciteSqlParser.compileToSqlNodeAndOptions(query), 0)
+        .isPlanCacheHit());
+  }
+
+  private QueryEnvironment getQueryEnvironment(Map<String, Long> tableNumDocsMap) {
+    return QueryEnvironmentTestBase.getQueryEnvironment(3, 1, 2, QueryEnvironmentTestBase.TABLE_SCHEMAS,
+        QueryEnvironmentTestBase.SERVER1_SEGMENTS, QueryEnvironmentTestBase.SERVER2_SEGMENTS, null, tableNumDocsMap,
+        _planCache);
+  }
+
+  @Test
+  public void testTimeDependentQueryNotCached() {
+    assertFalse(planQuery("SELECT col1 FROM a WHERE ts > now() - 1000").isPlanCacheHit());
+    assertFalse(planQuery("SELECT col1 FROM a WHERE ts > ago('PT1H')").isPlanCacheHit());
+    assertFalse(planQuery("SELECT col1 FROM a WHERE ts > ago('PT1H')").isPlanCacheHit());
+    assertEquals(_planCache.size(), 0);
+  }
+}
@@ -37,8 +37,11 @@ import org.apache.pinot.core.routing.RoutingTable;
 import org.apache.pinot.core.routing.TablePartitionInfo;
 import org.apache.pinot.core.routing.TimeBoundaryInfo;
 import org.apache.pinot.core.transport.ServerInstance;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableType;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.utils.CommonConstants;
+import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
 import org.apache.pinot.spi.utils.builder.TableNameBuilder;
 
 import static org.mockito.ArgumentMatchers.anyString;
@@ -58,6 +61,8 @@ public class MockRoutingManagerFactory {
   private final Set<String> _hybridTables;
   private final Map<String, ServerInstance> _serverInstances;
   private final Map<String, Map<ServerInstance, Pair<List<String>, List<String>>>> _tableServerSegmentsMap;
+  private final Map<String, Long> _tableNumDocsMap;
+  private final Map<String, TableConfig> _tableConfigMap;
 
   public MockRoutingManagerFactory(int... ports) {
     _tableNameMap = new HashMap<>();
@@ -65,6 +70,8 @@ public class MockRoutingManagerFactory {
     _hybridTables = new HashSet<>();
     _serverInstances = new HashMap<>();
     _tableServerSegmentsMap = new HashMap<>();
+    _tableNumDocsMap = new HashMap<>();
+    _tableConfigMap = new HashMap<>();
     for (int port : ports) {
       _serverInstances.put(toHostname(port), getServerInstance(HOST_NAME, port, port, port, port));
     }
@@ -93,13 +100,23 @@ public class MockRoutingManagerFactory {
         .computeIfAbsent(serverInstance, k -> Pair.of(new ArrayList<>(), null)).getLeft().add(segmentName);
   }
 
+  public void registerTableNumDocs(String tableNameWithType, long numDocs) {
+    _tableNumDocsMap.put(tableNameWithType, numDocs);
+  }
+
+  public void registerDimTable(String offlineTableName) {
+    _tableConfigMap.put(offlineTableName,
+        new TableConfigBuilder(TableType.OFFLINE).setTableName(offlineTableName).setIsDimTable(true).build());
+  }
+
   public RoutingManager buildRoutingManager(@Nullable Map<String, TablePartitionInfo> partitionInfoMap) {
     Map<String, RoutingTable> routingTableMap = new HashMap<>();
     _tableServerSegmentsMap.forEach((tableNameWithType, serverSegmentsMap) -> {
       RoutingTable fakeRoutingTable = new RoutingTable(serverSegmentsMap, Collections.emptyList(), 0);
       routingTableMap.put(tableNameWithType, fakeRoutingTable);
     });
-    return new FakeRoutingManager(routingTableMap, _hybridTables, partitionInfoMap, _serverInstances);
+    return new FakeRoutingManager(routingTableMap, _hybridTables, partitionInfoMap, _serverInstances,
+        _tableNumDocsMap);
   }
 
   public TableCache buildTableCache() {
@@ -113,6 +130,10 @@ public class MockRoutingManagerFactory {
       String schemaName = invocationOnMock.getArgument(0);
       return _schemaMap.get(schemaName);
     });
+    when(mock.getTableConfig(anyString())).thenAnswer(invocationOnMock -> {
+      String tableNameWithType = invocationOnMock.getArgument(0);
+      return _tableConfigMap.get(tableNameWithType);
+    });
     return mock;
   }
 
@@ -139,13 +160,16 @@ public class MockRoutingManagerFactory {
     private final Set<String> _hybridTables;
     private final Map<String, TablePartitionInfo> _partitionInfoMap;
     private final Map<String, ServerInstance> _serverInstances;
+    private final Map<String, Long> _tableNumDocsMap;
 
     public FakeRoutingManager(Map<String, RoutingTable> routingTableMap, Set<String> hybridTables,
-        @Nullable Map<String, TablePartitionInfo> partitionInfoMap, Map<String, ServerInstance> serverInstances) {
+        @Nullable Map<String, TablePartitionInfo> partitionInfoMap, Map<String, ServerInstance> serverInstances,
+        Map<String, Long> tableNumDocsMap) {
       _routingTableMap = routingTableMap;
       _hybridTables = hybridTables;
       _partitionInfoMap = partitionInfoMap;
       _serverInstances = serverInstances;
+      _tableNumDocsMap = tableNumDocsMap;
     }
 
     @Override
@@ -182,5 +206,11 @@ public class MockRoutingManagerFactory {
     public Set<String> getServingInstances(String tableNameWithType) {
       return _serverInstances.keySet();
     }
+
+    @Nullable
+    @Override
+    public Long getTableNumDocs(String tableNameWithType) {
+      return _tableNumDocsMap.get(tableNameWithType);
+    }
   }
 }
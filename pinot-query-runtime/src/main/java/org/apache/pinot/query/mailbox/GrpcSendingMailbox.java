@@ -18,26 +18,37 @@
  */
 package org.apache.pinot.query.mailbox;
 
-import com.google.protobuf.ByteString;
 import com.google.protobuf.UnsafeByteOperations;
 import io.grpc.stub.StreamObserver;
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.proto.Mailbox.MailboxContent;
 import org.apache.pinot.common.proto.PinotMailboxGrpc;
 import org.apache.pinot.query.mailbox.channel.ChannelManager;
+import org.apache.pinot.query.mailbox.channel.ChannelUtils;
 import org.apache.pinot.query.mailbox.channel.MailboxStatusObserver;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
 import org.apache.pinot.query.runtime.operator.MailboxSendOperator;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.spi.utils.CommonConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
 /**
  * gRPC implementation of the {@link SendingMailbox}. The gRPC stream is created on the first call to {@link #send}.
+ * <p>
+ * Serialized blocks no smaller than the compression threshold are compressed with the configured compression type
+ * (if not PASS_THROUGH) before being sent.
+ * <p>
+ * Data blocks are only sent within the credit granted by the receiver (see {@link ReceivingMailbox}). When the credit
+ * is exhausted, {@link #send} waits for the receiver to consume the pending blocks instead of blocking the gRPC thread
+ * of the receiver, while {@link #trySend} returns without sending the block and invokes the retry callback once more
+ * credit is granted, so that the OpChain can yield instead of blocking its thread.
  */
 public class GrpcSendingMailbox implements SendingMailbox {
   private static final Logger LOGGER = LoggerFactory.getLogger(GrpcSendingMailbox.class);
@@ -48,33 +59,103 @@ public class GrpcSendingMailbox implements SendingMailbox {
   private final int _port;
   private final long _deadlineMs;
   private final StatMap<MailboxSendOperator.StatKey> _statMap;
-  private final MailboxStatusObserver _statusObserver = new MailboxStatusObserver();
+  private final MailboxStatusObserver _statusObserver;
+  private final ChunkCompressionType _compressionType;
+  private final int _compressionThresholdBytes;
 
   private StreamObserver<MailboxContent> _contentObserver;
+  private long _numSentBytes;
+  // Start time of waiting for credit in trySend(), 0 when not waiting
+  private long _creditWaitStartMs;
 
   public GrpcSendingMailbox(String id, ChannelManager channelManager, String hostname, int port, long deadlineMs,
       StatMap<MailboxSendOperator.StatKey> statMap) {
+    this(id, channelManager, hostname, port, deadlineMs, statMap, ChunkCompressionType.PASS_THROUGH, Integer.MAX_VALUE);
+  }
+
+  public GrpcSendingMailbox(String id, ChannelManager channelManager, String hostname, int port, long deadlineMs,
+      StatMap<MailboxSendOperator.StatKey> statMap, ChunkCompressionType compressionType,
+      int compressionThresholdBytes) {
+    this(id, channelManager, hostname, port, deadlineMs, statMap, compressionType, compressionThresholdBytes,
+        CommonConstants.MultiStageQueryRunner.DEFAULT_MAILBOX_MAX_PENDING_BYTES);
+  }
+
+  /**
+   * The max pending bytes is used as the initial credit before the receiver reports its actual credit.
+   */
+  public GrpcSendingMailbox(String id, ChannelManager channelManager, String hostname, int port, long deadlineMs,
+      StatMap<MailboxSendOperator.StatKey> statMap, ChunkCompressionType compressionType,
+      int compressionThresholdBytes, long maxPendingBytes) {
     _id = id;
     _channelManager = channelManager;
     _hostname = hostname;
     _port = port;
     _deadlineMs = deadlineMs;
     _statMap = statMap;
+    _compressionType = MailboxCompressionUtils.getEffectiveCompressionType(compressionType);
+    _compressionThresholdBytes = compressionThresholdBytes;
+    _statusObserver = new MailboxStatusObserver(maxPendingBytes);
   }
 
   @Override
   public void send(TransferableBlock block)
-      throws IOException {
+      throws IOException, TimeoutException {
     if (isTerminated() || (isEarlyTerminated() && !block.isEndOfStreamBlock())) {
       return;
     }
-    if (LOGGER.isDebugEnabled()) {
-      LOGGER.debug("==[GRPC SEND]== sending message " + block + " to: " + _id);
+    if (_contentObserver == null) {
+      _contentObserver = getContentObserver();
+    }
+    // EOS and error blocks are always sent so that the receiver is notified even when it stops consuming data
+    if (block.isDataBlock()) {
+      waitForCredit();
+      if (isTerminated() || isEarlyTerminated()) {
+        return;
+      }
+    }
+    sendContent(block);
+  }
+
+  @Override
+  public boolean trySend(TransferableBlock block, Runnable retryCallback)
+      throws IOException, TimeoutException {
+    if (isTerminated() || (isEarlyTerminated() && !block.isEndOfStreamBlock())) {
+      return true;
     }
     if (_contentObserver == null) {
       _contentObserver = getContentObserver();
     }
-    _contentObserver.onNext(toMailboxContent(block));
+    if (block.isDataBlock()) {
+      long currentTimeMs = System.currentTimeMillis();
+      if (!_statusObserver.tryAcquireCredit(_numSentBytes, retryCallback)) {
+        if (currentTimeMs >= _deadlineMs) {
+          throw new TimeoutException("Timed out waiting for credit to send data to mailbox: " + _id);
+        }
+        if (_creditWaitStartMs == 0) {
+          _creditWaitStartMs = currentTimeMs;
+        }
+        return false;
+      }
+      if (_creditWaitStartMs != 0) {
+        _statMap.merge(MailboxSendOperator.StatKey.FLOW_CONTROL_WAIT_TIME_MS, currentTimeMs - _creditWaitStartMs);
+        _creditWaitStartMs = 0;
+      }
+      if (isTerminated() || isEarlyTerminated()) {
+        return true;
+      }
+    }
+    sendContent(block);
+    return true;
+  }
+
+  private void sendContent(TransferableBlock block)
+      throws IOException {
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("==[GRPC SEND]== sending message " + block + " to: " + _id);
+    }
+    MailboxContent content = toMailboxContent(block);
+    _contentObserver.onNext(content);
+    _numSentBytes += content.getPayload().size();
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("==[GRPC SEND]== message " + block + " sent to: " + _id);
     }
@@ -122,6 +203,27 @@ public class GrpcSendingMailbox implements SendingMailbox {
     return _statusObserver.isFinished();
   }
 
+  @Override
+  public long getNumSentBytes() {
+    return _numSentBytes;
+  }
+
+  private void waitForCredit()
+      throws TimeoutException {
+    long start = System.currentTimeMillis();
+    boolean granted;
+    try {
+      granted = _statusObserver.waitForCredit(_numSentBytes, _deadlineMs);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for credit to send data to mailbox: " + _id, e);
+    }
+    _statMap.merge(MailboxSendOperator.StatKey.FLOW_CONTROL_WAIT_TIME_MS, System.currentTimeMillis() - start);
+    if (!granted) {
+      throw new TimeoutException("Timed out waiting for credit to send data to mailbox: " + _id);
+    }
+  }
+
   private StreamObserver<MailboxContent> getContentObserver() {
     return PinotMailboxGrpc.newStub(_channelManager.getChannel(_hostname, _port))
         .withDeadlineAfter(_deadlineMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS).open(_statusObserver);
@@ -134,12 +236,24 @@ public class GrpcSendingMailbox implements SendingMailbox {
     try {
       DataBlock dataBlock = block.getDataBlock();
       byte[] bytes = dataBlock.toBytes();
-      ByteString byteString = UnsafeByteOperations.unsafeWrap(bytes);
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug("Serialized block: {} to {} bytes", block, bytes.length);
       }
       _statMap.merge(MailboxSendOperator.StatKey.SERIALIZED_BYTES, bytes.length);
-      return MailboxContent.newBuilder().setMailboxId(_id).setPayload(byteString).build();
+      MailboxContent.Builder builder = MailboxContent.newBuilder().setMailboxId(_id);
+      if (_compressionType == ChunkCompressionType.PASS_THROUGH) {
+        return builder.setPayload(UnsafeByteOperations.unsafeWrap(bytes)).build();
+      }
+      if (bytes.length < _compressionThresholdBytes) {
+        _statMap.merge(MailboxSendOperator.StatKey.COMPRESSED_BYTES, bytes.length);
+        return builder.setPayload(UnsafeByteOperations.unsafeWrap(bytes)).build();
+      }
+      long compressionStart = System.currentTimeMillis();
+      byte[] compressed = MailboxCompressionUtils.compress(_compressionType, bytes);
+      _statMap.merge(MailboxSendOperator.StatKey.COMPRESSION_TIME_MS, System.currentTimeMillis() - compressionStart);
+      _statMap.merge(MailboxSendOperator.StatKey.COMPRESSED_BYTES, compressed.length);
+      return builder.setPayload(UnsafeByteOperations.unsafeWrap(compressed))
+          .putMetadata(ChannelUtils.MAILBOX_METADATA_COMPRESSION_TYPE_KEY, _compressionType.name()).build();
     } catch (Throwable t) {
       LOGGER.warn("Caught exception while serializing block: {}", block, t);
       throw t;
@@ -79,6 +79,11 @@ public class InMemorySendingMailbox implements SendingMailbox {
     }
   }
 
+  @Override
+  public boolean isLocal() {
+    return true;
+  }
+
   @Override
   public void complete() {
     _isTerminated = true;
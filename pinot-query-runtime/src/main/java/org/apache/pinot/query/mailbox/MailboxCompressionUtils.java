@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.mailbox;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.apache.pinot.segment.local.io.compression.ChunkCompressorFactory;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.segment.spi.compression.ChunkCompressor;
+import org.apache.pinot.segment.spi.compression.ChunkDecompressor;
+
+
+/**
+ * Utils to compress the serialized data blocks sent through the gRPC mailboxes. The compression type of a compressed
+ * payload is sent in the mailbox content metadata, so that the receiver knows how to decompress it.
+ *
+ * <p>NOTE: Direct buffers are used because some codecs (e.g. ZSTANDARD) only work on direct buffers. To avoid
+ * allocating direct buffers for each block, the buffers only used within a call are reused by the thread. The
+ * decompressed buffer is allocated for each block because the deserialized data block is backed by it.
+ */
+public class MailboxCompressionUtils {
+  // Buffers larger than this are allocated for each block instead of being held by the thread
+  private static final int MAX_REUSED_BUFFER_SIZE = 4 * 1024 * 1024;
+  private static final ThreadLocal<ByteBuffer> UNCOMPRESSED_BUFFER = new ThreadLocal<>();
+  private static final ThreadLocal<ByteBuffer> COMPRESSED_BUFFER = new ThreadLocal<>();
+
+  private MailboxCompressionUtils() {
+  }
+
+  /**
+   * Returns the compression type to apply for the requested compression type. LZ4 is upgraded to the length prefixed
+   * variant so that the receiver can size the decompression buffer.
+   */
+  public static ChunkCompressionType getEffectiveCompressionType(ChunkCompressionType compressionType) {
+    return compressionType == ChunkCompressionType.LZ4 ? ChunkCompressionType.LZ4_LENGTH_PREFIXED : compressionType;
+  }
+
+  /**
+   * Compresses the given bytes, and returns the compressed bytes.
+   */
+  public static byte[] compress(ChunkCompressionType compressionType, byte[] bytes)
+      throws IOException {
+    try (ChunkCompressor compressor = ChunkCompressorFactory.getCompressor(compressionType, true)) {
+      ByteBuffer input = getDirectBuffer(UNCOMPRESSED_BUFFER, bytes.length);
+      input.put(bytes);
+      input.flip();
+      ByteBuffer output = getDirectBuffer(COMPRESSED_BUFFER, compressor.maxCompressedSize(bytes.length));
+      compressor.compress(input, output);
+      byte[] compressedBytes = new byte[output.remaining()];
+      output.get(compressedBytes);
+      return compressedBytes;
+    }
+  }
+
+  /**
+   * Decompresses the given buffer, and returns the decompressed buffer ready for read.
+   */
+  public static ByteBuffer decompress(ChunkCompressionType compressionType, ByteBuffer compressed)
+      throws IOException {
+    ByteBuffer input = compressed;
+    if (!input.isDirect()) {
+      input = getDirectBuffer(COMPRESSED_BUFFER, compressed.remaining());
+      input.put(compressed);
+      input.flip();
+    }
+    try (ChunkDecompressor decompressor = ChunkCompressorFactory.getDecompressor(compressionType)) {
+      ByteBuffer output = ByteBuffer.allocateDirect(decompressor.decompressedLength(input));
+      decompressor.decompress(input, output);
+      return output;
+    }
+  }
+
+  /**
+   * Returns a cleared direct buffer with the given size as the limit, which is reused by the current thread if it is
+   * not too large.
+   */
+  private static ByteBuffer getDirectBuffer(ThreadLocal<ByteBuffer> reusedBuffer, int size) {
+    if (size > MAX_REUSED_BUFFER_SIZE) {
+      return ByteBuffer.allocateDirect(size);
+    }
+    ByteBuffer buffer = reusedBuffer.get();
+    if (buffer == null || buffer.capacity() < size) {
+      int capacity = buffer != null ? Math.min(Math.max(size, 2 * buffer.capacity()), MAX_REUSED_BUFFER_SIZE) : size;
+      buffer = ByteBuffer.allocateDirect(capacity);
+      reusedBuffer.set(buffer);
+    }
+    buffer.clear();
+    buffer.limit(size);
+    return buffer;
+  }
+}
@@ -21,13 +21,19 @@ package org.apache.pinot.query.mailbox;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalListener;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import org.apache.pinot.common.datatable.StatMap;
+import org.apache.pinot.common.metrics.ServerGauge;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.query.mailbox.channel.ChannelManager;
 import org.apache.pinot.query.mailbox.channel.GrpcMailboxServer;
 import org.apache.pinot.query.runtime.operator.MailboxSendOperator;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
 import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.CommonConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,6 +67,9 @@ public class MailboxService {
   private final int _port;
   private final PinotConfiguration _config;
   private final ChannelManager _channelManager = new ChannelManager();
+  private final ChunkCompressionType _compressionType;
+  private final int _compressionThresholdBytes;
+  private final long _maxPendingBytes;
 
   private GrpcMailboxServer _grpcMailboxServer;
 
@@ -68,6 +77,14 @@ public class MailboxService {
     _hostname = hostname;
     _port = port;
     _config = config;
+    _compressionType = ChunkCompressionType.valueOf(
+        config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_COMPRESSION_TYPE,
+            CommonConstants.MultiStageQueryRunner.DEFAULT_MAILBOX_COMPRESSION_TYPE).toUpperCase());
+    _compressionThresholdBytes =
+        config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_COMPRESSION_THRESHOLD_BYTES,
+            CommonConstants.MultiStageQueryRunner.DEFAULT_MAILBOX_COMPRESSION_THRESHOLD_BYTES);
+    _maxPendingBytes = config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_MAX_PENDING_BYTES,
+        CommonConstants.MultiStageQueryRunner.DEFAULT_MAILBOX_MAX_PENDING_BYTES);
     LOGGER.info("Initialized MailboxService with hostname: {}, port: {}", hostname, port);
   }
 
@@ -78,6 +95,7 @@ public class MailboxService {
     LOGGER.info("Starting GrpcMailboxServer");
     _grpcMailboxServer = new GrpcMailboxServer(this, _config);
     _grpcMailboxServer.start();
+    ServerMetrics.get().setOrUpdateGlobalGauge(ServerGauge.MULTI_STAGE_MAILBOX_PENDING_BYTES, this::getNumPendingBytes);
   }
 
   /**
@@ -103,10 +121,28 @@ public class MailboxService {
    */
   public SendingMailbox getSendingMailbox(String hostname, int port, String mailboxId, long deadlineMs,
       StatMap<MailboxSendOperator.StatKey> statMap) {
+    return getSendingMailbox(hostname, port, mailboxId, deadlineMs, statMap, Map.of());
+  }
+
+  /**
+   * Same as {@link #getSendingMailbox(String, int, String, long, StatMap)}, but allows the query options to override
+   * the compression settings of the gRPC sending mailbox.
+   */
+  public SendingMailbox getSendingMailbox(String hostname, int port, String mailboxId, long deadlineMs,
+      StatMap<MailboxSendOperator.StatKey> statMap, Map<String, String> queryOptions) {
     if (_hostname.equals(hostname) && _port == port) {
       return new InMemorySendingMailbox(mailboxId, this, deadlineMs, statMap);
     } else {
-      return new GrpcSendingMailbox(mailboxId, _channelManager, hostname, port, deadlineMs, statMap);
+      ChunkCompressionType compressionType = QueryOptionsUtils.getMailboxCompressionType(queryOptions);
+      if (compressionType == null) {
+        compressionType = _compressionType;
+      }
+      Integer compressionThresholdBytes = QueryOptionsUtils.getMailboxCompressionThresholdBytes(queryOptions);
+      if (compressionThresholdBytes == null) {
+        compressionThresholdBytes = _compressionThresholdBytes;
+      }
+      return new GrpcSendingMailbox(mailboxId, _channelManager, hostname, port, deadlineMs, statMap, compressionType,
+          compressionThresholdBytes, _maxPendingBytes);
     }
   }
 
@@ -115,12 +151,23 @@ public class MailboxService {
    */
   public ReceivingMailbox getReceivingMailbox(String mailboxId) {
     try {
-      return _receivingMailboxCache.get(mailboxId, () -> new ReceivingMailbox(mailboxId));
+      return _receivingMailboxCache.get(mailboxId, () -> new ReceivingMailbox(mailboxId, _maxPendingBytes));
     } catch (ExecutionException e) {
       throw new RuntimeException(e);
     }
   }
 
+  /**
+   * Returns the total number of bytes pending in the receiving mailboxes, i.e. received but not yet consumed.
+   */
+  public long getNumPendingBytes() {
+    long numPendingBytes = 0;
+    for (ReceivingMailbox receivingMailbox : _receivingMailboxCache.asMap().values()) {
+      numPendingBytes += receivingMailbox.getNumPendingBytes();
+    }
+    return numPendingBytes;
+  }
+
   /**
    * Releases the receiving mailbox from the cache.
    *
@@ -21,10 +21,8 @@ package org.apache.pinot.query.mailbox;
 import com.google.common.base.Preconditions;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nullable;
@@ -34,6 +32,9 @@ import org.apache.pinot.common.datablock.MetadataBlock;
 import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.executor.ExecutorServiceUtils;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.spi.utils.CommonConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,28 +44,50 @@ import org.slf4j.LoggerFactory;
  * the {@link SendingMailbox} whose ownership lies with the send operator. This is because the ReceivingMailbox can be
  * initialized even before the corresponding OpChain is registered on the receiver, whereas the SendingMailbox is
  * initialized when the send operator is running.
+ * <p>
+ * Back pressure is applied based on the bytes pending in the mailbox. The receiver grants the sender a credit, which is
+ * the number of bytes consumed so far plus the max pending bytes, and the gRPC sender only sends data within the credit
+ * (see {@link CreditListener}), so that the gRPC thread offering the blocks doesn't need to wait. In-memory blocks are
+ * not serialized, so each of them is counted as a fixed fraction of the max pending bytes, and the offer waits when
+ * there are already too many pending bytes.
  */
 public class ReceivingMailbox {
   public static final int DEFAULT_MAX_PENDING_BLOCKS = 5;
+  // The credit is reported to the sender every time this fraction of the max pending bytes is consumed
+  private static final int DEFAULT_CREDIT_REPORT_FRACTION = 4;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ReceivingMailbox.class);
   private static final TransferableBlock CANCELLED_ERROR_BLOCK =
       TransferableBlockUtils.getErrorTransferableBlock(new RuntimeException("Cancelled by receiver"));
 
   private final String _id;
-  // TODO: Make the queue size configurable
-  // TODO: Revisit if this is the correct way to apply back pressure
-  private final BlockingQueue<TransferableBlock> _blocks = new ArrayBlockingQueue<>(DEFAULT_MAX_PENDING_BLOCKS);
+  private final long _maxPendingBytes;
+  private final long _inMemoryBlockBytes;
+  // Pending blocks and the byte counters below are guarded by the lock of the queue
+  private final ArrayDeque<PendingBlock> _blocks = new ArrayDeque<>();
+  private long _numPendingBytes;
+  private long _numConsumedBytes;
+  private long _lastReportedCreditBytes;
   private final AtomicReference<TransferableBlock> _errorBlock = new AtomicReference<>();
   private volatile boolean _isEarlyTerminated = false;
   private long _lastArriveTime = System.currentTimeMillis();
 
   @Nullable
   private volatile Reader _reader;
+  @Nullable
+  private volatile CreditListener _creditListener;
   private final StatMap<StatKey> _stats = new StatMap<>(StatKey.class);
 
   public ReceivingMailbox(String id) {
+    this(id, CommonConstants.MultiStageQueryRunner.DEFAULT_MAILBOX_MAX_PENDING_BYTES);
+  }
+
+  public ReceivingMailbox(String id, long maxPendingBytes) {
+    Preconditions.checkArgument(maxPendingBytes > 0, "Max pending bytes must be positive, got: %s", maxPendingBytes);
     _id = id;
+    _maxPendingBytes = maxPendingBytes;
+    _inMemoryBlockBytes = Math.max(maxPendingBytes / DEFAULT_MAX_PENDING_BLOCKS, 1);
+    _lastReportedCreditBytes = maxPendingBytes;
   }
 
   public void registeredReader(Reader reader) {
@@ -77,6 +100,14 @@ public class ReceivingMailbox {
     _reader = reader;
   }
 
+  /**
+   * Registers the listener to be notified when the credit granted to the sender is increased by the consumption of the
+   * pending blocks. Only one listener (the gRPC stream of the sender) is supported.
+   */
+  public void setCreditListener(@Nullable CreditListener creditListener) {
+    _creditListener = creditListener;
+  }
+
   public String getId() {
     return _id;
   }
@@ -90,14 +121,28 @@ public class ReceivingMailbox {
    */
   public ReceivingMailboxStatus offerRaw(ByteBuffer byteBuffer, long timeoutMs)
       throws IOException {
+    return offerRaw(byteBuffer, null, timeoutMs);
+  }
+
+  /**
+   * Same as {@link #offerRaw(ByteBuffer, long)}, but decompresses the raw block first if it is compressed by the sender
+   * (i.e. compression type is not {@code null}). The decompression time is included in the deserialization time.
+   */
+  public ReceivingMailboxStatus offerRaw(ByteBuffer byteBuffer, @Nullable ChunkCompressionType compressionType,
+      long timeoutMs)
+      throws IOException {
     TransferableBlock block;
     long now = System.currentTimeMillis();
     _stats.merge(StatKey.WAIT_CPU_TIME_MS, now - _lastArriveTime);
     _lastArriveTime = now;
-    _stats.merge(StatKey.DESERIALIZED_BYTES, byteBuffer.remaining());
+    int numBytes = byteBuffer.remaining();
+    _stats.merge(StatKey.DESERIALIZED_BYTES, numBytes);
     _stats.merge(StatKey.DESERIALIZED_MESSAGES, 1);
 
     now = System.currentTimeMillis();
+    if (compressionType != null) {
+      byteBuffer = MailboxCompressionUtils.decompress(compressionType, byteBuffer);
+    }
     DataBlock dataBlock = DataBlockUtils.getDataBlock(byteBuffer);
     _stats.merge(StatKey.DESERIALIZATION_TIME_MS, System.currentTimeMillis() - now);
 
@@ -112,7 +157,7 @@ public class ReceivingMailbox {
     } else {
       block = TransferableBlockUtils.wrap(dataBlock);
     }
-    return offerPrivate(block, timeoutMs);
+    return offerPrivate(block, numBytes, timeoutMs);
   }
 
   public ReceivingMailboxStatus offer(TransferableBlock block, long timeoutMs) {
@@ -120,14 +165,14 @@ public class ReceivingMailbox {
     _stats.merge(StatKey.WAIT_CPU_TIME_MS, now - _lastArriveTime);
     _lastArriveTime = now;
     _stats.merge(StatKey.IN_MEMORY_MESSAGES, 1);
-    return offerPrivate(block, timeoutMs);
+    return offerPrivate(block, _inMemoryBlockBytes, timeoutMs);
   }
 
   /**
    * Offers a non-error block into the mailbox within the timeout specified, returns whether the block is successfully
    * added. If the block is not added, an error block is added to the mailbox.
    */
-  private ReceivingMailboxStatus offerPrivate(TransferableBlock block, long timeoutMs) {
+  private ReceivingMailboxStatus offerPrivate(TransferableBlock block, long numBytes, long timeoutMs) {
     TransferableBlock errorBlock = _errorBlock.get();
     if (errorBlock != null) {
       LOGGER.debug("Mailbox: {} is already cancelled or errored out, ignoring the late block", _id);
@@ -142,7 +187,7 @@ public class ReceivingMailbox {
     }
     try {
       long now = System.currentTimeMillis();
-      boolean accepted = _blocks.offer(block, timeoutMs, TimeUnit.MILLISECONDS);
+      boolean accepted = addBlock(block, numBytes, timeoutMs);
       _stats.merge(StatKey.OFFER_CPU_TIME_MS, System.currentTimeMillis() - now);
       if (accepted) {
         errorBlock = _errorBlock.get();
@@ -154,7 +199,7 @@ public class ReceivingMailbox {
           return _isEarlyTerminated ? ReceivingMailboxStatus.EARLY_TERMINATED : ReceivingMailboxStatus.SUCCESS;
         } else {
           LOGGER.debug("Mailbox: {} is already cancelled or errored out, ignoring the late block", _id);
-          _blocks.clear();
+          clearBlocks();
           return errorBlock == CANCELLED_ERROR_BLOCK ? ReceivingMailboxStatus.CANCELLED
               : ReceivingMailboxStatus.ERROR;
         }
@@ -171,12 +216,47 @@ public class ReceivingMailbox {
     }
   }
 
+  /**
+   * Adds the block into the queue, waiting within the timeout when the pending bytes already reach the max pending
+   * bytes. The sender honoring the credit never needs to wait because it stops sending before the limit is reached, so
+   * this only applies to the in-memory blocks and the senders without flow control. Returns whether the block is added
+   * (or the mailbox is cancelled or errored out during the wait).
+   */
+  private boolean addBlock(TransferableBlock block, long numBytes, long timeoutMs)
+      throws InterruptedException {
+    long deadlineMs = System.currentTimeMillis() + timeoutMs;
+    long numPendingBytes;
+    synchronized (_blocks) {
+      while (_numPendingBytes >= _maxPendingBytes && _errorBlock.get() == null) {
+        long remainingMs = deadlineMs - System.currentTimeMillis();
+        if (remainingMs <= 0) {
+          return false;
+        }
+        // The wait is compensated when called from the cooperative OpChain scheduler workers
+        ExecutorServiceUtils.managedWait(_blocks, remainingMs);
+      }
+      _blocks.add(new PendingBlock(block, numBytes));
+      _numPendingBytes += numBytes;
+      numPendingBytes = _numPendingBytes;
+    }
+    _stats.merge(StatKey.MAX_PENDING_BYTES, numPendingBytes);
+    return true;
+  }
+
+  private void clearBlocks() {
+    synchronized (_blocks) {
+      _blocks.clear();
+      _numPendingBytes = 0;
+      _blocks.notifyAll();
+    }
+  }
+
   /**
    * Sets an error block into the mailbox. No more blocks are accepted after calling this method.
    */
   public void setErrorBlock(TransferableBlock errorBlock) {
     if (_errorBlock.compareAndSet(null, errorBlock)) {
-      _blocks.clear();
+      clearBlocks();
       notifyReader();
     }
   }
@@ -189,7 +269,43 @@ public class ReceivingMailbox {
   public TransferableBlock poll() {
     Preconditions.checkState(_reader != null, "A reader must be registered");
     TransferableBlock errorBlock = _errorBlock.get();
-    return errorBlock != null ? errorBlock : _blocks.poll();
+    if (errorBlock != null) {
+      return errorBlock;
+    }
+    PendingBlock pendingBlock;
+    CreditListener creditListener = _creditListener;
+    long creditBytesToReport = 0;
+    synchronized (_blocks) {
+      pendingBlock = _blocks.poll();
+      if (pendingBlock == null) {
+        return null;
+      }
+      _numPendingBytes -= pendingBlock._numBytes;
+      _numConsumedBytes += pendingBlock._numBytes;
+      _blocks.notifyAll();
+      // Report the credit in batches to avoid sending a status for each consumed block, unless the queue is drained
+      long creditBytes = _numConsumedBytes + _maxPendingBytes;
+      if (creditListener != null && (_blocks.isEmpty()
+          || creditBytes - _lastReportedCreditBytes >= _maxPendingBytes / DEFAULT_CREDIT_REPORT_FRACTION)) {
+        _lastReportedCreditBytes = creditBytes;
+        creditBytesToReport = creditBytes;
+      }
+    }
+    if (creditBytesToReport > 0) {
+      creditListener.onCreditUpdate(creditBytesToReport);
+    }
+    return pendingBlock._block;
+  }
+
+  /**
+   * Returns the credit granted to the sender, i.e. the total number of bytes the sender can send without exceeding the
+   * max pending bytes of the mailbox.
+   */
+  public long getCreditBytes() {
+    synchronized (_blocks) {
+      _lastReportedCreditBytes = _numConsumedBytes + _maxPendingBytes;
+      return _lastReportedCreditBytes;
+    }
   }
 
   /**
@@ -206,12 +322,24 @@ public class ReceivingMailbox {
   public void cancel() {
     LOGGER.debug("Cancelling mailbox: {}", _id);
     if (_errorBlock.compareAndSet(null, CANCELLED_ERROR_BLOCK)) {
-      _blocks.clear();
+      clearBlocks();
     }
   }
 
   public int getNumPendingBlocks() {
-    return _blocks.size();
+    synchronized (_blocks) {
+      return _blocks.size();
+    }
+  }
+
+  public long getNumPendingBytes() {
+    synchronized (_blocks) {
+      return _numPendingBytes;
+    }
+  }
+
+  public long getMaxPendingBytes() {
+    return _maxPendingBytes;
   }
 
   private void notifyReader() {
@@ -232,6 +360,20 @@ public class ReceivingMailbox {
     void blockReadyToRead();
   }
 
+  public interface CreditListener {
+    void onCreditUpdate(long creditBytes);
+  }
+
+  private static class PendingBlock {
+    final TransferableBlock _block;
+    final long _numBytes;
+
+    PendingBlock(TransferableBlock block, long numBytes) {
+      _block = block;
+      _numBytes = numBytes;
+    }
+  }
+
   public enum ReceivingMailboxStatus {
     SUCCESS, FIRST_ERROR, ERROR, TIMEOUT, CANCELLED, EARLY_TERMINATED
   }
@@ -247,7 +389,16 @@ public class ReceivingMailbox {
     },
     IN_MEMORY_MESSAGES(StatMap.Type.INT),
     OFFER_CPU_TIME_MS(StatMap.Type.LONG),
-    WAIT_CPU_TIME_MS(StatMap.Type.LONG);
+    WAIT_CPU_TIME_MS(StatMap.Type.LONG),
+    /**
+     * The max number of bytes pending in the mailbox, i.e. received but not yet consumed by the receive operator.
+     */
+    MAX_PENDING_BYTES(StatMap.Type.LONG) {
+      @Override
+      public long merge(long value1, long value2) {
+        return Math.max(value1, value2);
+      }
+    };
 
     private final StatMap.Type _type;
 
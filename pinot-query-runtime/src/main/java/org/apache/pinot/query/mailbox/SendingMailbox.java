@@ -37,6 +37,18 @@ public interface SendingMailbox {
   void send(TransferableBlock block)
       throws IOException, TimeoutException;
 
+  /**
+   * Same as {@link #send(TransferableBlock)}, but does not wait for the receiver to accept more data. Returns
+   * {@code false} without sending the block when the data block cannot be sent yet (e.g. the flow control credit
+   * granted by the receiver is exhausted), in which case the given callback is invoked once it is worth retrying, and
+   * the same block should be sent again before any other block. EOS and error blocks are always sent.
+   */
+  default boolean trySend(TransferableBlock block, Runnable retryCallback)
+      throws IOException, TimeoutException {
+    send(block);
+    return true;
+  }
+
   /**
    * Called when there is no more data to be sent by the {@link BlockExchange}. This is also a signal for the
    * SendingMailbox that the sender is done sending data from its end. Note that this doesn't mean that the receiver
@@ -68,4 +80,20 @@ public interface SendingMailbox {
    * statistics to be sent next.
    */
   boolean isEarlyTerminated();
+
+  /**
+   * Returns whether the receiver is in the same process. The blocks sent to a local receiver are passed by reference
+   * without serialization, so they don't need to be split to fit in the transport message size limit.
+   */
+  default boolean isLocal() {
+    return false;
+  }
+
+  /**
+   * Returns the number of bytes sent to the receiver. Blocks passed in memory are not serialized, so they are not
+   * counted.
+   */
+  default long getNumSentBytes() {
+    return 0;
+  }
 }
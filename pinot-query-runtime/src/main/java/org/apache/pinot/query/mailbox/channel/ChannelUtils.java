@@ -24,4 +24,6 @@ public class ChannelUtils {
 
   public static final String MAILBOX_METADATA_BUFFER_SIZE_KEY = "buffer.size";
   public static final String MAILBOX_METADATA_REQUEST_EARLY_TERMINATE = "request.early.terminate";
+  public static final String MAILBOX_METADATA_COMPRESSION_TYPE_KEY = "compression.type";
+  public static final String MAILBOX_METADATA_CREDIT_BYTES_KEY = "credit.bytes";
 }
@@ -27,6 +27,7 @@ import org.apache.pinot.common.proto.Mailbox.MailboxStatus;
 import org.apache.pinot.query.mailbox.MailboxService;
 import org.apache.pinot.query.mailbox.ReceivingMailbox;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,8 +36,9 @@ import org.slf4j.LoggerFactory;
  * {@code MailboxContentObserver} is the content streaming observer used to receive mailbox content.
  *
  * <p>When the observer onNext() is called (e.g. when data packet has arrived at the receiving end), it puts the
- * mailbox content to the receiving mailbox buffer; response with the remaining buffer size of the receiving mailbox
- * to the sender side.
+ * mailbox content to the receiving mailbox buffer; response with the remaining buffer size and the credit of the
+ * receiving mailbox to the sender side. The credit is also sent when the pending blocks are consumed by the receiver,
+ * so that the sender can resume sending data.
  */
 public class MailboxContentObserver implements StreamObserver<MailboxContent> {
   private static final Logger LOGGER = LoggerFactory.getLogger(MailboxContentObserver.class);
@@ -56,16 +58,22 @@ public class MailboxContentObserver implements StreamObserver<MailboxContent> {
     String mailboxId = mailboxContent.getMailboxId();
     if (_mailbox == null) {
       _mailbox = _mailboxService.getReceivingMailbox(mailboxId);
+      _mailbox.setCreditListener(creditBytes -> sendCredit(mailboxId, creditBytes));
     }
     try {
       long timeoutMs = Context.current().getDeadline().timeRemaining(TimeUnit.MILLISECONDS);
       ByteBuffer buffer = mailboxContent.getPayload().asReadOnlyByteBuffer();
-      ReceivingMailbox.ReceivingMailboxStatus status = _mailbox.offerRaw(buffer, timeoutMs);
+      String compressionType =
+          mailboxContent.getMetadataOrDefault(ChannelUtils.MAILBOX_METADATA_COMPRESSION_TYPE_KEY, null);
+      ReceivingMailbox.ReceivingMailboxStatus status = _mailbox.offerRaw(buffer,
+          compressionType != null ? ChunkCompressionType.valueOf(compressionType) : null, timeoutMs);
       switch (status) {
         case SUCCESS:
-          _responseObserver.onNext(MailboxStatus.newBuilder().setMailboxId(mailboxId)
+          sendStatus(MailboxStatus.newBuilder().setMailboxId(mailboxId)
               .putMetadata(ChannelUtils.MAILBOX_METADATA_BUFFER_SIZE_KEY,
-                  Integer.toString(_mailbox.getNumPendingBlocks())).build());
+                  Integer.toString(_mailbox.getNumPendingBlocks()))
+              .putMetadata(ChannelUtils.MAILBOX_METADATA_CREDIT_BYTES_KEY, Long.toString(_mailbox.getCreditBytes()))
+              .build());
           break;
         case CANCELLED:
           LOGGER.warn("Mailbox: {} already cancelled from upstream", mailboxId);
@@ -83,7 +91,7 @@ public class MailboxContentObserver implements StreamObserver<MailboxContent> {
           break;
         case EARLY_TERMINATED:
           LOGGER.debug("Mailbox: {} has been early terminated", mailboxId);
-          _responseObserver.onNext(MailboxStatus.newBuilder().setMailboxId(mailboxId)
+          sendStatus(MailboxStatus.newBuilder().setMailboxId(mailboxId)
               .putMetadata(ChannelUtils.MAILBOX_METADATA_REQUEST_EARLY_TERMINATE, "true").build());
           break;
         default:
@@ -97,10 +105,39 @@ public class MailboxContentObserver implements StreamObserver<MailboxContent> {
     }
   }
 
+  private void sendCredit(String mailboxId, long creditBytes) {
+    try {
+      sendStatus(MailboxStatus.newBuilder().setMailboxId(mailboxId)
+          .putMetadata(ChannelUtils.MAILBOX_METADATA_CREDIT_BYTES_KEY, Long.toString(creditBytes)).build());
+    } catch (Exception e) {
+      // Exception can be thrown if the stream is already closed, so we simply ignore it
+      LOGGER.debug("Caught exception sending credit to mailbox: {}", mailboxId, e);
+    }
+  }
+
+  /**
+   * The status can be sent from both the gRPC thread offering the blocks and the thread consuming the blocks (credit
+   * update), so the calls to the response observer are synchronized.
+   */
+  private void sendStatus(MailboxStatus mailboxStatus) {
+    synchronized (_responseObserver) {
+      _responseObserver.onNext(mailboxStatus);
+    }
+  }
+
+  private void completeStream() {
+    if (_mailbox != null) {
+      _mailbox.setCreditListener(null);
+    }
+    synchronized (_responseObserver) {
+      _responseObserver.onCompleted();
+    }
+  }
+
   private void cancelStream() {
     try {
       // NOTE: DO NOT use onError() because it will terminate the stream, and sender might not get the callback
-      _responseObserver.onCompleted();
+      completeStream();
     } catch (Exception e) {
       // Exception can be thrown if the stream is already closed, so we simply ignore it
       LOGGER.debug("Caught exception cancelling mailbox: {}", _mailbox != null ? _mailbox.getId() : "unknown", e);
@@ -111,6 +148,7 @@ public class MailboxContentObserver implements StreamObserver<MailboxContent> {
   public void onError(Throwable t) {
     LOGGER.warn("Error on receiver side", t);
     if (_mailbox != null) {
+      _mailbox.setCreditListener(null);
       _mailbox.setErrorBlock(
           TransferableBlockUtils.getErrorTransferableBlock(new RuntimeException("Cancelled by sender", t)));
     } else {
@@ -121,7 +159,7 @@ public class MailboxContentObserver implements StreamObserver<MailboxContent> {
   @Override
   public void onCompleted() {
     try {
-      _responseObserver.onCompleted();
+      completeStream();
     } catch (Exception e) {
       // Exception can be thrown if the stream is already closed, so we simply ignore it
       LOGGER.debug("Caught exception sending complete to mailbox: {}", _mailbox != null ? _mailbox.getId() : "unknown",
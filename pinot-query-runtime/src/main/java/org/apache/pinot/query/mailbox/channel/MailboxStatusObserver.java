@@ -22,12 +22,18 @@ import io.grpc.stub.StreamObserver;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.pinot.common.proto.Mailbox.MailboxStatus;
+import org.apache.pinot.query.runtime.executor.ExecutorServiceUtils;
+import org.apache.pinot.spi.utils.CommonConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
 /**
  * {@code MailboxStatusStreamObserver} is the status streaming observer used to track the status by the sender.
+ * <p>
+ * It also tracks the credit granted by the receiver, i.e. the total number of bytes the sender is allowed to send. The
+ * receiver is assumed to grant the configured max pending bytes before the first status is received. Flow control is
+ * disabled when the receiver doesn't report the credit (e.g. receiver running an older version).
  */
 public class MailboxStatusObserver implements StreamObserver<MailboxStatus> {
   private static final Logger LOGGER = LoggerFactory.getLogger(MailboxStatusObserver.class);
@@ -36,6 +42,19 @@ public class MailboxStatusObserver implements StreamObserver<MailboxStatus> {
   private final AtomicInteger _bufferSize = new AtomicInteger(DEFAULT_MAILBOX_QUEUE_CAPACITY);
   private final AtomicBoolean _finished = new AtomicBoolean();
   private volatile boolean _isEarlyTerminated;
+  // Guarded by this
+  private long _creditBytes;
+  private boolean _flowControlEnabled = true;
+  // Guarded by this, invoked (once) when more credit is granted or the stream is finished or early terminated
+  private Runnable _creditCallback;
+
+  public MailboxStatusObserver() {
+    this(CommonConstants.MultiStageQueryRunner.DEFAULT_MAILBOX_MAX_PENDING_BYTES);
+  }
+
+  public MailboxStatusObserver(long initialCreditBytes) {
+    _creditBytes = initialCreditBytes;
+  }
 
   @Override
   public void onNext(MailboxStatus mailboxStatus) {
@@ -46,15 +65,24 @@ public class MailboxStatusObserver implements StreamObserver<MailboxStatus> {
     if (Boolean.parseBoolean(
         mailboxStatus.getMetadataMap().get(ChannelUtils.MAILBOX_METADATA_REQUEST_EARLY_TERMINATE))) {
       _isEarlyTerminated = true;
+      notifyCreditWaiter();
     }
-    // -- handling buffer size back-pressure
-    // TODO: this feedback info is not used to throttle the send speed. it is currently being discarded.
+    // -- handling credit based back-pressure
+    String creditBytes = mailboxStatus.getMetadataMap().get(ChannelUtils.MAILBOX_METADATA_CREDIT_BYTES_KEY);
+    if (creditBytes != null) {
+      updateCredit(Long.parseLong(creditBytes));
+    } else if (mailboxStatus.getMetadataMap().containsKey(ChannelUtils.MAILBOX_METADATA_BUFFER_SIZE_KEY)) {
+      // Receiver acknowledged a block without credit, so it doesn't support flow control
+      disableFlowControl();
+    }
+    // -- handling buffer size
     if (mailboxStatus.getMetadataMap().containsKey(ChannelUtils.MAILBOX_METADATA_BUFFER_SIZE_KEY)) {
       _bufferSize.set(
           Integer.parseInt(mailboxStatus.getMetadataMap().get(ChannelUtils.MAILBOX_METADATA_BUFFER_SIZE_KEY)));
     } else {
       _bufferSize.set(DEFAULT_MAILBOX_QUEUE_CAPACITY); // DEFAULT_AVAILABILITY;
     }
+    runCreditCallback();
   }
 
   public boolean isEarlyTerminated() {
@@ -65,15 +93,88 @@ public class MailboxStatusObserver implements StreamObserver<MailboxStatus> {
     return _bufferSize.get();
   }
 
+  private synchronized void updateCredit(long creditBytes) {
+    // The credit only grows, but the updates might be reported out of order by the receiver
+    if (creditBytes > _creditBytes) {
+      _creditBytes = creditBytes;
+      notifyAll();
+    }
+  }
+
+  private synchronized void disableFlowControl() {
+    if (_flowControlEnabled) {
+      _flowControlEnabled = false;
+      notifyAll();
+    }
+  }
+
+  private synchronized void notifyCreditWaiter() {
+    notifyAll();
+  }
+
+  /**
+   * Returns whether the receiver grants enough credit to send more data without waiting, i.e. the credit is larger than
+   * the number of bytes already sent, or the stream is finished or early terminated. Otherwise, the given callback is
+   * registered to be invoked when more credit is granted (or the stream is finished or early terminated).
+   */
+  public synchronized boolean tryAcquireCredit(long numSentBytes, Runnable creditCallback) {
+    if (hasCredit(numSentBytes)) {
+      return true;
+    }
+    _creditCallback = creditCallback;
+    return false;
+  }
+
+  private boolean hasCredit(long numSentBytes) {
+    return !_flowControlEnabled || numSentBytes < _creditBytes || _finished.get() || _isEarlyTerminated;
+  }
+
+  private void runCreditCallback() {
+    Runnable creditCallback;
+    synchronized (this) {
+      creditCallback = _creditCallback;
+      _creditCallback = null;
+    }
+    // NOTE: Invoke the callback outside the lock because it might resume the sender
+    if (creditCallback != null) {
+      creditCallback.run();
+    }
+  }
+
+  public synchronized long getCreditBytes() {
+    return _creditBytes;
+  }
+
+  /**
+   * Waits until the receiver grants enough credit to send more data, i.e. the credit is larger than the number of bytes
+   * already sent, or the stream is finished or early terminated. Returns {@code false} if the deadline is reached.
+   */
+  public synchronized boolean waitForCredit(long numSentBytes, long deadlineMs)
+      throws InterruptedException {
+    while (!hasCredit(numSentBytes)) {
+      long remainingMs = deadlineMs - System.currentTimeMillis();
+      if (remainingMs <= 0) {
+        return false;
+      }
+      // The wait is compensated when called from the cooperative OpChain scheduler workers
+      ExecutorServiceUtils.managedWait(this, remainingMs);
+    }
+    return true;
+  }
+
   @Override
   public void onError(Throwable t) {
     LOGGER.warn("Error on sender side", t);
     _finished.set(true);
+    notifyCreditWaiter();
+    runCreditCallback();
   }
 
   @Override
   public void onCompleted() {
     _finished.set(true);
+    notifyCreditWaiter();
+    runCreditCallback();
   }
 
   public boolean isFinished() {
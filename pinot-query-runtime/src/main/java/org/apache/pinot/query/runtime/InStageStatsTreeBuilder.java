@@ -137,7 +137,16 @@ public class InStageStatsTreeBuilder implements PlanNodeVisitor<ObjectNode, Void
 
   @Override
   public ObjectNode visitJoin(JoinNode node, Void context) {
-    return recursiveCase(node, MultiStageOperator.Type.HASH_JOIN);
+    if (_stageStats.getOperatorType(_index) == MultiStageOperator.Type.LOOKUP_JOIN) {
+      // The right input of the lookup join is not executed as an operator
+      ObjectNode json = selfNode(MultiStageOperator.Type.LOOKUP_JOIN);
+      _index--;
+      json.set(CHILDREN_KEY, JsonUtils.objectToJsonNode(new JsonNode[]{node.getInputs().get(0).visit(this, null)}));
+      return json;
+    }
+    MultiStageOperator.Type type = _stageStats.getOperatorType(_index) == MultiStageOperator.Type.SORT_MERGE_JOIN
+        ? MultiStageOperator.Type.SORT_MERGE_JOIN : MultiStageOperator.Type.HASH_JOIN;
+    return recursiveCase(node, type);
   }
 
   @Override
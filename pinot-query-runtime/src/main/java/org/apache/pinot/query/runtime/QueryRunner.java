@@ -70,6 +70,9 @@ public class QueryRunner {
   private ServerMetrics _serverMetrics;
 
   private ExecutorService _executorService;
+  // Bounded executor service for the cooperative OpChain scheduler, null when not enabled
+  @Nullable
+  private ExecutorService _opChainExecutorService;
   private OpChainSchedulerService _opChainScheduler;
   private MailboxService _mailboxService;
   private QueryExecutor _leafQueryExecutor;
@@ -86,6 +89,10 @@ public class QueryRunner {
   @Nullable
   private JoinOverFlowMode _joinOverflowMode;
 
+  // Sort spilling settings
+  @Nullable
+  private Integer _maxRowsInSort;
+
   /**
    * Initializes the query executor.
    * <p>Should be called only once and before calling any other method.
@@ -114,10 +121,26 @@ public class QueryRunner {
     _maxRowsInJoin = maxRowsInJoinStr != null ? Integer.parseInt(maxRowsInJoinStr) : null;
     String joinOverflowModeStr = config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_JOIN_OVERFLOW_MODE);
     _joinOverflowMode = joinOverflowModeStr != null ? JoinOverFlowMode.valueOf(joinOverflowModeStr) : null;
+    String maxRowsInSortStr = config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_MAX_ROWS_IN_SORT);
+    _maxRowsInSort = maxRowsInSortStr != null ? Integer.parseInt(maxRowsInSortStr) : null;
 
     //TODO: make this configurable
     _executorService = ExecutorServiceUtils.createDefault("query-runner-on-" + port);
-    _opChainScheduler = new OpChainSchedulerService(_executorService);
+    int numOpChainSchedulerThreads =
+        config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_OPCHAIN_SCHEDULER_NUM_THREADS,
+            CommonConstants.MultiStageQueryRunner.DEFAULT_OPCHAIN_SCHEDULER_NUM_THREADS);
+    if (numOpChainSchedulerThreads > 0) {
+      long timeSliceMs =
+          config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_OPCHAIN_SCHEDULER_TIME_SLICE_MS,
+              CommonConstants.MultiStageQueryRunner.DEFAULT_OPCHAIN_SCHEDULER_TIME_SLICE_MS);
+      _opChainExecutorService =
+          ExecutorServiceUtils.createForkJoinPool("query-opchain-on-" + port, numOpChainSchedulerThreads);
+      _opChainScheduler = new OpChainSchedulerService(_opChainExecutorService, timeSliceMs);
+      LOGGER.info("Using cooperative OpChain scheduler with {} threads and time slice: {}ms",
+          numOpChainSchedulerThreads, timeSliceMs);
+    } else {
+      _opChainScheduler = new OpChainSchedulerService(_executorService);
+    }
     _mailboxService = new MailboxService(hostname, port, config);
     try {
       _leafQueryExecutor = new ServerQueryExecutorV1Impl();
@@ -143,6 +166,10 @@ public class QueryRunner {
   public void shutDown() {
     _leafQueryExecutor.shutDown();
     _mailboxService.shutdown();
+    _opChainScheduler.shutDown();
+    if (_opChainExecutorService != null) {
+      ExecutorServiceUtils.close(_opChainExecutorService);
+    }
     ExecutorServiceUtils.close(_executorService);
   }
 
@@ -247,6 +274,14 @@ public class QueryRunner {
     if (joinOverflowMode != null) {
       opChainMetadata.put(QueryOptionKey.JOIN_OVERFLOW_MODE, joinOverflowMode.name());
     }
+
+    Integer maxRowsInSort = QueryOptionsUtils.getMaxRowsInSort(opChainMetadata);
+    if (maxRowsInSort == null) {
+      maxRowsInSort = _maxRowsInSort;
+    }
+    if (maxRowsInSort != null) {
+      opChainMetadata.put(QueryOptionKey.MAX_ROWS_IN_SORT, Integer.toString(maxRowsInSort));
+    }
     return opChainMetadata;
   }
 
@@ -54,6 +54,7 @@ public class TransferableBlock implements Block {
   private Map<Integer, String> _errCodeToExceptionMap;
   @Nullable
   private final MultiStageQueryStats _queryStats;
+  private final boolean _isYieldBlock;
 
   public TransferableBlock(List<Object[]> container, DataSchema dataSchema, DataBlock.Type type) {
     _container = container;
@@ -66,6 +67,7 @@ public class TransferableBlock implements Block {
     assert _numRows > 0 : "Container should not be empty";
     _errCodeToExceptionMap = new HashMap<>();
     _queryStats = null;
+    _isYieldBlock = false;
   }
 
   public TransferableBlock(DataBlock dataBlock) {
@@ -76,14 +78,27 @@ public class TransferableBlock implements Block {
     _numRows = _dataBlock.getNumberOfRows();
     _errCodeToExceptionMap = null;
     _queryStats = null;
+    _isYieldBlock = false;
   }
 
   public TransferableBlock(MultiStageQueryStats stats) {
+    this(stats, false);
+  }
+
+  private TransferableBlock(@Nullable MultiStageQueryStats stats, boolean isYieldBlock) {
     _queryStats = stats;
     _type = DataBlock.Type.METADATA;
     _numRows = 0;
     _dataSchema = null;
     _errCodeToExceptionMap = null;
+    _isYieldBlock = isYieldBlock;
+  }
+
+  /**
+   * Creates a yield block, use {@link TransferableBlockUtils#getYieldTransferableBlock()} to get the shared instance.
+   */
+  static TransferableBlock newYieldBlock() {
+    return new TransferableBlock(null, true);
   }
 
   public List<ByteBuffer> getSerializedStatsByStage() {
@@ -224,6 +239,16 @@ public class TransferableBlock implements Block {
     return _type != DataBlock.Type.METADATA;
   }
 
+  /**
+   * Returns whether this block is a yield block, which is neither a data block nor an end of stream block. It is
+   * returned when the operator cannot make progress without waiting for the upstream data (e.g. all the receiving
+   * mailboxes are empty), and should be returned as is by all the operators up to the root of the OpChain, so that the
+   * scheduler can suspend the OpChain until new data is available.
+   */
+  public boolean isYieldBlock() {
+    return _isYieldBlock;
+  }
+
   /**
    * Return whether a transferable block contains exception.
    *
@@ -234,7 +259,7 @@ public class TransferableBlock implements Block {
   }
 
   private boolean isType(MetadataBlock.MetadataBlockType type) {
-    if (_type != DataBlock.Type.METADATA) {
+    if (_type != DataBlock.Type.METADATA || _isYieldBlock) {
       return false;
     }
 
@@ -247,7 +272,8 @@ public class TransferableBlock implements Block {
 
   @Override
   public String toString() {
-    String blockType = isErrorBlock() ? "error" : isSuccessfulEndOfStreamBlock() ? "eos" : "data";
+    String blockType =
+        isYieldBlock() ? "yield" : isErrorBlock() ? "error" : isSuccessfulEndOfStreamBlock() ? "eos" : "data";
     return "TransferableBlock{blockType=" + blockType + ", _numRows=" + _numRows + '}';
   }
 }
@@ -33,6 +33,7 @@ import org.apache.pinot.query.runtime.plan.MultiStageQueryStats;
 public final class TransferableBlockUtils {
   private static final int MEDIAN_COLUMN_SIZE_BYTES = 8;
   private static final TransferableBlock EMPTY_EOS = new TransferableBlock(MetadataBlock.newEos());
+  private static final TransferableBlock YIELD = TransferableBlock.newYieldBlock();
 
   private TransferableBlockUtils() {
     // do not instantiate.
@@ -46,6 +47,13 @@ public final class TransferableBlockUtils {
     return new TransferableBlock(stats);
   }
 
+  /**
+   * Returns the block indicating that the OpChain should yield, see {@link TransferableBlock#isYieldBlock()}.
+   */
+  public static TransferableBlock getYieldTransferableBlock() {
+    return YIELD;
+  }
+
   public static TransferableBlock wrap(DataBlock dataBlock) {
     return new TransferableBlock(dataBlock);
   }
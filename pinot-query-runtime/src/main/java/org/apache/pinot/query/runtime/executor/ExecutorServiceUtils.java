@@ -21,7 +21,10 @@ package org.apache.pinot.query.runtime.executor;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.pinot.common.utils.NamedThreadFactory;
 import org.apache.pinot.spi.env.PinotConfiguration;
 import org.slf4j.Logger;
@@ -39,6 +42,45 @@ public class ExecutorServiceUtils {
     return Executors.newCachedThreadPool(new NamedThreadFactory(baseName));
   }
 
+  /**
+   * Creates a {@link ForkJoinPool} in FIFO mode with the given parallelism. The blocking waits wrapped with
+   * {@link #managedWait(Object, long)} are compensated by the pool with extra threads, so that the pool does not run
+   * out of workers when they are all blocked.
+   */
+  public static ForkJoinPool createForkJoinPool(String baseName, int parallelism) {
+    AtomicInteger threadCount = new AtomicInteger();
+    ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+      ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName(baseName + "-" + threadCount.getAndIncrement());
+      return thread;
+    };
+    return new ForkJoinPool(parallelism, threadFactory, null, true);
+  }
+
+  /**
+   * Waits on the given monitor (which must be held by the calling thread) for up to the given millis. When called from
+   * a {@link ForkJoinPool} worker, the pool is informed of the wait so that it can compensate the blocked worker.
+   */
+  public static void managedWait(Object monitor, long timeoutMs)
+      throws InterruptedException {
+    ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+      private boolean _done;
+
+      @Override
+      public boolean block()
+          throws InterruptedException {
+        monitor.wait(timeoutMs);
+        _done = true;
+        return true;
+      }
+
+      @Override
+      public boolean isReleasable() {
+        return _done;
+      }
+    });
+  }
+
   public static ExecutorService create(PinotConfiguration conf, String confPrefix, String baseName) {
     //TODO: make this configurable
     return Executors.newCachedThreadPool(new NamedThreadFactory(baseName));
@@ -18,31 +18,99 @@
  */
 package org.apache.pinot.query.runtime.executor;
 
+import java.util.ArrayDeque;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.metrics.ServerGauge;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.common.metrics.ServerTimer;
+import org.apache.pinot.common.utils.NamedThreadFactory;
 import org.apache.pinot.core.util.trace.TraceRunnable;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.operator.OpChain;
 import org.apache.pinot.query.runtime.operator.OpChainId;
+import org.apache.pinot.spi.exception.QueryCancelledException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+/**
+ * Runs the registered OpChains until they finish.
+ *
+ * <p>By default, each OpChain is submitted to the executor service and run by a single thread until it finishes,
+ * blocking the thread when waiting for the upstream data.
+ *
+ * <p>In cooperative mode, the OpChains are run by a bounded pool of workers. The receive operators return a yield block
+ * instead of blocking when no data is available, and the send operator returns a yield block instead of waiting when
+ * the gRPC receivers do not grant enough credit, in which case the OpChain is parked and gives up the worker. It is
+ * re-queued when new data is available in its receiving mailboxes or more credit is granted (or when its deadline is
+ * reached so that the timeout can be reported). To keep the OpChains without yielding from starving the other ones, an
+ * OpChain is also re-queued after running for a time slice, and the queued OpChains are run in round-robin across the
+ * queries. The waits of the in-memory senders for the local receivers still block the worker, but are compensated by
+ * the pool with extra threads.
+ */
 public class OpChainSchedulerService {
   private static final Logger LOGGER = LoggerFactory.getLogger(OpChainSchedulerService.class);
+  // Extra delay for the deadline wake-up so that the deadline is already passed when the OpChain is resumed
+  private static final long DEADLINE_WAKE_UP_DELAY_MS = 10;
 
   private final ExecutorService _executorService;
   private final ConcurrentHashMap<OpChainId, Future<?>> _submittedOpChainMap;
 
+  // Cooperative mode
+  private final boolean _cooperative;
+  private final long _timeSliceMs;
+  private final ConcurrentHashMap<OpChainId, ScheduledOpChain> _scheduledOpChainMap;
+  private final ReadyQueue _readyQueue = new ReadyQueue();
+  @Nullable
+  private final ScheduledExecutorService _deadlineWakeUpExecutor;
+
   public OpChainSchedulerService(ExecutorService executorService) {
     _executorService = executorService;
     _submittedOpChainMap = new ConcurrentHashMap<>();
+    _cooperative = false;
+    _timeSliceMs = 0;
+    _scheduledOpChainMap = new ConcurrentHashMap<>();
+    _deadlineWakeUpExecutor = null;
+  }
+
+  /**
+   * Creates a cooperative scheduler running the OpChains with the given executor service, which should be bounded (e.g.
+   * created with {@link ExecutorServiceUtils#createForkJoinPool(String, int)}).
+   */
+  public OpChainSchedulerService(ExecutorService executorService, long timeSliceMs) {
+    _executorService = executorService;
+    _submittedOpChainMap = new ConcurrentHashMap<>();
+    _cooperative = true;
+    _timeSliceMs = timeSliceMs;
+    _scheduledOpChainMap = new ConcurrentHashMap<>();
+    _deadlineWakeUpExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("opchain-wake-up"));
+    ServerMetrics.get()
+        .setOrUpdateGlobalGauge(ServerGauge.MULTI_STAGE_SCHEDULED_OPCHAINS, () -> (long) _scheduledOpChainMap.size());
+  }
+
+  public boolean isCooperative() {
+    return _cooperative;
   }
 
   public void register(OpChain operatorChain) {
+    if (_cooperative) {
+      ScheduledOpChain scheduledOpChain = new ScheduledOpChain(operatorChain);
+      _scheduledOpChainMap.put(operatorChain.getId(), scheduledOpChain);
+      scheduledOpChain.start();
+      return;
+    }
     Future<?> scheduledFuture = _executorService.submit(new TraceRunnable() {
       @Override
       public void runJob() {
@@ -83,6 +151,16 @@ public class OpChainSchedulerService {
   }
 
   public void cancel(long requestId) {
+    if (_cooperative) {
+      // The cancelled OpChains are cancelled by the worker the next time they are run, which is triggered right away
+      // when they are parked
+      for (ScheduledOpChain scheduledOpChain : _scheduledOpChainMap.values()) {
+        if (scheduledOpChain._opChain.getId().getRequestId() == requestId) {
+          scheduledOpChain.cancel();
+        }
+      }
+      return;
+    }
     // simple cancellation. for leaf stage this cannot be a dangling opchain b/c they will eventually be cleared up
     // via query timeout.
     Iterator<Map.Entry<OpChainId, Future<?>>> iterator = _submittedOpChainMap.entrySet().iterator();
@@ -94,4 +172,193 @@ public class OpChainSchedulerService {
       }
     }
   }
+
+  /**
+   * Returns the number of OpChains registered in cooperative mode and not finished yet, including the parked ones.
+   */
+  public int getNumScheduledOpChains() {
+    return _scheduledOpChainMap.size();
+  }
+
+  public void shutDown() {
+    if (_deadlineWakeUpExecutor != null) {
+      _deadlineWakeUpExecutor.shutdownNow();
+    }
+  }
+
+  private void runNextReadyOpChain() {
+    ScheduledOpChain scheduledOpChain = _readyQueue.poll();
+    if (scheduledOpChain != null) {
+      scheduledOpChain.run();
+    }
+  }
+
+  /**
+   * Queue of the OpChains ready to run in cooperative mode. The OpChains of the same query are polled in FIFO order,
+   * and the queries are polled in round-robin, so that a query with many OpChains cannot starve the other queries.
+   */
+  private static class ReadyQueue {
+    private final LinkedHashMap<Long, ArrayDeque<ScheduledOpChain>> _opChainsByRequestId = new LinkedHashMap<>();
+
+    synchronized void offer(ScheduledOpChain scheduledOpChain) {
+      _opChainsByRequestId.computeIfAbsent(scheduledOpChain._opChain.getId().getRequestId(), k -> new ArrayDeque<>())
+          .add(scheduledOpChain);
+    }
+
+    @Nullable
+    synchronized ScheduledOpChain poll() {
+      Iterator<Map.Entry<Long, ArrayDeque<ScheduledOpChain>>> iterator = _opChainsByRequestId.entrySet().iterator();
+      if (!iterator.hasNext()) {
+        return null;
+      }
+      Map.Entry<Long, ArrayDeque<ScheduledOpChain>> entry = iterator.next();
+      ArrayDeque<ScheduledOpChain> opChains = entry.getValue();
+      ScheduledOpChain scheduledOpChain = opChains.poll();
+      // Move the query to the tail of the queue
+      iterator.remove();
+      if (!opChains.isEmpty()) {
+        _opChainsByRequestId.put(entry.getKey(), opChains);
+      }
+      return scheduledOpChain;
+    }
+
+    synchronized boolean remove(ScheduledOpChain scheduledOpChain) {
+      long requestId = scheduledOpChain._opChain.getId().getRequestId();
+      ArrayDeque<ScheduledOpChain> opChains = _opChainsByRequestId.get(requestId);
+      if (opChains == null || !opChains.remove(scheduledOpChain)) {
+        return false;
+      }
+      if (opChains.isEmpty()) {
+        _opChainsByRequestId.remove(requestId);
+      }
+      return true;
+    }
+  }
+
+  /**
+   * The state of an OpChain run in cooperative mode. The OpChain is queued when added to the ready queue,
+   * running when run by a worker, and parked after yielding. The new data flag is set when new data is available, and
+   * checked after parking so that the notification cannot be lost when it arrives while the OpChain is running.
+   */
+  private class ScheduledOpChain extends TraceRunnable {
+    static final int QUEUED = 0;
+    static final int RUNNING = 1;
+    static final int PARKED = 2;
+    static final int FINISHED = 3;
+
+    final OpChain _opChain;
+    final AtomicInteger _state = new AtomicInteger(QUEUED);
+    final AtomicBoolean _hasNewData = new AtomicBoolean();
+    volatile boolean _cancelled;
+    volatile long _queuedTimeMs;
+    ScheduledFuture<?> _deadlineWakeUpFuture;
+
+    ScheduledOpChain(OpChain opChain) {
+      _opChain = opChain;
+    }
+
+    void start() {
+      _opChain.getContext().setDataAvailableCallback(this::onDataAvailable);
+      long delayMs = Math.max(_opChain.getContext().getDeadlineMs() - System.currentTimeMillis(), 0);
+      delayMs = delayMs < Long.MAX_VALUE - DEADLINE_WAKE_UP_DELAY_MS ? delayMs + DEADLINE_WAKE_UP_DELAY_MS : delayMs;
+      assert _deadlineWakeUpExecutor != null;
+      _deadlineWakeUpFuture = _deadlineWakeUpExecutor.schedule(this::onDataAvailable, delayMs, TimeUnit.MILLISECONDS);
+      submit();
+    }
+
+    void onDataAvailable() {
+      _hasNewData.set(true);
+      if (_state.compareAndSet(PARKED, QUEUED)) {
+        submit();
+      }
+    }
+
+    void cancel() {
+      _cancelled = true;
+      onDataAvailable();
+    }
+
+    void submit() {
+      _queuedTimeMs = System.currentTimeMillis();
+      _readyQueue.offer(this);
+      try {
+        // Each submitted task runs the next OpChain from the ready queue instead of this one, so that the OpChains are
+        // run in the order of the ready queue regardless of the order of the tasks in the executor service
+        _executorService.execute(OpChainSchedulerService.this::runNextReadyOpChain);
+      } catch (Exception e) {
+        if (_readyQueue.remove(this)) {
+          LOGGER.error("({}): Failed to submit operator chain!", _opChain, e);
+          finish(null, e);
+        }
+      }
+    }
+
+    @Override
+    public void runJob() {
+      if (!_state.compareAndSet(QUEUED, RUNNING)) {
+        return;
+      }
+      long startTimeMs = System.currentTimeMillis();
+      ServerMetrics.get()
+          .addTimedValue(ServerTimer.MULTI_STAGE_OPCHAIN_QUEUE_WAIT_TIME_MS, startTimeMs - _queuedTimeMs,
+              TimeUnit.MILLISECONDS);
+      if (_cancelled) {
+        finish(null, new QueryCancelledException("Cancelled OpChain: " + _opChain.getId()));
+        return;
+      }
+      // Clear the flag before reading the mailboxes, so that the data arriving after the read is not missed
+      _hasNewData.set(false);
+      TransferableBlock result;
+      try {
+        LOGGER.trace("({}): Executing", _opChain);
+        while (true) {
+          result = _opChain.getRoot().nextBlock();
+          if (result.isEndOfStreamBlock()) {
+            break;
+          }
+          if (result.isYieldBlock()) {
+            park();
+            return;
+          }
+          if (_cancelled || System.currentTimeMillis() - startTimeMs >= _timeSliceMs) {
+            // Re-queue the OpChain so that the other queued OpChains get a chance to run
+            _state.set(QUEUED);
+            submit();
+            return;
+          }
+        }
+      } catch (Exception e) {
+        LOGGER.error("({}): Failed to execute operator chain!", _opChain, e);
+        finish(null, e);
+        return;
+      }
+      finish(result, null);
+    }
+
+    void park() {
+      _state.set(PARKED);
+      if ((_hasNewData.get() || _cancelled) && _state.compareAndSet(PARKED, QUEUED)) {
+        submit();
+      }
+    }
+
+    void finish(@Nullable TransferableBlock result, @Nullable Throwable thrown) {
+      if (_state.getAndSet(FINISHED) == FINISHED) {
+        return;
+      }
+      _scheduledOpChainMap.remove(_opChain.getId());
+      _deadlineWakeUpFuture.cancel(false);
+      _opChain.getContext().setDataAvailableCallback(null);
+      if (thrown == null && result.isErrorBlock()) {
+        LOGGER.error("({}): Completed erroneously {} {}", _opChain, result.getQueryStats(), result.getExceptions());
+        thrown = new RuntimeException("Error block " + result.getExceptions());
+      }
+      if (thrown != null) {
+        _opChain.cancel(thrown);
+      } else {
+        LOGGER.debug("({}): Completed {}", _opChain, result.getQueryStats());
+        _opChain.close();
+      }
+    }
+  }
 }
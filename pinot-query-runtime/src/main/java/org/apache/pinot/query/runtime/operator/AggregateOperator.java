@@ -19,17 +19,20 @@
 package org.apache.pinot.query.runtime.operator;
 
 import com.google.common.base.Preconditions;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
+import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
 import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.request.context.ExpressionContext;
 import org.apache.pinot.common.request.context.FunctionContext;
 import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.core.common.BlockValSet;
 import org.apache.pinot.core.operator.docvalsets.DataBlockValSet;
 import org.apache.pinot.core.operator.docvalsets.FilteredDataBlockValSet;
@@ -42,8 +45,10 @@ import org.apache.pinot.core.util.DataBlockExtractUtils;
 import org.apache.pinot.query.parser.CalciteRexExpressionParser;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.planner.plannode.AggregateNode;
+import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.segment.spi.AggregationFunctionType;
 import org.roaringbitmap.RoaringBitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,6 +58,14 @@ import org.slf4j.LoggerFactory;
  * AggregateOperator is used to aggregate values over a set of group by keys.
  * Output data will be in the format of [group by key, aggregate result1, ... aggregate resultN]
  * When the list of aggregation calls is empty, this class is used to calculate distinct result based on group by keys.
+ *
+ * <p>For partial group-by aggregations (LEAF and INTERMEDIATE, whose results are merged by a downstream FINAL
+ * aggregation), the operator checks the reduction ratio after processing the first N input rows. When the number of
+ * groups is close to the number of rows, the pre-aggregation only costs memory and CPU, so the groups collected so far
+ * are flushed, and each following input block is aggregated on its own and sent downstream right away.
+ *
+ * <p>When the group-by overflow mode is SPILL, the groups exceeding the num groups limit are spilled to local disk by
+ * the {@link MultistageGroupByExecutor}, and the output is produced one spill partition at a time.
  */
 public class AggregateOperator extends MultiStageOperator {
   private static final Logger LOGGER = LoggerFactory.getLogger(AggregateOperator.class);
@@ -60,19 +73,36 @@ public class AggregateOperator extends MultiStageOperator {
   private static final CountAggregationFunction COUNT_STAR_AGG_FUNCTION =
       new CountAggregationFunction(Collections.singletonList(ExpressionContext.forIdentifier("*")), false);
 
+  // The partial aggregation bypass is disabled by default, and enabled via the hint or the query option
+  public static final int DEFAULT_PARTIAL_AGG_BYPASS_MIN_ROWS = 0;
+  public static final double DEFAULT_PARTIAL_AGG_BYPASS_GROUPS_RATIO = 0.9;
+
   private final MultiStageOperator _input;
   private final DataSchema _resultSchema;
+  private final AggregateNode _node;
+  private final AggregationFunction<?, ?>[] _aggFunctions;
+  private final int[] _filterArgIds;
+  private final int _maxFilterArgId;
   private final MultistageAggregationExecutor _aggregationExecutor;
-  private final MultistageGroupByExecutor _groupByExecutor;
+  private MultistageGroupByExecutor _groupByExecutor;
   @Nullable
   private TransferableBlock _eosBlock;
   private final StatMap<StatKey> _statMap = new StatMap<>(StatKey.class);
 
   private boolean _hasConstructedAggregateBlock;
+  private boolean _isMergingSpilledGroups;
+
+  // Adaptive bypass of the partial group-by aggregation
+  private final int _partialAggBypassMinRows;
+  private final double _partialAggBypassGroupsRatio;
+  private boolean _checkPartialAggBypass;
+  private boolean _partialAggBypassed;
+  private long _numInputRows;
 
   public AggregateOperator(OpChainExecutionContext context, MultiStageOperator input, AggregateNode node) {
     super(context);
     _input = input;
+    _node = node;
     _resultSchema = node.getDataSchema();
 
     // Initialize the aggregation functions
@@ -87,6 +117,9 @@ public class AggregateOperator extends MultiStageOperator {
       filterArgIds[i] = filterArgs.get(i);
       maxFilterArgId = Math.max(maxFilterArgId, filterArgIds[i]);
     }
+    _aggFunctions = aggFunctions;
+    _filterArgIds = filterArgIds;
+    _maxFilterArgId = maxFilterArgId;
 
     // Initialize the appropriate executor.
     List<Integer> groupKeys = node.getGroupKeys();
@@ -96,11 +129,65 @@ public class AggregateOperator extends MultiStageOperator {
           new MultistageAggregationExecutor(aggFunctions, filterArgIds, maxFilterArgId, aggType, _resultSchema);
       _groupByExecutor = null;
     } else {
-      _groupByExecutor =
-          new MultistageGroupByExecutor(getGroupKeyIds(groupKeys), aggFunctions, filterArgIds, maxFilterArgId, aggType,
-              _resultSchema, context.getOpChainMetadata(), node.getNodeHint());
+      _groupByExecutor = createGroupByExecutor();
       _aggregationExecutor = null;
     }
+
+    Map<String, String> opChainMetadata = context.getOpChainMetadata();
+    _partialAggBypassMinRows = getPartialAggBypassMinRows(opChainMetadata, node.getNodeHint());
+    _partialAggBypassGroupsRatio = getPartialAggBypassGroupsRatio(opChainMetadata, node.getNodeHint());
+    _checkPartialAggBypass = _groupByExecutor != null && !_groupByExecutor.isSpillEnabled()
+        && _partialAggBypassMinRows > 0
+        && (aggType == AggregateNode.AggType.LEAF || aggType == AggregateNode.AggType.INTERMEDIATE)
+        && canBypassPartialAgg(aggFunctions);
+  }
+
+  /**
+   * The partial aggregation can be bypassed only when the intermediate results can be merged regardless of how the rows
+   * are split. E.g. SEGMENT_PARTITIONED_DISTINCT_COUNT assumes the values are partitioned across the partial results.
+   */
+  private static boolean canBypassPartialAgg(AggregationFunction<?, ?>[] aggFunctions) {
+    for (AggregationFunction<?, ?> aggFunction : aggFunctions) {
+      if (aggFunction.getType() == AggregationFunctionType.SEGMENTPARTITIONEDDISTINCTCOUNT) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private MultistageGroupByExecutor createGroupByExecutor() {
+    return new MultistageGroupByExecutor(getGroupKeyIds(_node.getGroupKeys()), _aggFunctions, _filterArgIds,
+        _maxFilterArgId, _node.getAggType(), _resultSchema, _context.getOpChainMetadata(), _node.getNodeHint());
+  }
+
+  private static int getPartialAggBypassMinRows(Map<String, String> opChainMetadata,
+      @Nullable PlanNode.NodeHint nodeHint) {
+    String minRowsStr = getAggregateHintOption(nodeHint, PinotHintOptions.AggregateOptions.PARTIAL_AGG_BYPASS_MIN_ROWS);
+    if (minRowsStr != null) {
+      return Integer.parseInt(minRowsStr);
+    }
+    Integer minRows = QueryOptionsUtils.getPartialAggBypassMinRows(opChainMetadata);
+    return minRows != null ? minRows : DEFAULT_PARTIAL_AGG_BYPASS_MIN_ROWS;
+  }
+
+  private static double getPartialAggBypassGroupsRatio(Map<String, String> opChainMetadata,
+      @Nullable PlanNode.NodeHint nodeHint) {
+    String groupsRatioStr =
+        getAggregateHintOption(nodeHint, PinotHintOptions.AggregateOptions.PARTIAL_AGG_BYPASS_GROUPS_RATIO);
+    if (groupsRatioStr != null) {
+      return Double.parseDouble(groupsRatioStr);
+    }
+    Double groupsRatio = QueryOptionsUtils.getPartialAggBypassGroupsRatio(opChainMetadata);
+    return groupsRatio != null ? groupsRatio : DEFAULT_PARTIAL_AGG_BYPASS_GROUPS_RATIO;
+  }
+
+  @Nullable
+  private static String getAggregateHintOption(@Nullable PlanNode.NodeHint nodeHint, String option) {
+    if (nodeHint == null) {
+      return null;
+    }
+    Map<String, String> aggregateOptions = nodeHint.getHintOptions().get(PinotHintOptions.AGGREGATE_HINT_OPTIONS);
+    return aggregateOptions != null ? aggregateOptions.get(option) : null;
   }
 
   @Override
@@ -130,21 +217,51 @@ public class AggregateOperator extends MultiStageOperator {
   }
 
   @Override
-  protected TransferableBlock getNextBlock() {
+  protected TransferableBlock getNextBlock()
+      throws IOException {
     if (_hasConstructedAggregateBlock) {
       assert _eosBlock != null;
       return _eosBlock;
     }
+    if (_partialAggBypassed) {
+      return getNextBypassedBlock();
+    }
+    if (_isMergingSpilledGroups) {
+      return getNextSpilledBlock();
+    }
     TransferableBlock finalBlock = _aggregationExecutor != null ? consumeAggregation() : consumeGroupBy();
-    // returning upstream error block if finalBlock contains error.
-    if (finalBlock.isErrorBlock()) {
+    // returning upstream error or yield block, the consumption is resumed on the next call after yielding
+    // returning the groups collected so far when switching to the partial aggregation bypass
+    if (finalBlock.isErrorBlock() || finalBlock.isYieldBlock() || finalBlock.isDataBlock()) {
       return finalBlock;
     }
     assert finalBlock.isSuccessfulEndOfStreamBlock() : "Final block must be EOS block";
+    if (_groupByExecutor != null && _groupByExecutor.isSpilled()) {
+      _groupByExecutor.finishSpilling();
+      _statMap.merge(StatKey.SPILLED_GROUPS, _groupByExecutor.getNumSpilledGroups());
+      _statMap.merge(StatKey.SPILLED_BYTES, _groupByExecutor.getSpilledBytes());
+      _statMap.merge(StatKey.SPILLED_PARTITIONS, _groupByExecutor.getNumSpillPartitions());
+      _eosBlock = updateEosBlock(finalBlock, _statMap);
+      _isMergingSpilledGroups = true;
+      return getNextSpilledBlock();
+    }
     _eosBlock = updateEosBlock(finalBlock, _statMap);
     return produceAggregatedBlock();
   }
 
+  /**
+   * Returns the merged groups of the next spill partition, or the EOS block when all the partitions are merged.
+   */
+  private TransferableBlock getNextSpilledBlock()
+      throws IOException {
+    List<Object[]> rows = _groupByExecutor.getNextSpilledResult();
+    if (rows == null) {
+      _hasConstructedAggregateBlock = true;
+      return _eosBlock;
+    }
+    return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+  }
+
   private TransferableBlock produceAggregatedBlock() {
     _hasConstructedAggregateBlock = true;
     if (_aggregationExecutor != null) {
@@ -167,21 +284,83 @@ public class AggregateOperator extends MultiStageOperator {
   /**
    * Consumes the input blocks as a group by
    *
-   * @return the last block, which must always be either an error or the end of the stream
+   * @return the last block, which must always be either an error, a yield or the end of the stream, or the groups
+   *         collected so far when switching to the partial aggregation bypass
+   */
+  private TransferableBlock consumeGroupBy()
+      throws IOException {
+    TransferableBlock block = _input.nextBlock();
+    while (block.isDataBlock()) {
+      _groupByExecutor.processBlock(block);
+      if (_checkPartialAggBypass && shouldBypassPartialAgg(block.getNumRows())) {
+        return bypassPartialAgg();
+      }
+      block = _input.nextBlock();
+    }
+    return block;
+  }
+
+  /**
+   * Checks the reduction ratio of the partial aggregation once the first N input rows are processed.
+   */
+  private boolean shouldBypassPartialAgg(int numRows) {
+    _numInputRows += numRows;
+    if (_numInputRows < _partialAggBypassMinRows) {
+      return false;
+    }
+    _checkPartialAggBypass = false;
+    return _groupByExecutor.getNumGroups() > _partialAggBypassGroupsRatio * _numInputRows;
+  }
+
+  private TransferableBlock bypassPartialAgg() {
+    int numGroups = _groupByExecutor.getNumGroups();
+    LOGGER.debug("Bypassing partial aggregation after {} input rows with {} groups", _numInputRows, numGroups);
+    _partialAggBypassed = true;
+    _statMap.merge(StatKey.PARTIAL_AGG_BYPASSED, true);
+    _statMap.merge(StatKey.PARTIAL_AGG_BYPASS_INPUT_ROWS, _numInputRows);
+    List<Object[]> rows = getResultAndClearGroups();
+    return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+  }
+
+  /**
+   * Aggregates each input block on its own and sends the result downstream, where it is merged by the FINAL
+   * aggregation.
    */
-  private TransferableBlock consumeGroupBy() {
+  private TransferableBlock getNextBypassedBlock()
+      throws IOException {
     TransferableBlock block = _input.nextBlock();
     while (block.isDataBlock()) {
       _groupByExecutor.processBlock(block);
+      List<Object[]> rows = getResultAndClearGroups();
+      if (!rows.isEmpty()) {
+        return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+      }
       block = _input.nextBlock();
     }
+    if (block.isSuccessfulEndOfStreamBlock()) {
+      _hasConstructedAggregateBlock = true;
+      _eosBlock = updateEosBlock(block, _statMap);
+      return _eosBlock;
+    }
     return block;
   }
 
+  /**
+   * Returns the groups collected so far and clears them, so that the same executor aggregates the next input block.
+   */
+  private List<Object[]> getResultAndClearGroups() {
+    if (_groupByExecutor.isNumGroupsLimitReached()) {
+      _statMap.merge(StatKey.NUM_GROUPS_LIMIT_REACHED, true);
+    }
+    List<Object[]> rows = _groupByExecutor.getResult();
+    _groupByExecutor.clearGroups();
+    return rows;
+  }
+
   /**
    * Consumes the input blocks as an aggregation
    *
-   * @return the last block, which must always be either an error or the end of the stream
+   * @return the last block, which must always be either an error, a yield or the end of the stream
    */
   private TransferableBlock consumeAggregation() {
     TransferableBlock block = _input.nextBlock();
@@ -192,6 +371,22 @@ public class AggregateOperator extends MultiStageOperator {
     return block;
   }
 
+  @Override
+  public void close() {
+    super.close();
+    if (_groupByExecutor != null) {
+      _groupByExecutor.releaseSpillFiles();
+    }
+  }
+
+  @Override
+  public void cancel(Throwable e) {
+    super.cancel(e);
+    if (_groupByExecutor != null) {
+      _groupByExecutor.releaseSpillFiles();
+    }
+  }
+
   private AggregationFunction<?, ?>[] getAggFunctions(List<RexExpression.FunctionCall> aggCalls) {
     int numFunctions = aggCalls.size();
     AggregationFunction<?, ?>[] aggFunctions = new AggregationFunction[numFunctions];
@@ -366,7 +561,28 @@ public class AggregateOperator extends MultiStageOperator {
         return true;
       }
     },
-    NUM_GROUPS_LIMIT_REACHED(StatMap.Type.BOOLEAN);
+    NUM_GROUPS_LIMIT_REACHED(StatMap.Type.BOOLEAN),
+    /**
+     * Whether the partial aggregation was bypassed because it didn't reduce the number of rows enough.
+     */
+    PARTIAL_AGG_BYPASSED(StatMap.Type.BOOLEAN),
+    /**
+     * Number of input rows processed before the partial aggregation was bypassed.
+     */
+    PARTIAL_AGG_BYPASS_INPUT_ROWS(StatMap.Type.LONG),
+    /**
+     * How many groups have been written to the local spill files when the group-by overflow mode is SPILL. A group can
+     * be spilled multiple times before it is merged.
+     */
+    SPILLED_GROUPS(StatMap.Type.LONG),
+    /**
+     * How many bytes have been written to the local spill files when the group-by overflow mode is SPILL.
+     */
+    SPILLED_BYTES(StatMap.Type.LONG),
+    /**
+     * How many partitions the groups have been spilled into when the group-by overflow mode is SPILL.
+     */
+    SPILLED_PARTITIONS(StatMap.Type.INT);
     //@formatter:on
 
     private final StatMap.Type _type;
@@ -135,6 +135,7 @@ public abstract class BaseMailboxReceiveOperator extends MultiStageOperator {
     _statMap.merge(StatKey.IN_MEMORY_MESSAGES, from.getInt(ReceivingMailbox.StatKey.IN_MEMORY_MESSAGES));
     _statMap.merge(StatKey.DOWNSTREAM_WAIT_MS, from.getLong(ReceivingMailbox.StatKey.OFFER_CPU_TIME_MS));
     _statMap.merge(StatKey.UPSTREAM_WAIT_MS, from.getLong(ReceivingMailbox.StatKey.WAIT_CPU_TIME_MS));
+    _statMap.merge(StatKey.MAX_PENDING_BYTES, from.getLong(ReceivingMailbox.StatKey.MAX_PENDING_BYTES));
   }
 
   private static class ReadMailboxAsyncStream implements AsyncStream<TransferableBlock> {
@@ -231,7 +232,18 @@ public abstract class BaseMailboxReceiveOperator extends MultiStageOperator {
     /**
      * How long (in CPU time) it took to wait for the messages to be offered to downstream operator.
      */
-    UPSTREAM_WAIT_MS(StatMap.Type.LONG);
+    UPSTREAM_WAIT_MS(StatMap.Type.LONG),
+    /**
+     * The max number of bytes pending in any of the mailboxes read by this operator.
+     * <p>
+     * A value close to the max pending bytes of the mailbox indicates that the senders are throttled by this operator.
+     */
+    MAX_PENDING_BYTES(StatMap.Type.LONG) {
+      @Override
+      public long merge(long value1, long value2) {
+        return Math.max(value1, value2);
+      }
+    };
     //@formatter:on
 
     private final StatMap.Type _type;
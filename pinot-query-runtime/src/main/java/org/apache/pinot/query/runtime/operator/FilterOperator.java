@@ -96,21 +96,22 @@ public class FilterOperator extends MultiStageOperator {
   @Override
   protected TransferableBlock getNextBlock() {
     // Keep reading the input blocks until we find a match row or all blocks are processed.
-    // TODO: Consider batching the rows to improve performance.
     while (true) {
       TransferableBlock block = _input.nextBlock();
-      if (block.isErrorBlock()) {
+      if (block.isErrorBlock() || block.isYieldBlock()) {
         return block;
       }
       if (block.isSuccessfulEndOfStreamBlock()) {
         return updateEosBlock(block, _statMap);
       }
       assert block.isDataBlock();
+      // Evaluate the filter for the whole block (column at a time) before materializing the rows
+      Object[] filterResults = _filterOperand.applyColumn(block);
+      List<Object[]> container = block.getContainer();
       List<Object[]> rows = new ArrayList<>();
-      for (Object[] row : block.getContainer()) {
-        Object filterResult = _filterOperand.apply(row);
-        if (BooleanUtils.isTrueInternalValue(filterResult)) {
-          rows.add(row);
+      for (int i = 0; i < filterResults.length; i++) {
+        if (BooleanUtils.isTrueInternalValue(filterResults[i])) {
+          rows.add(container.get(i));
         }
       }
       if (!rows.isEmpty()) {
@@ -19,6 +19,7 @@
 package org.apache.pinot.query.runtime.operator;
 
 import com.google.common.base.Preconditions;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.HashMap;
@@ -33,6 +34,7 @@ import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.exception.QueryException;
 import org.apache.pinot.common.response.ProcessingException;
 import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.planner.partitioning.KeySelector;
@@ -41,8 +43,11 @@ import org.apache.pinot.query.planner.plannode.JoinNode;
 import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.join.LookupTable;
+import org.apache.pinot.query.runtime.operator.join.LookupTableFactory;
 import org.apache.pinot.query.runtime.operator.operands.TransformOperand;
 import org.apache.pinot.query.runtime.operator.operands.TransformOperandFactory;
+import org.apache.pinot.query.runtime.operator.utils.SpillFile;
 import org.apache.pinot.query.runtime.plan.MultiStageQueryStats;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
 import org.apache.pinot.spi.utils.BooleanUtils;
@@ -54,30 +59,36 @@ import org.slf4j.LoggerFactory;
 
 /**
  * This basic {@code BroadcastJoinOperator} implement a basic broadcast join algorithm.
- * This algorithm assumes that the broadcast table has to fit in memory since we are not supporting any spilling.
+ * By default, this algorithm assumes that the broadcast table has to fit in memory.
  *
  * For left join, inner join, right join and full join,
  * <p>It takes the right table as the broadcast side and materialize a hash table. Then for each of the left table row,
- * it looks up for the corresponding row(s) from the hash table and create a joint row.
+ * it looks up for the corresponding row(s) from the hash table and create a joint row. The hash table is a
+ * {@link LookupTable} specialized on the join key type, e.g. INT and LONG keys are stored as primitives.
  *
  * <p>For each of the data block received from the left table, it will generate a joint data block.
  * We currently support left join, inner join, right join and full join.
  * The output is in the format of [left_row, right_row]
+ *
+ * <p>When the join overflow mode is {@link JoinOverFlowMode#SPILL} and the right table exceeds the max rows limit, the
+ * operator falls back to a grace hash join: rows of both tables are hash partitioned on the join keys into local
+ * {@link SpillFile}s, then each partition is joined independently, building the hash table for one right partition at
+ * a time.
  */
 // TODO: Move inequi out of hashjoin. (https://github.com/apache/pinot/issues/9728)
 // TODO: Support memory size based resource limit.
 public class HashJoinOperator extends MultiStageOperator {
   private static final Logger LOGGER = LoggerFactory.getLogger(HashJoinOperator.class);
   private static final String EXPLAIN_NAME = "HASH_JOIN";
-  private static final int INITIAL_HEURISTIC_SIZE = 16;
   private static final int DEFAULT_MAX_ROWS_IN_JOIN = 1024 * 1024; // 2^20, around 1MM rows
   private static final JoinOverFlowMode DEFAULT_JOIN_OVERFLOW_MODE = JoinOverFlowMode.THROW;
+  private static final int DEFAULT_NUM_SPILL_PARTITIONS = 16;
 
   private static final Set<JoinRelType> SUPPORTED_JOIN_TYPES =
       Set.of(JoinRelType.INNER, JoinRelType.LEFT, JoinRelType.RIGHT, JoinRelType.FULL, JoinRelType.SEMI,
           JoinRelType.ANTI);
 
-  private final Map<Object, ArrayList<Object[]>> _broadcastRightTable;
+  private final LookupTable _rightTable;
 
   // Used to track matched right rows.
   // Only used for right join and full join to output non-matched right rows.
@@ -104,8 +115,17 @@ public class HashJoinOperator extends MultiStageOperator {
    * Mode when join overflow happens, supported values: THROW or BREAK.
    *   THROW(default): Break right table build process, and throw exception, no JOIN with left table performed.
    *   BREAK: Break right table build process, continue to perform JOIN operation, results might be partial.
+   *   SPILL: Spill both tables into hash partitioned local files, then join the partitions one at a time.
    */
   private final JoinOverFlowMode _joinOverflowMode;
+  private final int _numSpillPartitions;
+
+  // Below are used only after the right table overflows in SPILL mode.
+  private SpillFile[] _rightSpillFiles;
+  private SpillFile[] _leftSpillFiles;
+  private SpillFile.Reader _leftSpillReader;
+  private int _currentSpillPartition;
+  private boolean _isLeftTableSpilled;
 
   private boolean _isHashTableBuilt;
   private int _currentRowsInHashTable;
@@ -137,7 +157,12 @@ public class HashJoinOperator extends MultiStageOperator {
     for (RexExpression nonEquiCondition : nonEquiConditions) {
       _nonEquiEvaluators.add(TransformOperandFactory.getTransformOperand(nonEquiCondition, _resultSchema));
     }
-    _broadcastRightTable = new HashMap<>();
+    List<Integer> leftKeys = node.getLeftKeys();
+    ColumnDataType[] keyTypes = new ColumnDataType[leftKeys.size()];
+    for (int i = 0; i < keyTypes.length; i++) {
+      keyTypes[i] = leftSchema.getColumnDataType(leftKeys.get(i));
+    }
+    _rightTable = LookupTableFactory.getLookupTable(keyTypes);
     if (needUnmatchedRightRows()) {
       _matchedRightRows = new HashMap<>();
     } else {
@@ -147,6 +172,7 @@ public class HashJoinOperator extends MultiStageOperator {
     PlanNode.NodeHint nodeHint = node.getNodeHint();
     _maxRowsInHashTable = getMaxRowInJoin(metadata, nodeHint);
     _joinOverflowMode = getJoinOverflowMode(metadata, nodeHint);
+    _numSpillPartitions = getNumSpillPartitions(nodeHint);
   }
 
   @Override
@@ -194,6 +220,22 @@ public class HashJoinOperator extends MultiStageOperator {
     return joinOverflowMode != null ? joinOverflowMode : DEFAULT_JOIN_OVERFLOW_MODE;
   }
 
+  private int getNumSpillPartitions(@Nullable PlanNode.NodeHint nodeHint) {
+    if (nodeHint != null) {
+      Map<String, String> joinOptions = nodeHint.getHintOptions().get(PinotHintOptions.JOIN_HINT_OPTIONS);
+      if (joinOptions != null) {
+        String numSpillPartitionsStr = joinOptions.get(PinotHintOptions.JoinHintOptions.NUM_SPILL_PARTITIONS);
+        if (numSpillPartitionsStr != null) {
+          int numSpillPartitions = Integer.parseInt(numSpillPartitionsStr);
+          Preconditions.checkState(numSpillPartitions > 0, "Number of spill partitions must be positive, got: %s",
+              numSpillPartitions);
+          return numSpillPartitions;
+        }
+      }
+    }
+    return DEFAULT_NUM_SPILL_PARTITIONS;
+  }
+
   @Override
   public List<MultiStageOperator> getChildOperators() {
     return List.of(_leftInput, _rightInput);
@@ -206,25 +248,47 @@ public class HashJoinOperator extends MultiStageOperator {
 
   @Override
   protected TransferableBlock getNextBlock()
-      throws ProcessingException {
+      throws ProcessingException, IOException {
     if (!_isHashTableBuilt) {
       // Build JOIN hash table
       buildBroadcastHashTable();
+      if (!_isHashTableBuilt && _upstreamErrorBlock == null) {
+        // The right input yielded, the hash table building is resumed on the next call
+        return TransferableBlockUtils.getYieldTransferableBlock();
+      }
     }
     if (_upstreamErrorBlock != null) {
       return _upstreamErrorBlock;
     }
+    if (_rightSpillFiles != null) {
+      return buildSpilledJoinedDataBlock();
+    }
     return buildJoinedDataBlock();
   }
 
   private void buildBroadcastHashTable()
-      throws ProcessingException {
+      throws ProcessingException, IOException {
     long startTime = System.currentTimeMillis();
     TransferableBlock rightBlock = _rightInput.nextBlock();
     while (!TransferableBlockUtils.isEndOfStream(rightBlock)) {
+      if (rightBlock.isYieldBlock()) {
+        _statMap.merge(StatKey.TIME_BUILDING_HASH_TABLE_MS, System.currentTimeMillis() - startTime);
+        return;
+      }
       List<Object[]> container = rightBlock.getContainer();
+      if (_rightSpillFiles != null) {
+        spillRows(_rightSpillFiles, container, _rightKeySelector);
+        rightBlock = _rightInput.nextBlock();
+        continue;
+      }
       // Row based overflow check.
       if (container.size() + _currentRowsInHashTable > _maxRowsInHashTable) {
+        if (_joinOverflowMode == JoinOverFlowMode.SPILL) {
+          startSpillingRightTable(rightBlock.getDataSchema());
+          spillRows(_rightSpillFiles, container, _rightKeySelector);
+          rightBlock = _rightInput.nextBlock();
+          continue;
+        }
         if (_joinOverflowMode == JoinOverFlowMode.THROW) {
           ProcessingException resourceLimitExceededException =
               new ProcessingException(QueryException.SERVER_RESOURCE_LIMIT_EXCEEDED_ERROR_CODE);
@@ -237,8 +301,10 @@ public class HashJoinOperator extends MultiStageOperator {
                   + " overflow mode can be set to '" + JoinOverFlowMode.BREAK.name() + "' either via the query option '"
                   + CommonConstants.Broker.Request.QueryOptionKey.JOIN_OVERFLOW_MODE + "' or the '"
                   + PinotHintOptions.JoinHintOptions.JOIN_OVERFLOW_MODE + "' hint in the '"
-                  + PinotHintOptions.JOIN_HINT_OPTIONS + "'. Furthermore, if there is a large disparity in the size of "
-                  + "the two tables being joined, use the smaller table as the right input instead of the left.");
+                  + PinotHintOptions.JOIN_HINT_OPTIONS + "', or set to '" + JoinOverFlowMode.SPILL.name()
+                  + "' to spill the join to local disk instead. Furthermore, if there is a large disparity in the "
+                  + "size of the two tables being joined, use the smaller table as the right input instead of the "
+                  + "left.");
           throw resourceLimitExceededException;
         } else {
           // Just fill up the buffer.
@@ -249,17 +315,7 @@ public class HashJoinOperator extends MultiStageOperator {
           _rightInput.earlyTerminate();
         }
       }
-      // put all the rows into corresponding hash collections keyed by the key selector function.
-      for (Object[] row : container) {
-        ArrayList<Object[]> hashCollection = _broadcastRightTable.computeIfAbsent(_rightKeySelector.getKey(row),
-            k -> new ArrayList<>(INITIAL_HEURISTIC_SIZE));
-        int size = hashCollection.size();
-        if ((size & size - 1) == 0 && size < _maxRowsInHashTable && size < Integer.MAX_VALUE / 2) { // is power of 2
-          hashCollection.ensureCapacity(Math.min(size << 1, _maxRowsInHashTable));
-        }
-        hashCollection.add(row);
-      }
-      _currentRowsInHashTable += container.size();
+      addToHashTable(container);
       rightBlock = _rightInput.nextBlock();
     }
     if (rightBlock.isErrorBlock()) {
@@ -272,6 +328,178 @@ public class HashJoinOperator extends MultiStageOperator {
     _statMap.merge(StatKey.TIME_BUILDING_HASH_TABLE_MS, System.currentTimeMillis() - startTime);
   }
 
+  private void addToHashTable(List<Object[]> container) {
+    // put all the rows into the lookup table keyed by the key selector function.
+    for (Object[] row : container) {
+      _rightTable.addRow(_rightKeySelector.getKey(row), row);
+    }
+    _currentRowsInHashTable += container.size();
+  }
+
+  /**
+   * Moves the rows already in the hash table into the right table spill files. All the following right rows are
+   * directly written into the spill files.
+   */
+  private void startSpillingRightTable(DataSchema rightSchema)
+      throws IOException {
+    LOGGER.info("Right table of join reached {} rows, spilling into {} partitions", _currentRowsInHashTable,
+        _numSpillPartitions);
+    _rightSpillFiles = createSpillFiles(rightSchema);
+    List<Object[]> rows = new ArrayList<>(_currentRowsInHashTable);
+    _rightTable.forEach((key, value) -> addRightRows(rows, value));
+    spillRows(_rightSpillFiles, rows, _rightKeySelector);
+    _rightTable.clear();
+    _currentRowsInHashTable = 0;
+  }
+
+  private SpillFile[] createSpillFiles(DataSchema dataSchema)
+      throws IOException {
+    SpillFile[] spillFiles = new SpillFile[_numSpillPartitions];
+    for (int i = 0; i < _numSpillPartitions; i++) {
+      spillFiles[i] = new SpillFile(dataSchema);
+    }
+    return spillFiles;
+  }
+
+  private void spillRows(SpillFile[] spillFiles, List<Object[]> rows, KeySelector<?> keySelector)
+      throws IOException {
+    for (Object[] row : rows) {
+      spillFiles[SpillFile.getPartition(keySelector.computeHash(row), _numSpillPartitions)].add(row);
+    }
+  }
+
+  /**
+   * Joins the spilled tables. The whole left table is spilled first, then each partition is joined by building the
+   * hash table from the right partition and probing it with the left partition.
+   */
+  private TransferableBlock buildSpilledJoinedDataBlock()
+      throws IOException {
+    if (!_isLeftTableSpilled) {
+      TransferableBlock leftBlock = _leftInput.nextBlock();
+      while (!TransferableBlockUtils.isEndOfStream(leftBlock)) {
+        if (leftBlock.isYieldBlock()) {
+          return leftBlock;
+        }
+        List<Object[]> container = leftBlock.getContainer();
+        if (_leftSpillFiles == null) {
+          _leftSpillFiles = createSpillFiles(leftBlock.getDataSchema());
+        }
+        spillRows(_leftSpillFiles, container, _leftKeySelector);
+        leftBlock = _leftInput.nextBlock();
+      }
+      if (leftBlock.isErrorBlock()) {
+        return leftBlock;
+      }
+      _leftSideStats = leftBlock.getQueryStats();
+      assert _leftSideStats != null;
+      _isLeftTableSpilled = true;
+      recordSpillStats();
+    }
+
+    while (_currentSpillPartition < _numSpillPartitions) {
+      if (_leftSpillReader == null) {
+        // Build the hash table for the current partition
+        _rightTable.clear();
+        _currentRowsInHashTable = 0;
+        if (_matchedRightRows != null) {
+          _matchedRightRows.clear();
+        }
+        // The right partition only needs to be loaded when it can produce output
+        if (_leftSpillFiles != null || needUnmatchedRightRows()) {
+          try (SpillFile.Reader rightReader = _rightSpillFiles[_currentSpillPartition].openReader()) {
+            List<Object[]> rightRows;
+            while ((rightRows = rightReader.nextRows()) != null) {
+              addToHashTable(rightRows);
+            }
+          }
+        }
+        if (_leftSpillFiles != null) {
+          _leftSpillReader = _leftSpillFiles[_currentSpillPartition].openReader();
+        }
+      }
+      if (_leftSpillReader != null) {
+        List<Object[]> leftRows;
+        while ((leftRows = _leftSpillReader.nextRows()) != null) {
+          List<Object[]> rows = buildJoinedRows(leftRows);
+          if (!rows.isEmpty()) {
+            return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+          }
+        }
+      }
+      List<Object[]> rows = needUnmatchedRightRows() ? buildNonMatchRightRows() : List.of();
+      closeSpillPartition(_currentSpillPartition);
+      _currentSpillPartition++;
+      if (!rows.isEmpty()) {
+        return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+      }
+    }
+    _rightTable.clear();
+    assert _rightSideStats != null;
+    _leftSideStats.mergeInOrder(_rightSideStats, getOperatorType(), _statMap);
+    return TransferableBlockUtils.getEndOfStreamTransferableBlock(_leftSideStats);
+  }
+
+  private void recordSpillStats()
+      throws IOException {
+    long spilledBytes = 0;
+    for (SpillFile spillFile : _rightSpillFiles) {
+      spillFile.finish();
+      spilledBytes += spillFile.getNumBytes();
+    }
+    if (_leftSpillFiles != null) {
+      for (SpillFile spillFile : _leftSpillFiles) {
+        spillFile.finish();
+        spilledBytes += spillFile.getNumBytes();
+      }
+    }
+    _statMap.merge(StatKey.SPILLED_BYTES, spilledBytes);
+    _statMap.merge(StatKey.SPILLED_PARTITIONS, _numSpillPartitions);
+  }
+
+  private void closeSpillPartition(int partition)
+      throws IOException {
+    try {
+      if (_leftSpillReader != null) {
+        _leftSpillReader.close();
+        _leftSpillReader = null;
+      }
+    } finally {
+      try {
+        _rightSpillFiles[partition].close();
+      } finally {
+        if (_leftSpillFiles != null) {
+          _leftSpillFiles[partition].close();
+        }
+      }
+    }
+  }
+
+  private void releaseSpillFiles() {
+    if (_rightSpillFiles == null) {
+      return;
+    }
+    for (int i = _currentSpillPartition; i < _numSpillPartitions; i++) {
+      try {
+        closeSpillPartition(i);
+      } catch (IOException e) {
+        LOGGER.warn("Caught exception while deleting spill files of partition: {}", i, e);
+      }
+    }
+    _currentSpillPartition = _numSpillPartitions;
+  }
+
+  @Override
+  public void close() {
+    super.close();
+    releaseSpillFiles();
+  }
+
+  @Override
+  public void cancel(Throwable e) {
+    super.cancel(e);
+    releaseSpillFiles();
+  }
+
   private TransferableBlock buildJoinedDataBlock() {
     if (_isTerminated) {
       assert _leftSideStats != null;
@@ -282,7 +510,7 @@ public class HashJoinOperator extends MultiStageOperator {
     // TODO: Consider batching the rows to improve performance.
     while (true) {
       TransferableBlock leftBlock = _leftInput.nextBlock();
-      if (leftBlock.isErrorBlock()) {
+      if (leftBlock.isErrorBlock() || leftBlock.isYieldBlock()) {
         return leftBlock;
       }
       if (leftBlock.isSuccessfulEndOfStreamBlock()) {
@@ -300,33 +528,32 @@ public class HashJoinOperator extends MultiStageOperator {
         return TransferableBlockUtils.getEndOfStreamTransferableBlock(_leftSideStats);
       }
       assert leftBlock.isDataBlock();
-      List<Object[]> rows = buildJoinedRows(leftBlock);
+      List<Object[]> rows = buildJoinedRows(leftBlock.getContainer());
       if (!rows.isEmpty()) {
         return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
       }
     }
   }
 
-  private List<Object[]> buildJoinedRows(TransferableBlock leftBlock) {
+  private List<Object[]> buildJoinedRows(List<Object[]> container) {
     switch (_joinType) {
       case SEMI:
-        return buildJoinedDataBlockSemi(leftBlock);
+        return buildJoinedDataBlockSemi(container);
       case ANTI:
-        return buildJoinedDataBlockAnti(leftBlock);
+        return buildJoinedDataBlockAnti(container);
       default: { // INNER, LEFT, RIGHT, FULL
-        return buildJoinedDataBlockDefault(leftBlock);
+        return buildJoinedDataBlockDefault(container);
       }
     }
   }
 
-  private List<Object[]> buildJoinedDataBlockSemi(TransferableBlock leftBlock) {
-    List<Object[]> container = leftBlock.getContainer();
+  private List<Object[]> buildJoinedDataBlockSemi(List<Object[]> container) {
     List<Object[]> rows = new ArrayList<>(container.size());
 
     for (Object[] leftRow : container) {
       Object key = _leftKeySelector.getKey(leftRow);
       // SEMI-JOIN only checks existence of the key
-      if (_broadcastRightTable.containsKey(key)) {
+      if (_rightTable.containsKey(key)) {
         rows.add(joinRow(leftRow, null));
       }
     }
@@ -334,34 +561,30 @@ public class HashJoinOperator extends MultiStageOperator {
     return rows;
   }
 
-  private List<Object[]> buildJoinedDataBlockDefault(TransferableBlock leftBlock) {
-    List<Object[]> container = leftBlock.getContainer();
+  private List<Object[]> buildJoinedDataBlockDefault(List<Object[]> container) {
     ArrayList<Object[]> rows = new ArrayList<>(container.size());
 
     for (Object[] leftRow : container) {
       Object key = _leftKeySelector.getKey(leftRow);
       // NOTE: Empty key selector will always give same hash code.
-      List<Object[]> rightRows = _broadcastRightTable.get(key);
-      if (rightRows == null) {
+      Object rightValue = _rightTable.lookup(key);
+      if (rightValue == null) {
         if (needUnmatchedLeftRows()) {
           rows.add(joinRow(leftRow, null));
         }
         continue;
       }
-      boolean hasMatchForLeftRow = false;
-      int numRightRows = rightRows.size();
-      rows.ensureCapacity(rows.size() + numRightRows);
-      for (int i = 0; i < numRightRows; i++) {
-        Object[] rightRow = rightRows.get(i);
-        // TODO: Optimize this to avoid unnecessary object copy.
-        Object[] resultRow = joinRow(leftRow, rightRow);
-        if (_nonEquiEvaluators.isEmpty() || _nonEquiEvaluators.stream()
-            .allMatch(evaluator -> BooleanUtils.isTrueInternalValue(evaluator.apply(resultRow)))) {
-          rows.add(resultRow);
-          hasMatchForLeftRow = true;
-          if (_matchedRightRows != null) {
-            _matchedRightRows.computeIfAbsent(key, k -> new BitSet(numRightRows)).set(i);
-          }
+      boolean hasMatchForLeftRow;
+      if (rightValue instanceof Object[]) {
+        hasMatchForLeftRow = addJoinedRow(rows, key, leftRow, (Object[]) rightValue, 0, 1);
+      } else {
+        hasMatchForLeftRow = false;
+        @SuppressWarnings("unchecked")
+        List<Object[]> rightRows = (List<Object[]>) rightValue;
+        int numRightRows = rightRows.size();
+        rows.ensureCapacity(rows.size() + numRightRows);
+        for (int i = 0; i < numRightRows; i++) {
+          hasMatchForLeftRow |= addJoinedRow(rows, key, leftRow, rightRows.get(i), i, numRightRows);
         }
       }
       if (!hasMatchForLeftRow && needUnmatchedLeftRows()) {
@@ -372,14 +595,32 @@ public class HashJoinOperator extends MultiStageOperator {
     return rows;
   }
 
-  private List<Object[]> buildJoinedDataBlockAnti(TransferableBlock leftBlock) {
-    List<Object[]> container = leftBlock.getContainer();
+  /**
+   * Joins the left row with the right row, and adds the joined row if it matches the non-equi conditions. Returns
+   * whether the joined row is added.
+   */
+  private boolean addJoinedRow(List<Object[]> rows, @Nullable Object key, Object[] leftRow, Object[] rightRow,
+      int rightRowIndex, int numRightRows) {
+    // TODO: Optimize this to avoid unnecessary object copy.
+    Object[] resultRow = joinRow(leftRow, rightRow);
+    if (_nonEquiEvaluators.isEmpty() || _nonEquiEvaluators.stream()
+        .allMatch(evaluator -> BooleanUtils.isTrueInternalValue(evaluator.apply(resultRow)))) {
+      rows.add(resultRow);
+      if (_matchedRightRows != null) {
+        _matchedRightRows.computeIfAbsent(key, k -> new BitSet(numRightRows)).set(rightRowIndex);
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private List<Object[]> buildJoinedDataBlockAnti(List<Object[]> container) {
     List<Object[]> rows = new ArrayList<>(container.size());
 
     for (Object[] leftRow : container) {
       Object key = _leftKeySelector.getKey(leftRow);
       // ANTI-JOIN only checks non-existence of the key
-      if (!_broadcastRightTable.containsKey(key)) {
+      if (!_rightTable.containsKey(key)) {
         rows.add(joinRow(leftRow, null));
       }
     }
@@ -388,9 +629,16 @@ public class HashJoinOperator extends MultiStageOperator {
 
   private List<Object[]> buildNonMatchRightRows() {
     List<Object[]> rows = new ArrayList<>();
-    for (Map.Entry<Object, ArrayList<Object[]>> entry : _broadcastRightTable.entrySet()) {
-      List<Object[]> rightRows = entry.getValue();
-      BitSet matchedIndices = _matchedRightRows.get(entry.getKey());
+    _rightTable.forEach((key, value) -> {
+      BitSet matchedIndices = _matchedRightRows.get(key);
+      if (value instanceof Object[]) {
+        if (matchedIndices == null) {
+          rows.add(joinRow(null, (Object[]) value));
+        }
+        return;
+      }
+      @SuppressWarnings("unchecked")
+      List<Object[]> rightRows = (List<Object[]>) value;
       if (matchedIndices == null) {
         for (Object[] rightRow : rightRows) {
           rows.add(joinRow(null, rightRow));
@@ -402,10 +650,19 @@ public class HashJoinOperator extends MultiStageOperator {
           rows.add(joinRow(null, rightRows.get(unmatchedIndex++)));
         }
       }
-    }
+    });
     return rows;
   }
 
+  @SuppressWarnings("unchecked")
+  private static void addRightRows(List<Object[]> rows, Object value) {
+    if (value instanceof Object[]) {
+      rows.add((Object[]) value);
+    } else {
+      rows.addAll((List<Object[]>) value);
+    }
+  }
+
   private Object[] joinRow(@Nullable Object[] leftRow, @Nullable Object[] rightRow) {
     Object[] resultRow = new Object[_resultColumnSize];
     int idx = 0;
@@ -450,7 +707,15 @@ public class HashJoinOperator extends MultiStageOperator {
     /**
      * How long (CPU time) has been spent on building the hash table.
      */
-    TIME_BUILDING_HASH_TABLE_MS(StatMap.Type.LONG);
+    TIME_BUILDING_HASH_TABLE_MS(StatMap.Type.LONG),
+    /**
+     * How many bytes have been written to the local spill files when the join overflow mode is SPILL.
+     */
+    SPILLED_BYTES(StatMap.Type.LONG),
+    /**
+     * How many partitions the join inputs have been spilled into when the join overflow mode is SPILL.
+     */
+    SPILLED_PARTITIONS(StatMap.Type.INT);
     //@formatter:on
 
     private final StatMap.Type _type;
@@ -143,10 +143,22 @@ public class LeafStageTransferableBlockOperator extends MultiStageOperator {
     if (_executionFuture == null) {
       _executionFuture = startExecution();
     }
-    BaseResultsBlock resultsBlock =
-        _blockingQueue.poll(_context.getDeadlineMs() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
-    if (resultsBlock == null) {
-      throw new TimeoutException("Timed out waiting for results block");
+    BaseResultsBlock resultsBlock;
+    if (_context.isYieldEnabled()) {
+      // Yield instead of blocking, the OpChain is re-scheduled when a results block is added
+      if (System.currentTimeMillis() > _context.getDeadlineMs()) {
+        throw new TimeoutException("Timed out waiting for results block");
+      }
+      resultsBlock = _blockingQueue.poll();
+      if (resultsBlock == null) {
+        return TransferableBlockUtils.getYieldTransferableBlock();
+      }
+    } else {
+      resultsBlock =
+          _blockingQueue.poll(_context.getDeadlineMs() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+      if (resultsBlock == null) {
+        throw new TimeoutException("Timed out waiting for results block");
+      }
     }
     // Terminate when receiving exception block
     Map<Integer, String> exceptions = _exceptions;
@@ -368,6 +380,7 @@ public class LeafStageTransferableBlockOperator extends MultiStageOperator {
         TimeUnit.MILLISECONDS)) {
       throw new TimeoutException("Timed out waiting to add results block");
     }
+    _context.notifyDataAvailable();
   }
 
   // TODO: Revisit the stats aggregation logic
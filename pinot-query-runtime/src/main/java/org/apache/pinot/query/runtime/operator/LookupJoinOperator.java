@@ -0,0 +1,460 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datatable.StatMap;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.data.manager.offline.DimensionTableDataManager;
+import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.planner.plannode.FilterNode;
+import org.apache.pinot.query.planner.plannode.JoinNode;
+import org.apache.pinot.query.planner.plannode.PlanNode;
+import org.apache.pinot.query.planner.plannode.ProjectNode;
+import org.apache.pinot.query.planner.plannode.TableScanNode;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.operator.operands.TransformOperand;
+import org.apache.pinot.query.runtime.operator.operands.TransformOperandFactory;
+import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.BooleanUtils;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.apache.pinot.spi.utils.builder.TableNameBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code LookupJoinOperator} joins the left input with a dimension table replicated on the server, by looking up
+ * the right row of each left row by the primary key from the {@link DimensionTableDataManager}. Neither the right
+ * input is exchanged nor the hash table is built.
+ *
+ * <p>The right input of the join is the scan of the dimension table, optionally through filters and projects, which
+ * are evaluated on the looked up row. The right keys must be exactly the primary key columns of the dimension table, so
+ * that each left row matches at most one right row. Rows with a null join key never match. Only INNER, LEFT, SEMI and
+ * ANTI joins are supported.
+ *
+ * <p>The output is in the format of [left_row, right_row] for INNER and LEFT joins, and [left_row] for SEMI and ANTI
+ * joins.
+ */
+public class LookupJoinOperator extends MultiStageOperator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(LookupJoinOperator.class);
+  private static final String EXPLAIN_NAME = "LOOKUP_JOIN";
+
+  private static final Set<JoinRelType> SUPPORTED_JOIN_TYPES =
+      Set.of(JoinRelType.INNER, JoinRelType.LEFT, JoinRelType.SEMI, JoinRelType.ANTI);
+
+  private final MultiStageOperator _leftInput;
+  private final JoinRelType _joinType;
+  private final DimensionTableDataManager _dimTableDataManager;
+  // Left key ids in the order of the primary key columns of the dimension table
+  private final int[] _leftKeyIds;
+  private final DataType[] _primaryKeyStoredTypes;
+  private final Object[] _primaryKeyValues;
+  private final PrimaryKey _primaryKey;
+  // Columns of the dimension table scanned by the right input
+  private final String[] _tableColumns;
+  private final ColumnDataType[] _tableColumnTypes;
+  // Filters and projects of the right input from bottom to top, where filter has a single operand
+  private final List<PlanNode> _rightNodes;
+  private final List<List<TransformOperand>> _rightOperands;
+  private final DataSchema _resultSchema;
+  private final int _leftColumnSize;
+  private final int _rightColumnSize;
+  private final List<TransformOperand> _nonEquiEvaluators;
+  private final StatMap<StatKey> _statMap = new StatMap<>(StatKey.class);
+
+  public LookupJoinOperator(OpChainExecutionContext context, MultiStageOperator leftInput, DataSchema leftSchema,
+      JoinNode node) {
+    super(context);
+    Preconditions.checkState(SUPPORTED_JOIN_TYPES.contains(node.getJoinType()),
+        "Join type: %s is not supported by lookup join", node.getJoinType());
+    _leftInput = leftInput;
+    _joinType = node.getJoinType();
+    _resultSchema = node.getDataSchema();
+    _leftColumnSize = leftSchema.size();
+
+    // Collect the filters and projects of the right input down to the table scan
+    PlanNode rightInput = node.getInputs().get(1);
+    _rightColumnSize = rightInput.getDataSchema().size();
+    _rightNodes = new ArrayList<>();
+    PlanNode current = rightInput;
+    while (!(current instanceof TableScanNode)) {
+      Preconditions.checkState(current instanceof FilterNode || current instanceof ProjectNode,
+          "Unsupported right input: %s for lookup join", current.explain());
+      _rightNodes.add(0, current);
+      current = current.getInputs().get(0);
+    }
+    TableScanNode tableScanNode = (TableScanNode) current;
+    String tableNameWithType =
+        TableNameBuilder.OFFLINE.tableNameWithType(TableNameBuilder.extractRawTableName(tableScanNode.getTableName()));
+    _dimTableDataManager = DimensionTableDataManager.getInstanceByTableName(tableNameWithType);
+    Preconditions.checkState(_dimTableDataManager != null, "Failed to find dimension table: %s for lookup join",
+        tableNameWithType);
+    _tableColumns = tableScanNode.getColumns().toArray(new String[0]);
+    _tableColumnTypes = tableScanNode.getDataSchema().getColumnDataTypes();
+    _rightOperands = new ArrayList<>(_rightNodes.size());
+    for (PlanNode rightNode : _rightNodes) {
+      DataSchema inputSchema = rightNode.getInputs().get(0).getDataSchema();
+      List<TransformOperand> operands = new ArrayList<>();
+      if (rightNode instanceof FilterNode) {
+        operands.add(TransformOperandFactory.getTransformOperand(((FilterNode) rightNode).getCondition(), inputSchema));
+      } else {
+        for (RexExpression project : ((ProjectNode) rightNode).getProjects()) {
+          operands.add(TransformOperandFactory.getTransformOperand(project, inputSchema));
+        }
+      }
+      _rightOperands.add(operands);
+    }
+
+    // Map the right keys to the primary key columns of the dimension table
+    List<String> primaryKeyColumns = _dimTableDataManager.getPrimaryKeyColumns();
+    List<Integer> leftKeys = node.getLeftKeys();
+    List<Integer> rightKeys = node.getRightKeys();
+    int numPrimaryKeyColumns = primaryKeyColumns.size();
+    Preconditions.checkState(rightKeys.size() == numPrimaryKeyColumns,
+        "Lookup join keys must be the primary key columns: %s of dimension table: %s", primaryKeyColumns,
+        tableNameWithType);
+    _leftKeyIds = new int[numPrimaryKeyColumns];
+    _primaryKeyStoredTypes = new DataType[numPrimaryKeyColumns];
+    boolean[] matched = new boolean[numPrimaryKeyColumns];
+    for (int i = 0; i < numPrimaryKeyColumns; i++) {
+      String column = _tableColumns[getTableColumnIndex(rightKeys.get(i))];
+      int primaryKeyIndex = primaryKeyColumns.indexOf(column);
+      Preconditions.checkState(primaryKeyIndex >= 0 && !matched[primaryKeyIndex],
+          "Lookup join keys must be the primary key columns: %s of dimension table: %s", primaryKeyColumns,
+          tableNameWithType);
+      matched[primaryKeyIndex] = true;
+      _leftKeyIds[primaryKeyIndex] = leftKeys.get(i);
+      _primaryKeyStoredTypes[primaryKeyIndex] =
+          _dimTableDataManager.getColumnFieldSpec(column).getDataType().getStoredType();
+    }
+    _primaryKeyValues = new Object[numPrimaryKeyColumns];
+    _primaryKey = new PrimaryKey(_primaryKeyValues);
+
+    // Non-equi conditions are evaluated on [left_row, right_row] for all the join types
+    DataSchema joinedSchema = _resultSchema;
+    if (_joinType == JoinRelType.SEMI || _joinType == JoinRelType.ANTI) {
+      int numColumns = _leftColumnSize + _rightColumnSize;
+      String[] columnNames = new String[numColumns];
+      ColumnDataType[] columnDataTypes = new ColumnDataType[numColumns];
+      DataSchema rightSchema = rightInput.getDataSchema();
+      for (int i = 0; i < numColumns; i++) {
+        DataSchema schema = i < _leftColumnSize ? leftSchema : rightSchema;
+        int index = i < _leftColumnSize ? i : i - _leftColumnSize;
+        columnNames[i] = schema.getColumnName(index);
+        columnDataTypes[i] = schema.getColumnDataType(index);
+      }
+      joinedSchema = new DataSchema(columnNames, columnDataTypes);
+    }
+    List<RexExpression> nonEquiConditions = node.getNonEquiConditions();
+    _nonEquiEvaluators = new ArrayList<>(nonEquiConditions.size());
+    for (RexExpression nonEquiCondition : nonEquiConditions) {
+      _nonEquiEvaluators.add(TransformOperandFactory.getTransformOperand(nonEquiCondition, joinedSchema));
+    }
+  }
+
+  /**
+   * Returns the index of the table column referenced by the given field of the right input.
+   */
+  private int getTableColumnIndex(int fieldIndex) {
+    for (int i = _rightNodes.size() - 1; i >= 0; i--) {
+      PlanNode rightNode = _rightNodes.get(i);
+      if (rightNode instanceof ProjectNode) {
+        RexExpression project = ((ProjectNode) rightNode).getProjects().get(fieldIndex);
+        Preconditions.checkState(project instanceof RexExpression.InputRef,
+            "Lookup join key must directly reference the dimension table column");
+        fieldIndex = ((RexExpression.InputRef) project).getIndex();
+      }
+    }
+    return fieldIndex;
+  }
+
+  @Override
+  public void registerExecution(long time, int numRows) {
+    _statMap.merge(StatKey.EXECUTION_TIME_MS, time);
+    _statMap.merge(StatKey.EMITTED_ROWS, numRows);
+  }
+
+  @Override
+  public Type getOperatorType() {
+    return Type.LOOKUP_JOIN;
+  }
+
+  @Override
+  protected Logger logger() {
+    return LOGGER;
+  }
+
+  @Override
+  public List<MultiStageOperator> getChildOperators() {
+    return List.of(_leftInput);
+  }
+
+  @Override
+  public String toExplainString() {
+    return EXPLAIN_NAME;
+  }
+
+  @Override
+  protected TransferableBlock getNextBlock() {
+    // Keep reading the left blocks until there are joined rows or all blocks are processed.
+    while (true) {
+      TransferableBlock leftBlock = _leftInput.nextBlock();
+      if (leftBlock.isErrorBlock() || leftBlock.isYieldBlock()) {
+        return leftBlock;
+      }
+      if (leftBlock.isSuccessfulEndOfStreamBlock()) {
+        return updateEosBlock(leftBlock, _statMap);
+      }
+      assert leftBlock.isDataBlock();
+      List<Object[]> container = leftBlock.getContainer();
+      List<Object[]> rows = new ArrayList<>(container.size());
+      for (Object[] leftRow : container) {
+        Object[] rightRow = lookupRightRow(leftRow);
+        Object[] joinedRow = null;
+        if (rightRow != null) {
+          joinedRow = joinRow(leftRow, rightRow);
+          if (!matchNonEquiConditions(joinedRow)) {
+            joinedRow = null;
+          }
+        }
+        switch (_joinType) {
+          case INNER:
+            if (joinedRow != null) {
+              rows.add(joinedRow);
+            }
+            break;
+          case LEFT:
+            rows.add(joinedRow != null ? joinedRow : joinRow(leftRow, null));
+            break;
+          case SEMI:
+            if (joinedRow != null) {
+              rows.add(leftRow);
+            }
+            break;
+          case ANTI:
+            if (joinedRow == null) {
+              rows.add(leftRow);
+            }
+            break;
+          default:
+            throw new IllegalStateException("Unsupported join type: " + _joinType);
+        }
+      }
+      if (!rows.isEmpty()) {
+        return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+      }
+    }
+  }
+
+  /**
+   * Looks up the dimension table row with the left keys, and evaluates the filters and projects of the right input on
+   * it. Returns {@code null} if there is no matching row.
+   */
+  @Nullable
+  private Object[] lookupRightRow(Object[] leftRow) {
+    int numPrimaryKeyColumns = _leftKeyIds.length;
+    for (int i = 0; i < numPrimaryKeyColumns; i++) {
+      Object value = leftRow[_leftKeyIds[i]];
+      if (value == null) {
+        return null;
+      }
+      _primaryKeyValues[i] = toPrimaryKeyValue(value, _primaryKeyStoredTypes[i]);
+    }
+    GenericRow row = _dimTableDataManager.lookupRowByPrimaryKey(_primaryKey);
+    if (row == null) {
+      return null;
+    }
+    int numTableColumns = _tableColumns.length;
+    Object[] rightRow = new Object[numTableColumns];
+    for (int i = 0; i < numTableColumns; i++) {
+      String column = _tableColumns[i];
+      if (!row.isNullValue(column)) {
+        rightRow[i] = toInternalValue(row.getValue(column), _tableColumnTypes[i]);
+      }
+    }
+    int numRightNodes = _rightNodes.size();
+    for (int i = 0; i < numRightNodes; i++) {
+      List<TransformOperand> operands = _rightOperands.get(i);
+      if (_rightNodes.get(i) instanceof FilterNode) {
+        if (!BooleanUtils.isTrueInternalValue(operands.get(0).apply(rightRow))) {
+          return null;
+        }
+      } else {
+        int numOperands = operands.size();
+        Object[] projectedRow = new Object[numOperands];
+        for (int j = 0; j < numOperands; j++) {
+          projectedRow[j] = operands.get(j).apply(rightRow);
+        }
+        rightRow = projectedRow;
+      }
+    }
+    return rightRow;
+  }
+
+  private boolean matchNonEquiConditions(Object[] joinedRow) {
+    for (TransformOperand evaluator : _nonEquiEvaluators) {
+      if (!BooleanUtils.isTrueInternalValue(evaluator.apply(joinedRow))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Object[] joinRow(Object[] leftRow, @Nullable Object[] rightRow) {
+    Object[] resultRow = new Object[_leftColumnSize + _rightColumnSize];
+    System.arraycopy(leftRow, 0, resultRow, 0, _leftColumnSize);
+    if (rightRow != null) {
+      System.arraycopy(rightRow, 0, resultRow, _leftColumnSize, _rightColumnSize);
+    }
+    return resultRow;
+  }
+
+  /**
+   * Converts the left key value to the value of the primary key column within the lookup table, i.e. numbers are
+   * converted to the stored type, and BYTES values are wrapped with {@link ByteArray} (same as
+   * {@link GenericRow#getPrimaryKey(List)}).
+   */
+  @VisibleForTesting
+  static Object toPrimaryKeyValue(Object value, DataType storedType) {
+    switch (storedType) {
+      case INT:
+        return ((Number) value).intValue();
+      case LONG:
+        return ((Number) value).longValue();
+      case FLOAT:
+        return ((Number) value).floatValue();
+      case DOUBLE:
+        return ((Number) value).doubleValue();
+      case BYTES:
+        return value instanceof byte[] ? new ByteArray((byte[]) value) : value;
+      default:
+        return value;
+    }
+  }
+
+  /**
+   * Converts the stored value of the dimension table to the internal value used by the multi-stage engine, where BYTES
+   * values are wrapped with {@link ByteArray}, and multi-value columns are stored as primitive arrays.
+   */
+  private static Object toInternalValue(Object value, ColumnDataType columnDataType) {
+    switch (columnDataType) {
+      case BYTES:
+        return value instanceof byte[] ? new ByteArray((byte[]) value) : value;
+      case INT_ARRAY:
+      case BOOLEAN_ARRAY: {
+        if (!(value instanceof Object[])) {
+          return value;
+        }
+        Object[] values = (Object[]) value;
+        int[] intValues = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+          intValues[i] = ((Number) values[i]).intValue();
+        }
+        return intValues;
+      }
+      case LONG_ARRAY:
+      case TIMESTAMP_ARRAY: {
+        if (!(value instanceof Object[])) {
+          return value;
+        }
+        Object[] values = (Object[]) value;
+        long[] longValues = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+          longValues[i] = ((Number) values[i]).longValue();
+        }
+        return longValues;
+      }
+      case FLOAT_ARRAY: {
+        if (!(value instanceof Object[])) {
+          return value;
+        }
+        Object[] values = (Object[]) value;
+        float[] floatValues = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+          floatValues[i] = ((Number) values[i]).floatValue();
+        }
+        return floatValues;
+      }
+      case DOUBLE_ARRAY: {
+        if (!(value instanceof Object[])) {
+          return value;
+        }
+        Object[] values = (Object[]) value;
+        double[] doubleValues = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+          doubleValues[i] = ((Number) values[i]).doubleValue();
+        }
+        return doubleValues;
+      }
+      case STRING_ARRAY: {
+        if (!(value instanceof Object[]) || value instanceof String[]) {
+          return value;
+        }
+        Object[] values = (Object[]) value;
+        String[] stringValues = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+          stringValues[i] = (String) values[i];
+        }
+        return stringValues;
+      }
+      default:
+        return value;
+    }
+  }
+
+  public enum StatKey implements StatMap.Key {
+    //@formatter:off
+    EXECUTION_TIME_MS(StatMap.Type.LONG) {
+      @Override
+      public boolean includeDefaultInJson() {
+        return true;
+      }
+    },
+    EMITTED_ROWS(StatMap.Type.LONG) {
+      @Override
+      public boolean includeDefaultInJson() {
+        return true;
+      }
+    };
+    //@formatter:on
+
+    private final StatMap.Type _type;
+
+    StatKey(StatMap.Type type) {
+      _type = type;
+    }
+
+    @Override
+    public StatMap.Type getType() {
+      return _type;
+    }
+  }
+}
@@ -22,7 +22,9 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -40,7 +42,9 @@ import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
 import org.apache.pinot.query.runtime.operator.exchange.BlockExchange;
 import org.apache.pinot.query.runtime.plan.MultiStageQueryStats;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
 import org.apache.pinot.spi.exception.QueryCancelledException;
+import org.apache.pinot.spi.utils.ByteArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,9 +68,7 @@ public class MailboxSendOperator extends MultiStageOperator {
 
   // TODO: Support sort on sender
   public MailboxSendOperator(OpChainExecutionContext context, MultiStageOperator input, MailboxSendNode node) {
-    this(context, input,
-        statMap -> getBlockExchange(context, node.getReceiverStageId(), node.getDistributionType(), node.getKeys(),
-            statMap));
+    this(context, input, statMap -> getBlockExchange(context, node, statMap));
     _statMap.merge(StatKey.STAGE, context.getStageId());
     _statMap.merge(StatKey.PARALLELISM, 1);
   }
@@ -79,8 +81,10 @@ public class MailboxSendOperator extends MultiStageOperator {
     _exchange = exchangeFactory.apply(_statMap);
   }
 
-  private static BlockExchange getBlockExchange(OpChainExecutionContext context, int receiverStageId,
-      RelDistribution.Type distributionType, List<Integer> keys, StatMap<StatKey> statMap) {
+  private static BlockExchange getBlockExchange(OpChainExecutionContext context, MailboxSendNode node,
+      StatMap<StatKey> statMap) {
+    int receiverStageId = node.getReceiverStageId();
+    RelDistribution.Type distributionType = node.getDistributionType();
     Preconditions.checkState(SUPPORTED_EXCHANGE_TYPES.contains(distributionType), "Unsupported distribution type: %s",
         distributionType);
     MailboxService mailboxService = context.getMailboxService();
@@ -93,10 +97,29 @@ public class MailboxSendOperator extends MultiStageOperator {
         MailboxIdUtils.toRoutingInfos(requestId, context.getStageId(), context.getWorkerId(), receiverStageId,
             mailboxInfos);
     List<SendingMailbox> sendingMailboxes = routingInfos.stream()
-        .map(v -> mailboxService.getSendingMailbox(v.getHostname(), v.getPort(), v.getMailboxId(), deadlineMs, statMap))
+        .map(v -> mailboxService.getSendingMailbox(v.getHostname(), v.getPort(), v.getMailboxId(), deadlineMs, statMap,
+            context.getOpChainMetadata()))
         .collect(Collectors.toList());
     statMap.merge(StatKey.FAN_OUT, sendingMailboxes.size());
-    return BlockExchange.getExchange(sendingMailboxes, distributionType, keys, TransferableBlockUtils::splitBlock);
+    return BlockExchange.getExchange(sendingMailboxes, distributionType, node.getKeys(), node.getSkewHandling(),
+        node.getSkewSaltFactor(), getHotKeys(node), TransferableBlockUtils::splitBlock);
+  }
+
+  /**
+   * Converts the hot values of the first key specified in the join hint into the values stored in the rows.
+   */
+  private static Set<Object> getHotKeys(MailboxSendNode node) {
+    List<String> skewKeys = node.getSkewKeys();
+    if (node.getSkewHandling() == MailboxSendNode.SkewHandling.NONE || skewKeys.isEmpty() || node.getKeys().isEmpty()) {
+      return Set.of();
+    }
+    DataType dataType = node.getDataSchema().getColumnDataType(node.getKeys().get(0)).toDataType();
+    Set<Object> hotKeys = new HashSet<>();
+    for (String skewKey : skewKeys) {
+      Object hotKey = dataType.convert(skewKey);
+      hotKeys.add(hotKey instanceof byte[] ? new ByteArray((byte[]) hotKey) : hotKey);
+    }
+    return hotKeys;
   }
 
   @Override
@@ -128,8 +151,17 @@ public class MailboxSendOperator extends MultiStageOperator {
   @Override
   protected TransferableBlock getNextBlock() {
     try {
+      if (_exchange.hasPendingBlocks() && !_exchange.sendPendingBlocks()) {
+        // The receivers cannot accept more data yet, the OpChain is re-scheduled when they grant more credit
+        return TransferableBlockUtils.getYieldTransferableBlock();
+      }
       TransferableBlock block = _input.nextBlock();
+      if (block.isYieldBlock()) {
+        // Nothing to send yet, the OpChain is re-scheduled when new data is available
+        return block;
+      }
       if (block.isSuccessfulEndOfStreamBlock()) {
+        _exchange.updateStats(_statMap);
         updateEosBlock(block, _statMap);
         // no need to check early terminate signal b/c the current block is already EOS
         sendTransferableBlock(block);
@@ -169,7 +201,10 @@ public class MailboxSendOperator extends MultiStageOperator {
 
   private boolean sendTransferableBlock(TransferableBlock block)
       throws Exception {
-    boolean isEarlyTerminated = _exchange.send(block);
+    // When the OpChain can yield, do not wait for the receivers to grant credit, but keep the blocks pending and resume
+    // the OpChain via the same callback as the receive side
+    boolean isEarlyTerminated =
+        _context.isYieldEnabled() ? _exchange.send(block, _context::notifyDataAvailable) : _exchange.send(block);
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("==[SEND]== Block " + block + " sent from: " + _context.getId());
     }
@@ -276,7 +311,58 @@ public class MailboxSendOperator extends MultiStageOperator {
       public boolean includeDefaultInJson() {
         return true;
       }
-    };
+    },
+    /**
+     * How many bytes have been sent by this mailbox when compression is enabled, where blocks smaller than the
+     * compression threshold are counted with their serialized size.
+     * <p>
+     * The relation between SERIALIZED_BYTES and COMPRESSED_BYTES is the compression ratio of the exchange.
+     */
+    COMPRESSED_BYTES(StatMap.Type.LONG),
+    /**
+     * How long (in CPU time) it took to compress the raw messages sent by this mailbox.
+     */
+    COMPRESSION_TIME_MS(StatMap.Type.LONG),
+    /**
+     * How long (in wall time) this mailbox waited for the receiver to grant enough credit to send more data.
+     */
+    FLOW_CONTROL_WAIT_TIME_MS(StatMap.Type.LONG),
+    /**
+     * Max number of rows sent to a single receiving mailbox by a sender. Compared with EMITTED_ROWS / FAN_OUT, it shows
+     * how skewed the data distribution is.
+     */
+    MAX_MAILBOX_ROWS(StatMap.Type.LONG) {
+      @Override
+      public long merge(long value1, long value2) {
+        return Math.max(value1, value2);
+      }
+    },
+    /**
+     * Max number of bytes sent to a single receiving mailbox by a sender. Blocks passed in memory are not counted.
+     */
+    MAX_MAILBOX_BYTES(StatMap.Type.LONG) {
+      @Override
+      public long merge(long value1, long value2) {
+        return Math.max(value1, value2);
+      }
+    },
+    /**
+     * Max number of hot keys seen by a sender when the hot keys are spread across multiple receivers.
+     */
+    SKEWED_KEYS(StatMap.Type.INT) {
+      @Override
+      public int merge(int value1, int value2) {
+        return Math.max(value1, value2);
+      }
+    },
+    /**
+     * How many rows of the hot keys have been spread across multiple receivers.
+     */
+    SKEWED_ROWS(StatMap.Type.LONG),
+    /**
+     * How many extra copies of the rows have been sent to replicate them for the hot keys spread by the other side.
+     */
+    REPLICATED_ROWS(StatMap.Type.LONG);
     //@formatter:on
 
     private final StatMap.Type _type;
@@ -356,6 +356,23 @@ public abstract class MultiStageOperator
           serverMetrics.addMeteredGlobalValue(ServerMeter.WINDOW_TIMES_MAX_ROWS_REACHED, 1);
         }
       }
+    },
+    // NOTE: New types are appended at the end because the type is serialized by ordinal.
+    SORT_MERGE_JOIN(SortMergeJoinOperator.StatKey.class) {
+      @Override
+      public void mergeInto(BrokerResponseNativeV2 response, StatMap<?> map) {
+        @SuppressWarnings("unchecked")
+        StatMap<SortMergeJoinOperator.StatKey> stats = (StatMap<SortMergeJoinOperator.StatKey>) map;
+        response.mergeMaxRowsInOperator(stats.getLong(SortMergeJoinOperator.StatKey.EMITTED_ROWS));
+      }
+    },
+    LOOKUP_JOIN(LookupJoinOperator.StatKey.class) {
+      @Override
+      public void mergeInto(BrokerResponseNativeV2 response, StatMap<?> map) {
+        @SuppressWarnings("unchecked")
+        StatMap<LookupJoinOperator.StatKey> stats = (StatMap<LookupJoinOperator.StatKey>) map;
+        response.mergeMaxRowsInOperator(stats.getLong(LookupJoinOperator.StatKey.EMITTED_ROWS));
+      }
     },;
 
     private final Class _statKeyClass;
@@ -18,11 +18,14 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import com.google.common.base.Preconditions;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import javax.annotation.Nullable;
 import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
 import org.apache.pinot.common.datablock.DataBlock;
@@ -41,16 +44,29 @@ import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.operator.groupby.GroupIdGenerator;
 import org.apache.pinot.query.runtime.operator.groupby.GroupIdGeneratorFactory;
+import org.apache.pinot.query.runtime.operator.utils.SpillFile;
 import org.apache.pinot.query.runtime.operator.utils.TypeUtils;
+import org.apache.pinot.spi.utils.CommonConstants.MultiStageQueryRunner.GroupByOverFlowMode;
 import org.roaringbitmap.PeekableIntIterator;
 import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
  * Class that executes the group by aggregations for the multistage AggregateOperator.
+ *
+ * <p>When the group-by overflow mode is {@link GroupByOverFlowMode#SPILL}, the groups are not limited by the num groups
+ * limit. Instead, once the number of groups in memory reaches the limit, their intermediate results are written into
+ * hash partitioned {@link SpillFile}s and the in-memory groups are reset. After all the input is processed, each
+ * partition is read back and merged on its own (see {@link #getNextSpilledResult()}).
  */
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class MultistageGroupByExecutor {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MultistageGroupByExecutor.class);
+  private static final GroupByOverFlowMode DEFAULT_GROUP_BY_OVERFLOW_MODE = GroupByOverFlowMode.BREAK;
+  private static final int DEFAULT_NUM_SPILL_PARTITIONS = 16;
+
   private final int[] _groupKeyIds;
   private final AggregationFunction[] _aggFunctions;
   private final int[] _filterArgIds;
@@ -58,14 +74,22 @@ public class MultistageGroupByExecutor {
   private final AggType _aggType;
   private final DataSchema _resultSchema;
   private final int _numGroupsLimit;
+  private final int _maxInitialResultHolderCapacity;
+  private final boolean _spillEnabled;
+  private final int _numSpillPartitions;
 
   // Group By Result holders for each mode
-  private final GroupByResultHolder[] _aggregateResultHolders;
-  private final List<Object[]> _mergeResultHolder;
+  private GroupByResultHolder[] _aggregateResultHolders;
+  private List<Object[]> _mergeResultHolder;
 
   // Mapping from the row-key to a zero based integer index. This is used when we invoke the v1 aggregation functions
   // because they use the zero based integer indexes to store results.
-  private final GroupIdGenerator _groupIdGenerator;
+  private GroupIdGenerator _groupIdGenerator;
+
+  // Below are used only after the groups are spilled in SPILL mode.
+  private SpillFile[] _spillFiles;
+  private int _currentSpillPartition;
+  private long _numSpilledGroups;
 
   public MultistageGroupByExecutor(int[] groupKeyIds, AggregationFunction[] aggFunctions, int[] filterArgIds,
       int maxFilterArgId, AggType aggType, DataSchema resultSchema, Map<String, String> opChainMetadata,
@@ -76,25 +100,61 @@ public class MultistageGroupByExecutor {
     _maxFilterArgId = maxFilterArgId;
     _aggType = aggType;
     _resultSchema = resultSchema;
-    int maxInitialResultHolderCapacity = getMaxInitialResultHolderCapacity(opChainMetadata, nodeHint);
+    _maxInitialResultHolderCapacity = getMaxInitialResultHolderCapacity(opChainMetadata, nodeHint);
     _numGroupsLimit = getNumGroupsLimit(opChainMetadata, nodeHint);
+    _spillEnabled = getGroupByOverflowMode(nodeHint) == GroupByOverFlowMode.SPILL;
+    _numSpillPartitions = getNumSpillPartitions(nodeHint);
+    initGroups();
+  }
 
-    int numFunctions = aggFunctions.length;
-    if (!aggType.isInputIntermediateFormat()) {
+  /**
+   * Initializes the in-memory groups. In SPILL mode, the groups are not limited here because the spilling is
+   * triggered after processing the block which reaches the num groups limit.
+   */
+  private void initGroups() {
+    int maxNumGroups = _spillEnabled ? Integer.MAX_VALUE : _numGroupsLimit;
+    int numFunctions = _aggFunctions.length;
+    if (!_aggType.isInputIntermediateFormat()) {
       _aggregateResultHolders = new GroupByResultHolder[numFunctions];
       for (int i = 0; i < numFunctions; i++) {
         _aggregateResultHolders[i] =
-            _aggFunctions[i].createGroupByResultHolder(maxInitialResultHolderCapacity, _numGroupsLimit);
+            _aggFunctions[i].createGroupByResultHolder(_maxInitialResultHolderCapacity, maxNumGroups);
       }
       _mergeResultHolder = null;
     } else {
-      _mergeResultHolder = new ArrayList<>(maxInitialResultHolderCapacity);
+      _mergeResultHolder = new ArrayList<>(_maxInitialResultHolderCapacity);
       _aggregateResultHolders = null;
     }
 
     _groupIdGenerator =
-        GroupIdGeneratorFactory.getGroupIdGenerator(_resultSchema.getStoredColumnDataTypes(), groupKeyIds.length,
-            _numGroupsLimit);
+        GroupIdGeneratorFactory.getGroupIdGenerator(_resultSchema.getStoredColumnDataTypes(), _groupKeyIds.length,
+            maxNumGroups);
+  }
+
+  @Nullable
+  private static String getAggregateHintOption(@Nullable PlanNode.NodeHint nodeHint, String option) {
+    if (nodeHint == null) {
+      return null;
+    }
+    Map<String, String> aggregateOptions = nodeHint.getHintOptions().get(PinotHintOptions.AGGREGATE_HINT_OPTIONS);
+    return aggregateOptions != null ? aggregateOptions.get(option) : null;
+  }
+
+  private GroupByOverFlowMode getGroupByOverflowMode(@Nullable PlanNode.NodeHint nodeHint) {
+    String overflowModeStr = getAggregateHintOption(nodeHint, PinotHintOptions.AggregateOptions.GROUP_BY_OVERFLOW_MODE);
+    return overflowModeStr != null ? GroupByOverFlowMode.valueOf(overflowModeStr) : DEFAULT_GROUP_BY_OVERFLOW_MODE;
+  }
+
+  private int getNumSpillPartitions(@Nullable PlanNode.NodeHint nodeHint) {
+    String numSpillPartitionsStr =
+        getAggregateHintOption(nodeHint, PinotHintOptions.AggregateOptions.NUM_SPILL_PARTITIONS);
+    if (numSpillPartitionsStr == null) {
+      return DEFAULT_NUM_SPILL_PARTITIONS;
+    }
+    int numSpillPartitions = Integer.parseInt(numSpillPartitionsStr);
+    Preconditions.checkState(numSpillPartitions > 0, "Number of spill partitions must be positive, got: %s",
+        numSpillPartitions);
+    return numSpillPartitions;
   }
 
   private int getNumGroupsLimit(Map<String, String> opChainMetadata, @Nullable PlanNode.NodeHint nodeHint) {
@@ -135,12 +195,221 @@ public class MultistageGroupByExecutor {
   /**
    * Performs group-by aggregation for the data in the block.
    */
-  public void processBlock(TransferableBlock block) {
+  public void processBlock(TransferableBlock block)
+      throws IOException {
     if (!_aggType.isInputIntermediateFormat()) {
       processAggregate(block);
     } else {
       processMerge(block);
     }
+    if (_spillEnabled && _groupIdGenerator.getNumGroups() >= _numGroupsLimit) {
+      spillGroups();
+    }
+  }
+
+  public boolean isSpillEnabled() {
+    return _spillEnabled;
+  }
+
+  public boolean isSpilled() {
+    return _spillFiles != null;
+  }
+
+  /**
+   * Writes the intermediate results of the in-memory groups into the hash partitioned spill files, then resets the
+   * in-memory groups.
+   */
+  private void spillGroups()
+      throws IOException {
+    int numKeys = _groupKeyIds.length;
+    int numFunctions = _aggFunctions.length;
+    if (_spillFiles == null) {
+      LOGGER.info("Group-by reached {} groups, spilling into {} partitions", _groupIdGenerator.getNumGroups(),
+          _numSpillPartitions);
+      DataSchema spillSchema = getSpillSchema();
+      _spillFiles = new SpillFile[_numSpillPartitions];
+      for (int i = 0; i < _numSpillPartitions; i++) {
+        _spillFiles[i] = new SpillFile(spillSchema);
+      }
+    }
+    ColumnDataType[] spillStoredTypes = _spillFiles[0].getDataSchema().getStoredColumnDataTypes();
+    Iterator<GroupIdGenerator.GroupKey> groupKeyIterator =
+        _groupIdGenerator.getGroupKeyIterator(numKeys + numFunctions);
+    while (groupKeyIterator.hasNext()) {
+      GroupIdGenerator.GroupKey groupKey = groupKeyIterator.next();
+      Object[] row = groupKey._row;
+      for (int i = 0; i < numFunctions; i++) {
+        row[numKeys + i] = getIntermediateResultValue(i, groupKey._groupId);
+      }
+      TypeUtils.convertRow(row, spillStoredTypes);
+      _spillFiles[SpillFile.getPartition(hashKeys(row), _numSpillPartitions)].add(row);
+    }
+    _numSpilledGroups += _groupIdGenerator.getNumGroups();
+    initGroups();
+  }
+
+  /**
+   * Returns the schema of the spilled rows: the group keys followed by the intermediate results.
+   */
+  private DataSchema getSpillSchema() {
+    int numKeys = _groupKeyIds.length;
+    int numFunctions = _aggFunctions.length;
+    ColumnDataType[] columnDataTypes = new ColumnDataType[numKeys + numFunctions];
+    for (int i = 0; i < numKeys; i++) {
+      columnDataTypes[i] = _resultSchema.getColumnDataType(i);
+    }
+    for (int i = 0; i < numFunctions; i++) {
+      columnDataTypes[numKeys + i] = _aggFunctions[i].getIntermediateResultColumnType();
+    }
+    return new DataSchema(_resultSchema.getColumnNames(), columnDataTypes);
+  }
+
+  private int hashKeys(Object[] row) {
+    int hash = 1;
+    for (int i = 0; i < _groupKeyIds.length; i++) {
+      hash = 31 * hash + Objects.hashCode(row[i]);
+    }
+    return hash;
+  }
+
+  private Object getIntermediateResultValue(int functionId, int groupId) {
+    if (!_aggType.isInputIntermediateFormat()) {
+      return _aggFunctions[functionId].extractGroupByResult(_aggregateResultHolders[functionId], groupId);
+    } else {
+      return _mergeResultHolder.get(groupId)[functionId];
+    }
+  }
+
+  /**
+   * Spills the remaining in-memory groups, and finishes the spill files. Must be called once after all the input
+   * blocks are processed when the groups are spilled.
+   */
+  public void finishSpilling()
+      throws IOException {
+    assert _spillFiles != null;
+    if (_groupIdGenerator.getNumGroups() > 0) {
+      spillGroups();
+    }
+    for (SpillFile spillFile : _spillFiles) {
+      spillFile.finish();
+    }
+  }
+
+  public long getNumSpilledGroups() {
+    return _numSpilledGroups;
+  }
+
+  public int getNumSpillPartitions() {
+    return _numSpillPartitions;
+  }
+
+  public long getSpilledBytes() {
+    long spilledBytes = 0;
+    for (SpillFile spillFile : _spillFiles) {
+      spilledBytes += spillFile.getNumBytes();
+    }
+    return spilledBytes;
+  }
+
+  /**
+   * Merges the next non-empty spill partition and returns its groups, or {@code null} when all the partitions are
+   * merged.
+   */
+  @Nullable
+  public List<Object[]> getNextSpilledResult()
+      throws IOException {
+    while (_currentSpillPartition < _numSpillPartitions) {
+      List<Object[]> rows;
+      try {
+        rows = mergeSpillPartition(_spillFiles[_currentSpillPartition]);
+      } finally {
+        _spillFiles[_currentSpillPartition].close();
+        _currentSpillPartition++;
+      }
+      if (!rows.isEmpty()) {
+        return rows;
+      }
+    }
+    return null;
+  }
+
+  private List<Object[]> mergeSpillPartition(SpillFile spillFile)
+      throws IOException {
+    int numKeys = _groupKeyIds.length;
+    int numFunctions = _aggFunctions.length;
+    GroupIdGenerator groupIdGenerator =
+        GroupIdGeneratorFactory.getGroupIdGenerator(_resultSchema.getStoredColumnDataTypes(), numKeys,
+            Integer.MAX_VALUE);
+    List<Object[]> mergedResultHolder = new ArrayList<>();
+    Object[] key = numKeys > 1 ? new Object[numKeys] : null;
+    try (SpillFile.Reader reader = spillFile.openReader()) {
+      List<Object[]> rows;
+      while ((rows = reader.nextRows()) != null) {
+        for (Object[] row : rows) {
+          int groupId;
+          if (key == null) {
+            groupId = groupIdGenerator.getGroupId(row[0]);
+          } else {
+            System.arraycopy(row, 0, key, 0, numKeys);
+            groupId = groupIdGenerator.getGroupId(key);
+          }
+          Object[] mergedResults;
+          if (mergedResultHolder.size() == groupId) {
+            mergedResults = new Object[numFunctions];
+            mergedResultHolder.add(mergedResults);
+          } else {
+            mergedResults = mergedResultHolder.get(groupId);
+          }
+          for (int i = 0; i < numFunctions; i++) {
+            Object intermediateResult = row[numKeys + i];
+            if (intermediateResult == null) {
+              continue;
+            }
+            if (mergedResults[i] == null) {
+              mergedResults[i] = intermediateResult;
+            } else {
+              mergedResults[i] = _aggFunctions[i].merge(mergedResults[i], intermediateResult);
+            }
+          }
+        }
+      }
+    }
+    int numGroups = groupIdGenerator.getNumGroups();
+    if (numGroups == 0) {
+      return Collections.emptyList();
+    }
+    List<Object[]> results = new ArrayList<>(numGroups);
+    ColumnDataType[] resultStoredTypes = _resultSchema.getStoredColumnDataTypes();
+    Iterator<GroupIdGenerator.GroupKey> groupKeyIterator = groupIdGenerator.getGroupKeyIterator(numKeys + numFunctions);
+    while (groupKeyIterator.hasNext()) {
+      GroupIdGenerator.GroupKey groupKey = groupKeyIterator.next();
+      Object[] mergedResults = mergedResultHolder.get(groupKey._groupId);
+      Object[] row = groupKey._row;
+      for (int i = 0; i < numFunctions; i++) {
+        row[numKeys + i] = _aggType.isOutputIntermediateFormat() ? mergedResults[i]
+            : _aggFunctions[i].extractFinalResult(mergedResults[i]);
+      }
+      TypeUtils.convertRow(row, resultStoredTypes);
+      results.add(row);
+    }
+    return results;
+  }
+
+  /**
+   * Deletes the spill files which are not merged yet.
+   */
+  public void releaseSpillFiles() {
+    if (_spillFiles == null) {
+      return;
+    }
+    for (int i = _currentSpillPartition; i < _numSpillPartitions; i++) {
+      try {
+        _spillFiles[i].close();
+      } catch (IOException e) {
+        LOGGER.warn("Caught exception while deleting spill file of partition: {}", i, e);
+      }
+    }
+    _currentSpillPartition = _numSpillPartitions;
   }
 
   /**
@@ -189,8 +458,20 @@ public class MultistageGroupByExecutor {
     }
   }
 
+  public int getNumGroups() {
+    return _groupIdGenerator.getNumGroups();
+  }
+
+  /**
+   * Clears the in-memory groups so that the executor can be reused to aggregate the next input block on its own, e.g.
+   * when the partial aggregation is bypassed. The rows returned by {@link #getResult()} are not affected.
+   */
+  public void clearGroups() {
+    initGroups();
+  }
+
   public boolean isNumGroupsLimitReached() {
-    return _groupIdGenerator.getNumGroups() == _numGroupsLimit;
+    return !_spillEnabled && _groupIdGenerator.getNumGroups() == _numGroupsLimit;
   }
 
   private void processAggregate(TransferableBlock block) {
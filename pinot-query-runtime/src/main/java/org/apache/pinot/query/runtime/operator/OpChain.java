@@ -34,6 +34,7 @@ public class OpChain implements AutoCloseable {
   private static final Logger LOGGER = LoggerFactory.getLogger(OpChain.class);
 
   private final OpChainId _id;
+  private final OpChainExecutionContext _context;
   private final MultiStageOperator _root;
   private final Consumer<OpChainId> _finishCallback;
 
@@ -44,6 +45,7 @@ public class OpChain implements AutoCloseable {
 
   public OpChain(OpChainExecutionContext context, MultiStageOperator root, Consumer<OpChainId> finishCallback) {
     _id = context.getId();
+    _context = context;
     _root = root;
     _finishCallback = finishCallback;
   }
@@ -52,6 +54,10 @@ public class OpChain implements AutoCloseable {
     return _id;
   }
 
+  public OpChainExecutionContext getContext() {
+    return _context;
+  }
+
   public Operator<TransferableBlock> getRoot() {
     return _root;
   }
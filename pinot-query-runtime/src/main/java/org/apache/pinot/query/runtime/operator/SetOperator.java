@@ -104,6 +104,10 @@ public abstract class SetOperator extends MultiStageOperator {
     if (!_isRightSetBuilt) {
       // construct a SET with all the right side rows.
       constructRightBlockSet();
+      if (!_isRightSetBuilt && _upstreamErrorBlock == null) {
+        // The right input yielded, the set building is resumed on the next call
+        return TransferableBlockUtils.getYieldTransferableBlock();
+      }
     }
     if (_upstreamErrorBlock != null) {
       return _upstreamErrorBlock;
@@ -114,6 +118,9 @@ public abstract class SetOperator extends MultiStageOperator {
   protected void constructRightBlockSet() {
     TransferableBlock block = _rightChildOperator.nextBlock();
     while (!block.isEndOfStreamBlock()) {
+      if (block.isYieldBlock()) {
+        return;
+      }
       if (block.getType() != DataBlock.Type.METADATA) {
         for (Object[] row : block.getContainer()) {
           _rightRowSet.add(new Record(row));
@@ -135,7 +142,7 @@ public abstract class SetOperator extends MultiStageOperator {
     // TODO: Consider batching the rows to improve performance.
     while (true) {
       TransferableBlock leftBlock = _leftChildOperator.nextBlock();
-      if (leftBlock.isErrorBlock()) {
+      if (leftBlock.isErrorBlock() || leftBlock.isYieldBlock()) {
         return leftBlock;
       }
       if (leftBlock.isSuccessfulEndOfStreamBlock()) {
@@ -0,0 +1,486 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datatable.StatMap;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.planner.plannode.JoinNode;
+import org.apache.pinot.query.planner.plannode.MailboxReceiveNode;
+import org.apache.pinot.query.planner.plannode.PlanNode;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.operands.TransformOperand;
+import org.apache.pinot.query.runtime.operator.operands.TransformOperandFactory;
+import org.apache.pinot.query.runtime.operator.utils.SortUtils;
+import org.apache.pinot.query.runtime.plan.MultiStageQueryStats;
+import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.spi.utils.BooleanUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The {@code SortMergeJoinOperator} joins two inputs that are both sorted on the join keys (ascending, nulls last),
+ * e.g. received through sorted mailboxes.
+ *
+ * <p>Both inputs are consumed as streams: the operator only buffers the right rows sharing the current join key, and
+ * emits the joined rows as soon as a batch is ready, or before blocking on the next input block. Rows with a null join
+ * key never match. Only INNER and LEFT joins are supported.
+ *
+ * <p>NOTE: This operator does not reduce the memory footprint compared to the hash join. The inputs are sorted by the
+ * {@link SortedMailboxReceiveOperator}, which buffers all the received rows before sorting them (the senders do not
+ * sort), so both inputs are fully materialized in memory. It only avoids building the hash table, and keeps the output
+ * sorted on the join keys.
+ *
+ * <p>The output is in the format of [left_row, right_row].
+ */
+public class SortMergeJoinOperator extends MultiStageOperator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SortMergeJoinOperator.class);
+  private static final String EXPLAIN_NAME = "SORT_MERGE_JOIN";
+  private static final int MAX_ROWS_PER_BLOCK = 10_000;
+
+  private static final Set<JoinRelType> SUPPORTED_JOIN_TYPES = Set.of(JoinRelType.INNER, JoinRelType.LEFT);
+
+  private final SortedInput _leftInput;
+  private final SortedInput _rightInput;
+  private final JoinRelType _joinType;
+  private final int[] _leftKeyIds;
+  private final int[] _rightKeyIds;
+  private final ColumnDataType[] _keyStoredTypes;
+  private final DataSchema _resultSchema;
+  private final int _leftColumnSize;
+  private final int _resultColumnSize;
+  private final List<TransformOperand> _nonEquiEvaluators;
+  private final StatMap<StatKey> _statMap = new StatMap<>(StatKey.class);
+
+  // Right rows sharing the same join key, matched against the current left row(s).
+  private final List<Object[]> _rightKeyGroup = new ArrayList<>();
+  private boolean _isRightKeyGroupComplete;
+  // Needed to indicate we have finished processing all results after returning last block.
+  private boolean _isTerminated;
+  // Set when no more rows can be joined and the inputs are being drained, which can be interrupted by a yield block
+  private boolean _isFinishing;
+  private MultiStageQueryStats _leftSideStats;
+
+  public SortMergeJoinOperator(OpChainExecutionContext context, MultiStageOperator leftInput, DataSchema leftSchema,
+      MultiStageOperator rightInput, JoinNode node) {
+    super(context);
+    Preconditions.checkState(SUPPORTED_JOIN_TYPES.contains(node.getJoinType()),
+        "Join type: %s is not supported by sort merge join", node.getJoinType());
+    Preconditions.checkState(!node.getLeftKeys().isEmpty(), "Sort merge join requires join keys");
+    _joinType = node.getJoinType();
+    _leftKeyIds = toIntArray(node.getLeftKeys());
+    _rightKeyIds = toIntArray(node.getRightKeys());
+    int numKeys = _leftKeyIds.length;
+    _keyStoredTypes = new ColumnDataType[numKeys];
+    for (int i = 0; i < numKeys; i++) {
+      _keyStoredTypes[i] = leftSchema.getColumnDataType(_leftKeyIds[i]).getStoredType();
+    }
+    _leftColumnSize = leftSchema.size();
+    _resultSchema = node.getDataSchema();
+    _resultColumnSize = _resultSchema.size();
+    Preconditions.checkState(_resultColumnSize >= _leftColumnSize,
+        "Result column size: %s has to be greater than or equal to left column size: %s", _resultColumnSize,
+        _leftColumnSize);
+    _leftInput = new SortedInput(leftInput);
+    _rightInput = new SortedInput(rightInput);
+    List<RexExpression> nonEquiConditions = node.getNonEquiConditions();
+    _nonEquiEvaluators = new ArrayList<>(nonEquiConditions.size());
+    for (RexExpression nonEquiCondition : nonEquiConditions) {
+      _nonEquiEvaluators.add(TransformOperandFactory.getTransformOperand(nonEquiCondition, _resultSchema));
+    }
+  }
+
+  /**
+   * Returns whether the join can be executed as a sort merge join, i.e. it is an INNER or LEFT equi-join, and both
+   * inputs are received sorted on the join keys (ascending, nulls last).
+   */
+  public static boolean canApply(JoinNode node) {
+    if (!SUPPORTED_JOIN_TYPES.contains(node.getJoinType()) || node.getLeftKeys().isEmpty()) {
+      return false;
+    }
+    List<PlanNode> inputs = node.getInputs();
+    return inputs.size() == 2 && isSortedOnKeys(inputs.get(0), node.getLeftKeys()) && isSortedOnKeys(inputs.get(1),
+        node.getRightKeys());
+  }
+
+  private static boolean isSortedOnKeys(PlanNode input, List<Integer> keys) {
+    if (!(input instanceof MailboxReceiveNode) || !((MailboxReceiveNode) input).isSort()) {
+      return false;
+    }
+    List<RelFieldCollation> collations = ((MailboxReceiveNode) input).getCollations();
+    int numKeys = keys.size();
+    if (collations.size() < numKeys) {
+      return false;
+    }
+    for (int i = 0; i < numKeys; i++) {
+      RelFieldCollation collation = collations.get(i);
+      if (collation.getFieldIndex() != keys.get(i) || collation.direction != RelFieldCollation.Direction.ASCENDING
+          || collation.nullDirection == RelFieldCollation.NullDirection.FIRST) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int[] toIntArray(List<Integer> list) {
+    int size = list.size();
+    int[] array = new int[size];
+    for (int i = 0; i < size; i++) {
+      array[i] = list.get(i);
+    }
+    return array;
+  }
+
+  @Override
+  public void registerExecution(long time, int numRows) {
+    _statMap.merge(StatKey.EXECUTION_TIME_MS, time);
+    _statMap.merge(StatKey.EMITTED_ROWS, numRows);
+  }
+
+  @Override
+  public Type getOperatorType() {
+    return Type.SORT_MERGE_JOIN;
+  }
+
+  @Override
+  protected Logger logger() {
+    return LOGGER;
+  }
+
+  @Override
+  public List<MultiStageOperator> getChildOperators() {
+    return List.of(_leftInput._operator, _rightInput._operator);
+  }
+
+  @Override
+  public String toExplainString() {
+    return EXPLAIN_NAME;
+  }
+
+  @Override
+  protected TransferableBlock getNextBlock() {
+    if (_isTerminated) {
+      assert _leftSideStats != null;
+      return TransferableBlockUtils.getEndOfStreamTransferableBlock(_leftSideStats);
+    }
+    if (_isFinishing) {
+      return finish(new ArrayList<>());
+    }
+    List<Object[]> rows = new ArrayList<>();
+    while (rows.size() < MAX_ROWS_PER_BLOCK) {
+      // Fetch the next left row
+      if (!_leftInput.hasRow()) {
+        if (_leftInput.isFinished()) {
+          return finish(rows);
+        }
+        if (!rows.isEmpty()) {
+          break;
+        }
+        TransferableBlock block = _leftInput.fetchNextBlock();
+        if (block != null) {
+          return block;
+        }
+        continue;
+      }
+      Object[] leftRow = _leftInput.peek();
+      if (hasNullKey(leftRow, _leftKeyIds)) {
+        addUnmatchedLeftRow(rows, leftRow);
+        _leftInput.advance();
+        continue;
+      }
+
+      if (!_rightKeyGroup.isEmpty()) {
+        // Complete the current right key group before matching it with the left rows
+        if (!_isRightKeyGroupComplete) {
+          if (!_rightInput.hasRow()) {
+            if (_rightInput.isFinished()) {
+              _isRightKeyGroupComplete = true;
+              continue;
+            }
+            if (!rows.isEmpty()) {
+              break;
+            }
+            TransferableBlock block = _rightInput.fetchNextBlock();
+            if (block != null) {
+              return block;
+            }
+            continue;
+          }
+          Object[] rightRow = _rightInput.peek();
+          // NOTE: Null keys are sorted last, and never match, so they complete the group
+          if (!hasNullKey(rightRow, _rightKeyIds)
+              && compareKeys(rightRow, _rightKeyIds, _rightKeyGroup.get(0), _rightKeyIds) == 0) {
+            _rightKeyGroup.add(rightRow);
+            _rightInput.advance();
+          } else {
+            _isRightKeyGroupComplete = true;
+          }
+          continue;
+        }
+        int result = compareKeys(leftRow, _leftKeyIds, _rightKeyGroup.get(0), _rightKeyIds);
+        if (result == 0) {
+          addJoinedRows(rows, leftRow);
+          _leftInput.advance();
+          continue;
+        }
+        if (result < 0) {
+          addUnmatchedLeftRow(rows, leftRow);
+          _leftInput.advance();
+          continue;
+        }
+        _rightKeyGroup.clear();
+      }
+
+      // Find the next right key group matching the left row
+      if (!_rightInput.hasRow()) {
+        if (_rightInput.isFinished()) {
+          if (_joinType == JoinRelType.INNER) {
+            // No more rows can be matched
+            return finish(rows);
+          }
+          addUnmatchedLeftRow(rows, leftRow);
+          _leftInput.advance();
+          continue;
+        }
+        if (!rows.isEmpty()) {
+          break;
+        }
+        TransferableBlock block = _rightInput.fetchNextBlock();
+        if (block != null) {
+          return block;
+        }
+        continue;
+      }
+      Object[] rightRow = _rightInput.peek();
+      if (hasNullKey(rightRow, _rightKeyIds)) {
+        _rightInput.advance();
+        continue;
+      }
+      int result = compareKeys(leftRow, _leftKeyIds, rightRow, _rightKeyIds);
+      if (result > 0) {
+        _rightInput.advance();
+      } else if (result < 0) {
+        addUnmatchedLeftRow(rows, leftRow);
+        _leftInput.advance();
+      } else {
+        _rightKeyGroup.add(rightRow);
+        _isRightKeyGroupComplete = false;
+        _rightInput.advance();
+      }
+    }
+    return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+  }
+
+  /**
+   * Called when no more rows can be joined. Early terminates and drains the unfinished inputs in order to collect their
+   * stats, then returns the remaining rows (or the end-of-stream block if there is no remaining row). When the drain
+   * yields, the remaining rows are returned first and the drain is resumed on the next call.
+   */
+  private TransferableBlock finish(List<Object[]> rows) {
+    _isFinishing = true;
+    TransferableBlock block = _leftInput.drain();
+    if (block == null) {
+      block = _rightInput.drain();
+    }
+    if (block != null) {
+      if (block.isYieldBlock() && !rows.isEmpty()) {
+        return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+      }
+      return block;
+    }
+    _rightKeyGroup.clear();
+    _leftSideStats = _leftInput.getQueryStats();
+    _leftSideStats.mergeInOrder(_rightInput.getQueryStats(), getOperatorType(), _statMap);
+    _isTerminated = true;
+    if (!rows.isEmpty()) {
+      return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+    }
+    return TransferableBlockUtils.getEndOfStreamTransferableBlock(_leftSideStats);
+  }
+
+  private void addJoinedRows(List<Object[]> rows, Object[] leftRow) {
+    boolean hasMatchForLeftRow = false;
+    for (Object[] rightRow : _rightKeyGroup) {
+      // TODO: Optimize this to avoid unnecessary object copy.
+      Object[] resultRow = joinRow(leftRow, rightRow);
+      if (_nonEquiEvaluators.isEmpty() || _nonEquiEvaluators.stream()
+          .allMatch(evaluator -> BooleanUtils.isTrueInternalValue(evaluator.apply(resultRow)))) {
+        rows.add(resultRow);
+        hasMatchForLeftRow = true;
+      }
+    }
+    if (!hasMatchForLeftRow) {
+      addUnmatchedLeftRow(rows, leftRow);
+    }
+  }
+
+  private void addUnmatchedLeftRow(List<Object[]> rows, Object[] leftRow) {
+    if (_joinType == JoinRelType.LEFT) {
+      rows.add(joinRow(leftRow, null));
+    }
+  }
+
+  private static boolean hasNullKey(Object[] row, int[] keyIds) {
+    for (int keyId : keyIds) {
+      if (row[keyId] == null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Compares the non-null join keys of the given rows, consistent with the sort order of the sorted mailboxes.
+   */
+  private int compareKeys(Object[] row1, int[] keyIds1, Object[] row2, int[] keyIds2) {
+    int numKeys = keyIds1.length;
+    for (int i = 0; i < numKeys; i++) {
+      int result = SortUtils.compareValues(_keyStoredTypes[i], row1[keyIds1[i]], row2[keyIds2[i]]);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+
+  private Object[] joinRow(Object[] leftRow, @Nullable Object[] rightRow) {
+    Object[] resultRow = new Object[_resultColumnSize];
+    System.arraycopy(leftRow, 0, resultRow, 0, leftRow.length);
+    if (rightRow != null) {
+      System.arraycopy(rightRow, 0, resultRow, _leftColumnSize, rightRow.length);
+    }
+    return resultRow;
+  }
+
+  /**
+   * Wraps an input operator to iterate over its rows one at a time.
+   */
+  private static class SortedInput {
+    final MultiStageOperator _operator;
+    List<Object[]> _rows = List.of();
+    int _index;
+    TransferableBlock _endOfStreamBlock;
+
+    SortedInput(MultiStageOperator operator) {
+      _operator = operator;
+    }
+
+    boolean hasRow() {
+      return _index < _rows.size();
+    }
+
+    boolean isFinished() {
+      return _endOfStreamBlock != null;
+    }
+
+    Object[] peek() {
+      return _rows.get(_index);
+    }
+
+    void advance() {
+      _index++;
+    }
+
+    /**
+     * Fetches the next block from the input operator. Returns the error block if the input fails, or the yield block if
+     * the input has no block available yet.
+     */
+    @Nullable
+    TransferableBlock fetchNextBlock() {
+      TransferableBlock block = _operator.nextBlock();
+      if (block.isErrorBlock() || block.isYieldBlock()) {
+        return block;
+      }
+      if (block.isSuccessfulEndOfStreamBlock()) {
+        _endOfStreamBlock = block;
+        _rows = List.of();
+      } else {
+        _rows = block.getContainer();
+      }
+      _index = 0;
+      return null;
+    }
+
+    /**
+     * Discards the remaining rows of the input, early terminating it if not finished. Returns the error block if the
+     * input fails, or the yield block if the input has no block available yet (the drain can be resumed later).
+     */
+    @Nullable
+    TransferableBlock drain() {
+      _rows = List.of();
+      _index = 0;
+      if (_endOfStreamBlock == null) {
+        _operator.earlyTerminate();
+        while (_endOfStreamBlock == null) {
+          TransferableBlock block = fetchNextBlock();
+          if (block != null) {
+            return block;
+          }
+        }
+        _rows = List.of();
+      }
+      return null;
+    }
+
+    MultiStageQueryStats getQueryStats() {
+      MultiStageQueryStats queryStats = _endOfStreamBlock.getQueryStats();
+      assert queryStats != null;
+      return queryStats;
+    }
+  }
+
+  public enum StatKey implements StatMap.Key {
+    //@formatter:off
+    EXECUTION_TIME_MS(StatMap.Type.LONG) {
+      @Override
+      public boolean includeDefaultInJson() {
+        return true;
+      }
+    },
+    EMITTED_ROWS(StatMap.Type.LONG) {
+      @Override
+      public boolean includeDefaultInJson() {
+        return true;
+      }
+    };
+    //@formatter:on
+
+    private final StatMap.Type _type;
+
+    StatKey(StatMap.Type type) {
+      _type = type;
+    }
+
+    @Override
+    public StatMap.Type getType() {
+      return _type;
+    }
+  }
+}
@@ -20,6 +20,8 @@ package org.apache.pinot.query.runtime.operator;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -28,16 +30,25 @@ import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.core.query.selection.SelectionOperatorUtils;
 import org.apache.pinot.query.planner.plannode.SortNode;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.operator.utils.SortUtils;
+import org.apache.pinot.query.runtime.operator.utils.SpillFile;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
 import org.apache.pinot.spi.utils.CommonConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+/**
+ * The {@code SortOperator} sorts the input rows on the collations and applies the limit and offset.
+ *
+ * <p>When the rows to keep exceed the max rows in sort (configured via the query option or the server config), the
+ * sorted rows in memory are written to local disk as a sorted run and the memory is released. Once the input is
+ * consumed, the sorted runs are k-way merged while streaming the output blocks.
+ */
 public class SortOperator extends MultiStageOperator {
   private static final String EXPLAIN_NAME = "SORT";
   private static final Logger LOGGER = LoggerFactory.getLogger(SortOperator.class);
@@ -49,10 +60,18 @@ public class SortOperator extends MultiStageOperator {
   private final PriorityQueue<Object[]> _priorityQueue;
   private final ArrayList<Object[]> _rows;
   private final StatMap<StatKey> _statMap = new StatMap<>(StatKey.class);
+  private final SortUtils.SortComparator _comparator;
+  private final int _maxRowsInMemory;
 
   private boolean _hasConstructedSortedBlock;
   private TransferableBlock _eosBlock;
 
+  // Below are used only after the rows to keep exceed the max rows in sort.
+  private List<SpillFile> _spilledRuns;
+  private PriorityQueue<SortedRun> _mergeQueue;
+  private int _numRowsToSkip;
+  private int _numRowsToEmit;
+
   public SortOperator(OpChainExecutionContext context, MultiStageOperator input, SortNode node) {
     this(context, input, node, SelectionOperatorUtils.MAX_ROW_HOLDER_INITIAL_CAPACITY,
         CommonConstants.Broker.DEFAULT_BROKER_QUERY_RESPONSE_LIMIT);
@@ -76,12 +95,21 @@ public class SortOperator extends MultiStageOperator {
     if (collations.isEmpty() || input instanceof SortedMailboxReceiveOperator) {
       _priorityQueue = null;
       _rows = new ArrayList<>(Math.min(defaultHolderCapacity, _numRowsToKeep));
+      _comparator = null;
     } else {
       // Use the opposite direction as specified by the collation directions since we need the PriorityQueue to decide
       // which elements to keep and which to remove based on the limits.
       _priorityQueue = new PriorityQueue<>(Math.min(defaultHolderCapacity, _numRowsToKeep),
           new SortUtils.SortComparator(_dataSchema, collations, true));
       _rows = null;
+      _comparator = new SortUtils.SortComparator(_dataSchema, collations, false);
+    }
+    Integer maxRowsInSort = QueryOptionsUtils.getMaxRowsInSort(context.getOpChainMetadata());
+    if (maxRowsInSort != null) {
+      Preconditions.checkState(maxRowsInSort > 0, "Max rows in sort must be positive, got: %s", maxRowsInSort);
+      _maxRowsInMemory = maxRowsInSort;
+    } else {
+      _maxRowsInMemory = Integer.MAX_VALUE;
     }
   }
 
@@ -106,8 +134,15 @@ public class SortOperator extends MultiStageOperator {
     return List.of(_input);
   }
 
+  @Override
+  public void close() {
+    super.close();
+    releaseSpilledRuns();
+  }
+
   @Override
   public void cancel(Throwable e) {
+    releaseSpilledRuns();
   }
 
   @Override
@@ -116,17 +151,33 @@ public class SortOperator extends MultiStageOperator {
   }
 
   @Override
-  protected TransferableBlock getNextBlock() {
+  protected TransferableBlock getNextBlock()
+      throws IOException {
     if (_hasConstructedSortedBlock) {
+      if (_mergeQueue != null) {
+        return produceMergedBlock();
+      }
       assert _eosBlock != null;
       return _eosBlock;
     }
     TransferableBlock finalBlock = consumeInputBlocks();
-    // returning upstream error block if finalBlock contains error.
-    if (finalBlock.isErrorBlock()) {
+    // returning upstream error or yield block, the consumption is resumed on the next call after yielding
+    if (finalBlock.isErrorBlock() || finalBlock.isYieldBlock()) {
       return finalBlock;
     }
     _statMap.merge(StatKey.REQUIRE_SORT, _priorityQueue != null);
+    if (_spilledRuns != null) {
+      spillSortedRun();
+      long spilledBytes = 0;
+      for (SpillFile spilledRun : _spilledRuns) {
+        spilledBytes += spilledRun.getNumBytes();
+      }
+      _statMap.merge(StatKey.SPILLED_BYTES, spilledBytes);
+      _statMap.merge(StatKey.SPILLED_RUNS, _spilledRuns.size());
+      _eosBlock = updateEosBlock(finalBlock, _statMap);
+      startMerge();
+      return produceMergedBlock();
+    }
     _eosBlock = updateEosBlock(finalBlock, _statMap);
     return produceSortedBlock();
   }
@@ -154,7 +205,8 @@ public class SortOperator extends MultiStageOperator {
     }
   }
 
-  private TransferableBlock consumeInputBlocks() {
+  private TransferableBlock consumeInputBlocks()
+      throws IOException {
     TransferableBlock block = _input.nextBlock();
     while (block.isDataBlock()) {
       List<Object[]> container = block.getContainer();
@@ -180,6 +232,10 @@ public class SortOperator extends MultiStageOperator {
       } else {
         for (Object[] row : container) {
           SelectionOperatorUtils.addToPriorityQueue(row, _priorityQueue, _numRowsToKeep);
+          // The priority queue never grows over the rows to keep, so only spill when it can grow over the limit
+          if (_priorityQueue.size() >= _maxRowsInMemory && _numRowsToKeep > _maxRowsInMemory) {
+            spillSortedRun();
+          }
         }
       }
       block = _input.nextBlock();
@@ -187,6 +243,134 @@ public class SortOperator extends MultiStageOperator {
     return block;
   }
 
+  /**
+   * Writes the rows in the priority queue to local disk as a sorted run, and clears the priority queue.
+   */
+  private void spillSortedRun()
+      throws IOException {
+    if (_spilledRuns == null) {
+      LOGGER.info("Sort reached {} rows, spilling sorted runs to disk", _priorityQueue.size());
+      _spilledRuns = new ArrayList<>();
+    }
+    int numRows = _priorityQueue.size();
+    if (numRows == 0) {
+      return;
+    }
+    Object[][] rowsArr = new Object[numRows][];
+    for (int i = numRows - 1; i >= 0; i--) {
+      rowsArr[i] = _priorityQueue.poll();
+    }
+    SpillFile spilledRun = new SpillFile(_dataSchema);
+    _spilledRuns.add(spilledRun);
+    spilledRun.addAll(Arrays.asList(rowsArr));
+    spilledRun.finish();
+  }
+
+  private void startMerge()
+      throws IOException {
+    _hasConstructedSortedBlock = true;
+    _mergeQueue = new PriorityQueue<>(_spilledRuns.size(),
+        (run1, run2) -> _comparator.compare(run1.peek(), run2.peek()));
+    for (SpillFile spilledRun : _spilledRuns) {
+      SortedRun sortedRun = new SortedRun(spilledRun.openReader());
+      if (sortedRun.hasRow()) {
+        _mergeQueue.add(sortedRun);
+      } else {
+        sortedRun.close();
+      }
+    }
+    _numRowsToSkip = _offset;
+    _numRowsToEmit = _numRowsToKeep - _offset;
+  }
+
+  /**
+   * Merges the next rows from the sorted runs. Returns the end-of-stream block when all the rows are emitted.
+   */
+  private TransferableBlock produceMergedBlock()
+      throws IOException {
+    List<Object[]> rows = new ArrayList<>();
+    while (_numRowsToEmit > 0 && rows.size() < SpillFile.DEFAULT_ROWS_PER_BLOCK && !_mergeQueue.isEmpty()) {
+      SortedRun sortedRun = _mergeQueue.poll();
+      Object[] row = sortedRun.peek();
+      sortedRun.advance();
+      if (sortedRun.hasRow()) {
+        _mergeQueue.add(sortedRun);
+      } else {
+        sortedRun.close();
+      }
+      if (_numRowsToSkip > 0) {
+        _numRowsToSkip--;
+      } else {
+        rows.add(row);
+        _numRowsToEmit--;
+      }
+    }
+    if (rows.isEmpty()) {
+      releaseSpilledRuns();
+      return _eosBlock;
+    }
+    return new TransferableBlock(rows, _dataSchema, DataBlock.Type.ROW);
+  }
+
+  private void releaseSpilledRuns() {
+    if (_mergeQueue != null) {
+      for (SortedRun sortedRun : _mergeQueue) {
+        try {
+          sortedRun.close();
+        } catch (IOException e) {
+          LOGGER.warn("Caught exception while closing sorted run", e);
+        }
+      }
+      _mergeQueue.clear();
+    }
+    if (_spilledRuns != null) {
+      for (SpillFile spilledRun : _spilledRuns) {
+        try {
+          spilledRun.close();
+        } catch (IOException e) {
+          LOGGER.warn("Caught exception while deleting spilled run", e);
+        }
+      }
+      _spilledRuns.clear();
+    }
+  }
+
+  /**
+   * Iterates over the rows of a spilled sorted run.
+   */
+  private static class SortedRun {
+    private final SpillFile.Reader _reader;
+    private List<Object[]> _rows;
+    private int _index;
+
+    SortedRun(SpillFile.Reader reader)
+        throws IOException {
+      _reader = reader;
+      _rows = reader.nextRows();
+    }
+
+    boolean hasRow() {
+      return _rows != null;
+    }
+
+    Object[] peek() {
+      return _rows.get(_index);
+    }
+
+    void advance()
+        throws IOException {
+      if (++_index == _rows.size()) {
+        _rows = _reader.nextRows();
+        _index = 0;
+      }
+    }
+
+    void close()
+        throws IOException {
+      _reader.close();
+    }
+  }
+
   public enum StatKey implements StatMap.Key {
     //@formatter:off
     EXECUTION_TIME_MS(StatMap.Type.LONG) {
@@ -200,7 +384,15 @@ public class SortOperator extends MultiStageOperator {
       public boolean includeDefaultInJson() {
         return true;
       }
-    };
+    },
+    /**
+     * How many bytes have been written to the local spill files of the sorted runs.
+     */
+    SPILLED_BYTES(StatMap.Type.LONG),
+    /**
+     * How many sorted runs have been spilled to local disk.
+     */
+    SPILLED_RUNS(StatMap.Type.INT);
     //@formatter:on
 
     private final StatMap.Type _type;
@@ -96,6 +96,9 @@ public class TransformOperator extends MultiStageOperator {
   @Override
   protected TransferableBlock getNextBlock() {
     TransferableBlock block = _input.nextBlock();
+    if (block.isYieldBlock()) {
+      return block;
+    }
     if (block.isEndOfStreamBlock()) {
       if (block.isSuccessfulEndOfStreamBlock()) {
         return updateEosBlock(block, _statMap);
@@ -103,12 +106,17 @@ public class TransformOperator extends MultiStageOperator {
         return block;
       }
     }
-    List<Object[]> container = block.getContainer();
-    List<Object[]> resultRows = new ArrayList<>(container.size());
-    for (Object[] row : container) {
+    // Evaluate the operands column at a time, then assemble the result rows
+    Object[][] resultColumns = new Object[_resultColumnSize][];
+    for (int i = 0; i < _resultColumnSize; i++) {
+      resultColumns[i] = _transformOperandsList.get(i).applyColumn(block);
+    }
+    int numRows = block.getNumRows();
+    List<Object[]> resultRows = new ArrayList<>(numRows);
+    for (int rowId = 0; rowId < numRows; rowId++) {
       Object[] resultRow = new Object[_resultColumnSize];
       for (int i = 0; i < _resultColumnSize; i++) {
-        resultRow[i] = _transformOperandsList.get(i).apply(row);
+        resultRow[i] = resultColumns[i][rowId];
       }
       resultRows.add(resultRow);
     }
@@ -37,6 +37,7 @@ import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.core.data.table.Key;
 import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.planner.plannode.MailboxReceiveNode;
 import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.planner.plannode.WindowNode;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
@@ -69,6 +70,12 @@ import org.slf4j.LoggerFactory;
  * should handle adding a 'SortExchange' to do the ordering prior to pipelining the data to the upstream operators
  * wherever ordering is required.
  *
+ * When the input is sorted on the 'PARTITION BY' keys on the sender side (i.e. the rows of each partition arrive
+ * contiguously without being buffered by the receiver), the window functions are computed one partition at a time and
+ * the results are emitted as soon as a partition ends, instead of buffering all the input rows into a partition map.
+ * Input only sorted on the receiver side is not streamed, because the receiver already buffers all the rows. In both
+ * modes, the max rows in window cache limits the total number of rows consumed by the operator.
+ *
  * Note: This class performs aggregation over the double value of input.
  * If the input is single value, the output type will be input type. Otherwise, the output type will be double.
  *
@@ -96,6 +103,8 @@ public class WindowAggregateOperator extends MultiStageOperator {
   private final WindowFrame _windowFrame;
   private final WindowFunction[] _windowFunctions;
   private final Map<Key, List<Object[]>> _partitionRows = new HashMap<>();
+  // Whether the input is sorted on the partition keys so that each partition can be processed once it ends
+  private final boolean _streamPartitions;
   private final StatMap<StatKey> _statMap = new StatMap<>(StatKey.class);
 
   // Below are specific parameters to protect the window cache from growing too large.
@@ -115,6 +124,11 @@ public class WindowAggregateOperator extends MultiStageOperator {
   private boolean _hasReturnedWindowAggregateBlock;
   private TransferableBlock _eosBlock;
 
+  // Below are used only when streaming partitions.
+  private Key _currentPartitionKey;
+  private List<Object[]> _currentPartitionRows = new ArrayList<>();
+  private boolean _maxRowsInWindowReached;
+
   public WindowAggregateOperator(OpChainExecutionContext context, MultiStageOperator input, DataSchema inputSchema,
       WindowNode node) {
     super(context);
@@ -148,6 +162,31 @@ public class WindowAggregateOperator extends MultiStageOperator {
     PlanNode.NodeHint nodeHint = node.getNodeHint();
     _maxRowsInWindowCache = getMaxRowInWindow(metadata, nodeHint);
     _windowOverflowMode = getWindowOverflowMode(metadata, nodeHint);
+    _streamPartitions = isInputSortedOnPartitionKeys(node);
+  }
+
+  /**
+   * Returns whether the input of the window node is an exchange sorted on the sender side whose leading collations are
+   * on the partition keys, so that the rows of each partition are received contiguously.
+   */
+  private static boolean isInputSortedOnPartitionKeys(WindowNode node) {
+    List<Integer> keys = node.getKeys();
+    List<PlanNode> inputs = node.getInputs();
+    if (keys.isEmpty() || inputs.size() != 1 || !(inputs.get(0) instanceof MailboxReceiveNode)) {
+      return false;
+    }
+    MailboxReceiveNode receiveNode = (MailboxReceiveNode) inputs.get(0);
+    List<RelFieldCollation> collations = receiveNode.getCollations();
+    int numKeys = keys.size();
+    if (!receiveNode.isSort() || !receiveNode.isSortedOnSender() || collations == null
+        || collations.size() < numKeys) {
+      return false;
+    }
+    IntSet collationFieldIndices = new IntOpenHashSet(numKeys);
+    for (int i = 0; i < numKeys; i++) {
+      collationFieldIndices.add(collations.get(i).getFieldIndex());
+    }
+    return collationFieldIndices.equals(new IntOpenHashSet(keys));
   }
 
   @Override
@@ -206,7 +245,7 @@ public class WindowAggregateOperator extends MultiStageOperator {
     if (_hasReturnedWindowAggregateBlock) {
       return _eosBlock;
     }
-    return computeBlocks();
+    return _streamPartitions ? computeStreamingBlock() : computeBlocks();
   }
 
   private void validateAggregationCalls(String functionName) {
@@ -238,7 +277,7 @@ public class WindowAggregateOperator extends MultiStageOperator {
   }
 
   /**
-   * @return the final block, which must be either an end of stream or an error.
+   * @return the final block, which must be either an end of stream, an error or a yield.
    */
   private TransferableBlock computeBlocks()
       throws ProcessingException {
@@ -271,38 +310,82 @@ public class WindowAggregateOperator extends MultiStageOperator {
       _numRows += containerSize;
       block = _input.nextBlock();
     }
-    // Early termination if the block is an error block
-    if (block.isErrorBlock()) {
+    // Early termination if the block is an error block, or yield and resume on the next call
+    if (block.isErrorBlock() || block.isYieldBlock()) {
       return block;
     }
     assert block.isSuccessfulEndOfStreamBlock();
     _eosBlock = updateEosBlock(block, _statMap);
 
-    ColumnDataType[] resultStoredTypes = _resultSchema.getStoredColumnDataTypes();
     List<Object[]> rows = new ArrayList<>(_numRows);
     for (Map.Entry<Key, List<Object[]>> e : _partitionRows.entrySet()) {
-      List<Object[]> rowList = e.getValue();
-
-      // Each window function will return a list of results for each row in the input set
-      List<List<Object>> windowFunctionResults = new ArrayList<>();
-      for (WindowFunction windowFunction : _windowFunctions) {
-        List<Object> processRows = windowFunction.processRows(rowList);
-        assert processRows.size() == rowList.size();
-        windowFunctionResults.add(processRows);
-      }
+      processPartition(e.getValue(), rows);
+    }
 
-      for (int rowId = 0; rowId < rowList.size(); rowId++) {
-        Object[] existingRow = rowList.get(rowId);
-        Object[] row = new Object[existingRow.length + _windowFunctions.length];
-        System.arraycopy(existingRow, 0, row, 0, existingRow.length);
-        for (int i = 0; i < _windowFunctions.length; i++) {
-          row[i + existingRow.length] = windowFunctionResults.get(i).get(rowId);
+    _hasReturnedWindowAggregateBlock = true;
+    if (rows.isEmpty()) {
+      return _eosBlock;
+    } else {
+      return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+    }
+  }
+
+  /**
+   * Computes the window functions for the partitions completed by the next input block(s). Only the rows of the
+   * current (not yet completed) partition are buffered.
+   *
+   * @return a block with the rows of the completed partitions, or the final block which must be either an end of
+   *         stream, an error or a yield.
+   */
+  private TransferableBlock computeStreamingBlock()
+      throws ProcessingException {
+    TransferableBlock block = _input.nextBlock();
+    while (block.isDataBlock()) {
+      List<Object[]> rows = new ArrayList<>();
+      if (!_maxRowsInWindowReached) {
+        for (Object[] row : block.getContainer()) {
+          Key key = AggregationUtils.extractRowKey(row, _keys);
+          if (_currentPartitionKey == null || !key.equals(_currentPartitionKey)) {
+            processPartition(_currentPartitionRows, rows);
+            _currentPartitionKey = key;
+            _currentPartitionRows = new ArrayList<>();
+          }
+          if (_numRows == _maxRowsInWindowCache) {
+            if (_windowOverflowMode == WindowOverFlowMode.THROW) {
+              ProcessingException resourceLimitExceededException =
+                  new ProcessingException(QueryException.SERVER_RESOURCE_LIMIT_EXCEEDED_ERROR_CODE);
+              resourceLimitExceededException.setMessage(
+                  "Cannot build in memory window cache for WINDOW operator, reach number of rows limit: "
+                      + _maxRowsInWindowCache);
+              throw resourceLimitExceededException;
+            } else {
+              // Stop consuming rows, and process the rows buffered so far at the end of stream.
+              _maxRowsInWindowReached = true;
+              _statMap.merge(StatKey.MAX_ROWS_IN_WINDOW_REACHED, true);
+              // setting the inputOperator to be early terminated and awaits EOS block next.
+              _input.earlyTerminate();
+              break;
+            }
+          }
+          _currentPartitionRows.add(row);
+          _numRows++;
         }
-        // Convert the results from WindowFunction to the desired type
-        TypeUtils.convertRow(row, resultStoredTypes);
-        rows.add(row);
       }
+      if (!rows.isEmpty()) {
+        return new TransferableBlock(rows, _resultSchema, DataBlock.Type.ROW);
+      }
+      block = _input.nextBlock();
+    }
+    // Early termination if the block is an error block, or yield and resume on the next call
+    if (block.isErrorBlock() || block.isYieldBlock()) {
+      return block;
     }
+    assert block.isSuccessfulEndOfStreamBlock();
+    _eosBlock = updateEosBlock(block, _statMap);
+
+    List<Object[]> rows = new ArrayList<>(_currentPartitionRows.size());
+    processPartition(_currentPartitionRows, rows);
+    _currentPartitionRows = null;
 
     _hasReturnedWindowAggregateBlock = true;
     if (rows.isEmpty()) {
@@ -312,6 +395,35 @@ public class WindowAggregateOperator extends MultiStageOperator {
     }
   }
 
+  /**
+   * Computes the window functions over the rows of a partition, and adds the result rows to the given list.
+   */
+  private void processPartition(List<Object[]> rowList, List<Object[]> rows) {
+    if (rowList.isEmpty()) {
+      return;
+    }
+    // Each window function will return a list of results for each row in the input set
+    List<List<Object>> windowFunctionResults = new ArrayList<>();
+    for (WindowFunction windowFunction : _windowFunctions) {
+      List<Object> processRows = windowFunction.processRows(rowList);
+      assert processRows.size() == rowList.size();
+      windowFunctionResults.add(processRows);
+    }
+
+    ColumnDataType[] resultStoredTypes = _resultSchema.getStoredColumnDataTypes();
+    for (int rowId = 0; rowId < rowList.size(); rowId++) {
+      Object[] existingRow = rowList.get(rowId);
+      Object[] row = new Object[existingRow.length + _windowFunctions.length];
+      System.arraycopy(existingRow, 0, row, 0, existingRow.length);
+      for (int i = 0; i < _windowFunctions.length; i++) {
+        row[i + existingRow.length] = windowFunctionResults.get(i).get(rowId);
+      }
+      // Convert the results from WindowFunction to the desired type
+      TypeUtils.convertRow(row, resultStoredTypes);
+      rows.add(row);
+    }
+  }
+
   /**
    * Defines the Frame to be used for the window query. The 'lowerBound' and 'upperBound' indicate the frame
    * boundaries to be used. Whereas, 'isRows' is used to differentiate between RANGE and ROWS type frames.
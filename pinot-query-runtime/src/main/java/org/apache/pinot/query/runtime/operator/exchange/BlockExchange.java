@@ -18,16 +18,26 @@
  */
 package org.apache.pinot.query.runtime.operator.exchange;
 
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nullable;
 import org.apache.calcite.rel.RelDistribution;
 import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.query.mailbox.SendingMailbox;
+import org.apache.pinot.query.planner.partitioning.KeySelector;
 import org.apache.pinot.query.planner.partitioning.KeySelectorFactory;
+import org.apache.pinot.query.planner.plannode.MailboxSendNode;
 import org.apache.pinot.query.runtime.blocks.BlockSplitter;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.MailboxSendOperator;
 
 
 /**
@@ -40,14 +50,26 @@ public abstract class BlockExchange {
 
   private final List<SendingMailbox> _sendingMailboxes;
   private final BlockSplitter _splitter;
+  // Number of rows sent to each mailbox, used to report the skew of the data distribution
+  private final Map<SendingMailbox, long[]> _numRowsSentMap = new IdentityHashMap<>();
+  // Data blocks not sent yet because the mailbox cannot accept more data, only used when sending without waiting
+  private final Map<SendingMailbox, Queue<TransferableBlock>> _pendingBlocksMap = new IdentityHashMap<>();
+  // Invoked when it is worth retrying to send the pending blocks, null when the mailboxes should wait
+  private Runnable _retryCallback;
 
   public static BlockExchange getExchange(List<SendingMailbox> sendingMailboxes, RelDistribution.Type distributionType,
-      List<Integer> keys, BlockSplitter splitter) {
+      List<Integer> keys, MailboxSendNode.SkewHandling skewHandling, int skewSaltFactor, Set<Object> hotKeys,
+      BlockSplitter splitter) {
     switch (distributionType) {
       case SINGLETON:
         return new SingletonExchange(sendingMailboxes, splitter);
       case HASH_DISTRIBUTED:
-        return new HashExchange(sendingMailboxes, KeySelectorFactory.getKeySelector(keys), splitter);
+        KeySelector<?> keySelector = KeySelectorFactory.getKeySelector(keys);
+        if (skewHandling == MailboxSendNode.SkewHandling.NONE || hotKeys.isEmpty()) {
+          return new HashExchange(sendingMailboxes, keySelector, splitter);
+        }
+        return new SkewAwareHashExchange(sendingMailboxes, keySelector, keys.get(0), hotKeys,
+            skewHandling == MailboxSendNode.SkewHandling.REPLICATE, skewSaltFactor, splitter);
       case RANDOM_DISTRIBUTED:
         return new RandomExchange(sendingMailboxes, splitter);
       case BROADCAST_DISTRIBUTED:
@@ -63,6 +85,9 @@ public abstract class BlockExchange {
   protected BlockExchange(List<SendingMailbox> sendingMailboxes, BlockSplitter splitter) {
     _sendingMailboxes = sendingMailboxes;
     _splitter = splitter;
+    for (SendingMailbox sendingMailbox : sendingMailboxes) {
+      _numRowsSentMap.put(sendingMailbox, new long[1]);
+    }
   }
 
   /**
@@ -73,14 +98,28 @@ public abstract class BlockExchange {
    */
   public boolean send(TransferableBlock block)
       throws Exception {
+    return send(block, null);
+  }
+
+  /**
+   * Same as {@link #send(TransferableBlock)}, but when the retry callback is provided, does not wait for the mailboxes
+   * to accept more data (e.g. flow control credit). The data blocks that cannot be sent yet are kept pending, and the
+   * callback is invoked once it is worth retrying. The pending blocks must be sent via {@link #sendPendingBlocks()}
+   * before sending the next block.
+   */
+  public boolean send(TransferableBlock block, @Nullable Runnable retryCallback)
+      throws Exception {
+    _retryCallback = retryCallback;
     if (block.isErrorBlock()) {
-      // Send error block to all mailboxes to propagate the error
+      // Drop the pending data blocks, and send error block to all mailboxes to propagate the error
+      _pendingBlocksMap.clear();
       for (SendingMailbox sendingMailbox : _sendingMailboxes) {
         sendBlock(sendingMailbox, block);
       }
       return false;
     }
 
+    assert _pendingBlocksMap.isEmpty() : "Pending blocks must be sent before sending the next block";
     if (block.isSuccessfulEndOfStreamBlock()) {
       // Send metadata to only one randomly picked mailbox, and empty EOS block to other mailboxes
       int numMailboxes = _sendingMailboxes.size();
@@ -109,6 +148,34 @@ public abstract class BlockExchange {
     return isEarlyTerminated;
   }
 
+  /**
+   * Returns whether there are data blocks not sent yet, see {@link #send(TransferableBlock, Runnable)}.
+   */
+  public boolean hasPendingBlocks() {
+    return !_pendingBlocksMap.isEmpty();
+  }
+
+  /**
+   * Tries to send the pending data blocks, and returns whether all of them are sent. When some blocks still cannot be
+   * sent, the retry callback is invoked once it is worth retrying.
+   */
+  public boolean sendPendingBlocks()
+      throws Exception {
+    Iterator<Map.Entry<SendingMailbox, Queue<TransferableBlock>>> iterator = _pendingBlocksMap.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<SendingMailbox, Queue<TransferableBlock>> entry = iterator.next();
+      SendingMailbox sendingMailbox = entry.getKey();
+      Queue<TransferableBlock> pendingBlocks = entry.getValue();
+      while (!pendingBlocks.isEmpty() && sendingMailbox.trySend(pendingBlocks.peek(), _retryCallback)) {
+        pendingBlocks.poll();
+      }
+      if (pendingBlocks.isEmpty()) {
+        iterator.remove();
+      }
+    }
+    return _pendingBlocksMap.isEmpty();
+  }
+
   protected void sendBlock(SendingMailbox sendingMailbox, TransferableBlock block)
       throws Exception {
     if (block.isEndOfStreamBlock()) {
@@ -117,22 +184,71 @@ public abstract class BlockExchange {
       return;
     }
 
+    long[] numRowsSent = _numRowsSentMap.get(sendingMailbox);
+    if (numRowsSent != null) {
+      numRowsSent[0] += block.getNumRows();
+    }
+    if (sendingMailbox.isLocal()) {
+      // Hand off the block without splitting, there is no message size limit because it is neither serialized nor
+      // copied. When the block might be sent to multiple mailboxes (e.g. broadcast), each local receiver gets its own
+      // block sharing the rows (same as the splitter), because the lazily converted content of a block is not thread
+      // safe.
+      if (_sendingMailboxes.size() == 1) {
+        sendDataBlock(sendingMailbox, block);
+      } else {
+        sendDataBlock(sendingMailbox,
+            new TransferableBlock(block.getContainer(), block.getDataSchema(), block.getType()));
+      }
+      return;
+    }
     DataBlock.Type type = block.getType();
     Iterator<TransferableBlock> splits = _splitter.split(block, type, MAX_MAILBOX_CONTENT_SIZE_BYTES);
     while (splits.hasNext()) {
-      sendingMailbox.send(splits.next());
+      sendDataBlock(sendingMailbox, splits.next());
+    }
+  }
+
+  private void sendDataBlock(SendingMailbox sendingMailbox, TransferableBlock block)
+      throws Exception {
+    if (_retryCallback == null) {
+      sendingMailbox.send(block);
+      return;
+    }
+    // Keep the order of the blocks sent to the same mailbox
+    Queue<TransferableBlock> pendingBlocks = _pendingBlocksMap.get(sendingMailbox);
+    if (pendingBlocks != null) {
+      pendingBlocks.add(block);
+    } else if (!sendingMailbox.trySend(block, _retryCallback)) {
+      pendingBlocks = new ArrayDeque<>();
+      pendingBlocks.add(block);
+      _pendingBlocksMap.put(sendingMailbox, pendingBlocks);
     }
   }
 
   protected abstract void route(List<SendingMailbox> destinations, TransferableBlock block)
       throws Exception;
 
+  /**
+   * Records the stats of the data distribution across the mailboxes. Called before the successful EOS block is sent.
+   */
+  public void updateStats(StatMap<MailboxSendOperator.StatKey> statMap) {
+    long maxNumRowsSent = 0;
+    long maxNumBytesSent = 0;
+    for (SendingMailbox sendingMailbox : _sendingMailboxes) {
+      maxNumRowsSent = Math.max(maxNumRowsSent, _numRowsSentMap.get(sendingMailbox)[0]);
+      maxNumBytesSent = Math.max(maxNumBytesSent, sendingMailbox.getNumSentBytes());
+    }
+    statMap.merge(MailboxSendOperator.StatKey.MAX_MAILBOX_ROWS, maxNumRowsSent);
+    statMap.merge(MailboxSendOperator.StatKey.MAX_MAILBOX_BYTES, maxNumBytesSent);
+  }
+
   // Called when the OpChain gracefully returns.
   // TODO: This is a no-op right now.
   public void close() {
   }
 
   public void cancel(Throwable t) {
+    _pendingBlocksMap.clear();
     for (SendingMailbox sendingMailbox : _sendingMailboxes) {
       sendingMailbox.cancel(t);
     }
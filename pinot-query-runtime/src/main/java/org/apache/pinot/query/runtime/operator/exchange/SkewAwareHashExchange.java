@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.exchange;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.pinot.common.datatable.StatMap;
+import org.apache.pinot.query.mailbox.SendingMailbox;
+import org.apache.pinot.query.planner.partitioning.EmptyKeySelector;
+import org.apache.pinot.query.planner.partitioning.KeySelector;
+import org.apache.pinot.query.runtime.blocks.BlockSplitter;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.operator.MailboxSendOperator;
+
+
+/**
+ * Distributes rows based on the hash of a key like {@link HashExchange}, but handles the hot keys of a join with a
+ * group of {@code skewSaltFactor} consecutive receivers starting from the hashed one:
+ * <ul>
+ *   <li>Spread side: Spreads the rows of the hot keys across the receivers in the group in a round-robin fashion.</li>
+ *   <li>Replicate side: Sends the rows of the hot keys to all the receivers in the group, so that a row spread by the
+ *   other side always meets all the rows it joins with.</li>
+ * </ul>
+ * The rows of the other keys are sent to the hashed receiver on both sides. The hot keys are the values of the first
+ * key column given by the join hint, so that both sides agree on them without coordinating with each other. Matching
+ * rows always share the same first key value and the same hashed receiver, so this also works for multiple keys.
+ */
+class SkewAwareHashExchange extends BlockExchange {
+  private final KeySelector<?> _keySelector;
+  private final int _hotKeyIndex;
+  private final Set<Object> _hotKeys;
+  private final boolean _replicate;
+  private final int _skewSaltFactor;
+
+  private final Set<Object> _seenHotKeys = new HashSet<>();
+  private int _nextSpreadOffset;
+  private long _numSkewedRows;
+  private long _numReplicatedRows;
+
+  SkewAwareHashExchange(List<SendingMailbox> sendingMailboxes, KeySelector<?> keySelector, int hotKeyIndex,
+      Set<Object> hotKeys, boolean replicate, int skewSaltFactor, BlockSplitter splitter) {
+    super(sendingMailboxes, splitter);
+    _keySelector = keySelector;
+    _hotKeyIndex = hotKeyIndex;
+    _hotKeys = hotKeys;
+    _replicate = replicate;
+    _skewSaltFactor = skewSaltFactor;
+  }
+
+  @Override
+  protected void route(List<SendingMailbox> destinations, TransferableBlock block)
+      throws Exception {
+    int numMailboxes = destinations.size();
+    if (numMailboxes == 1 || _keySelector == EmptyKeySelector.INSTANCE) {
+      sendBlock(destinations.get(0), block);
+      return;
+    }
+
+    int groupSize = Math.min(_skewSaltFactor, numMailboxes);
+    //noinspection unchecked
+    List<Object[]>[] mailboxIdToRowsMap = new List[numMailboxes];
+    for (int i = 0; i < numMailboxes; i++) {
+      mailboxIdToRowsMap[i] = new ArrayList<>();
+    }
+    for (Object[] row : block.getContainer()) {
+      int mailboxId = _keySelector.computeHash(row) % numMailboxes;
+      Object key = row[_hotKeyIndex];
+      if (!_hotKeys.contains(key)) {
+        mailboxIdToRowsMap[mailboxId].add(row);
+        continue;
+      }
+      _seenHotKeys.add(key);
+      if (_replicate) {
+        for (int i = 0; i < groupSize; i++) {
+          mailboxIdToRowsMap[(mailboxId + i) % numMailboxes].add(row);
+        }
+        _numReplicatedRows += groupSize - 1;
+      } else {
+        mailboxIdToRowsMap[(mailboxId + _nextSpreadOffset) % numMailboxes].add(row);
+        _nextSpreadOffset = (_nextSpreadOffset + 1) % groupSize;
+        _numSkewedRows++;
+      }
+    }
+    for (int i = 0; i < numMailboxes; i++) {
+      if (!mailboxIdToRowsMap[i].isEmpty()) {
+        sendBlock(destinations.get(i),
+            new TransferableBlock(mailboxIdToRowsMap[i], block.getDataSchema(), block.getType()));
+      }
+    }
+  }
+
+  @Override
+  public void updateStats(StatMap<MailboxSendOperator.StatKey> statMap) {
+    super.updateStats(statMap);
+    statMap.merge(MailboxSendOperator.StatKey.SKEWED_KEYS, _seenHotKeys.size());
+    statMap.merge(MailboxSendOperator.StatKey.SKEWED_ROWS, _numSkewedRows);
+    statMap.merge(MailboxSendOperator.StatKey.REPLICATED_ROWS, _numReplicatedRows);
+  }
+}
@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import java.util.function.BiConsumer;
+import javax.annotation.Nullable;
+
+
+/**
+ * The {@code IntLookupTable} is a lookup table for a single INT join key, which stores the keys as primitive ints.
+ */
+public class IntLookupTable extends LookupTable {
+  private final Int2ObjectOpenHashMap<Object> _lookupTable = new Int2ObjectOpenHashMap<>(INITIAL_CAPACITY);
+
+  @Nullable
+  @Override
+  protected Object putIfAbsent(Object key, Object value) {
+    return _lookupTable.putIfAbsent(((Number) key).intValue(), value);
+  }
+
+  @Override
+  protected void put(Object key, Object value) {
+    _lookupTable.put(((Number) key).intValue(), value);
+  }
+
+  @Override
+  protected boolean containsNonNullKey(Object key) {
+    return _lookupTable.containsKey(((Number) key).intValue());
+  }
+
+  @Nullable
+  @Override
+  protected Object lookupNonNullKey(Object key) {
+    return _lookupTable.get(((Number) key).intValue());
+  }
+
+  @Override
+  protected void forEachNonNullKey(BiConsumer<Object, Object> consumer) {
+    for (Int2ObjectMap.Entry<Object> entry : _lookupTable.int2ObjectEntrySet()) {
+      consumer.accept(entry.getIntKey(), entry.getValue());
+    }
+  }
+
+  @Override
+  protected void clearNonNullKeys() {
+    _lookupTable.clear();
+  }
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import javax.annotation.Nullable;
+
+
+/**
+ * The {@code LookupTable} is the hash table built from the right table of a hash join, mapping each join key to the
+ * matching right rows.
+ *
+ * <p>To reduce the heap usage, a key with a single row maps to the {@code Object[]} row directly, and only keys with
+ * multiple rows map to a {@code List<Object[]>}. Use {@link #isKeysUnique()} to check whether all the keys are unique.
+ */
+public abstract class LookupTable {
+  protected static final int INITIAL_CAPACITY = 16;
+
+  // Rows with null key are tracked separately so that the primitive key tables can also store them.
+  @Nullable
+  private Object _nullKeyValue;
+  private boolean _keysUnique = true;
+
+  /**
+   * Adds a row with the given key.
+   */
+  public void addRow(@Nullable Object key, Object[] row) {
+    if (key == null) {
+      _nullKeyValue = mergeValue(_nullKeyValue, row);
+      return;
+    }
+    Object previousValue = putIfAbsent(key, row);
+    if (previousValue != null) {
+      Object newValue = mergeValue(previousValue, row);
+      if (newValue != previousValue) {
+        put(key, newValue);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Object mergeValue(@Nullable Object value, Object[] row) {
+    if (value == null) {
+      return row;
+    }
+    _keysUnique = false;
+    if (value instanceof Object[]) {
+      List<Object[]> rows = new ArrayList<>();
+      rows.add((Object[]) value);
+      rows.add(row);
+      return rows;
+    }
+    ((List<Object[]>) value).add(row);
+    return value;
+  }
+
+  /**
+   * Returns whether all the keys are unique, i.e. {@link #lookup} always returns a single {@code Object[]} row.
+   */
+  public boolean isKeysUnique() {
+    return _keysUnique;
+  }
+
+  public boolean containsKey(@Nullable Object key) {
+    return key == null ? _nullKeyValue != null : containsNonNullKey(key);
+  }
+
+  /**
+   * Returns the rows for the given key, which is either a single {@code Object[]} row or a {@code List<Object[]>}, or
+   * {@code null} if the key does not exist.
+   */
+  @Nullable
+  public Object lookup(@Nullable Object key) {
+    return key == null ? _nullKeyValue : lookupNonNullKey(key);
+  }
+
+  /**
+   * Iterates over all the keys and their rows (either {@code Object[]} or {@code List<Object[]>}).
+   */
+  public void forEach(BiConsumer<Object, Object> consumer) {
+    if (_nullKeyValue != null) {
+      consumer.accept(null, _nullKeyValue);
+    }
+    forEachNonNullKey(consumer);
+  }
+
+  public void clear() {
+    _nullKeyValue = null;
+    _keysUnique = true;
+    clearNonNullKeys();
+  }
+
+  /**
+   * Puts the value if the key does not exist, and returns the previous value for the key (or {@code null}).
+   */
+  @Nullable
+  protected abstract Object putIfAbsent(Object key, Object value);
+
+  protected abstract void put(Object key, Object value);
+
+  protected abstract boolean containsNonNullKey(Object key);
+
+  @Nullable
+  protected abstract Object lookupNonNullKey(Object key);
+
+  protected abstract void forEachNonNullKey(BiConsumer<Object, Object> consumer);
+
+  protected abstract void clearNonNullKeys();
+}
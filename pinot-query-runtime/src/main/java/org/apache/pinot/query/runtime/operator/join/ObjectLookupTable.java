@@ -0,0 +1,68 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import javax.annotation.Nullable;
+
+
+/**
+ * The {@code ObjectLookupTable} is a lookup table for join keys that do not have a primitive specialization, e.g.
+ * STRING keys or multiple key columns.
+ */
+public class ObjectLookupTable extends LookupTable {
+  private final Object2ObjectOpenHashMap<Object, Object> _lookupTable =
+      new Object2ObjectOpenHashMap<>(INITIAL_CAPACITY);
+
+  @Nullable
+  @Override
+  protected Object putIfAbsent(Object key, Object value) {
+    return _lookupTable.putIfAbsent(key, value);
+  }
+
+  @Override
+  protected void put(Object key, Object value) {
+    _lookupTable.put(key, value);
+  }
+
+  @Override
+  protected boolean containsNonNullKey(Object key) {
+    return _lookupTable.containsKey(key);
+  }
+
+  @Nullable
+  @Override
+  protected Object lookupNonNullKey(Object key) {
+    return _lookupTable.get(key);
+  }
+
+  @Override
+  protected void forEachNonNullKey(BiConsumer<Object, Object> consumer) {
+    for (Map.Entry<Object, Object> entry : _lookupTable.object2ObjectEntrySet()) {
+      consumer.accept(entry.getKey(), entry.getValue());
+    }
+  }
+
+  @Override
+  protected void clearNonNullKeys() {
+    _lookupTable.clear();
+  }
+}
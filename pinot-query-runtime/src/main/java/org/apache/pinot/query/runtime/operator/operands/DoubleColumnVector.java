@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.operands;
+
+import javax.annotation.Nullable;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.roaringbitmap.RoaringBitmap;
+
+
+/**
+ * The {@code DoubleColumnVector} holds the values of a numeric operand evaluated over all the rows of a block, as a
+ * primitive {@code double[]} plus a bitmap of the null row ids (the value of a null row is undefined).
+ */
+public class DoubleColumnVector {
+  private final double[] _values;
+  private final RoaringBitmap _nullBitmap;
+
+  public DoubleColumnVector(double[] values, @Nullable RoaringBitmap nullBitmap) {
+    _values = values;
+    _nullBitmap = nullBitmap != null && !nullBitmap.isEmpty() ? nullBitmap : null;
+  }
+
+  public int getNumRows() {
+    return _values.length;
+  }
+
+  public double[] getValues() {
+    return _values;
+  }
+
+  @Nullable
+  public RoaringBitmap getNullBitmap() {
+    return _nullBitmap;
+  }
+
+  public boolean isNull(int rowId) {
+    return _nullBitmap != null && _nullBitmap.contains(rowId);
+  }
+
+  /**
+   * Returns whether the values of the given type can be held in a {@code DoubleColumnVector}.
+   */
+  public static boolean isSupportedType(ColumnDataType type) {
+    switch (type) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns the union of the null bitmaps of the given vectors, or {@code null} if none of them has nulls.
+   */
+  @Nullable
+  public static RoaringBitmap unionNullBitmaps(DoubleColumnVector... vectors) {
+    RoaringBitmap nullBitmap = null;
+    for (DoubleColumnVector vector : vectors) {
+      if (vector._nullBitmap != null) {
+        if (nullBitmap == null) {
+          nullBitmap = vector._nullBitmap.clone();
+        } else {
+          nullBitmap.or(vector._nullBitmap);
+        }
+      }
+    }
+    return nullBitmap;
+  }
+}
@@ -27,6 +27,9 @@ import javax.annotation.Nullable;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.roaringbitmap.IntConsumer;
+import org.roaringbitmap.RoaringBitmap;
 
 
 /**
@@ -67,6 +70,16 @@ public abstract class FilterOperand implements TransformOperand {
       }
       return hasNull ? null : 1;
     }
+
+    @Override
+    public Object[] applyColumn(TransferableBlock block) {
+      return applyColumn(block, getAllRowIds(block), block.getNumRows());
+    }
+
+    @Override
+    public Object[] applyColumn(TransferableBlock block, int[] selectedRowIds, int numSelectedRows) {
+      return applyShortCircuit(_childOperands, block, selectedRowIds, numSelectedRows, 0);
+    }
   }
 
   public static class Or extends FilterOperand {
@@ -93,6 +106,16 @@ public abstract class FilterOperand implements TransformOperand {
       }
       return hasNull ? null : 0;
     }
+
+    @Override
+    public Object[] applyColumn(TransferableBlock block) {
+      return applyColumn(block, getAllRowIds(block), block.getNumRows());
+    }
+
+    @Override
+    public Object[] applyColumn(TransferableBlock block, int[] selectedRowIds, int numSelectedRows) {
+      return applyShortCircuit(_childOperands, block, selectedRowIds, numSelectedRows, 1);
+    }
   }
 
   public static class Not extends FilterOperand {
@@ -108,6 +131,31 @@ public abstract class FilterOperand implements TransformOperand {
       Object result = _childOperand.apply(row);
       return result != null ? 1 - (int) result : null;
     }
+
+    @Override
+    public Object[] applyColumn(TransferableBlock block) {
+      Object[] results = _childOperand.applyColumn(block);
+      for (int i = 0; i < results.length; i++) {
+        Object result = results[i];
+        if (result != null) {
+          results[i] = 1 - (int) result;
+        }
+      }
+      return results;
+    }
+
+    @Override
+    public Object[] applyColumn(TransferableBlock block, int[] selectedRowIds, int numSelectedRows) {
+      Object[] results = _childOperand.applyColumn(block, selectedRowIds, numSelectedRows);
+      for (int i = 0; i < numSelectedRows; i++) {
+        int rowId = selectedRowIds[i];
+        Object result = results[rowId];
+        if (result != null) {
+          results[rowId] = 1 - (int) result;
+        }
+      }
+      return results;
+    }
   }
 
   public static class In extends FilterOperand {
@@ -179,6 +227,8 @@ public abstract class FilterOperand implements TransformOperand {
     private final IntPredicate _comparisonResultPredicate;
     private final boolean _requireCasting;
     private final ColumnDataType _commonCastType;
+    // Whether both sides can be compared as double vectors with the same result as comparing the (casted) values
+    private final boolean _canCompareDoubles;
 
     /**
      * Predicate constructor also resolve data type,
@@ -211,6 +261,11 @@ public abstract class FilterOperand implements TransformOperand {
               String.format("Cannot compare incompatible type: %s and: %s", lhsType, rhsType));
         }
       }
+      // INT and FLOAT are exactly represented as double, but LONG is not, so LONG values can only be compared as
+      // doubles when they are casted to DOUBLE anyway
+      ColumnDataType compareType = _requireCasting ? _commonCastType : lhsType;
+      _canCompareDoubles = _lhs.canApplyDoubles() && _rhs.canApplyDoubles() && (compareType == ColumnDataType.INT
+          || compareType == ColumnDataType.FLOAT || compareType == ColumnDataType.DOUBLE);
     }
 
     @SuppressWarnings({"rawtypes", "unchecked"})
@@ -232,6 +287,36 @@ public abstract class FilterOperand implements TransformOperand {
       return _comparisonResultPredicate.test(v1.compareTo(v2)) ? 1 : 0;
     }
 
+    @Override
+    public Object[] applyColumn(TransferableBlock block) {
+      if (!_canCompareDoubles) {
+        return super.applyColumn(block);
+      }
+      DoubleColumnVector lhs = _lhs.applyDoubles(block);
+      DoubleColumnVector rhs = _rhs.applyDoubles(block);
+      double[] lhsValues = lhs.getValues();
+      double[] rhsValues = rhs.getValues();
+      int numRows = lhsValues.length;
+      Object[] results = new Object[numRows];
+      for (int i = 0; i < numRows; i++) {
+        results[i] = _comparisonResultPredicate.test(Double.compare(lhsValues[i], rhsValues[i])) ? 1 : 0;
+      }
+      RoaringBitmap nullBitmap = DoubleColumnVector.unionNullBitmaps(lhs, rhs);
+      if (nullBitmap != null) {
+        nullBitmap.forEach((IntConsumer) i -> results[i] = null);
+      }
+      return results;
+    }
+
+    @Override
+    public Object[] applyColumn(TransferableBlock block, int[] selectedRowIds, int numSelectedRows) {
+      // NOTE: Comparing double vectors cannot fail, so evaluate all the rows when most of them are selected
+      if (_canCompareDoubles && numSelectedRows >= block.getNumRows() / 2) {
+        return applyColumn(block);
+      }
+      return super.applyColumn(block, selectedRowIds, numSelectedRows);
+    }
+
     private static Comparable<?> cast(Object value, ColumnDataType type) {
       switch (type) {
         case INT:
@@ -247,4 +332,56 @@ public abstract class FilterOperand implements TransformOperand {
       }
     }
   }
+
+  private static int[] getAllRowIds(TransferableBlock block) {
+    int numRows = block.getNumRows();
+    int[] rowIds = new int[numRows];
+    for (int i = 0; i < numRows; i++) {
+      rowIds[i] = i;
+    }
+    return rowIds;
+  }
+
+  /**
+   * Evaluates AND (short-circuit value 0) or OR (short-circuit value 1) on the selected rows column at a time. Same as
+   * the row-wise {@link #apply(Object[])}, each child is only evaluated on the rows not yet decided by the previous
+   * children (i.e. rows not evaluated to the short-circuit value), so that the later children are neither evaluated on
+   * the rows guarded by the earlier ones, nor wasted on the rows already decided.
+   */
+  private static Object[] applyShortCircuit(List<TransformOperand> childOperands, TransferableBlock block,
+      int[] selectedRowIds, int numSelectedRows, int shortCircuitValue) {
+    int numRows = block.getNumRows();
+    Object[] results = new Object[numRows];
+    int nonShortCircuitValue = 1 - shortCircuitValue;
+    for (int i = 0; i < numSelectedRows; i++) {
+      results[selectedRowIds[i]] = nonShortCircuitValue;
+    }
+    int[] undecidedRowIds = selectedRowIds;
+    int numUndecidedRows = numSelectedRows;
+    for (TransformOperand child : childOperands) {
+      if (numUndecidedRows == 0) {
+        break;
+      }
+      Object[] childResults = numUndecidedRows == numRows ? child.applyColumn(block)
+          : child.applyColumn(block, undecidedRowIds, numUndecidedRows);
+      // NOTE: Do not modify the selected row ids passed in by the caller
+      int[] remainingRowIds = undecidedRowIds == selectedRowIds ? new int[numUndecidedRows] : undecidedRowIds;
+      int numRemainingRows = 0;
+      for (int i = 0; i < numUndecidedRows; i++) {
+        int rowId = undecidedRowIds[i];
+        Object childResult = childResults[rowId];
+        if (childResult == null) {
+          results[rowId] = null;
+          remainingRowIds[numRemainingRows++] = rowId;
+        } else if ((int) childResult == shortCircuitValue) {
+          results[rowId] = shortCircuitValue;
+        } else {
+          remainingRowIds[numRemainingRows++] = rowId;
+        }
+      }
+      undecidedRowIds = remainingRowIds;
+      numUndecidedRows = numRemainingRows;
+    }
+    return results;
+  }
 }
@@ -19,6 +19,7 @@
 package org.apache.pinot.query.runtime.operator.operands;
 
 import com.google.common.base.Preconditions;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -27,22 +28,32 @@ import org.apache.pinot.common.function.FunctionInfo;
 import org.apache.pinot.common.function.FunctionInvoker;
 import org.apache.pinot.common.function.FunctionRegistry;
 import org.apache.pinot.common.function.FunctionUtils;
+import org.apache.pinot.common.function.scalar.ArithmeticFunctions;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.common.utils.PinotDataType;
 import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.operator.utils.TypeUtils;
+import org.roaringbitmap.RoaringBitmap;
 
 
 /*
  * FunctionOperands are generated from {@link RexExpression}s.
  */
 public class FunctionOperand implements TransformOperand {
+  // Binary arithmetic functions (on doubles) which can be evaluated on double vectors without invoking the method
+  private enum VectorizedArithmetic {
+    PLUS, MINUS, TIMES, DIVIDE
+  }
+
   private final ColumnDataType _resultType;
   private final FunctionInvoker _functionInvoker;
   private final ColumnDataType _functionInvokerResultType;
   private final List<TransformOperand> _operands;
   private final Object[] _reusableOperandHolder;
+  @Nullable
+  private final VectorizedArithmetic _vectorizedArithmetic;
 
   public FunctionOperand(RexExpression.FunctionCall functionCall, DataSchema dataSchema) {
     _resultType = functionCall.getDataType();
@@ -91,6 +102,33 @@ public class FunctionOperand implements TransformOperand {
       _operands.add(TransformOperandFactory.getTransformOperand(operand, dataSchema));
     }
     _reusableOperandHolder = new Object[numOperands];
+    _vectorizedArithmetic = getVectorizedArithmetic();
+  }
+
+  @Nullable
+  private VectorizedArithmetic getVectorizedArithmetic() {
+    Method method = _functionInvoker.getMethod();
+    if (method.getDeclaringClass() != ArithmeticFunctions.class || _operands.size() != 2
+        || !DoubleColumnVector.isSupportedType(_resultType)) {
+      return null;
+    }
+    for (TransformOperand operand : _operands) {
+      if (!operand.canApplyDoubles()) {
+        return null;
+      }
+    }
+    switch (method.getName()) {
+      case "plus":
+        return VectorizedArithmetic.PLUS;
+      case "minus":
+        return VectorizedArithmetic.MINUS;
+      case "times":
+        return VectorizedArithmetic.TIMES;
+      case "divide":
+        return VectorizedArithmetic.DIVIDE;
+      default:
+        return null;
+    }
   }
 
   @Override
@@ -117,4 +155,84 @@ public class FunctionOperand implements TransformOperand {
     return result != null ? TypeUtils.convert(_functionInvokerResultType.toInternal(result),
         _resultType.getStoredType()) : null;
   }
+
+  @Override
+  public Object[] applyColumn(TransferableBlock block) {
+    if (_vectorizedArithmetic == null) {
+      return TransformOperand.super.applyColumn(block);
+    }
+    DoubleColumnVector vector = applyDoubles(block);
+    double[] values = vector.getValues();
+    int numRows = values.length;
+    Object[] results = new Object[numRows];
+    ColumnDataType storedResultType = _resultType.getStoredType();
+    for (int i = 0; i < numRows; i++) {
+      if (!vector.isNull(i)) {
+        results[i] = TypeUtils.convert(values[i], storedResultType);
+      }
+    }
+    return results;
+  }
+
+  @Override
+  public boolean canApplyDoubles() {
+    return _vectorizedArithmetic != null;
+  }
+
+  @Override
+  public DoubleColumnVector applyDoubles(TransferableBlock block) {
+    Preconditions.checkState(_vectorizedArithmetic != null, "Function cannot be evaluated into double vector");
+    DoubleColumnVector lhs = _operands.get(0).applyDoubles(block);
+    DoubleColumnVector rhs = _operands.get(1).applyDoubles(block);
+    double[] lhsValues = lhs.getValues();
+    double[] rhsValues = rhs.getValues();
+    int numRows = lhsValues.length;
+    double[] values = new double[numRows];
+    switch (_vectorizedArithmetic) {
+      case PLUS:
+        for (int i = 0; i < numRows; i++) {
+          values[i] = lhsValues[i] + rhsValues[i];
+        }
+        break;
+      case MINUS:
+        for (int i = 0; i < numRows; i++) {
+          values[i] = lhsValues[i] - rhsValues[i];
+        }
+        break;
+      case TIMES:
+        for (int i = 0; i < numRows; i++) {
+          values[i] = lhsValues[i] * rhsValues[i];
+        }
+        break;
+      case DIVIDE:
+        for (int i = 0; i < numRows; i++) {
+          values[i] = lhsValues[i] / rhsValues[i];
+        }
+        break;
+      default:
+        throw new IllegalStateException("Unsupported vectorized arithmetic: " + _vectorizedArithmetic);
+    }
+    // Narrow the values the same way as the row based evaluation so that the parent operands get the same values
+    switch (_resultType.getStoredType()) {
+      case INT:
+        for (int i = 0; i < numRows; i++) {
+          values[i] = (int) values[i];
+        }
+        break;
+      case LONG:
+        for (int i = 0; i < numRows; i++) {
+          values[i] = (long) values[i];
+        }
+        break;
+      case FLOAT:
+        for (int i = 0; i < numRows; i++) {
+          values[i] = (float) values[i];
+        }
+        break;
+      default:
+        break;
+    }
+    RoaringBitmap nullBitmap = DoubleColumnVector.unionNullBitmaps(lhs, rhs);
+    return new DoubleColumnVector(values, nullBitmap);
+  }
 }
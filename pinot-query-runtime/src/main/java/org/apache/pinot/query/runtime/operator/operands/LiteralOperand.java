@@ -18,8 +18,11 @@
  */
 package org.apache.pinot.query.runtime.operator.operands;
 
+import java.util.Arrays;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.roaringbitmap.RoaringBitmap;
 
 
 public class LiteralOperand implements TransformOperand {
@@ -40,4 +43,22 @@ public class LiteralOperand implements TransformOperand {
   public Object apply(Object[] row) {
     return _value;
   }
+
+  @Override
+  public boolean canApplyDoubles() {
+    return DoubleColumnVector.isSupportedType(_resultType) && (_value == null || _value instanceof Number);
+  }
+
+  @Override
+  public DoubleColumnVector applyDoubles(TransferableBlock block) {
+    int numRows = block.getNumRows();
+    double[] values = new double[numRows];
+    if (_value == null) {
+      RoaringBitmap nullBitmap = new RoaringBitmap();
+      nullBitmap.add(0L, numRows);
+      return new DoubleColumnVector(values, nullBitmap);
+    }
+    Arrays.fill(values, ((Number) _value).doubleValue());
+    return new DoubleColumnVector(values, null);
+  }
 }
@@ -18,9 +18,14 @@
  */
 package org.apache.pinot.query.runtime.operator.operands;
 
+import java.util.List;
 import javax.annotation.Nullable;
+import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.util.DataBlockExtractUtils;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.roaringbitmap.RoaringBitmap;
 
 
 public class ReferenceOperand implements TransformOperand {
@@ -42,4 +47,37 @@ public class ReferenceOperand implements TransformOperand {
   public Object apply(Object[] row) {
     return row[_index];
   }
+
+  @Override
+  public boolean canApplyDoubles() {
+    return DoubleColumnVector.isSupportedType(_resultType);
+  }
+
+  @Override
+  public DoubleColumnVector applyDoubles(TransferableBlock block) {
+    if (!block.isContainerConstructed()) {
+      // Read the values directly from the serialized data block without materializing the rows
+      DataBlock dataBlock = block.getDataBlock();
+      RoaringBitmap nullBitmap = dataBlock.getNullRowIds(_index);
+      return new DoubleColumnVector(
+          DataBlockExtractUtils.extractDoubleColumn(_resultType.toDataType(), dataBlock, _index, nullBitmap),
+          nullBitmap);
+    }
+    List<Object[]> rows = block.getContainer();
+    int numRows = rows.size();
+    double[] values = new double[numRows];
+    RoaringBitmap nullBitmap = null;
+    for (int i = 0; i < numRows; i++) {
+      Object value = rows.get(i)[_index];
+      if (value != null) {
+        values[i] = ((Number) value).doubleValue();
+      } else {
+        if (nullBitmap == null) {
+          nullBitmap = new RoaringBitmap();
+        }
+        nullBitmap.add(i);
+      }
+    }
+    return new DoubleColumnVector(values, nullBitmap);
+  }
 }
@@ -18,8 +18,10 @@
  */
 package org.apache.pinot.query.runtime.operator.operands;
 
+import java.util.List;
 import javax.annotation.Nullable;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 
 
 public interface TransformOperand {
@@ -28,4 +30,48 @@ public interface TransformOperand {
 
   @Nullable
   Object apply(Object[] row);
+
+  /**
+   * Evaluates the operand over all the rows of the block (column at a time), and returns one value per row in the same
+   * format as {@link #apply(Object[])}. Operands that can be evaluated on primitive vectors override this.
+   */
+  default Object[] applyColumn(TransferableBlock block) {
+    List<Object[]> rows = block.getContainer();
+    int numRows = rows.size();
+    Object[] values = new Object[numRows];
+    for (int i = 0; i < numRows; i++) {
+      values[i] = apply(rows.get(i));
+    }
+    return values;
+  }
+
+  /**
+   * Same as {@link #applyColumn(TransferableBlock)}, but only evaluates the operand on the selected rows, where the
+   * first {@code numSelectedRows} entries of {@code selectedRowIds} are the ascending ids of the selected rows. The
+   * values of the other rows are left {@code null}. Used by AND and OR to not evaluate the later children on the
+   * rows already decided by the earlier children, which keeps the short-circuit semantics of {@link #apply(Object[])}
+   * (e.g. a guarded CAST is not evaluated on the rows the guard filters out).
+   */
+  default Object[] applyColumn(TransferableBlock block, int[] selectedRowIds, int numSelectedRows) {
+    List<Object[]> rows = block.getContainer();
+    Object[] values = new Object[rows.size()];
+    for (int i = 0; i < numSelectedRows; i++) {
+      int rowId = selectedRowIds[i];
+      values[rowId] = apply(rows.get(rowId));
+    }
+    return values;
+  }
+
+  /**
+   * Returns whether the operand can be evaluated into a {@link DoubleColumnVector} via
+   * {@link #applyDoubles(TransferableBlock)}. The double values must be exactly the values returned by
+   * {@link #apply(Object[])} widened to double.
+   */
+  default boolean canApplyDoubles() {
+    return false;
+  }
+
+  default DoubleColumnVector applyDoubles(TransferableBlock block) {
+    throw new UnsupportedOperationException("Cannot evaluate operand into double vector: " + getClass().getName());
+  }
 }
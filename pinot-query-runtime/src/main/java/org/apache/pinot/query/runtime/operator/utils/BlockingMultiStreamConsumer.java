@@ -70,6 +70,18 @@ public abstract class BlockingMultiStreamConsumer<E> implements AutoCloseable {
 
   protected abstract E onEos();
 
+  /**
+   * Returns the element indicating that no mailbox is ready, see {@link #readBlockNonBlocking()}.
+   */
+  protected abstract E onYield();
+
+  /**
+   * This method is called whenever new data is available in one of the mailboxes, in addition to the notification of
+   * the threads blocked in {@link #readBlockBlocking()}.
+   */
+  protected void onDataAvailable() {
+  }
+
   @Override
   public void close() {
     cancelRemainingMailboxes();
@@ -99,6 +111,7 @@ public abstract class BlockingMultiStreamConsumer<E> implements AutoCloseable {
     } else if (LOGGER.isTraceEnabled()) {
       LOGGER.trace("New data notification ignored on " + _id + ". " + System.identityHashCode(_newDataReady));
     }
+    onDataAvailable();
   }
 
   /**
@@ -155,6 +168,22 @@ public abstract class BlockingMultiStreamConsumer<E> implements AutoCloseable {
     }
   }
 
+  /**
+   * Reads the next block for any ready mailbox without blocking the calling thread.
+   *
+   * The method follows the same semantic as {@link #readBlockBlocking()}, except that when no mailbox is ready, the
+   * element returned by {@link #onYield()} is returned instead of blocking. The caller is notified through
+   * {@link #onDataAvailable()} when it is worth calling this method again.
+   */
+  public E readBlockNonBlocking() {
+    if (LOGGER.isTraceEnabled()) {
+      LOGGER.trace("==[RECEIVE]== Enter getNextBlock (non-blocking) from: " + _id + " mailboxSize: "
+          + _mailboxes.size());
+    }
+    E block = readDroppingSuccessEos();
+    return block != null ? block : onYield();
+  }
+
   /**
    * This is a utility method that reads tries to read from the different mailboxes in a circular manner.
    *
@@ -235,14 +264,24 @@ public abstract class BlockingMultiStreamConsumer<E> implements AutoCloseable {
 
   public static class OfTransferableBlock extends BlockingMultiStreamConsumer<TransferableBlock> {
 
+    private final OpChainExecutionContext _context;
     private final MultiStageQueryStats _stats;
 
     public OfTransferableBlock(OpChainExecutionContext context,
         List<? extends AsyncStream<TransferableBlock>> asyncProducers) {
       super(context.getId(), context.getDeadlineMs(), asyncProducers);
+      _context = context;
       _stats = MultiStageQueryStats.emptyStats(context.getStageId());
     }
 
+    /**
+     * Reads the next block without blocking when the OpChain is run by a cooperative scheduler (i.e. it can yield),
+     * blocking otherwise.
+     */
+    public TransferableBlock readBlock() {
+      return _context.isYieldEnabled() ? readBlockNonBlocking() : readBlockBlocking();
+    }
+
     @Override
     protected boolean isError(TransferableBlock element) {
       return element.isErrorBlock();
@@ -276,5 +315,15 @@ public abstract class BlockingMultiStreamConsumer<E> implements AutoCloseable {
     protected TransferableBlock onEos() {
       return TransferableBlockUtils.getEndOfStreamTransferableBlock(_stats);
     }
+
+    @Override
+    protected TransferableBlock onYield() {
+      return TransferableBlockUtils.getYieldTransferableBlock();
+    }
+
+    @Override
+    protected void onDataAvailable() {
+      _context.notifyDataAvailable();
+    }
   }
 }
@@ -24,18 +24,37 @@ import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.calcite.rel.RelFieldCollation.Direction;
 import org.apache.calcite.rel.RelFieldCollation.NullDirection;
 import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 
 
 public class SortUtils {
   private SortUtils() {
   }
 
+  /**
+   * Compares the given non-null values of a column with the given stored type. The comparison is exact for all the
+   * types, e.g. LONG values above 2^53 are not compared as doubles.
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  public static int compareValues(ColumnDataType storedType, Object v1, Object v2) {
+    switch (storedType) {
+      case INT:
+      case LONG:
+        return Long.compare(((Number) v1).longValue(), ((Number) v2).longValue());
+      case FLOAT:
+      case DOUBLE:
+        return Double.compare(((Number) v1).doubleValue(), ((Number) v2).doubleValue());
+      default:
+        return ((Comparable) v1).compareTo(v2);
+    }
+  }
+
   public static class SortComparator implements Comparator<Object[]> {
     private final int _numFields;
     private final int[] _valueIndices;
     private final int[] _multipliers;
     private final int[] _nullsMultipliers;
-    private final boolean[] _useDoubleComparison;
+    private final ColumnDataType[] _storedTypes;
 
     /**
      * Sort comparator for use with priority queues.
@@ -45,12 +64,12 @@ public class SortUtils {
      * @param reverse 'true' if the opposite sort direction should be used as what is specified
      */
     public SortComparator(DataSchema dataSchema, List<RelFieldCollation> collations, boolean reverse) {
-      DataSchema.ColumnDataType[] columnDataTypes = dataSchema.getColumnDataTypes();
+      ColumnDataType[] columnDataTypes = dataSchema.getColumnDataTypes();
       _numFields = collations.size();
       _valueIndices = new int[_numFields];
       _multipliers = new int[_numFields];
       _nullsMultipliers = new int[_numFields];
-      _useDoubleComparison = new boolean[_numFields];
+      _storedTypes = new ColumnDataType[_numFields];
       for (int i = 0; i < _numFields; i++) {
         RelFieldCollation collation = collations.get(i);
         _valueIndices[i] = collation.getFieldIndex();
@@ -61,7 +80,7 @@ public class SortUtils {
                 && collation.direction == Direction.ASCENDING);
         int nullsMultiplier = nullsLast ? 1 : -1;
         _nullsMultipliers[i] = reverse ? -nullsMultiplier : nullsMultiplier;
-        _useDoubleComparison[i] = columnDataTypes[_valueIndices[i]].isNumber();
+        _storedTypes[i] = columnDataTypes[_valueIndices[i]].getStoredType();
       }
     }
 
@@ -80,13 +99,7 @@ public class SortUtils {
         if (v2 == null) {
           return -_nullsMultipliers[i];
         }
-        int result;
-        if (_useDoubleComparison[i]) {
-          result = Double.compare(((Number) v1).doubleValue(), ((Number) v2).doubleValue());
-        } else {
-          //noinspection rawtypes,unchecked
-          result = ((Comparable) v1).compareTo(v2);
-        }
+        int result = compareValues(_storedTypes[i], v1, v2);
         if (result != 0) {
           return result * _multipliers[i];
         }
@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.utils;
+
+import com.google.common.base.Preconditions;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datablock.DataBlockUtils;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.common.datablock.DataBlockBuilder;
+import org.apache.pinot.core.util.DataBlockExtractUtils;
+
+
+/**
+ * The {@code SpillFile} is an append-only local file used by multi-stage operators to move rows out of the heap once
+ * their memory budget is exhausted.
+ *
+ * <p>Rows are buffered and written as a sequence of length-prefixed serialized {@link DataBlock}s (the same format
+ * used by the mailboxes), so the values are read back in the same internal format they were written. The file is
+ * written once, then read back any number of times via {@link #openReader()}, and deleted on {@link #close()}.
+ */
+public class SpillFile implements Closeable {
+  public static final int DEFAULT_ROWS_PER_BLOCK = 10_000;
+  private static final String FILE_PREFIX = "pinot-spill-";
+  private static final String FILE_SUFFIX = ".tmp";
+
+  private final File _file;
+  private final DataSchema _dataSchema;
+  private final int _rowsPerBlock;
+  private final List<Object[]> _buffer;
+
+  private DataOutputStream _outputStream;
+  private long _numRows;
+  private long _numBytes;
+
+  public SpillFile(DataSchema dataSchema)
+      throws IOException {
+    this(dataSchema, DEFAULT_ROWS_PER_BLOCK);
+  }
+
+  public SpillFile(DataSchema dataSchema, int rowsPerBlock)
+      throws IOException {
+    _file = File.createTempFile(FILE_PREFIX, FILE_SUFFIX);
+    _dataSchema = dataSchema;
+    _rowsPerBlock = rowsPerBlock;
+    _buffer = new ArrayList<>(rowsPerBlock);
+    _outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(_file)));
+  }
+
+  /**
+   * Returns the spill partition for the given key hash. The hash is re-mixed because the rows received by the
+   * multi-stage operators are usually already partitioned with the same hash by the upstream exchange.
+   */
+  public static int getPartition(int hash, int numPartitions) {
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return (hash & Integer.MAX_VALUE) % numPartitions;
+  }
+
+  public void add(Object[] row)
+      throws IOException {
+    Preconditions.checkState(_outputStream != null, "Cannot add rows to a finished spill file");
+    _buffer.add(row);
+    _numRows++;
+    if (_buffer.size() >= _rowsPerBlock) {
+      flushBuffer();
+    }
+  }
+
+  public void addAll(List<Object[]> rows)
+      throws IOException {
+    for (Object[] row : rows) {
+      add(row);
+    }
+  }
+
+  /**
+   * Flushes the buffered rows and closes the output stream. No more rows can be added after this call.
+   */
+  public void finish()
+      throws IOException {
+    if (_outputStream != null) {
+      flushBuffer();
+      _outputStream.close();
+      _outputStream = null;
+    }
+  }
+
+  private void flushBuffer()
+      throws IOException {
+    if (_buffer.isEmpty()) {
+      return;
+    }
+    byte[] bytes = DataBlockBuilder.buildFromRows(_buffer, _dataSchema).toBytes();
+    _outputStream.writeInt(bytes.length);
+    _outputStream.write(bytes);
+    _numBytes += Integer.BYTES + bytes.length;
+    _buffer.clear();
+  }
+
+  public long getNumRows() {
+    return _numRows;
+  }
+
+  /**
+   * Returns the number of bytes written to disk so far.
+   */
+  public long getNumBytes() {
+    return _numBytes;
+  }
+
+  public DataSchema getDataSchema() {
+    return _dataSchema;
+  }
+
+  /**
+   * Finishes the file (if not already finished) and opens a new reader from the beginning of the file.
+   */
+  public Reader openReader()
+      throws IOException {
+    finish();
+    return new Reader(_file);
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    try {
+      if (_outputStream != null) {
+        _outputStream.close();
+        _outputStream = null;
+      }
+    } finally {
+      FileUtils.deleteQuietly(_file);
+    }
+  }
+
+  public static class Reader implements Closeable {
+    private final DataInputStream _inputStream;
+
+    private Reader(File file)
+        throws IOException {
+      _inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    }
+
+    /**
+     * Returns the next block of rows, or {@code null} when the end of the file is reached.
+     */
+    @Nullable
+    public List<Object[]> nextRows()
+        throws IOException {
+      int length;
+      try {
+        length = _inputStream.readInt();
+      } catch (EOFException e) {
+        return null;
+      }
+      byte[] bytes = new byte[length];
+      _inputStream.readFully(bytes);
+      return DataBlockExtractUtils.extractRows(DataBlockUtils.getDataBlock(ByteBuffer.wrap(bytes)));
+    }
+
+    @Override
+    public void close()
+        throws IOException {
+      _inputStream.close();
+    }
+  }
+}
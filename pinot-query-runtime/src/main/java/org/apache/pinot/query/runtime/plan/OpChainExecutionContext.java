@@ -50,6 +50,9 @@ public class OpChainExecutionContext {
   private final boolean _traceEnabled;
 
   private ServerPlanRequestContext _leafStageContext;
+  // Set by the cooperative scheduler before running the OpChain, see setDataAvailableCallback()
+  @Nullable
+  private volatile Runnable _dataAvailableCallback;
 
   public OpChainExecutionContext(MailboxService mailboxService, long requestId, long deadlineMs,
       Map<String, String> opChainMetadata, StageMetadata stageMetadata, WorkerMetadata workerMetadata,
@@ -123,4 +126,27 @@ public class OpChainExecutionContext {
   public void setLeafStageContext(ServerPlanRequestContext leafStageContext) {
     _leafStageContext = leafStageContext;
   }
+
+  /**
+   * Returns whether the OpChain can yield, i.e. the receive operators should return a yield block instead of blocking
+   * when no block is available.
+   */
+  public boolean isYieldEnabled() {
+    return _dataAvailableCallback != null;
+  }
+
+  /**
+   * Sets the callback invoked when new data is available for the receive operators of the OpChain, which enables
+   * yielding. The callback is used by the scheduler to resume the yielded OpChain.
+   */
+  public void setDataAvailableCallback(@Nullable Runnable dataAvailableCallback) {
+    _dataAvailableCallback = dataAvailableCallback;
+  }
+
+  public void notifyDataAvailable() {
+    Runnable dataAvailableCallback = _dataAvailableCallback;
+    if (dataAvailableCallback != null) {
+      dataAvailableCallback.run();
+    }
+  }
 }
@@ -41,12 +41,14 @@ import org.apache.pinot.query.runtime.operator.IntersectAllOperator;
 import org.apache.pinot.query.runtime.operator.IntersectOperator;
 import org.apache.pinot.query.runtime.operator.LeafStageTransferableBlockOperator;
 import org.apache.pinot.query.runtime.operator.LiteralValueOperator;
+import org.apache.pinot.query.runtime.operator.LookupJoinOperator;
 import org.apache.pinot.query.runtime.operator.MailboxReceiveOperator;
 import org.apache.pinot.query.runtime.operator.MailboxSendOperator;
 import org.apache.pinot.query.runtime.operator.MinusAllOperator;
 import org.apache.pinot.query.runtime.operator.MinusOperator;
 import org.apache.pinot.query.runtime.operator.MultiStageOperator;
 import org.apache.pinot.query.runtime.operator.OpChain;
+import org.apache.pinot.query.runtime.operator.SortMergeJoinOperator;
 import org.apache.pinot.query.runtime.operator.SortOperator;
 import org.apache.pinot.query.runtime.operator.SortedMailboxReceiveOperator;
 import org.apache.pinot.query.runtime.operator.TransformOperator;
@@ -144,6 +146,13 @@ public class PhysicalPlanVisitor implements PlanNodeVisitor<MultiStageOperator,
     List<PlanNode> inputs = node.getInputs();
     PlanNode left = inputs.get(0);
     PlanNode right = inputs.get(1);
+    if (node.isLookupJoin()) {
+      return new LookupJoinOperator(context, visit(left, context), left.getDataSchema(), node);
+    }
+    if (SortMergeJoinOperator.canApply(node)) {
+      return new SortMergeJoinOperator(context, visit(left, context), left.getDataSchema(), visit(right, context),
+          node);
+    }
     return new HashJoinOperator(context, visit(left, context), left.getDataSchema(), visit(right, context), node);
   }
 
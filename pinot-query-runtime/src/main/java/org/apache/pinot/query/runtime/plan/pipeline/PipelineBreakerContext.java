@@ -31,12 +31,21 @@ import org.apache.pinot.query.planner.plannode.PlanNode;
 class PipelineBreakerContext {
   private final Map<PlanNode, Integer> _planNodeObjectToIdMap = new HashMap<>();
   private final Map<Integer, PlanNode> _pipelineBreakerMap = new HashMap<>();
+  private final Map<Integer, Integer> _senderStageIdToNodeIdMap = new HashMap<>();
 
   private int _currentNodeId = 0;
 
   public void addPipelineBreaker(MailboxReceiveNode mailboxReceiveNode) {
+    // Pipeline breakers receiving from the same sender stage (deduplicated by the planner) share the same result, so
+    // that the sender stage is received only once.
+    Integer existingNodeId = _senderStageIdToNodeIdMap.get(mailboxReceiveNode.getSenderStageId());
+    if (existingNodeId != null) {
+      _planNodeObjectToIdMap.put(mailboxReceiveNode, existingNodeId);
+      return;
+    }
     int nodeId = _planNodeObjectToIdMap.get(mailboxReceiveNode);
     _pipelineBreakerMap.put(nodeId, mailboxReceiveNode);
+    _senderStageIdToNodeIdMap.put(mailboxReceiveNode.getSenderStageId(), nodeId);
   }
 
   public void visitedNewPlanNode(PlanNode planNode) {
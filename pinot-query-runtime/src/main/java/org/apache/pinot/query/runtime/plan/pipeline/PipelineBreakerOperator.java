@@ -21,7 +21,6 @@ package org.apache.pinot.query.runtime.plan.pipeline;
 import com.google.common.base.Preconditions;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,7 +43,8 @@ public class PipelineBreakerOperator extends MultiStageOperator {
 
   private final Map<Integer, Operator<TransferableBlock>> _workerMap;
 
-  private Map<Integer, List<TransferableBlock>> _resultMap;
+  private final Map<Integer, List<TransferableBlock>> _resultMap;
+  private final Queue<Map.Entry<Integer, Operator<TransferableBlock>>> _pendingWorkers;
   private TransferableBlock _errorBlock;
   @Nullable
   private MultiStageQueryStats _queryStats = null;
@@ -53,10 +53,12 @@ public class PipelineBreakerOperator extends MultiStageOperator {
   public PipelineBreakerOperator(OpChainExecutionContext context, Map<Integer, Operator<TransferableBlock>> workerMap) {
     super(context);
     _workerMap = workerMap;
+    // NOTE: Put an empty list for each worker in case there is no data block returned from that worker
     _resultMap = new HashMap<>();
     for (int workerKey : workerMap.keySet()) {
       _resultMap.put(workerKey, new ArrayList<>());
     }
+    _pendingWorkers = new ArrayDeque<>(workerMap.entrySet());
   }
 
   @Override
@@ -105,50 +107,37 @@ public class PipelineBreakerOperator extends MultiStageOperator {
     if (_errorBlock != null) {
       return _errorBlock;
     }
-    // NOTE: Put an empty list for each worker in case there is no data block returned from that worker
-    if (_workerMap.size() == 1) {
-      Map.Entry<Integer, Operator<TransferableBlock>> entry = _workerMap.entrySet().iterator().next();
-      List<TransferableBlock> dataBlocks = new ArrayList<>();
-      _resultMap = Collections.singletonMap(entry.getKey(), dataBlocks);
-      Operator<TransferableBlock> operator = entry.getValue();
-      TransferableBlock block = operator.nextBlock();
-      while (!block.isSuccessfulEndOfStreamBlock()) {
-        if (block.isErrorBlock()) {
-          _errorBlock = block;
-          return block;
-        }
-        dataBlocks.add(block);
-        block = operator.nextBlock();
-      }
-      _queryStats = block.getQueryStats();
-    } else {
-      _resultMap = new HashMap<>();
-      for (int workerKey : _workerMap.keySet()) {
-        _resultMap.put(workerKey, new ArrayList<>());
+    // Keep polling from every operator in round-robin fashion. The pending workers are kept across the calls so that
+    // the polling can be resumed after yielding (when none of the workers has a block available).
+    int numConsecutiveYields = 0;
+    while (!_pendingWorkers.isEmpty()) {
+      Map.Entry<Integer, Operator<TransferableBlock>> entry = _pendingWorkers.poll();
+      TransferableBlock block = entry.getValue().nextBlock();
+      if (block.isErrorBlock()) {
+        _errorBlock = block;
+        return block;
       }
-      // Keep polling from every operator in round-robin fashion
-      Queue<Map.Entry<Integer, Operator<TransferableBlock>>> entries = new ArrayDeque<>(_workerMap.entrySet());
-      while (!entries.isEmpty()) {
-        Map.Entry<Integer, Operator<TransferableBlock>> entry = entries.poll();
-        TransferableBlock block = entry.getValue().nextBlock();
-        if (block.isErrorBlock()) {
-          _errorBlock = block;
+      if (block.isYieldBlock()) {
+        _pendingWorkers.offer(entry);
+        if (++numConsecutiveYields == _pendingWorkers.size()) {
           return block;
         }
-        if (block.isDataBlock()) {
-          _resultMap.get(entry.getKey()).add(block);
-          entries.offer(entry);
-        } else if (block.isSuccessfulEndOfStreamBlock()) {
-          MultiStageQueryStats queryStats = block.getQueryStats();
-          assert queryStats != null;
-          if (_queryStats == null) {
-            Preconditions.checkArgument(queryStats.getCurrentStageId() == _context.getStageId(),
-                "The current stage id of the stats holder: %s does not match the current stage id: %s",
-                queryStats.getCurrentStageId(), _context.getStageId());
-            _queryStats = queryStats;
-          } else {
-            _queryStats.mergeUpstream(queryStats);
-          }
+        continue;
+      }
+      numConsecutiveYields = 0;
+      if (block.isDataBlock()) {
+        _resultMap.get(entry.getKey()).add(block);
+        _pendingWorkers.offer(entry);
+      } else if (block.isSuccessfulEndOfStreamBlock()) {
+        MultiStageQueryStats queryStats = block.getQueryStats();
+        assert queryStats != null;
+        if (_queryStats == null) {
+          Preconditions.checkArgument(queryStats.getCurrentStageId() == _context.getStageId(),
+              "The current stage id of the stats holder: %s does not match the current stage id: %s",
+              queryStats.getCurrentStageId(), _context.getStageId());
+          _queryStats = queryStats;
+        } else {
+          _queryStats.mergeUpstream(queryStats);
         }
       }
     }
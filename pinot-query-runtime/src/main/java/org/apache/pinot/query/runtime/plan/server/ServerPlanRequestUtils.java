@@ -68,6 +68,8 @@ public class ServerPlanRequestUtils {
   }
 
   private static final int DEFAULT_LEAF_NODE_LIMIT = Integer.MAX_VALUE;
+  // max number of distinct keys in the IN filter of a runtime filter before falling back to a range filter
+  private static final int MAX_RUNTIME_FILTER_IN_VALUES = 10_000;
   private static final List<String> QUERY_REWRITERS_CLASS_NAMES =
       ImmutableList.of(PredicateComparisonRewriter.class.getName(),
           NonAggregationGroupByToDistinctQueryRewriter.class.getName());
@@ -89,7 +91,7 @@ public class ServerPlanRequestUtils {
     ServerPlanRequestContext serverContext = new ServerPlanRequestContext(stagePlan, leafQueryExecutor, executorService,
         executionContext.getPipelineBreakerResult());
     // 1. compile the PinotQuery
-    constructPinotQueryPlan(serverContext, executionContext.getOpChainMetadata());
+    constructPinotQueryPlan(serverContext, executionContext);
     // 2. convert PinotQuery into InstanceRequest list (one for each physical table)
     List<InstanceRequest> instanceRequestList =
         constructServerQueryRequests(executionContext, serverContext, helixManager.getHelixPropertyStore());
@@ -109,12 +111,23 @@ public class ServerPlanRequestUtils {
    *   {@link ServerPlanRequestContext#setLeafStageBoundaryNode(PlanNode)}.
    */
   private static void constructPinotQueryPlan(ServerPlanRequestContext serverContext,
-      Map<String, String> requestMetadata) {
+      OpChainExecutionContext executionContext) {
     StagePlan stagePlan = serverContext.getStagePlan();
     PinotQuery pinotQuery = serverContext.getPinotQuery();
     // attach leaf node limit it not set
-    Integer leafNodeLimit = QueryOptionsUtils.getMultiStageLeafLimit(requestMetadata);
-    pinotQuery.setLimit(leafNodeLimit != null ? leafNodeLimit : DEFAULT_LEAF_NODE_LIMIT);
+    Integer leafNodeLimit = QueryOptionsUtils.getMultiStageLeafLimit(executionContext.getOpChainMetadata());
+    if (leafNodeLimit != null) {
+      // when the segments of the server are split across multiple workers, the leaf node limit is divided across the
+      // workers so that it still bounds the number of rows returned by the server
+      StageMetadata stageMetadata = executionContext.getStageMetadata();
+      if (stageMetadata.getLeafParallelism() > 1) {
+        int numWorkers = stageMetadata.getWorkerMetadataList().size();
+        leafNodeLimit = leafNodeLimit / numWorkers + (leafNodeLimit % numWorkers != 0 ? 1 : 0);
+      }
+      pinotQuery.setLimit(leafNodeLimit);
+    } else {
+      pinotQuery.setLimit(DEFAULT_LEAF_NODE_LIMIT);
+    }
     // visit the plan and create PinotQuery and determine the leaf stage boundary PlanNode.
     ServerPlanRequestVisitor.walkStageNode(stagePlan.getRootNode(), serverContext);
   }
@@ -242,9 +255,13 @@ public class ServerPlanRequestUtils {
 
   /**
    * attach the dynamic filter to the given PinotQuery.
+   *
+   * <p>When {@code isRuntimeFilter} is set, the join is still performed on top of the leaf stage, so the filter only
+   * needs to be a superset of the matching rows: if there are too many distinct numeric keys, a range filter on the
+   * min/max keys is attached instead of the IN filter to bound the size of the query.
    */
   static void attachDynamicFilter(PinotQuery pinotQuery, List<Integer> leftKeys, List<Integer> rightKeys,
-      List<Object[]> dataContainer, DataSchema dataSchema) {
+      List<Object[]> dataContainer, DataSchema dataSchema, boolean isRuntimeFilter) {
     List<Expression> expressions = new ArrayList<>();
     for (int i = 0; i < leftKeys.size(); i++) {
       Expression leftExpr = pinotQuery.getSelectList().get(leftKeys.get(i));
@@ -253,10 +270,18 @@ public class ServerPlanRequestUtils {
         expressions.add(RequestUtils.getLiteralExpression(false));
       } else {
         int rightIdx = rightKeys.get(i);
-        List<Expression> operands = new ArrayList<>(dataContainer.size() + 1);
-        operands.add(leftExpr);
-        operands.addAll(computeInOperands(dataContainer, dataSchema, rightIdx));
-        expressions.add(RequestUtils.getFunctionExpression(FilterKind.IN.name(), operands));
+        List<Expression> inOperands = computeInOperands(dataContainer, dataSchema, rightIdx);
+        if (isRuntimeFilter && inOperands.size() > MAX_RUNTIME_FILTER_IN_VALUES && dataSchema.getColumnDataType(
+            rightIdx).getStoredType().isNumber()) {
+          // in operands are sorted, so the first and last operands are the min and max keys
+          expressions.add(RequestUtils.getFunctionExpression(FilterKind.BETWEEN.name(), leftExpr, inOperands.get(0),
+              inOperands.get(inOperands.size() - 1)));
+        } else {
+          List<Expression> operands = new ArrayList<>(inOperands.size() + 1);
+          operands.add(leftExpr);
+          operands.addAll(inOperands);
+          expressions.add(RequestUtils.getFunctionExpression(FilterKind.IN.name(), operands));
+        }
       }
     }
     Expression filterExpression = pinotQuery.getFilterExpression();
@@ -270,6 +295,9 @@ public class ServerPlanRequestUtils {
     }
   }
 
+  /**
+   * Returns the sorted distinct values of the given column as literal expressions.
+   */
   private static List<Expression> computeInOperands(List<Object[]> dataContainer, DataSchema dataSchema, int colIdx) {
     final DataSchema.ColumnDataType columnDataType = dataSchema.getColumnDataType(colIdx);
     final FieldSpec.DataType storedType = columnDataType.getStoredType().toDataType();
@@ -283,7 +311,9 @@ public class ServerPlanRequestUtils {
         }
         Arrays.sort(arrInt);
         for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrInt[rowIdx]));
+          if (rowIdx == 0 || arrInt[rowIdx] != arrInt[rowIdx - 1]) {
+            expressions.add(RequestUtils.getLiteralExpression(arrInt[rowIdx]));
+          }
         }
         break;
       case LONG:
@@ -293,7 +323,9 @@ public class ServerPlanRequestUtils {
         }
         Arrays.sort(arrLong);
         for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrLong[rowIdx]));
+          if (rowIdx == 0 || arrLong[rowIdx] != arrLong[rowIdx - 1]) {
+            expressions.add(RequestUtils.getLiteralExpression(arrLong[rowIdx]));
+          }
         }
         break;
       case FLOAT:
@@ -303,7 +335,9 @@ public class ServerPlanRequestUtils {
         }
         Arrays.sort(arrFloat);
         for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrFloat[rowIdx]));
+          if (rowIdx == 0 || Float.compare(arrFloat[rowIdx], arrFloat[rowIdx - 1]) != 0) {
+            expressions.add(RequestUtils.getLiteralExpression(arrFloat[rowIdx]));
+          }
         }
         break;
       case DOUBLE:
@@ -313,7 +347,9 @@ public class ServerPlanRequestUtils {
         }
         Arrays.sort(arrDouble);
         for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrDouble[rowIdx]));
+          if (rowIdx == 0 || Double.compare(arrDouble[rowIdx], arrDouble[rowIdx - 1]) != 0) {
+            expressions.add(RequestUtils.getLiteralExpression(arrDouble[rowIdx]));
+          }
         }
         break;
       case STRING:
@@ -323,7 +359,9 @@ public class ServerPlanRequestUtils {
         }
         Arrays.sort(arrString);
         for (int rowIdx = 0; rowIdx < numRows; rowIdx++) {
-          expressions.add(RequestUtils.getLiteralExpression(arrString[rowIdx]));
+          if (rowIdx == 0 || !arrString[rowIdx].equals(arrString[rowIdx - 1])) {
+            expressions.add(RequestUtils.getLiteralExpression(arrString[rowIdx]));
+          }
         }
         break;
       default:
@@ -21,6 +21,8 @@ package org.apache.pinot.query.runtime.plan.server;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
 import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.request.DataSource;
 import org.apache.pinot.common.request.Expression;
@@ -124,6 +126,14 @@ public class ServerPlanRequestVisitor implements PlanNodeVisitor<Void, ServerPla
 
   @Override
   public Void visitJoin(JoinNode node, ServerPlanRequestContext context) {
+    if (node.isLookupJoin()) {
+      // the lookup join is performed on top of the leaf stage, the right input (dimension table) is not scanned
+      PlanNode left = node.getInputs().get(0);
+      if (visit(left, context)) {
+        context.setLeafStageBoundaryNode(left);
+      }
+      return null;
+    }
     // visit only the static side, turn the dynamic side into a lookup from the pipeline breaker resultDataContainer
     PlanNode staticSide = node.getInputs().get(0);
     PlanNode dynamicSide = node.getInputs().get(1);
@@ -143,8 +153,11 @@ public class ServerPlanRequestVisitor implements PlanNodeVisitor<Void, ServerPla
           resultDataContainer.addAll(block.getContainer());
         }
       }
+      Map<String, String> joinOptions = node.getNodeHint().getHintOptions().get(PinotHintOptions.JOIN_HINT_OPTIONS);
+      boolean isRuntimeFilter =
+          joinOptions != null && Boolean.parseBoolean(joinOptions.get(PinotHintOptions.JoinHintOptions.RUNTIME_FILTER));
       ServerPlanRequestUtils.attachDynamicFilter(context.getPinotQuery(), node.getLeftKeys(), node.getRightKeys(),
-          resultDataContainer, dataSchema);
+          resultDataContainer, dataSchema, isRuntimeFilter);
     }
     return null;
   }
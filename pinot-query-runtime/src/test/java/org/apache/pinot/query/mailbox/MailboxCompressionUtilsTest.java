@@ -0,0 +1,61 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.mailbox;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+
+public class MailboxCompressionUtilsTest {
+  @Test(dataProvider = "compressionTypes")
+  public void testCompressAndDecompress(ChunkCompressionType compressionType)
+      throws Exception {
+    ChunkCompressionType effectiveCompressionType =
+        MailboxCompressionUtils.getEffectiveCompressionType(compressionType);
+    Random random = new Random();
+    // Reused buffers should be resized and cleared between the blocks, including the blocks too large to be reused
+    for (int size : new int[]{1000, 100_000, 10, 5_000_000, 50_000}) {
+      byte[] bytes = new byte[size];
+      for (int i = 0; i < size; i++) {
+        bytes[i] = (byte) random.nextInt(16);
+      }
+      byte[] compressed = MailboxCompressionUtils.compress(effectiveCompressionType, bytes);
+      // Heap buffer as received from gRPC
+      ByteBuffer decompressed =
+          MailboxCompressionUtils.decompress(effectiveCompressionType, ByteBuffer.wrap(compressed));
+      assertEquals(decompressed.remaining(), size);
+      byte[] decompressedBytes = new byte[size];
+      decompressed.get(decompressedBytes);
+      assertEquals(decompressedBytes, bytes);
+    }
+  }
+
+  @DataProvider
+  public static Object[][] compressionTypes() {
+    return new Object[][]{
+        {ChunkCompressionType.LZ4}, {ChunkCompressionType.SNAPPY}, {ChunkCompressionType.ZSTANDARD},
+        {ChunkCompressionType.GZIP}
+    };
+  }
+}
@@ -18,10 +18,14 @@
  */
 package org.apache.pinot.query.mailbox;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
@@ -37,6 +41,7 @@ import org.apache.pinot.util.TestUtils;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeTest;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.*;
@@ -50,12 +55,19 @@ public class MailboxServiceTest {
 
   private MailboxService _mailboxService1;
   private MailboxService _mailboxService2;
+  // Mailbox services with a max pending bytes of 1, so that only one block can be sent before it is consumed
+  private MailboxService _flowControlMailboxService1;
+  private MailboxService _flowControlMailboxService2;
+  // Mailbox services with a max pending bytes of DEFAULT_MAX_PENDING_BLOCKS test blocks
+  private MailboxService _bufferFullMailboxService1;
+  private MailboxService _bufferFullMailboxService2;
 
   private long _requestId = 0;
   private StatMap<MailboxSendOperator.StatKey> _stats;
 
   @BeforeClass
-  public void setUp() {
+  public void setUp()
+      throws Exception {
     PinotConfiguration config = new PinotConfiguration(
         Collections.singletonMap(CommonConstants.MultiStageQueryRunner.KEY_OF_MAX_INBOUND_QUERY_DATA_BLOCK_SIZE_BYTES,
             4_000_000));
@@ -63,12 +75,36 @@ public class MailboxServiceTest {
     _mailboxService1.start();
     _mailboxService2 = new MailboxService("localhost", QueryTestUtils.getAvailablePort(), config);
     _mailboxService2.start();
+
+    PinotConfiguration flowControlConfig = new PinotConfiguration(
+        Map.of(CommonConstants.MultiStageQueryRunner.KEY_OF_MAX_INBOUND_QUERY_DATA_BLOCK_SIZE_BYTES, 4_000_000,
+            CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_MAX_PENDING_BYTES, 1));
+    _flowControlMailboxService1 =
+        new MailboxService("localhost", QueryTestUtils.getAvailablePort(), flowControlConfig);
+    _flowControlMailboxService1.start();
+    _flowControlMailboxService2 =
+        new MailboxService("localhost", QueryTestUtils.getAvailablePort(), flowControlConfig);
+    _flowControlMailboxService2.start();
+
+    int blockSize = OperatorTestUtil.block(DATA_SCHEMA, new Object[]{0}).getDataBlock().toBytes().length;
+    PinotConfiguration bufferFullConfig = new PinotConfiguration(
+        Map.of(CommonConstants.MultiStageQueryRunner.KEY_OF_MAX_INBOUND_QUERY_DATA_BLOCK_SIZE_BYTES, 4_000_000,
+            CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_MAX_PENDING_BYTES,
+            ReceivingMailbox.DEFAULT_MAX_PENDING_BLOCKS * blockSize));
+    _bufferFullMailboxService1 = new MailboxService("localhost", QueryTestUtils.getAvailablePort(), bufferFullConfig);
+    _bufferFullMailboxService1.start();
+    _bufferFullMailboxService2 = new MailboxService("localhost", QueryTestUtils.getAvailablePort(), bufferFullConfig);
+    _bufferFullMailboxService2.start();
   }
 
   @AfterClass
   public void tearDown() {
     _mailboxService1.shutdown();
     _mailboxService2.shutdown();
+    _flowControlMailboxService1.shutdown();
+    _flowControlMailboxService2.shutdown();
+    _bufferFullMailboxService1.shutdown();
+    _bufferFullMailboxService2.shutdown();
   }
 
   @BeforeTest
@@ -367,6 +403,50 @@ public class MailboxServiceTest {
     assertNull(receivingMailbox.poll());
   }
 
+  @Test(dataProvider = "compressionTypes")
+  public void testRemoteHappyPathWithCompression(String compressionType)
+      throws Exception {
+    String mailboxId = MailboxIdUtils.toMailboxId(_requestId++, SENDER_STAGE_ID, 0, RECEIVER_STAGE_ID, 0);
+    StatMap<MailboxSendOperator.StatKey> stats = new StatMap<>(MailboxSendOperator.StatKey.class);
+
+    // Compress all the blocks by setting the threshold to 0
+    SendingMailbox sendingMailbox =
+        _mailboxService2.getSendingMailbox("localhost", _mailboxService1.getPort(), mailboxId, Long.MAX_VALUE, stats,
+            Map.of(CommonConstants.Broker.Request.QueryOptionKey.MAILBOX_COMPRESSION_TYPE, compressionType,
+                CommonConstants.Broker.Request.QueryOptionKey.MAILBOX_COMPRESSION_THRESHOLD_BYTES, "0"));
+    Object[][] rows = new Object[1000][];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = new Object[]{i % 10};
+    }
+    sendingMailbox.send(OperatorTestUtil.block(DATA_SCHEMA, rows));
+    sendingMailbox.send(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(SENDER_STAGE_ID));
+    sendingMailbox.complete();
+
+    ReceivingMailbox receivingMailbox = _mailboxService1.getReceivingMailbox(mailboxId);
+    receivingMailbox.registeredReader(() -> {
+    });
+    TestUtils.waitForCondition(aVoid -> receivingMailbox.getNumPendingBlocks() == 2, 1000L,
+        "Failed to deliver mails");
+
+    TransferableBlock block = receivingMailbox.poll();
+    assertNotNull(block);
+    List<Object[]> receivedRows = block.getContainer();
+    assertEquals(receivedRows.size(), rows.length);
+    for (int i = 0; i < rows.length; i++) {
+      assertEquals(receivedRows.get(i), rows[i]);
+    }
+    block = receivingMailbox.poll();
+    assertNotNull(block);
+    assertTrue(block.isSuccessfulEndOfStreamBlock());
+    assertTrue(stats.getLong(MailboxSendOperator.StatKey.COMPRESSED_BYTES) < stats.getLong(
+        MailboxSendOperator.StatKey.SERIALIZED_BYTES), "Blocks should be compressed");
+  }
+
+  @DataProvider
+  public static Object[][] compressionTypes() {
+    return new Object[][]{new Object[]{"LZ4"}, new Object[]{"ZSTANDARD"}};
+  }
+
   @Test
   public void testRemoteHappyPathReceiveFirst()
       throws Exception {
@@ -561,9 +641,9 @@ public class MailboxServiceTest {
       throws Exception {
     String mailboxId = MailboxIdUtils.toMailboxId(_requestId++, SENDER_STAGE_ID, 0, RECEIVER_STAGE_ID, 0);
     SendingMailbox sendingMailbox =
-        _mailboxService2.getSendingMailbox("localhost", _mailboxService1.getPort(), mailboxId,
-            System.currentTimeMillis() + 1000, _stats);
-    ReceivingMailbox receivingMailbox = _mailboxService1.getReceivingMailbox(mailboxId);
+        _bufferFullMailboxService2.getSendingMailbox("localhost", _bufferFullMailboxService1.getPort(), mailboxId,
+            System.currentTimeMillis() + 3000, _stats);
+    ReceivingMailbox receivingMailbox = _bufferFullMailboxService1.getReceivingMailbox(mailboxId);
     AtomicInteger numCallbacks = new AtomicInteger();
     CountDownLatch receiveMailLatch = new CountDownLatch(ReceivingMailbox.DEFAULT_MAX_PENDING_BLOCKS + 1);
     receivingMailbox.registeredReader(() -> {
@@ -576,7 +656,8 @@ public class MailboxServiceTest {
       sendingMailbox.send(OperatorTestUtil.block(DATA_SCHEMA, new Object[]{i}));
     }
 
-    // Next send will be blocked on the receiver side and cause exception after timeout
+    // EOS block is sent without waiting for credit, so it will be blocked on the receiver side and cause exception
+    // after timeout
     sendingMailbox.send(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(SENDER_STAGE_ID));
     receiveMailLatch.await();
     assertEquals(numCallbacks.get(), ReceivingMailbox.DEFAULT_MAX_PENDING_BLOCKS + 1);
@@ -594,6 +675,170 @@ public class MailboxServiceTest {
     assertEquals(receivingMailbox.getNumPendingBlocks(), 0);
   }
 
+  @Test
+  public void testRemoteSendWithoutCredit()
+      throws Exception {
+    String mailboxId = MailboxIdUtils.toMailboxId(_requestId++, SENDER_STAGE_ID, 0, RECEIVER_STAGE_ID, 0);
+    StatMap<MailboxSendOperator.StatKey> stats = new StatMap<>(MailboxSendOperator.StatKey.class);
+    SendingMailbox sendingMailbox =
+        _flowControlMailboxService2.getSendingMailbox("localhost", _flowControlMailboxService1.getPort(), mailboxId,
+            System.currentTimeMillis() + 3000, stats);
+    ReceivingMailbox receivingMailbox = _flowControlMailboxService1.getReceivingMailbox(mailboxId);
+    AtomicInteger numCallbacks = new AtomicInteger();
+    receivingMailbox.registeredReader(numCallbacks::getAndIncrement);
+
+    // First send is within the initial credit
+    sendingMailbox.send(OperatorTestUtil.block(DATA_SCHEMA, new Object[]{0}));
+    TestUtils.waitForCondition(aVoid -> receivingMailbox.getNumPendingBlocks() == 1, 2000L, "Failed to deliver mails");
+    assertEquals(numCallbacks.get(), 1);
+    assertTrue(receivingMailbox.getNumPendingBytes() > 0);
+
+    // Next send will wait for credit on the sender side (instead of blocking the receiver) and cause exception after
+    // timeout
+    assertThrows(TimeoutException.class,
+        () -> sendingMailbox.send(OperatorTestUtil.block(DATA_SCHEMA, new Object[]{1})));
+    assertTrue(stats.getLong(MailboxSendOperator.StatKey.FLOW_CONTROL_WAIT_TIME_MS) > 0);
+    assertEquals(numCallbacks.get(), 1);
+
+    // Cancel is idempotent for both sending and receiving mailbox, so safe to call multiple times
+    sendingMailbox.cancel(new Exception("TEST ERROR"));
+    receivingMailbox.cancel();
+    receivingMailbox.cancel();
+    assertEquals(receivingMailbox.getNumPendingBlocks(), 0);
+  }
+
+  @Test
+  public void testRemoteFlowControl()
+      throws Exception {
+    String mailboxId = MailboxIdUtils.toMailboxId(_requestId++, SENDER_STAGE_ID, 0, RECEIVER_STAGE_ID, 0);
+    StatMap<MailboxSendOperator.StatKey> stats = new StatMap<>(MailboxSendOperator.StatKey.class);
+    SendingMailbox sendingMailbox =
+        _flowControlMailboxService2.getSendingMailbox("localhost", _flowControlMailboxService1.getPort(), mailboxId,
+            Long.MAX_VALUE, stats);
+    ReceivingMailbox receivingMailbox = _flowControlMailboxService1.getReceivingMailbox(mailboxId);
+    receivingMailbox.registeredReader(() -> {
+    });
+
+    // Sender waits for the receiver to consume each block before sending the next one
+    int numBlocks = 10;
+    AtomicReference<Exception> sendException = new AtomicReference<>();
+    Thread sender = new Thread(() -> {
+      try {
+        for (int i = 0; i < numBlocks; i++) {
+          sendingMailbox.send(OperatorTestUtil.block(DATA_SCHEMA, new Object[]{i}));
+        }
+        sendingMailbox.send(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(SENDER_STAGE_ID));
+        sendingMailbox.complete();
+      } catch (Exception e) {
+        sendException.set(e);
+      }
+    });
+    sender.start();
+
+    for (int i = 0; i < numBlocks; i++) {
+      TestUtils.waitForCondition(aVoid -> receivingMailbox.getNumPendingBlocks() > 0, 5000L,
+          "Failed to deliver mails");
+      // EOS block is sent without waiting for credit, so it can be pending along with the last data block
+      if (i < numBlocks - 1) {
+        assertEquals(receivingMailbox.getNumPendingBlocks(), 1);
+      }
+      TransferableBlock block = receivingMailbox.poll();
+      assertNotNull(block);
+      assertEquals(block.getContainer().get(0), new Object[]{i});
+    }
+    TestUtils.waitForCondition(aVoid -> receivingMailbox.getNumPendingBlocks() > 0, 5000L, "Failed to deliver EOS");
+    TransferableBlock block = receivingMailbox.poll();
+    assertNotNull(block);
+    assertTrue(block.isSuccessfulEndOfStreamBlock());
+    sender.join(5000L);
+    assertNull(sendException.get());
+    assertTrue(stats.getLong(MailboxSendOperator.StatKey.FLOW_CONTROL_WAIT_TIME_MS) > 0);
+  }
+
+  @Test
+  public void testRemoteTrySend()
+      throws Exception {
+    String mailboxId = MailboxIdUtils.toMailboxId(_requestId++, SENDER_STAGE_ID, 0, RECEIVER_STAGE_ID, 0);
+    SendingMailbox sendingMailbox =
+        _flowControlMailboxService2.getSendingMailbox("localhost", _flowControlMailboxService1.getPort(), mailboxId,
+            System.currentTimeMillis() + 3000, _stats);
+    ReceivingMailbox receivingMailbox = _flowControlMailboxService1.getReceivingMailbox(mailboxId);
+    receivingMailbox.registeredReader(() -> {
+    });
+    AtomicInteger numRetryCallbacks = new AtomicInteger();
+
+    // First send is within the initial credit
+    assertTrue(sendingMailbox.trySend(OperatorTestUtil.block(DATA_SCHEMA, new Object[]{0}),
+        numRetryCallbacks::getAndIncrement));
+    TestUtils.waitForCondition(aVoid -> receivingMailbox.getNumPendingBlocks() == 1, 2000L, "Failed to deliver mails");
+
+    // Next send returns without sending until the receiver grants more credit
+    TransferableBlock dataBlock = OperatorTestUtil.block(DATA_SCHEMA, new Object[]{1});
+    assertFalse(sendingMailbox.trySend(dataBlock, numRetryCallbacks::getAndIncrement));
+    assertEquals(numRetryCallbacks.get(), 0);
+    assertEquals(receivingMailbox.getNumPendingBlocks(), 1);
+
+    // Consuming the block grants credit, which triggers the retry callback
+    assertNotNull(receivingMailbox.poll());
+    TestUtils.waitForCondition(aVoid -> numRetryCallbacks.get() == 1, 2000L, "Failed to receive credit");
+    assertTrue(sendingMailbox.trySend(dataBlock, numRetryCallbacks::getAndIncrement));
+    TestUtils.waitForCondition(aVoid -> receivingMailbox.getNumPendingBlocks() == 1, 2000L, "Failed to deliver mails");
+    TransferableBlock block = receivingMailbox.poll();
+    assertNotNull(block);
+    assertEquals(block.getContainer().get(0), new Object[]{1});
+
+    sendingMailbox.cancel(new Exception("TEST ERROR"));
+    receivingMailbox.cancel();
+  }
+
+  @Test
+  public void testLocalPendingBytes() {
+    String mailboxId = MailboxIdUtils.toMailboxId(_requestId++, SENDER_STAGE_ID, 0, RECEIVER_STAGE_ID, 0);
+    ReceivingMailbox receivingMailbox = new ReceivingMailbox(mailboxId, 1000);
+    receivingMailbox.registeredReader(() -> {
+    });
+    List<Long> reportedCredits = new ArrayList<>();
+    receivingMailbox.setCreditListener(reportedCredits::add);
+    assertEquals(receivingMailbox.getCreditBytes(), 1000);
+
+    // In-memory blocks are counted as a fraction of the max pending bytes
+    for (int i = 0; i < ReceivingMailbox.DEFAULT_MAX_PENDING_BLOCKS; i++) {
+      assertEquals(receivingMailbox.offer(OperatorTestUtil.block(DATA_SCHEMA, new Object[]{i}), 1000L),
+          ReceivingMailbox.ReceivingMailboxStatus.SUCCESS);
+    }
+    assertEquals(receivingMailbox.getNumPendingBytes(), 1000);
+    assertEquals(receivingMailbox.getStatMap().getLong(ReceivingMailbox.StatKey.MAX_PENDING_BYTES), 1000);
+    // Mailbox is full
+    assertEquals(receivingMailbox.offer(OperatorTestUtil.block(DATA_SCHEMA, new Object[]{0}), 10L),
+        ReceivingMailbox.ReceivingMailboxStatus.TIMEOUT);
+    TransferableBlock block = receivingMailbox.poll();
+    assertNotNull(block);
+    assertTrue(block.isErrorBlock());
+    assertEquals(receivingMailbox.getNumPendingBytes(), 0);
+    assertTrue(reportedCredits.isEmpty());
+  }
+
+  @Test
+  public void testLocalCreditReport() {
+    String mailboxId = MailboxIdUtils.toMailboxId(_requestId++, SENDER_STAGE_ID, 0, RECEIVER_STAGE_ID, 0);
+    ReceivingMailbox receivingMailbox = new ReceivingMailbox(mailboxId, 1000);
+    receivingMailbox.registeredReader(() -> {
+    });
+    List<Long> reportedCredits = new ArrayList<>();
+    receivingMailbox.setCreditListener(reportedCredits::add);
+    for (int i = 0; i < ReceivingMailbox.DEFAULT_MAX_PENDING_BLOCKS; i++) {
+      receivingMailbox.offer(OperatorTestUtil.block(DATA_SCHEMA, new Object[]{i}), 1000L);
+    }
+
+    // Each in-memory block is counted as 200 bytes, and the credit is reported for every 250 bytes consumed or when
+    // the mailbox is drained
+    for (int i = 0; i < ReceivingMailbox.DEFAULT_MAX_PENDING_BLOCKS; i++) {
+      assertNotNull(receivingMailbox.poll());
+    }
+    assertEquals(reportedCredits, List.of(1400L, 1800L, 2000L));
+    assertEquals(receivingMailbox.getCreditBytes(), 2000);
+  }
+
   @Test
   public void testRemoteEarlyTerminated()
       throws Exception {
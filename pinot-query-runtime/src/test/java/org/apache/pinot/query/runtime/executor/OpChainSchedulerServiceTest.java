@@ -24,6 +24,10 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.common.utils.NamedThreadFactory;
 import org.apache.pinot.query.mailbox.MailboxService;
 import org.apache.pinot.query.routing.StageMetadata;
@@ -32,7 +36,9 @@ import org.apache.pinot.query.runtime.blocks.TransferableBlockTestUtils;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
 import org.apache.pinot.query.runtime.operator.MultiStageOperator;
 import org.apache.pinot.query.runtime.operator.OpChain;
+import org.apache.pinot.query.runtime.operator.OperatorTestUtil;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.util.TestUtils;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.testng.Assert;
@@ -49,6 +55,7 @@ import static org.mockito.Mockito.when;
 public class OpChainSchedulerServiceTest {
 
   private ExecutorService _executor;
+  private ExecutorService _cooperativeExecutor;
   private AutoCloseable _mocks;
 
   private MultiStageOperator _operatorA;
@@ -57,6 +64,7 @@ public class OpChainSchedulerServiceTest {
   public void beforeClass() {
     _mocks = MockitoAnnotations.openMocks(this);
     _executor = Executors.newCachedThreadPool(new NamedThreadFactory("worker_on_" + getClass().getSimpleName()));
+    _cooperativeExecutor = ExecutorServiceUtils.createForkJoinPool("cooperative_on_" + getClass().getSimpleName(), 1);
   }
 
   @AfterClass
@@ -64,6 +72,7 @@ public class OpChainSchedulerServiceTest {
       throws Exception {
     _mocks.close();
     ExecutorServiceUtils.close(_executor);
+    ExecutorServiceUtils.close(_cooperativeExecutor);
   }
 
   @BeforeMethod
@@ -73,10 +82,14 @@ public class OpChainSchedulerServiceTest {
   }
 
   private OpChain getChain(MultiStageOperator operator) {
+    return getChain(operator, 0);
+  }
+
+  private OpChain getChain(MultiStageOperator operator, int workerId) {
     MailboxService mailboxService = mock(MailboxService.class);
     when(mailboxService.getHostname()).thenReturn("localhost");
     when(mailboxService.getPort()).thenReturn(1234);
-    WorkerMetadata workerMetadata = new WorkerMetadata(0, ImmutableMap.of(), ImmutableMap.of());
+    WorkerMetadata workerMetadata = new WorkerMetadata(workerId, ImmutableMap.of(), ImmutableMap.of());
     OpChainExecutionContext context =
         new OpChainExecutionContext(mailboxService, 123L, Long.MAX_VALUE, ImmutableMap.of(),
             new StageMetadata(0, ImmutableList.of(workerMetadata), ImmutableMap.of()), workerMetadata, null);
@@ -203,4 +216,146 @@ public class OpChainSchedulerServiceTest {
     Assert.assertTrue(cancelLatch.await(10, TimeUnit.SECONDS), "expected OpChain to be cancelled");
     Mockito.verify(_operatorA, Mockito.times(1)).cancel(Mockito.any());
   }
+
+  @Test
+  public void shouldResumeYieldedOpChainWhenDataIsAvailable()
+      throws InterruptedException {
+    OpChain opChain = getChain(_operatorA);
+    OpChainSchedulerService schedulerService = new OpChainSchedulerService(_cooperativeExecutor, 1000);
+
+    CountDownLatch yieldLatch = new CountDownLatch(1);
+    AtomicBoolean dataAvailable = new AtomicBoolean();
+    Mockito.when(_operatorA.nextBlock()).thenAnswer(inv -> {
+      if (dataAvailable.get()) {
+        return TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0);
+      }
+      yieldLatch.countDown();
+      return TransferableBlockUtils.getYieldTransferableBlock();
+    });
+    CountDownLatch closeLatch = new CountDownLatch(1);
+    Mockito.doAnswer(inv -> {
+      closeLatch.countDown();
+      return null;
+    }).when(_operatorA).close();
+
+    try {
+      schedulerService.register(opChain);
+      Assert.assertTrue(opChain.getContext().isYieldEnabled());
+      Assert.assertTrue(yieldLatch.await(10, TimeUnit.SECONDS), "expected OpChain to yield");
+      // The OpChain is parked until new data is available
+      Thread.sleep(100);
+      Assert.assertEquals(closeLatch.getCount(), 1);
+      Assert.assertEquals(schedulerService.getNumScheduledOpChains(), 1);
+
+      dataAvailable.set(true);
+      opChain.getContext().notifyDataAvailable();
+      Assert.assertTrue(closeLatch.await(10, TimeUnit.SECONDS), "expected OpChain to be resumed and closed");
+      TestUtils.waitForCondition(aVoid -> schedulerService.getNumScheduledOpChains() == 0, 10_000L,
+          "expected OpChain to be deregistered");
+      Assert.assertFalse(opChain.getContext().isYieldEnabled());
+    } finally {
+      schedulerService.shutDown();
+    }
+  }
+
+  @Test
+  public void shouldRequeueOpChainAfterTimeSlice()
+      throws InterruptedException {
+    // The single worker is shared by an OpChain never yielding and an OpChain finishing right away
+    MultiStageOperator operatorB = Mockito.mock(MultiStageOperator.class);
+    OpChain opChainA = getChain(_operatorA);
+    OpChain opChainB = getChain(operatorB, 1);
+    OpChainSchedulerService schedulerService = new OpChainSchedulerService(_cooperativeExecutor, 10);
+
+    AtomicBoolean finishA = new AtomicBoolean();
+    CountDownLatch startLatch = new CountDownLatch(1);
+    Mockito.when(_operatorA.nextBlock()).thenAnswer(inv -> {
+      startLatch.countDown();
+      if (finishA.get()) {
+        return TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0);
+      }
+      Thread.sleep(1);
+      return OperatorTestUtil.block(new DataSchema(new String[]{"foo"}, new ColumnDataType[]{ColumnDataType.INT}),
+          new Object[]{1});
+    });
+    CountDownLatch closeLatchB = new CountDownLatch(1);
+    Mockito.when(operatorB.nextBlock()).thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    Mockito.doAnswer(inv -> {
+      closeLatchB.countDown();
+      return null;
+    }).when(operatorB).close();
+
+    try {
+      schedulerService.register(opChainA);
+      Assert.assertTrue(startLatch.await(10, TimeUnit.SECONDS), "expected OpChain A to be started");
+      schedulerService.register(opChainB);
+      Assert.assertTrue(closeLatchB.await(10, TimeUnit.SECONDS), "expected OpChain B to run after the time slice");
+    } finally {
+      finishA.set(true);
+      schedulerService.shutDown();
+    }
+  }
+
+  @Test
+  public void shouldCallCancelOnParkedOpChainsWhenItIsCancelledByDispatch()
+      throws InterruptedException {
+    OpChain opChain = getChain(_operatorA);
+    OpChainSchedulerService schedulerService = new OpChainSchedulerService(_cooperativeExecutor, 1000);
+
+    CountDownLatch yieldLatch = new CountDownLatch(1);
+    Mockito.when(_operatorA.nextBlock()).thenAnswer(inv -> {
+      yieldLatch.countDown();
+      return TransferableBlockUtils.getYieldTransferableBlock();
+    });
+    CountDownLatch cancelLatch = new CountDownLatch(1);
+    Mockito.doAnswer(inv -> {
+      cancelLatch.countDown();
+      return null;
+    }).when(_operatorA).cancel(Mockito.any());
+
+    try {
+      schedulerService.register(opChain);
+      Assert.assertTrue(yieldLatch.await(10, TimeUnit.SECONDS), "expected OpChain to yield");
+
+      // now cancel the request.
+      schedulerService.cancel(123);
+
+      Assert.assertTrue(cancelLatch.await(10, TimeUnit.SECONDS), "expected OpChain to be cancelled");
+      Mockito.verify(_operatorA, Mockito.times(1)).cancel(Mockito.any());
+      Mockito.verify(_operatorA, Mockito.never()).close();
+    } finally {
+      schedulerService.shutDown();
+    }
+  }
+
+  @Test
+  public void shouldResumeYieldedOpChainAtDeadline()
+      throws InterruptedException {
+    MailboxService mailboxService = mock(MailboxService.class);
+    when(mailboxService.getHostname()).thenReturn("localhost");
+    when(mailboxService.getPort()).thenReturn(1234);
+    WorkerMetadata workerMetadata = new WorkerMetadata(0, ImmutableMap.of(), ImmutableMap.of());
+    long deadlineMs = System.currentTimeMillis() + 100;
+    OpChainExecutionContext context = new OpChainExecutionContext(mailboxService, 123L, deadlineMs, ImmutableMap.of(),
+        new StageMetadata(0, ImmutableList.of(workerMetadata), ImmutableMap.of()), workerMetadata, null);
+    OpChain opChain = new OpChain(context, _operatorA);
+    OpChainSchedulerService schedulerService = new OpChainSchedulerService(_cooperativeExecutor, 1000);
+
+    // Mimic the receive operators, which return an error block after the deadline
+    Mockito.when(_operatorA.nextBlock()).thenAnswer(
+        inv -> System.currentTimeMillis() > deadlineMs ? TransferableBlockUtils.getErrorTransferableBlock(
+            new TimeoutException("Timed out")) : TransferableBlockUtils.getYieldTransferableBlock());
+    CountDownLatch cancelLatch = new CountDownLatch(1);
+    Mockito.doAnswer(inv -> {
+      cancelLatch.countDown();
+      return null;
+    }).when(_operatorA).cancel(Mockito.any());
+
+    try {
+      schedulerService.register(opChain);
+      Assert.assertTrue(cancelLatch.await(10, TimeUnit.SECONDS), "expected OpChain to be resumed at the deadline");
+    } finally {
+      schedulerService.shutDown();
+    }
+  }
 }
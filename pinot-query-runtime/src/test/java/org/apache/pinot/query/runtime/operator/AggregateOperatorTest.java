@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.calcite.sql.SqlKind;
@@ -47,6 +48,8 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 
@@ -265,14 +268,182 @@ public class AggregateOperatorTest {
         "num groups limit should be reached");
   }
 
+  @Test
+  public void shouldSpillGroupsWhenGroupLimitExceed() {
+    // Given:
+    List<RexExpression.FunctionCall> aggCalls = List.of(getSum(new RexExpression.InputRef(1)));
+    List<Integer> filterArgs = List.of(-1);
+    List<Integer> groupKeys = List.of(0);
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.AGGREGATE_HINT_OPTIONS,
+        Map.of(PinotHintOptions.AggregateOptions.NUM_GROUPS_LIMIT, "2",
+            PinotHintOptions.AggregateOptions.GROUP_BY_OVERFLOW_MODE, "SPILL",
+            PinotHintOptions.AggregateOptions.NUM_SPILL_PARTITIONS, "2")));
+    DataSchema inSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{INT, DOUBLE});
+    when(_input.nextBlock()).thenReturn(
+            OperatorTestUtil.block(inSchema, new Object[]{1, 1.0}, new Object[]{2, 2.0}, new Object[]{3, 3.0}))
+        .thenReturn(OperatorTestUtil.block(inSchema, new Object[]{1, 4.0}, new Object[]{4, 5.0}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema = new DataSchema(new String[]{"group", "sum"}, new ColumnDataType[]{INT, DOUBLE});
+    AggregateOperator operator = getOperator(resultSchema, aggCalls, filterArgs, groupKeys, nodeHint);
+
+    // When:
+    Map<Object, Object> results = new HashMap<>();
+    TransferableBlock block = operator.nextBlock();
+    while (block.isDataBlock()) {
+      for (Object[] row : block.getContainer()) {
+        assertNull(results.put(row[0], row[1]), "each group should be returned once");
+      }
+      block = operator.nextBlock();
+    }
+
+    // Then:
+    assertTrue(block.isSuccessfulEndOfStreamBlock(), "Last block is EOS (done processing)");
+    assertEquals(results, Map.of(1, 5.0, 2, 2.0, 3, 3.0, 4, 5.0), "spilled groups should be merged");
+    StatMap<AggregateOperator.StatKey> statMap = OperatorTestUtil.getStatMap(AggregateOperator.StatKey.class, block);
+    assertFalse(statMap.getBoolean(AggregateOperator.StatKey.NUM_GROUPS_LIMIT_REACHED),
+        "num groups limit should not be reached when spilling");
+    assertEquals(statMap.getLong(AggregateOperator.StatKey.SPILLED_GROUPS), 5L);
+    assertEquals(statMap.getInt(AggregateOperator.StatKey.SPILLED_PARTITIONS), 2);
+    assertTrue(statMap.getLong(AggregateOperator.StatKey.SPILLED_BYTES) > 0, "spilled bytes should be recorded");
+  }
+
+  @Test
+  public void shouldBypassPartialAggregationWhenReductionIsPoor() {
+    // Given:
+    List<RexExpression.FunctionCall> aggCalls = List.of(getSum(new RexExpression.InputRef(1)));
+    List<Integer> filterArgs = List.of(-1);
+    List<Integer> groupKeys = List.of(0);
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.AGGREGATE_HINT_OPTIONS,
+        Map.of(PinotHintOptions.AggregateOptions.PARTIAL_AGG_BYPASS_MIN_ROWS, "2",
+            PinotHintOptions.AggregateOptions.PARTIAL_AGG_BYPASS_GROUPS_RATIO, "0.5")));
+    DataSchema inSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{INT, DOUBLE});
+    when(_input.nextBlock()).thenReturn(OperatorTestUtil.block(inSchema, new Object[]{1, 1.0}, new Object[]{2, 2.0}))
+        .thenReturn(OperatorTestUtil.block(inSchema, new Object[]{3, 3.0}, new Object[]{3, 4.0}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema = new DataSchema(new String[]{"group", "sum"}, new ColumnDataType[]{INT, DOUBLE});
+    AggregateOperator operator = getOperator(resultSchema, aggCalls, filterArgs, groupKeys, nodeHint, AggType.LEAF);
+
+    // When:
+    TransferableBlock block1 = operator.nextBlock();
+    TransferableBlock block2 = operator.nextBlock();
+    TransferableBlock block3 = operator.nextBlock();
+
+    // Then:
+    assertEquals(block1.getNumRows(), 2, "groups collected before the bypass should be flushed");
+    assertEquals(block2.getNumRows(), 1, "following blocks should be aggregated on their own");
+    assertEquals(block2.getContainer().get(0), new Object[]{3, 7.0});
+    assertTrue(block3.isSuccessfulEndOfStreamBlock(), "Third block is EOS (done processing)");
+    StatMap<AggregateOperator.StatKey> statMap = OperatorTestUtil.getStatMap(AggregateOperator.StatKey.class, block3);
+    assertTrue(statMap.getBoolean(AggregateOperator.StatKey.PARTIAL_AGG_BYPASSED),
+        "partial aggregation should be bypassed");
+    assertEquals(statMap.getLong(AggregateOperator.StatKey.PARTIAL_AGG_BYPASS_INPUT_ROWS), 2L);
+  }
+
+  @Test
+  public void shouldNotBypassPartialAggregationWhenReductionIsGood() {
+    // Given:
+    List<RexExpression.FunctionCall> aggCalls = List.of(getSum(new RexExpression.InputRef(1)));
+    List<Integer> filterArgs = List.of(-1);
+    List<Integer> groupKeys = List.of(0);
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.AGGREGATE_HINT_OPTIONS,
+        Map.of(PinotHintOptions.AggregateOptions.PARTIAL_AGG_BYPASS_MIN_ROWS, "2",
+            PinotHintOptions.AggregateOptions.PARTIAL_AGG_BYPASS_GROUPS_RATIO, "0.5")));
+    DataSchema inSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{INT, DOUBLE});
+    when(_input.nextBlock()).thenReturn(OperatorTestUtil.block(inSchema, new Object[]{1, 1.0}, new Object[]{1, 2.0}))
+        .thenReturn(OperatorTestUtil.block(inSchema, new Object[]{2, 3.0}, new Object[]{3, 4.0}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema = new DataSchema(new String[]{"group", "sum"}, new ColumnDataType[]{INT, DOUBLE});
+    AggregateOperator operator = getOperator(resultSchema, aggCalls, filterArgs, groupKeys, nodeHint, AggType.LEAF);
+
+    // When:
+    TransferableBlock block1 = operator.nextBlock();
+    TransferableBlock block2 = operator.nextBlock();
+
+    // Then:
+    assertEquals(block1.getNumRows(), 3, "all the groups should be aggregated together");
+    assertTrue(block2.isSuccessfulEndOfStreamBlock(), "Second block is EOS (done processing)");
+    StatMap<AggregateOperator.StatKey> statMap = OperatorTestUtil.getStatMap(AggregateOperator.StatKey.class, block2);
+    assertFalse(statMap.getBoolean(AggregateOperator.StatKey.PARTIAL_AGG_BYPASSED),
+        "partial aggregation should not be bypassed");
+  }
+
+  @Test
+  public void shouldReportNumGroupsLimitReachedWhenBypassingPartialAggregation() {
+    // Given:
+    List<RexExpression.FunctionCall> aggCalls = List.of(getSum(new RexExpression.InputRef(1)));
+    List<Integer> filterArgs = List.of(-1);
+    List<Integer> groupKeys = List.of(0);
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.AGGREGATE_HINT_OPTIONS,
+        Map.of(PinotHintOptions.AggregateOptions.PARTIAL_AGG_BYPASS_MIN_ROWS, "2",
+            PinotHintOptions.AggregateOptions.PARTIAL_AGG_BYPASS_GROUPS_RATIO, "0.5",
+            PinotHintOptions.AggregateOptions.NUM_GROUPS_LIMIT, "3")));
+    DataSchema inSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{INT, DOUBLE});
+    when(_input.nextBlock()).thenReturn(OperatorTestUtil.block(inSchema, new Object[]{1, 1.0}, new Object[]{2, 2.0}))
+        .thenReturn(OperatorTestUtil.block(inSchema, new Object[]{2, 2.0}, new Object[]{3, 3.0}, new Object[]{4, 4.0},
+            new Object[]{5, 5.0}))
+        .thenReturn(OperatorTestUtil.block(inSchema, new Object[]{6, 6.0}, new Object[]{6, 1.0}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema = new DataSchema(new String[]{"group", "sum"}, new ColumnDataType[]{INT, DOUBLE});
+    AggregateOperator operator = getOperator(resultSchema, aggCalls, filterArgs, groupKeys, nodeHint, AggType.LEAF);
+
+    // When:
+    TransferableBlock block1 = operator.nextBlock();
+    TransferableBlock block2 = operator.nextBlock();
+    TransferableBlock block3 = operator.nextBlock();
+    TransferableBlock block4 = operator.nextBlock();
+
+    // Then:
+    assertEquals(block1.getNumRows(), 2, "groups collected before the bypass should be flushed");
+    assertEquals(block2.getNumRows(), 3, "groups of the bypassed block should be limited");
+    assertEquals(block3.getNumRows(), 1, "groups of the previous block should be cleared");
+    assertEquals(block3.getContainer().get(0), new Object[]{6, 7.0});
+    assertTrue(block4.isSuccessfulEndOfStreamBlock(), "Fourth block is EOS (done processing)");
+    StatMap<AggregateOperator.StatKey> statMap = OperatorTestUtil.getStatMap(AggregateOperator.StatKey.class, block4);
+    assertTrue(statMap.getBoolean(AggregateOperator.StatKey.PARTIAL_AGG_BYPASSED),
+        "partial aggregation should be bypassed");
+    assertTrue(statMap.getBoolean(AggregateOperator.StatKey.NUM_GROUPS_LIMIT_REACHED),
+        "num groups limit should be reached in the bypassed block");
+  }
+
+  @Test
+  public void shouldNotBypassPartialAggregationByDefault() {
+    // Given:
+    List<RexExpression.FunctionCall> aggCalls = List.of(getSum(new RexExpression.InputRef(1)));
+    List<Integer> filterArgs = List.of(-1);
+    List<Integer> groupKeys = List.of(0);
+    DataSchema inSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{INT, DOUBLE});
+    when(_input.nextBlock()).thenReturn(OperatorTestUtil.block(inSchema, new Object[]{1, 1.0}, new Object[]{2, 2.0}))
+        .thenReturn(OperatorTestUtil.block(inSchema, new Object[]{3, 3.0}, new Object[]{4, 4.0}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema = new DataSchema(new String[]{"group", "sum"}, new ColumnDataType[]{INT, DOUBLE});
+    AggregateOperator operator = getOperator(resultSchema, aggCalls, filterArgs, groupKeys, PlanNode.NodeHint.EMPTY,
+        AggType.LEAF);
+
+    // When:
+    TransferableBlock block1 = operator.nextBlock();
+    TransferableBlock block2 = operator.nextBlock();
+
+    // Then:
+    assertEquals(block1.getNumRows(), 4, "all the groups should be aggregated together");
+    assertTrue(block2.isSuccessfulEndOfStreamBlock(), "Second block is EOS (done processing)");
+    StatMap<AggregateOperator.StatKey> statMap = OperatorTestUtil.getStatMap(AggregateOperator.StatKey.class, block2);
+    assertFalse(statMap.getBoolean(AggregateOperator.StatKey.PARTIAL_AGG_BYPASSED),
+        "partial aggregation should not be bypassed by default");
+  }
+
   private static RexExpression.FunctionCall getSum(RexExpression arg) {
     return new RexExpression.FunctionCall(ColumnDataType.INT, SqlKind.SUM.name(), List.of(arg));
   }
 
   private AggregateOperator getOperator(DataSchema resultSchema, List<RexExpression.FunctionCall> aggCalls,
-      List<Integer> filterArgs, List<Integer> groupKeys, PlanNode.NodeHint nodeHint) {
+      List<Integer> filterArgs, List<Integer> groupKeys, PlanNode.NodeHint nodeHint, AggType aggType) {
     return new AggregateOperator(OperatorTestUtil.getTracingContext(), _input,
-        new AggregateNode(-1, resultSchema, nodeHint, List.of(), aggCalls, filterArgs, groupKeys, AggType.DIRECT));
+        new AggregateNode(-1, resultSchema, nodeHint, List.of(), aggCalls, filterArgs, groupKeys, aggType));
+  }
+
+  private AggregateOperator getOperator(DataSchema resultSchema, List<RexExpression.FunctionCall> aggCalls,
+      List<Integer> filterArgs, List<Integer> groupKeys, PlanNode.NodeHint nodeHint) {
+    return getOperator(resultSchema, aggCalls, filterArgs, groupKeys, nodeHint, AggType.DIRECT);
   }
 
   private AggregateOperator getOperator(DataSchema resultSchema, List<RexExpression.FunctionCall> aggCalls,
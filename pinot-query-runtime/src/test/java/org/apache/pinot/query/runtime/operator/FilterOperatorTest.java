@@ -18,11 +18,15 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import org.apache.calcite.sql.SqlKind;
+import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.exception.QueryException;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.common.datablock.DataBlockBuilder;
 import org.apache.pinot.query.planner.logical.RexExpression;
 import org.apache.pinot.query.planner.plannode.FilterNode;
 import org.apache.pinot.query.planner.plannode.PlanNode;
@@ -154,6 +158,38 @@ public class FilterOperatorTest {
     assertEquals(resultRows.get(0), new Object[]{1, 1});
   }
 
+  @Test
+  public void shouldNotEvaluateLaterChildrenOnRowsDecidedByEarlierChildren() {
+    DataSchema inputSchema = new DataSchema(new String[]{"stringCol"}, new ColumnDataType[]{ColumnDataType.STRING});
+    when(_input.nextBlock()).thenReturn(
+        OperatorTestUtil.block(inputSchema, new Object[]{"10"}, new Object[]{"abc"}, new Object[]{"3"}),
+        OperatorTestUtil.block(inputSchema, new Object[]{"10"}, new Object[]{"abc"}, new Object[]{"3"}));
+    // CAST('abc' AS INT) throws, so it must only be evaluated on the rows not decided by the guard
+    RexExpression.FunctionCall castGreaterThan = new RexExpression.FunctionCall(ColumnDataType.BOOLEAN,
+        SqlKind.GREATER_THAN.name(), List.of(new RexExpression.FunctionCall(ColumnDataType.INT, SqlKind.CAST.name(),
+        List.of(new RexExpression.InputRef(0), new RexExpression.Literal(ColumnDataType.STRING, "INT"))),
+        new RexExpression.Literal(ColumnDataType.INT, 5)));
+
+    // stringCol <> 'abc' AND CAST(stringCol AS INT) > 5
+    RexExpression.FunctionCall andCall = new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.AND.name(),
+        List.of(new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.NOT_EQUALS.name(),
+            List.of(new RexExpression.InputRef(0), new RexExpression.Literal(ColumnDataType.STRING, "abc"))),
+            castGreaterThan));
+    List<Object[]> resultRows = getOperator(inputSchema, andCall).nextBlock().getContainer();
+    assertEquals(resultRows.size(), 1);
+    assertEquals(resultRows.get(0), new Object[]{"10"});
+
+    // stringCol = 'abc' OR CAST(stringCol AS INT) > 5
+    RexExpression.FunctionCall orCall = new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.OR.name(),
+        List.of(new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.EQUALS.name(),
+            List.of(new RexExpression.InputRef(0), new RexExpression.Literal(ColumnDataType.STRING, "abc"))),
+            castGreaterThan));
+    resultRows = getOperator(inputSchema, orCall).nextBlock().getContainer();
+    assertEquals(resultRows.size(), 2);
+    assertEquals(resultRows.get(0), new Object[]{"10"});
+    assertEquals(resultRows.get(1), new Object[]{"abc"});
+  }
+
   @Test
   public void shouldHandleOrFilter() {
     DataSchema inputSchema = new DataSchema(new String[]{"boolCol0", "boolCol1"}, new ColumnDataType[]{
@@ -218,6 +254,39 @@ public class FilterOperatorTest {
     assertEquals(resultRows.get(0), new Object[]{"starTree"});
   }
 
+  @Test
+  public void shouldHandleNumericPredicatesWithNullsOnSerializedBlock() {
+    DataSchema inputSchema = new DataSchema(new String[]{"int0", "double1"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.DOUBLE
+    });
+    List<Object[]> rows = List.of(new Object[]{1, 0.5}, new Object[]{3, 2.5}, new Object[]{null, 1.0},
+        new Object[]{5, null}, new Object[]{20, 2.0});
+    when(_input.nextBlock()).thenReturn(new TransferableBlock(buildDataBlock(rows, inputSchema)));
+    // int0 > double1 AND NOT(int0 >= 10)
+    RexExpression.FunctionCall greaterThan =
+        new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.GREATER_THAN.name(),
+            List.of(new RexExpression.InputRef(0), new RexExpression.InputRef(1)));
+    RexExpression.FunctionCall notGreaterThanOrEqual =
+        new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.NOT.name(), List.of(
+            new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.GREATER_THAN_OR_EQUAL.name(),
+                List.of(new RexExpression.InputRef(0), new RexExpression.Literal(ColumnDataType.INT, 10)))));
+    RexExpression.FunctionCall andCall = new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.AND.name(),
+        List.of(greaterThan, notGreaterThanOrEqual));
+    FilterOperator operator = getOperator(inputSchema, andCall);
+    List<Object[]> resultRows = operator.nextBlock().getContainer();
+    assertEquals(resultRows.size(), 2);
+    assertEquals(resultRows.get(0), new Object[]{1, 0.5});
+    assertEquals(resultRows.get(1), new Object[]{3, 2.5});
+  }
+
+  private static DataBlock buildDataBlock(List<Object[]> rows, DataSchema schema) {
+    try {
+      return DataBlockBuilder.buildFromRows(rows, schema);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   //@formatter:off
   @Test(
       expectedExceptions = IllegalArgumentException.class,
@@ -18,6 +18,8 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import org.apache.calcite.rel.core.JoinRelType;
@@ -529,6 +531,86 @@ public class HashJoinOperatorTest {
         "Max rows in join should be reached");
   }
 
+  @Test
+  public void shouldSpillInnerJoinWhenHitDataRowsLimit() {
+    DataSchema leftSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    DataSchema rightSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    when(_leftInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(leftSchema, new Object[]{1, "Aa"}, new Object[]{2, "BB"}))
+        .thenReturn(OperatorTestUtil.block(leftSchema, new Object[]{3, "CC"}, new Object[]{4, "DD"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(rightSchema, new Object[]{2, "Aa"}, new Object[]{2, "BB"}))
+        .thenReturn(OperatorTestUtil.block(rightSchema, new Object[]{3, "BB"}, new Object[]{5, "EE"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema =
+        new DataSchema(new String[]{"int_col1", "string_col1", "int_co2", "string_col2"}, new ColumnDataType[]{
+            ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING
+        });
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.JOIN_HINT_OPTIONS,
+        Map.of(PinotHintOptions.JoinHintOptions.JOIN_OVERFLOW_MODE, "SPILL",
+            PinotHintOptions.JoinHintOptions.MAX_ROWS_IN_JOIN, "2",
+            PinotHintOptions.JoinHintOptions.NUM_SPILL_PARTITIONS, "4")));
+    HashJoinOperator operator =
+        getOperator(leftSchema, resultSchema, JoinRelType.INNER, List.of(0), List.of(0), List.of(), nodeHint);
+    List<Object[]> resultRows = new ArrayList<>();
+    TransferableBlock block = operator.nextBlock();
+    while (!block.isEndOfStreamBlock()) {
+      resultRows.addAll(block.getContainer());
+      block = operator.nextBlock();
+    }
+    assertTrue(block.isSuccessfulEndOfStreamBlock());
+    resultRows.sort(Comparator.comparing((Object[] row) -> (Integer) row[0]).thenComparing(row -> (String) row[3]));
+    assertEquals(resultRows.size(), 3);
+    assertEquals(resultRows.get(0), new Object[]{2, "BB", 2, "Aa"});
+    assertEquals(resultRows.get(1), new Object[]{2, "BB", 2, "BB"});
+    assertEquals(resultRows.get(2), new Object[]{3, "CC", 3, "BB"});
+    StatMap<HashJoinOperator.StatKey> statMap = OperatorTestUtil.getStatMap(HashJoinOperator.StatKey.class, block);
+    assertEquals(statMap.getInt(HashJoinOperator.StatKey.SPILLED_PARTITIONS), 4);
+    assertTrue(statMap.getLong(HashJoinOperator.StatKey.SPILLED_BYTES) > 0, "Spilled bytes should be recorded");
+  }
+
+  @Test
+  public void shouldSpillFullJoinWhenHitDataRowsLimit() {
+    DataSchema leftSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    DataSchema rightSchema = new DataSchema(new String[]{"int_col", "string_col"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.STRING
+    });
+    when(_leftInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(leftSchema, new Object[]{1, "Aa"}, new Object[]{2, "BB"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(rightSchema, new Object[]{2, "Aa"}, new Object[]{3, "BB"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema =
+        new DataSchema(new String[]{"int_col1", "string_col1", "int_co2", "string_col2"}, new ColumnDataType[]{
+            ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING
+        });
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.JOIN_HINT_OPTIONS,
+        Map.of(PinotHintOptions.JoinHintOptions.JOIN_OVERFLOW_MODE, "SPILL",
+            PinotHintOptions.JoinHintOptions.MAX_ROWS_IN_JOIN, "1")));
+    HashJoinOperator operator =
+        getOperator(leftSchema, resultSchema, JoinRelType.FULL, List.of(0), List.of(0), List.of(), nodeHint);
+    List<Object[]> resultRows = new ArrayList<>();
+    TransferableBlock block = operator.nextBlock();
+    while (!block.isEndOfStreamBlock()) {
+      resultRows.addAll(block.getContainer());
+      block = operator.nextBlock();
+    }
+    assertTrue(block.isSuccessfulEndOfStreamBlock());
+    resultRows.sort(Comparator.comparing((Object[] row) -> row[0] != null ? (Integer) row[0] : (Integer) row[2]));
+    assertEquals(resultRows.size(), 3);
+    assertEquals(resultRows.get(0), new Object[]{1, "Aa", null, null});
+    assertEquals(resultRows.get(1), new Object[]{2, "BB", 2, "Aa"});
+    assertEquals(resultRows.get(2), new Object[]{null, null, 3, "BB"});
+  }
+
   private HashJoinOperator getOperator(DataSchema leftSchema, DataSchema resultSchema, JoinRelType joinType,
       List<Integer> leftKeys, List<Integer> rightKeys, List<RexExpression> nonEquiConditions,
       PlanNode.NodeHint nodeHint) {
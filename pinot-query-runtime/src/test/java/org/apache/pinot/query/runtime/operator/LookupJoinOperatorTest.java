@@ -0,0 +1,214 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.pinot.common.exception.QueryException;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.data.manager.offline.DimensionTableDataManager;
+import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.planner.plannode.FilterNode;
+import org.apache.pinot.query.planner.plannode.JoinNode;
+import org.apache.pinot.query.planner.plannode.PlanNode;
+import org.apache.pinot.query.planner.plannode.TableScanNode;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockTestUtils;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.spi.data.DimensionFieldSpec;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.mockito.Mock;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+public class LookupJoinOperatorTest {
+  private static final String DIM_TABLE_NAME = "lookupJoinDim_OFFLINE";
+  private static final DataSchema INPUT_SCHEMA = new DataSchema(new String[]{"int_col", "string_col"},
+      new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING});
+  private static final DataSchema DIM_SCHEMA = new DataSchema(new String[]{"id", "name"},
+      new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING});
+  private static final DataSchema RESULT_SCHEMA =
+      new DataSchema(new String[]{"int_col", "string_col", "id", "name"}, new ColumnDataType[]{
+          ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING
+      });
+
+  private AutoCloseable _mocks;
+  @Mock
+  private MultiStageOperator _leftInput;
+
+  @BeforeClass
+  public void setUpDimTable() {
+    DimensionTableDataManager dimTableDataManager = mock(DimensionTableDataManager.class);
+    when(dimTableDataManager.getPrimaryKeyColumns()).thenReturn(List.of("id"));
+    when(dimTableDataManager.getColumnFieldSpec("id")).thenReturn(
+        new DimensionFieldSpec("id", FieldSpec.DataType.INT, true));
+    when(dimTableDataManager.getColumnFieldSpec("name")).thenReturn(
+        new DimensionFieldSpec("name", FieldSpec.DataType.STRING, true));
+    when(dimTableDataManager.lookupRowByPrimaryKey(any())).thenAnswer(invocation -> {
+      Object id = ((PrimaryKey) invocation.getArgument(0)).getValues()[0];
+      if (!(id instanceof Integer) || ((int) id != 1 && (int) id != 2)) {
+        return null;
+      }
+      GenericRow row = new GenericRow();
+      row.putValue("id", id);
+      row.putValue("name", (int) id == 1 ? "x" : "y");
+      return row;
+    });
+    DimensionTableDataManager.registerDimensionTable(DIM_TABLE_NAME, dimTableDataManager);
+  }
+
+  @BeforeMethod
+  public void setUp() {
+    _mocks = openMocks(this);
+    when(_leftInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "a"}, new Object[]{2, "b"}),
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{3, "c"}, new Object[]{null, "d"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+  }
+
+  @AfterMethod
+  public void tearDown()
+      throws Exception {
+    _mocks.close();
+  }
+
+  @Test
+  public void shouldHandleInnerJoin() {
+    List<Object[]> resultRows = getAllRows(getOperator(JoinRelType.INNER, getTableScanNode(), List.of()));
+    assertEquals(resultRows.size(), 2);
+    assertEquals(resultRows.get(0), new Object[]{1, "a", 1, "x"});
+    assertEquals(resultRows.get(1), new Object[]{2, "b", 2, "y"});
+  }
+
+  @Test
+  public void shouldHandleLeftJoin() {
+    List<Object[]> resultRows = getAllRows(getOperator(JoinRelType.LEFT, getTableScanNode(), List.of()));
+    assertEquals(resultRows.size(), 4);
+    assertEquals(resultRows.get(0), new Object[]{1, "a", 1, "x"});
+    assertEquals(resultRows.get(1), new Object[]{2, "b", 2, "y"});
+    assertEquals(resultRows.get(2), new Object[]{3, "c", null, null});
+    assertEquals(resultRows.get(3), new Object[]{null, "d", null, null});
+  }
+
+  @Test
+  public void shouldHandleSemiJoin() {
+    List<Object[]> resultRows = getAllRows(getOperator(JoinRelType.SEMI, getTableScanNode(), List.of()));
+    assertEquals(resultRows.size(), 2);
+    assertEquals(resultRows.get(0), new Object[]{1, "a"});
+    assertEquals(resultRows.get(1), new Object[]{2, "b"});
+  }
+
+  @Test
+  public void shouldHandleAntiJoin() {
+    List<Object[]> resultRows = getAllRows(getOperator(JoinRelType.ANTI, getTableScanNode(), List.of()));
+    assertEquals(resultRows.size(), 2);
+    assertEquals(resultRows.get(0), new Object[]{3, "c"});
+    assertEquals(resultRows.get(1), new Object[]{null, "d"});
+  }
+
+  @Test
+  public void shouldApplyRightInputFilter() {
+    // name <> 'y'
+    RexExpression condition = new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.NOT_EQUALS.name(),
+        List.of(new RexExpression.InputRef(1), new RexExpression.Literal(ColumnDataType.STRING, "y")));
+    PlanNode rightInput =
+        new FilterNode(-1, DIM_SCHEMA, PlanNode.NodeHint.EMPTY, List.of(getTableScanNode()), condition);
+    List<Object[]> resultRows = getAllRows(getOperator(JoinRelType.LEFT, rightInput, List.of()));
+    assertEquals(resultRows.size(), 4);
+    assertEquals(resultRows.get(0), new Object[]{1, "a", 1, "x"});
+    assertEquals(resultRows.get(1), new Object[]{2, "b", null, null});
+  }
+
+  @Test
+  public void shouldHandleNonEquiConditions() {
+    // string_col <> 'a'
+    List<RexExpression> nonEquiConditions = List.of(
+        new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.NOT_EQUALS.name(),
+            List.of(new RexExpression.InputRef(1), new RexExpression.Literal(ColumnDataType.STRING, "a"))));
+    List<Object[]> resultRows = getAllRows(getOperator(JoinRelType.INNER, getTableScanNode(), nonEquiConditions));
+    assertEquals(resultRows.size(), 1);
+    assertEquals(resultRows.get(0), new Object[]{2, "b", 2, "y"});
+  }
+
+  @Test
+  public void shouldConvertKeysToPrimaryKeyValues() {
+    assertEquals(LookupJoinOperator.toPrimaryKeyValue(1L, FieldSpec.DataType.INT), 1);
+    assertEquals(LookupJoinOperator.toPrimaryKeyValue(1, FieldSpec.DataType.DOUBLE), 1.0);
+    assertEquals(LookupJoinOperator.toPrimaryKeyValue(new byte[]{1, 2}, FieldSpec.DataType.BYTES),
+        new ByteArray(new byte[]{1, 2}));
+    ByteArray byteArray = new ByteArray(new byte[]{1, 2});
+    assertEquals(LookupJoinOperator.toPrimaryKeyValue(byteArray, FieldSpec.DataType.BYTES), byteArray);
+    assertEquals(LookupJoinOperator.toPrimaryKeyValue("a", FieldSpec.DataType.STRING), "a");
+  }
+
+  @Test
+  public void shouldPropagateLeftInputError() {
+    when(_leftInput.nextBlock()).thenReturn(
+        TransferableBlockUtils.getErrorTransferableBlock(new Exception("testLookupJoinLeftError")));
+    TransferableBlock block = getOperator(JoinRelType.INNER, getTableScanNode(), List.of()).nextBlock();
+    assertTrue(block.isErrorBlock());
+    assertTrue(block.getExceptions().get(QueryException.UNKNOWN_ERROR_CODE).contains("testLookupJoinLeftError"));
+  }
+
+  private static TableScanNode getLeftScanNode() {
+    return new TableScanNode(-1, INPUT_SCHEMA, PlanNode.NodeHint.EMPTY, List.of(), "fact_OFFLINE",
+        List.of("int_col", "string_col"));
+  }
+
+  private static TableScanNode getTableScanNode() {
+    return new TableScanNode(-1, DIM_SCHEMA, PlanNode.NodeHint.EMPTY, List.of(), DIM_TABLE_NAME,
+        List.of("id", "name"));
+  }
+
+  private static List<Object[]> getAllRows(MultiStageOperator operator) {
+    List<Object[]> resultRows = new ArrayList<>();
+    TransferableBlock block = operator.nextBlock();
+    while (!block.isEndOfStreamBlock()) {
+      resultRows.addAll(block.getContainer());
+      block = operator.nextBlock();
+    }
+    assertTrue(block.isSuccessfulEndOfStreamBlock());
+    return resultRows;
+  }
+
+  private LookupJoinOperator getOperator(JoinRelType joinType, PlanNode rightInput,
+      List<RexExpression> nonEquiConditions) {
+    DataSchema resultSchema = joinType == JoinRelType.SEMI || joinType == JoinRelType.ANTI ? INPUT_SCHEMA
+        : RESULT_SCHEMA;
+    return new LookupJoinOperator(OperatorTestUtil.getTracingContext(), _leftInput, INPUT_SCHEMA,
+        new JoinNode(-1, resultSchema, PlanNode.NodeHint.EMPTY, List.of(getLeftScanNode(), rightInput), joinType,
+            List.of(0), List.of(0), nonEquiConditions));
+  }
+}
@@ -192,13 +192,50 @@ public class MailboxSendOperatorTest {
     verify(_input).earlyTerminate();
   }
 
+  @Test
+  public void shouldYieldWhenReceiversCannotAcceptMoreData()
+      throws Exception {
+    // Given:
+    TransferableBlock dataBlock1 = getDummyDataBlock();
+    TransferableBlock dataBlock2 = getDummyDataBlock();
+    when(_input.nextBlock()).thenReturn(dataBlock1, dataBlock2);
+    when(_exchange.hasPendingBlocks()).thenReturn(false, true);
+    when(_exchange.sendPendingBlocks()).thenReturn(false, true);
+    OpChainExecutionContext context = getContext();
+    Runnable dataAvailableCallback = mock(Runnable.class);
+    context.setDataAvailableCallback(dataAvailableCallback);
+    MailboxSendOperator operator = new MailboxSendOperator(context, _input, statMap -> _exchange);
+
+    // When:
+    TransferableBlock block1 = operator.nextBlock();
+    TransferableBlock block2 = operator.nextBlock();
+    TransferableBlock block3 = operator.nextBlock();
+
+    // Then:
+    // The first block is sent without waiting for the receivers, then the operator yields until the pending blocks are
+    // sent
+    assertSame(block1, dataBlock1);
+    assertTrue(block2.isYieldBlock(), "expected to yield when pending blocks cannot be sent");
+    assertSame(block3, dataBlock2);
+    verify(_input, times(2)).nextBlock();
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(_exchange).send(same(dataBlock1), captor.capture());
+    verify(_exchange).send(same(dataBlock2), any());
+    verify(_exchange, never()).send(any());
+    // The retry callback resumes the OpChain the same way as the receive side
+    captor.getValue().run();
+    verify(dataAvailableCallback).run();
+  }
+
   private MailboxSendOperator getOperator() {
+    return new MailboxSendOperator(getContext(), _input, statMap -> _exchange);
+  }
+
+  private OpChainExecutionContext getContext() {
     WorkerMetadata workerMetadata = new WorkerMetadata(0, Map.of(), Map.of());
     StageMetadata stageMetadata = new StageMetadata(SENDER_STAGE_ID, List.of(workerMetadata), Map.of());
-    OpChainExecutionContext context =
-        new OpChainExecutionContext(_mailboxService, 123L, Long.MAX_VALUE, Map.of(), stageMetadata, workerMetadata,
-            null);
-    return new MailboxSendOperator(context, _input, statMap -> _exchange);
+    return new OpChainExecutionContext(_mailboxService, 123L, Long.MAX_VALUE, Map.of(), stageMetadata, workerMetadata,
+        null);
   }
 
   private static TransferableBlock getDummyDataBlock() {
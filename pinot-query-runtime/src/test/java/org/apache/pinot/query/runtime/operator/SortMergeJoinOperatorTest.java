@@ -0,0 +1,253 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.calcite.rel.RelDistribution;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.pinot.calcite.rel.logical.PinotRelExchangeType;
+import org.apache.pinot.common.exception.QueryException;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.planner.plannode.JoinNode;
+import org.apache.pinot.query.planner.plannode.MailboxReceiveNode;
+import org.apache.pinot.query.planner.plannode.PlanNode;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockTestUtils;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.mockito.Mock;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+
+public class SortMergeJoinOperatorTest {
+  private static final DataSchema INPUT_SCHEMA = new DataSchema(new String[]{"int_col", "string_col"},
+      new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING});
+  private static final DataSchema RESULT_SCHEMA =
+      new DataSchema(new String[]{"int_col1", "string_col1", "int_col2", "string_col2"}, new ColumnDataType[]{
+          ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING
+      });
+
+  private AutoCloseable _mocks;
+  @Mock
+  private MultiStageOperator _leftInput;
+  @Mock
+  private MultiStageOperator _rightInput;
+
+  @BeforeMethod
+  public void setUp() {
+    _mocks = openMocks(this);
+  }
+
+  @AfterMethod
+  public void tearDown()
+      throws Exception {
+    _mocks.close();
+  }
+
+  @Test
+  public void shouldHandleInnerJoinWithKeyGroupAcrossBlocks() {
+    when(_leftInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "a"}, new Object[]{2, "b"}),
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{2, "c"}, new Object[]{4, "d"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{0, "x"}, new Object[]{2, "y"}),
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{2, "z"}, new Object[]{3, "w"}, new Object[]{4, "v"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    SortMergeJoinOperator operator = getOperator(JoinRelType.INNER, List.of(0), List.of(0), List.of());
+    List<Object[]> resultRows = getAllRows(operator);
+    assertEquals(resultRows.size(), 5);
+    assertEquals(resultRows.get(0), new Object[]{2, "b", 2, "y"});
+    assertEquals(resultRows.get(1), new Object[]{2, "b", 2, "z"});
+    assertEquals(resultRows.get(2), new Object[]{2, "c", 2, "y"});
+    assertEquals(resultRows.get(3), new Object[]{2, "c", 2, "z"});
+    assertEquals(resultRows.get(4), new Object[]{4, "d", 4, "v"});
+  }
+
+  @Test
+  public void shouldCompareLongKeysExactly() {
+    DataSchema inputSchema = new DataSchema(new String[]{"long_col", "string_col"},
+        new ColumnDataType[]{ColumnDataType.LONG, ColumnDataType.STRING});
+    DataSchema resultSchema =
+        new DataSchema(new String[]{"long_col1", "string_col1", "long_col2", "string_col2"}, new ColumnDataType[]{
+            ColumnDataType.LONG, ColumnDataType.STRING, ColumnDataType.LONG, ColumnDataType.STRING
+        });
+    // 2^53 and 2^53 + 1 are the same when converted to double
+    long key = 1L << 53;
+    when(_leftInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(inputSchema, new Object[]{key, "a"}, new Object[]{key + 1, "b"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(OperatorTestUtil.block(inputSchema, new Object[]{key + 1, "x"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    SortMergeJoinOperator operator =
+        new SortMergeJoinOperator(OperatorTestUtil.getTracingContext(), _leftInput, inputSchema, _rightInput,
+            new JoinNode(-1, resultSchema, PlanNode.NodeHint.EMPTY, List.of(), JoinRelType.INNER, List.of(0),
+                List.of(0), List.of()));
+    List<Object[]> resultRows = getAllRows(operator);
+    assertEquals(resultRows.size(), 1);
+    assertEquals(resultRows.get(0), new Object[]{key + 1, "b", key + 1, "x"});
+  }
+
+  @Test
+  public void shouldHandleLeftJoinWithNullKeys() {
+    when(_leftInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "a"}, new Object[]{2, "b"}, new Object[]{5, "c"},
+                new Object[]{null, "d"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{2, "x"}, new Object[]{3, "y"}, new Object[]{null, "z"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    SortMergeJoinOperator operator = getOperator(JoinRelType.LEFT, List.of(0), List.of(0), List.of());
+    List<Object[]> resultRows = getAllRows(operator);
+    assertEquals(resultRows.size(), 4);
+    assertEquals(resultRows.get(0), new Object[]{1, "a", null, null});
+    assertEquals(resultRows.get(1), new Object[]{2, "b", 2, "x"});
+    assertEquals(resultRows.get(2), new Object[]{5, "c", null, null});
+    assertEquals(resultRows.get(3), new Object[]{null, "d", null, null});
+  }
+
+  @Test
+  public void shouldHandleRightNullKeysAfterMatchingGroup() {
+    when(_leftInput.nextBlock()).thenReturn(OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{2, "a"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{2, "x"}, new Object[]{null, "y"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    SortMergeJoinOperator operator = getOperator(JoinRelType.LEFT, List.of(0), List.of(0), List.of());
+    List<Object[]> resultRows = getAllRows(operator);
+    assertEquals(resultRows.size(), 1);
+    assertEquals(resultRows.get(0), new Object[]{2, "a", 2, "x"});
+  }
+
+  @Test
+  public void shouldHandleLeftJoinOnMultipleKeys() {
+    when(_leftInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "a"}, new Object[]{1, "b"}, new Object[]{2, "a"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "b"}, new Object[]{2, "a"}, new Object[]{2, "a"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    SortMergeJoinOperator operator = getOperator(JoinRelType.LEFT, List.of(0, 1), List.of(0, 1), List.of());
+    List<Object[]> resultRows = getAllRows(operator);
+    assertEquals(resultRows.size(), 4);
+    assertEquals(resultRows.get(0), new Object[]{1, "a", null, null});
+    assertEquals(resultRows.get(1), new Object[]{1, "b", 1, "b"});
+    assertEquals(resultRows.get(2), new Object[]{2, "a", 2, "a"});
+    assertEquals(resultRows.get(3), new Object[]{2, "a", 2, "a"});
+  }
+
+  @Test
+  public void shouldHandleNonEquiConditions() {
+    when(_leftInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "a"}, new Object[]{2, "b"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "a"}, new Object[]{2, "c"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    List<RexExpression> nonEquiConditions = List.of(
+        new RexExpression.FunctionCall(ColumnDataType.BOOLEAN, SqlKind.NOT_EQUALS.name(),
+            List.of(new RexExpression.InputRef(1), new RexExpression.InputRef(3))));
+    SortMergeJoinOperator operator = getOperator(JoinRelType.LEFT, List.of(0), List.of(0), nonEquiConditions);
+    List<Object[]> resultRows = getAllRows(operator);
+    assertEquals(resultRows.size(), 2);
+    assertEquals(resultRows.get(0), new Object[]{1, "a", null, null});
+    assertEquals(resultRows.get(1), new Object[]{2, "b", 2, "c"});
+  }
+
+  @Test
+  public void shouldEarlyTerminateLeftInputWhenRightInputIsExhausted() {
+    when(_leftInput.nextBlock()).thenReturn(
+            OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "a"}, new Object[]{3, "b"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "x"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    SortMergeJoinOperator operator = getOperator(JoinRelType.INNER, List.of(0), List.of(0), List.of());
+    List<Object[]> resultRows = getAllRows(operator);
+    assertEquals(resultRows.size(), 1);
+    assertEquals(resultRows.get(0), new Object[]{1, "a", 1, "x"});
+    verify(_leftInput).earlyTerminate();
+  }
+
+  @Test
+  public void shouldPropagateRightInputError() {
+    when(_leftInput.nextBlock()).thenReturn(OperatorTestUtil.block(INPUT_SCHEMA, new Object[]{1, "a"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    when(_rightInput.nextBlock()).thenReturn(
+        TransferableBlockUtils.getErrorTransferableBlock(new Exception("testSortMergeJoinRightError")));
+    SortMergeJoinOperator operator = getOperator(JoinRelType.INNER, List.of(0), List.of(0), List.of());
+    TransferableBlock block = operator.nextBlock();
+    assertTrue(block.isErrorBlock());
+    assertTrue(block.getExceptions().get(QueryException.UNKNOWN_ERROR_CODE).contains("testSortMergeJoinRightError"));
+  }
+
+  @Test
+  public void shouldOnlyApplyToSortedInputs() {
+    RelFieldCollation collation = new RelFieldCollation(0);
+    PlanNode sortedInput = getReceiveNode(List.of(collation), true);
+    PlanNode unsortedInput = getReceiveNode(List.of(), false);
+    assertTrue(SortMergeJoinOperator.canApply(getJoinNode(JoinRelType.INNER, List.of(sortedInput, sortedInput))));
+    assertTrue(SortMergeJoinOperator.canApply(getJoinNode(JoinRelType.LEFT, List.of(sortedInput, sortedInput))));
+    assertFalse(SortMergeJoinOperator.canApply(getJoinNode(JoinRelType.FULL, List.of(sortedInput, sortedInput))));
+    assertFalse(SortMergeJoinOperator.canApply(getJoinNode(JoinRelType.INNER, List.of(sortedInput, unsortedInput))));
+    PlanNode descendingInput =
+        getReceiveNode(List.of(new RelFieldCollation(0, RelFieldCollation.Direction.DESCENDING)), true);
+    assertFalse(SortMergeJoinOperator.canApply(getJoinNode(JoinRelType.INNER, List.of(sortedInput, descendingInput))));
+  }
+
+  private static MailboxReceiveNode getReceiveNode(List<RelFieldCollation> collations, boolean sort) {
+    return new MailboxReceiveNode(-1, INPUT_SCHEMA, List.of(), 1, PinotRelExchangeType.STREAMING,
+        RelDistribution.Type.HASH_DISTRIBUTED, List.of(0), collations, sort, false, null);
+  }
+
+  private static JoinNode getJoinNode(JoinRelType joinType, List<PlanNode> inputs) {
+    return new JoinNode(-1, RESULT_SCHEMA, PlanNode.NodeHint.EMPTY, inputs, joinType, List.of(0), List.of(0),
+        List.of());
+  }
+
+  private static List<Object[]> getAllRows(MultiStageOperator operator) {
+    List<Object[]> resultRows = new ArrayList<>();
+    TransferableBlock block = operator.nextBlock();
+    while (!block.isEndOfStreamBlock()) {
+      resultRows.addAll(block.getContainer());
+      block = operator.nextBlock();
+    }
+    assertTrue(block.isSuccessfulEndOfStreamBlock());
+    return resultRows;
+  }
+
+  private SortMergeJoinOperator getOperator(JoinRelType joinType, List<Integer> leftKeys, List<Integer> rightKeys,
+      List<RexExpression> nonEquiConditions) {
+    return new SortMergeJoinOperator(OperatorTestUtil.getTracingContext(), _leftInput, INPUT_SCHEMA, _rightInput,
+        new JoinNode(-1, RESULT_SCHEMA, PlanNode.NodeHint.EMPTY, List.of(), joinType, leftKeys, rightKeys,
+            nonEquiConditions));
+  }
+}
@@ -18,11 +18,14 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.calcite.rel.RelFieldCollation.Direction;
 import org.apache.calcite.rel.RelFieldCollation.NullDirection;
 import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.planner.plannode.SortNode;
@@ -30,6 +33,7 @@ import org.apache.pinot.query.routing.VirtualServerAddress;
 import org.apache.pinot.query.runtime.blocks.TransferableBlock;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockTestUtils;
 import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.spi.utils.CommonConstants;
 import org.mockito.Mock;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -472,6 +476,69 @@ public class SortOperatorTest {
     assertTrue(operator.nextBlock().isSuccessfulEndOfStreamBlock(), "expected EOS block to propagate");
   }
 
+  @Test
+  public void shouldSpillSortedRunsWhenHitMaxRowsInSort() {
+    // Given:
+    DataSchema schema = new DataSchema(new String[]{"sort", "val"}, new DataSchema.ColumnDataType[]{INT, STRING});
+    when(_input.nextBlock()).thenReturn(block(schema, new Object[]{5, "e"}, new Object[]{2, "b"}, new Object[]{7, "g"}))
+        .thenReturn(block(schema, new Object[]{1, "a"}, new Object[]{6, "f"}, new Object[]{null, "n"}))
+        .thenReturn(block(schema, new Object[]{4, "d"}, new Object[]{3, "c"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    List<RelFieldCollation> collations = List.of(new RelFieldCollation(0, Direction.ASCENDING, NullDirection.LAST));
+    SortOperator operator = getOperator(schema, collations, 10, 1,
+        Map.of(CommonConstants.Broker.Request.QueryOptionKey.MAX_ROWS_IN_SORT, "2"));
+
+    // When:
+    List<Object[]> resultRows = operator.nextBlock().getContainer();
+
+    // Then:
+    assertEquals(resultRows.size(), 7);
+    assertEquals(resultRows.get(0), new Object[]{2, "b"});
+    assertEquals(resultRows.get(1), new Object[]{3, "c"});
+    assertEquals(resultRows.get(2), new Object[]{4, "d"});
+    assertEquals(resultRows.get(3), new Object[]{5, "e"});
+    assertEquals(resultRows.get(4), new Object[]{6, "f"});
+    assertEquals(resultRows.get(5), new Object[]{7, "g"});
+    assertEquals(resultRows.get(6), new Object[]{null, "n"});
+    TransferableBlock eosBlock = operator.nextBlock();
+    assertTrue(eosBlock.isSuccessfulEndOfStreamBlock(), "expected EOS block to propagate");
+    StatMap<SortOperator.StatKey> statMap = OperatorTestUtil.getStatMap(SortOperator.StatKey.class, eosBlock);
+    assertTrue(statMap.getInt(SortOperator.StatKey.SPILLED_RUNS) > 1, "expected sorted runs to be spilled");
+    assertTrue(statMap.getLong(SortOperator.StatKey.SPILLED_BYTES) > 0, "expected spilled bytes to be recorded");
+  }
+
+  @Test
+  public void shouldNotSpillWhenFetchFitsInMaxRowsInSort() {
+    // Given:
+    DataSchema schema = new DataSchema(new String[]{"sort"}, new DataSchema.ColumnDataType[]{INT});
+    when(_input.nextBlock()).thenReturn(block(schema, new Object[]{5}, new Object[]{2}, new Object[]{7}))
+        .thenReturn(block(schema, new Object[]{1}, new Object[]{6}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    List<RelFieldCollation> collations = List.of(new RelFieldCollation(0, Direction.DESCENDING, NullDirection.FIRST));
+    SortOperator operator = getOperator(schema, collations, 2, 0,
+        Map.of(CommonConstants.Broker.Request.QueryOptionKey.MAX_ROWS_IN_SORT, "2"));
+
+    // When:
+    List<Object[]> resultRows = operator.nextBlock().getContainer();
+
+    // Then:
+    assertEquals(resultRows.size(), 2);
+    assertEquals(resultRows.get(0), new Object[]{7});
+    assertEquals(resultRows.get(1), new Object[]{6});
+    TransferableBlock eosBlock = operator.nextBlock();
+    assertTrue(eosBlock.isSuccessfulEndOfStreamBlock(), "expected EOS block to propagate");
+    StatMap<SortOperator.StatKey> statMap = OperatorTestUtil.getStatMap(SortOperator.StatKey.class, eosBlock);
+    assertEquals(statMap.getInt(SortOperator.StatKey.SPILLED_RUNS), 0);
+  }
+
+  private SortOperator getOperator(DataSchema schema, List<RelFieldCollation> collations, int fetch, int offset,
+      Map<String, String> queryOptions) {
+    Map<String, String> opChainMetadata = new HashMap<>(queryOptions);
+    opChainMetadata.put(CommonConstants.Broker.Request.TRACE, "true");
+    return new SortOperator(OperatorTestUtil.getTracingContext(opChainMetadata), _input,
+        new SortNode(-1, schema, PlanNode.NodeHint.EMPTY, List.of(), collations, fetch, offset));
+  }
+
   private SortOperator getOperator(DataSchema schema, List<RelFieldCollation> collations, int fetch, int offset) {
     return new SortOperator(OperatorTestUtil.getTracingContext(), _input,
         new SortNode(-1, schema, PlanNode.NodeHint.EMPTY, List.of(), collations, fetch, offset));
@@ -110,6 +110,31 @@ public class TransformOperatorTest {
     assertEquals(resultRows.get(1), new Object[]{5.0, -1.0});
   }
 
+  @Test
+  public void shouldHandleArithmeticFuncTransformWithNulls() {
+    DataSchema inputSchema = new DataSchema(new String[]{"intCol", "doubleCol"}, new ColumnDataType[]{
+        ColumnDataType.INT, ColumnDataType.DOUBLE
+    });
+    when(_input.nextBlock()).thenReturn(
+        OperatorTestUtil.block(inputSchema, new Object[]{3, 1.5}, new Object[]{null, 2.0}, new Object[]{7, null}));
+    DataSchema resultSchema = new DataSchema(new String[]{"timesR", "divideR", "plusR"},
+        new ColumnDataType[]{ColumnDataType.DOUBLE, ColumnDataType.INT, ColumnDataType.INT});
+    List<RexExpression> operands = List.of(new RexExpression.InputRef(0), new RexExpression.InputRef(1));
+    // (intCol / 2) + 1 with INT result type for both the nested and the outer function
+    RexExpression divide = new RexExpression.FunctionCall(ColumnDataType.INT, SqlKind.DIVIDE.name(),
+        List.of(new RexExpression.InputRef(0), new RexExpression.Literal(ColumnDataType.INT, 2)));
+    List<RexExpression> projects =
+        List.of(new RexExpression.FunctionCall(ColumnDataType.DOUBLE, SqlKind.TIMES.name(), operands), divide,
+            new RexExpression.FunctionCall(ColumnDataType.INT, SqlKind.PLUS.name(),
+                List.of(divide, new RexExpression.Literal(ColumnDataType.INT, 1))));
+    TransformOperator operator = getOperator(inputSchema, resultSchema, projects);
+    List<Object[]> resultRows = operator.nextBlock().getContainer();
+    assertEquals(resultRows.size(), 3);
+    assertEquals(resultRows.get(0), new Object[]{4.5, 1, 2});
+    assertEquals(resultRows.get(1), new Object[]{null, null, null});
+    assertEquals(resultRows.get(2), new Object[]{null, 3, 4});
+  }
+
   @Test
   public void shouldThrowOnTypeMismatchFuncTransform() {
     DataSchema inputSchema = new DataSchema(new String[]{"string1", "string2"}, new ColumnDataType[]{
@@ -22,15 +22,18 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.apache.calcite.rel.RelDistribution;
 import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.calcite.sql.SqlKind;
 import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
+import org.apache.pinot.calcite.rel.logical.PinotRelExchangeType;
 import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.exception.QueryException;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.core.data.table.Key;
 import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.planner.plannode.MailboxReceiveNode;
 import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.planner.plannode.WindowNode;
 import org.apache.pinot.query.routing.VirtualServerAddress;
@@ -647,6 +650,119 @@ public class WindowAggregateOperatorTest {
     assertTrue(operator.nextBlock().isSuccessfulEndOfStreamBlock(), "Second block is EOS (done processing)");
   }
 
+  @Test
+  public void testShouldStreamPartitionsWhenInputSortedOnSenderOnPartitionKeys() {
+    // Given:
+    DataSchema inputSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{INT, STRING});
+    // Input is sorted on the sender side on the partition key followed by the order by key
+    when(_input.nextBlock()).thenReturn(OperatorTestUtil.block(inputSchema, new Object[]{1, "foo"},
+            new Object[]{1, "numb"}, new Object[]{2, "bar"}))
+        .thenReturn(OperatorTestUtil.block(inputSchema, new Object[]{2, "foo"}, new Object[]{2, "the"},
+            new Object[]{3, "and"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema =
+        new DataSchema(new String[]{"group", "arg", "row_number"}, new ColumnDataType[]{INT, STRING, LONG});
+    List<Integer> keys = List.of(0);
+    List<RelFieldCollation> collations =
+        List.of(new RelFieldCollation(1, RelFieldCollation.Direction.ASCENDING, RelFieldCollation.NullDirection.LAST));
+    List<RexExpression.FunctionCall> aggCalls =
+        List.of(new RexExpression.FunctionCall(ColumnDataType.INT, SqlKind.ROW_NUMBER.name(), List.of()));
+    MailboxReceiveNode receiveNode = getSortedReceiveNode(inputSchema,
+        List.of(new RelFieldCollation(0, RelFieldCollation.Direction.ASCENDING, RelFieldCollation.NullDirection.LAST),
+            collations.get(0)), true);
+    WindowAggregateOperator operator = new WindowAggregateOperator(OperatorTestUtil.getTracingContext(), _input,
+        inputSchema, new WindowNode(-1, resultSchema, PlanNode.NodeHint.EMPTY, List.of(receiveNode), keys, collations,
+        aggCalls, WindowNode.WindowFrameType.ROWS, Integer.MIN_VALUE, 0, List.of()));
+
+    // When:
+    List<Object[]> firstRows = operator.nextBlock().getContainer();
+    List<Object[]> secondRows = operator.nextBlock().getContainer();
+    List<Object[]> thirdRows = operator.nextBlock().getContainer();
+
+    // Then:
+    // Each partition is emitted once the first row of the next partition is received
+    assertEquals(firstRows.size(), 2);
+    assertEquals(firstRows.get(0), new Object[]{1, "foo", 1L});
+    assertEquals(firstRows.get(1), new Object[]{1, "numb", 2L});
+    assertEquals(secondRows.size(), 3);
+    assertEquals(secondRows.get(0), new Object[]{2, "bar", 1L});
+    assertEquals(secondRows.get(1), new Object[]{2, "foo", 2L});
+    assertEquals(secondRows.get(2), new Object[]{2, "the", 3L});
+    assertEquals(thirdRows.size(), 1);
+    assertEquals(thirdRows.get(0), new Object[]{3, "and", 1L});
+    assertTrue(operator.nextBlock().isSuccessfulEndOfStreamBlock(), "Fourth block is EOS (done processing)");
+  }
+
+  @Test
+  public void testShouldNotStreamPartitionsWhenInputOnlySortedOnReceiver() {
+    // Given:
+    DataSchema inputSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{INT, STRING});
+    when(_input.nextBlock()).thenReturn(OperatorTestUtil.block(inputSchema, new Object[]{1, "foo"},
+            new Object[]{1, "numb"}, new Object[]{2, "bar"}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema =
+        new DataSchema(new String[]{"group", "arg", "row_number"}, new ColumnDataType[]{INT, STRING, LONG});
+    List<Integer> keys = List.of(0);
+    List<RelFieldCollation> collations =
+        List.of(new RelFieldCollation(1, RelFieldCollation.Direction.ASCENDING, RelFieldCollation.NullDirection.LAST));
+    List<RexExpression.FunctionCall> aggCalls =
+        List.of(new RexExpression.FunctionCall(ColumnDataType.INT, SqlKind.ROW_NUMBER.name(), List.of()));
+    MailboxReceiveNode receiveNode = getSortedReceiveNode(inputSchema,
+        List.of(new RelFieldCollation(0, RelFieldCollation.Direction.ASCENDING, RelFieldCollation.NullDirection.LAST),
+            collations.get(0)), false);
+    WindowAggregateOperator operator = new WindowAggregateOperator(OperatorTestUtil.getTracingContext(), _input,
+        inputSchema, new WindowNode(-1, resultSchema, PlanNode.NodeHint.EMPTY, List.of(receiveNode), keys, collations,
+        aggCalls, WindowNode.WindowFrameType.ROWS, Integer.MIN_VALUE, 0, List.of()));
+
+    // When:
+    List<Object[]> resultRows = operator.nextBlock().getContainer();
+
+    // Then:
+    // All the partitions are emitted together at the end of stream
+    verifyResultRows(resultRows, keys, Map.of(
+        1, List.of(new Object[]{1, "foo", 1L}, new Object[]{1, "numb", 2L}),
+        2, List.<Object[]>of(new Object[]{2, "bar", 1L})));
+    assertTrue(operator.nextBlock().isSuccessfulEndOfStreamBlock(), "Second block is EOS (done processing)");
+  }
+
+  @Test
+  public void testShouldApplyWindowLimitToAllPartitionsWhenStreamingPartitions() {
+    // Given:
+    DataSchema inputSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{INT, INT});
+    when(_input.nextBlock()).thenReturn(
+            OperatorTestUtil.block(inputSchema, new Object[]{1, 1}, new Object[]{1, 2}, new Object[]{2, 3}))
+        .thenReturn(OperatorTestUtil.block(inputSchema, new Object[]{2, 4}, new Object[]{3, 5}))
+        .thenReturn(TransferableBlockTestUtils.getEndOfStreamTransferableBlock(0));
+    DataSchema resultSchema =
+        new DataSchema(new String[]{"group", "arg", "sum"}, new ColumnDataType[]{INT, INT, DOUBLE});
+    List<Integer> keys = List.of(0);
+    List<RexExpression.FunctionCall> aggCalls = List.of(getSum(new RexExpression.InputRef(1)));
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.WINDOW_HINT_OPTIONS,
+        Map.of(PinotHintOptions.WindowHintOptions.WINDOW_OVERFLOW_MODE, "THROW",
+            PinotHintOptions.WindowHintOptions.MAX_ROWS_IN_WINDOW, "2")));
+    MailboxReceiveNode receiveNode = getSortedReceiveNode(inputSchema,
+        List.of(new RelFieldCollation(0, RelFieldCollation.Direction.ASCENDING, RelFieldCollation.NullDirection.LAST)),
+        true);
+    WindowAggregateOperator operator = new WindowAggregateOperator(OperatorTestUtil.getTracingContext(), _input,
+        inputSchema, new WindowNode(-1, resultSchema, nodeHint, List.of(receiveNode), keys, List.of(), aggCalls,
+        WindowNode.WindowFrameType.RANGE, Integer.MIN_VALUE, Integer.MAX_VALUE, List.of()));
+
+    // When:
+    TransferableBlock block = operator.nextBlock();
+
+    // Then:
+    // No single partition exceeds the limit, but the 3 rows consumed by the operator do
+    assertTrue(block.isErrorBlock(), "expected ERROR block from window overflow");
+    assertTrue(block.getExceptions().get(QueryException.SERVER_RESOURCE_LIMIT_EXCEEDED_ERROR_CODE)
+        .contains("reach number of rows limit"));
+  }
+
+  private static MailboxReceiveNode getSortedReceiveNode(DataSchema inputSchema, List<RelFieldCollation> collations,
+      boolean sortedOnSender) {
+    return new MailboxReceiveNode(-1, inputSchema, List.of(), 1, PinotRelExchangeType.STREAMING,
+        RelDistribution.Type.HASH_DISTRIBUTED, List.of(0), collations, true, sortedOnSender, null);
+  }
+
   private WindowAggregateOperator getOperator(DataSchema inputSchema, DataSchema resultSchema, List<Integer> keys,
       List<RelFieldCollation> collations, List<RexExpression.FunctionCall> aggCalls,
       WindowNode.WindowFrameType windowFrameType, int lowerBound, int upperBound, PlanNode.NodeHint nodeHint) {
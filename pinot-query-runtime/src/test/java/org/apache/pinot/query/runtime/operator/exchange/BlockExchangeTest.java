@@ -165,6 +165,63 @@ public class BlockExchangeTest {
     Assert.assertEquals(sentBlocks.get(1).getContainer(), outBlockTwo.getContainer());
   }
 
+  @Test
+  public void shouldNotSplitBlocksForLocalMailbox()
+      throws Exception {
+    // Given:
+    List<SendingMailbox> destinations = ImmutableList.of(_mailbox1);
+    when(_mailbox1.isLocal()).thenReturn(true);
+
+    DataSchema schema = new DataSchema(new String[]{"foo"}, new ColumnDataType[]{ColumnDataType.STRING});
+
+    TransferableBlock inBlock =
+        new TransferableBlock(ImmutableList.of(new Object[]{"one"}, new Object[]{"two"}), schema, DataBlock.Type.ROW);
+
+    BlockExchange exchange = new TestBlockExchange(destinations, (block, type, maxSize) -> {
+      throw new AssertionError("Block should not be split for local mailbox");
+    });
+
+    // When:
+    exchange.send(inBlock);
+
+    // Then:
+    ArgumentCaptor<TransferableBlock> captor = ArgumentCaptor.forClass(TransferableBlock.class);
+    Mockito.verify(_mailbox1, Mockito.times(1)).send(captor.capture());
+    Assert.assertSame(captor.getValue(), inBlock);
+  }
+
+  @Test
+  public void shouldSendSeparateBlocksToLocalMailboxesForMultipleDestinations()
+      throws Exception {
+    // Given:
+    List<SendingMailbox> destinations = ImmutableList.of(_mailbox1, _mailbox2);
+    when(_mailbox1.isLocal()).thenReturn(true);
+    when(_mailbox2.isLocal()).thenReturn(true);
+
+    DataSchema schema = new DataSchema(new String[]{"foo"}, new ColumnDataType[]{ColumnDataType.STRING});
+
+    TransferableBlock inBlock =
+        new TransferableBlock(ImmutableList.of(new Object[]{"one"}, new Object[]{"two"}), schema, DataBlock.Type.ROW);
+
+    BlockExchange exchange = new TestBlockExchange(destinations, (block, type, maxSize) -> {
+      throw new AssertionError("Block should not be split for local mailbox");
+    });
+
+    // When:
+    exchange.send(inBlock);
+
+    // Then:
+    ArgumentCaptor<TransferableBlock> captor1 = ArgumentCaptor.forClass(TransferableBlock.class);
+    Mockito.verify(_mailbox1, Mockito.times(1)).send(captor1.capture());
+    ArgumentCaptor<TransferableBlock> captor2 = ArgumentCaptor.forClass(TransferableBlock.class);
+    Mockito.verify(_mailbox2, Mockito.times(1)).send(captor2.capture());
+    Assert.assertNotSame(captor1.getValue(), inBlock);
+    Assert.assertNotSame(captor2.getValue(), inBlock);
+    Assert.assertNotSame(captor1.getValue(), captor2.getValue());
+    Assert.assertEquals(captor1.getValue().getContainer(), inBlock.getContainer());
+    Assert.assertEquals(captor2.getValue().getContainer(), inBlock.getContainer());
+  }
+
   private static class TestBlockExchange extends BlockExchange {
     protected TestBlockExchange(List<SendingMailbox> destinations) {
       this(destinations, (block, type, size) -> Iterators.singletonIterator(block));
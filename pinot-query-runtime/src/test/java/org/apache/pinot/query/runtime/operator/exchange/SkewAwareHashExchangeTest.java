@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.exchange;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datatable.StatMap;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.query.mailbox.SendingMailbox;
+import org.apache.pinot.query.planner.partitioning.KeySelector;
+import org.apache.pinot.query.runtime.blocks.TransferableBlock;
+import org.apache.pinot.query.runtime.blocks.TransferableBlockUtils;
+import org.apache.pinot.query.runtime.operator.MailboxSendOperator;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+
+public class SkewAwareHashExchangeTest {
+  private static final DataSchema DATA_SCHEMA =
+      new DataSchema(new String[]{"col1"}, new DataSchema.ColumnDataType[]{DataSchema.ColumnDataType.INT});
+
+  private AutoCloseable _mocks;
+
+  @Mock
+  private SendingMailbox _mailbox0;
+  @Mock
+  private SendingMailbox _mailbox1;
+  @Mock
+  private SendingMailbox _mailbox2;
+  @Mock
+  private SendingMailbox _mailbox3;
+
+  @BeforeMethod
+  public void setUp() {
+    _mocks = MockitoAnnotations.openMocks(this);
+  }
+
+  @AfterMethod
+  public void tearDown()
+      throws Exception {
+    _mocks.close();
+  }
+
+  @Test
+  public void shouldSpreadHotKeysAcrossSaltGroup()
+      throws Exception {
+    // Given:
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      rows.add(new Object[]{1});
+    }
+    rows.add(new Object[]{0});
+    rows.add(new Object[]{3});
+    List<SendingMailbox> destinations = ImmutableList.of(_mailbox0, _mailbox1, _mailbox2, _mailbox3);
+    SkewAwareHashExchange exchange =
+        new SkewAwareHashExchange(destinations, new IdentitySelector(), 0, Set.of(1, 2), false, 2,
+            TransferableBlockUtils::splitBlock);
+
+    // When:
+    exchange.route(destinations, new TransferableBlock(rows, DATA_SCHEMA, DataBlock.Type.ROW));
+
+    // Then:
+    // hot key 1 is spread across mailbox 1 and 2, and the other keys are sent to the hashed mailbox
+    Assert.assertEquals(getSentRows(_mailbox0).size(), 1);
+    Assert.assertEquals(getSentRows(_mailbox0).get(0), new Object[]{0});
+    Assert.assertEquals(getSentRows(_mailbox1).size(), 50);
+    Assert.assertEquals(getSentRows(_mailbox2).size(), 50);
+    for (Object[] row : getSentRows(_mailbox2)) {
+      Assert.assertEquals(row[0], 1);
+    }
+    Assert.assertEquals(getSentRows(_mailbox3).size(), 1);
+    Assert.assertEquals(getSentRows(_mailbox3).get(0), new Object[]{3});
+
+    StatMap<MailboxSendOperator.StatKey> statMap = new StatMap<>(MailboxSendOperator.StatKey.class);
+    exchange.updateStats(statMap);
+    Assert.assertEquals(statMap.getInt(MailboxSendOperator.StatKey.SKEWED_KEYS), 1);
+    Assert.assertEquals(statMap.getLong(MailboxSendOperator.StatKey.SKEWED_ROWS), 100);
+    Assert.assertEquals(statMap.getLong(MailboxSendOperator.StatKey.MAX_MAILBOX_ROWS), 50);
+  }
+
+  @Test
+  public void shouldOnlyReplicateHotKeysToSaltGroup()
+      throws Exception {
+    // Given:
+    List<Object[]> rows = ImmutableList.of(new Object[]{1}, new Object[]{3});
+    List<SendingMailbox> destinations = ImmutableList.of(_mailbox0, _mailbox1, _mailbox2, _mailbox3);
+    SkewAwareHashExchange exchange =
+        new SkewAwareHashExchange(destinations, new IdentitySelector(), 0, Set.of(1), true, 2,
+            TransferableBlockUtils::splitBlock);
+
+    // When:
+    exchange.route(destinations, new TransferableBlock(rows, DATA_SCHEMA, DataBlock.Type.ROW));
+
+    // Then:
+    // hot key 1 is replicated to mailbox 1 and 2, and the cold key 3 is only sent to the hashed mailbox
+    Assert.assertTrue(getSentRows(_mailbox0).isEmpty());
+    Assert.assertEquals(getSentRows(_mailbox1).size(), 1);
+    Assert.assertEquals(getSentRows(_mailbox1).get(0), new Object[]{1});
+    Assert.assertEquals(getSentRows(_mailbox2).size(), 1);
+    Assert.assertEquals(getSentRows(_mailbox2).get(0), new Object[]{1});
+    Assert.assertEquals(getSentRows(_mailbox3).size(), 1);
+    Assert.assertEquals(getSentRows(_mailbox3).get(0), new Object[]{3});
+
+    StatMap<MailboxSendOperator.StatKey> statMap = new StatMap<>(MailboxSendOperator.StatKey.class);
+    exchange.updateStats(statMap);
+    Assert.assertEquals(statMap.getLong(MailboxSendOperator.StatKey.REPLICATED_ROWS), 1);
+    Assert.assertEquals(statMap.getLong(MailboxSendOperator.StatKey.MAX_MAILBOX_ROWS), 1);
+  }
+
+  private static List<Object[]> getSentRows(SendingMailbox mailbox)
+      throws Exception {
+    ArgumentCaptor<TransferableBlock> captor = ArgumentCaptor.forClass(TransferableBlock.class);
+    Mockito.verify(mailbox, Mockito.atLeast(0)).send(captor.capture());
+    List<Object[]> rows = new ArrayList<>();
+    for (TransferableBlock block : captor.getAllValues()) {
+      rows.addAll(block.getContainer());
+    }
+    return rows;
+  }
+
+  private static class IdentitySelector implements KeySelector<Object> {
+    @Override
+    public Object getKey(Object[] input) {
+      return input[0];
+    }
+
+    @Override
+    public int computeHash(Object[] input) {
+      return (int) input[0];
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+
+public class LookupTableTest {
+
+  @DataProvider
+  public static Object[][] keyTypeAndKeys() {
+    return new Object[][]{
+        new Object[]{ColumnDataType.INT, 1, 2, 3},
+        new Object[]{ColumnDataType.LONG, 1L, 2L, 3L},
+        new Object[]{ColumnDataType.STRING, "a", "b", "c"}
+    };
+  }
+
+  @Test(dataProvider = "keyTypeAndKeys")
+  public void testLookupTable(ColumnDataType keyType, Object key1, Object key2, Object missingKey) {
+    LookupTable lookupTable = LookupTableFactory.getLookupTable(new ColumnDataType[]{keyType});
+    Object[] row1 = new Object[]{key1, "row1"};
+    Object[] row2 = new Object[]{key2, "row2"};
+    Object[] row3 = new Object[]{key2, "row3"};
+    Object[] nullKeyRow = new Object[]{null, "row4"};
+
+    lookupTable.addRow(key1, row1);
+    assertTrue(lookupTable.isKeysUnique());
+    lookupTable.addRow(key2, row2);
+    lookupTable.addRow(key2, row3);
+    lookupTable.addRow(null, nullKeyRow);
+    assertFalse(lookupTable.isKeysUnique());
+
+    assertTrue(lookupTable.containsKey(key1));
+    assertTrue(lookupTable.containsKey(key2));
+    assertTrue(lookupTable.containsKey(null));
+    assertFalse(lookupTable.containsKey(missingKey));
+
+    // Single row is stored directly, multiple rows are stored as a list
+    assertEquals(lookupTable.lookup(key1), row1);
+    assertEquals(lookupTable.lookup(key2), List.of(row2, row3));
+    assertEquals(lookupTable.lookup(null), nullKeyRow);
+    assertNull(lookupTable.lookup(missingKey));
+
+    Map<Object, Object> entries = new HashMap<>();
+    lookupTable.forEach(entries::put);
+    assertEquals(entries.size(), 3);
+    assertEquals(entries.get(key1), row1);
+    assertEquals(entries.get(null), nullKeyRow);
+
+    lookupTable.clear();
+    assertTrue(lookupTable.isKeysUnique());
+    assertFalse(lookupTable.containsKey(key1));
+    assertFalse(lookupTable.containsKey(null));
+  }
+}
@@ -85,6 +85,13 @@ public interface InvocationRecording {
   default void setFilter(FilterType filterType, String predicateType) {
   }
 
+  /**
+   * If the operator is an AND filter which reorders its children at runtime, records the order of evaluation
+   * @param filterOrder the children in the order of evaluation
+   */
+  default void setFilterOrder(String filterOrder) {
+  }
+
 
   /**
    * Records the input datatype before a stage of query execution
@@ -331,6 +331,21 @@ public class CommonConstants {
         "pinot.broker.enable.partition.metadata.manager";
     public static final boolean DEFAULT_ENABLE_PARTITION_METADATA_MANAGER = false;
 
+    // Whether to track the table num docs (used by the multi-stage query planner) for tables without segment pruners,
+    // which requires fetching the segment ZK metadata for the table. The table num docs is always tracked when the
+    // segment ZK metadata is already fetched for the segment pruners or the partition metadata manager.
+    public static final String CONFIG_OF_ENABLE_TABLE_NUM_DOCS_MANAGER = "pinot.broker.enable.table.num.docs.manager";
+    public static final boolean DEFAULT_ENABLE_TABLE_NUM_DOCS_MANAGER = false;
+
+    // Cache of the optimized multi-stage query plans keyed on the database and the normalized SQL, which skips the
+    // parsing, validation and optimization for the repeated queries. Set the max size to 0 to disable the cache.
+    public static final String CONFIG_OF_MULTI_STAGE_PLAN_CACHE_MAX_SIZE =
+        "pinot.broker.multistage.plan.cache.max.size";
+    public static final int DEFAULT_MULTI_STAGE_PLAN_CACHE_MAX_SIZE = 0;
+    public static final String CONFIG_OF_MULTI_STAGE_PLAN_CACHE_EXPIRE_MS =
+        "pinot.broker.multistage.plan.cache.expire.ms";
+    public static final long DEFAULT_MULTI_STAGE_PLAN_CACHE_EXPIRE_MS = 300_000L;
+
     public static final String CONFIG_OF_USE_FIXED_REPLICA = "pinot.broker.use.fixed.replica";
     public static final boolean DEFAULT_USE_FIXED_REPLICA = false;
 
@@ -358,6 +373,10 @@ public class CommonConstants {
         public static final String SCAN_STAR_TREE_NODES = "scanStarTreeNodes";
         public static final String ROUTING_OPTIONS = "routingOptions";
         public static final String USE_SCAN_REORDER_OPTIMIZATION = "useScanReorderOpt";
+        // Set to false to skip the server level filter result cache of the immutable segments
+        public static final String USE_FILTER_RESULT_CACHE = "useFilterResultCache";
+        // Set to false to skip the server level segment result cache of the immutable segments
+        public static final String USE_SEGMENT_RESULT_CACHE = "useSegmentResultCache";
         public static final String MAX_EXECUTION_THREADS = "maxExecutionThreads";
         public static final String MIN_SEGMENT_GROUP_TRIM_SIZE = "minSegmentGroupTrimSize";
         public static final String MIN_SERVER_GROUP_TRIM_SIZE = "minServerGroupTrimSize";
@@ -380,6 +399,8 @@ public class CommonConstants {
 
         // Reorder scan based predicates based on cardinality and number of selected values
         public static final String AND_SCAN_REORDERING = "AndScanReordering";
+        // Reorder the scan based children of AND filters based on the selectivity and cost measured on sampled docs
+        public static final String ADAPTIVE_AND_FILTER_REORDERING = "adaptiveAndFilterReordering";
         public static final String SKIP_INDEXES = "skipIndexes";
 
         public static final String ORDER_BY_ALGORITHM = "orderByAlgorithm";
@@ -389,6 +410,12 @@ public class CommonConstants {
         public static final String MAX_INITIAL_RESULT_HOLDER_CAPACITY = "maxInitialResultHolderCapacity";
         public static final String GROUP_TRIM_THRESHOLD = "groupTrimThreshold";
         public static final String STAGE_PARALLELISM = "stageParallelism";
+        // Number of multi-stage leaf stage workers per server, where the segments of the server are split across them
+        public static final String LEAF_STAGE_PARALLELISM = "leafStageParallelism";
+
+        // Adaptive bypass of the multi-stage partial group-by aggregation when it doesn't reduce the rows enough
+        public static final String PARTIAL_AGG_BYPASS_MIN_ROWS = "partialAggBypassMinRows";
+        public static final String PARTIAL_AGG_BYPASS_GROUPS_RATIO = "partialAggBypassGroupsRatio";
 
         public static final String IN_PREDICATE_PRE_SORTED = "inPredicatePreSorted";
         public static final String IN_PREDICATE_LOOKUP_ALGORITHM = "inPredicateLookupAlgorithm";
@@ -406,6 +433,13 @@ public class CommonConstants {
         public static final String MAX_ROWS_IN_WINDOW = "maxRowsInWindow";
         public static final String WINDOW_OVERFLOW_MODE = "windowOverflowMode";
 
+        // Max rows kept in memory by the SORT operator before spilling sorted runs to local disk
+        public static final String MAX_ROWS_IN_SORT = "maxRowsInSort";
+
+        // Compression of the data blocks sent between servers through the multi-stage mailboxes
+        public static final String MAILBOX_COMPRESSION_TYPE = "mailboxCompressionType";
+        public static final String MAILBOX_COMPRESSION_THRESHOLD_BYTES = "mailboxCompressionThresholdBytes";
+
         // Indicates the maximum length of the serialized response per server for a query.
         public static final String MAX_SERVER_RESPONSE_SIZE_BYTES = "maxServerResponseSizeBytes";
 
@@ -1117,6 +1151,40 @@ public class CommonConstants {
     public static final String KEY_OF_MAX_INBOUND_QUERY_DATA_BLOCK_SIZE_BYTES = "pinot.query.runner.max.msg.size.bytes";
     public static final int DEFAULT_MAX_INBOUND_QUERY_DATA_BLOCK_SIZE_BYTES = 16 * 1024 * 1024;
 
+    /**
+     * Configuration for the compression of the data blocks sent through the gRPC mailboxes. Supported types are the
+     * chunk compression types, e.g. LZ4 or ZSTANDARD. Only blocks with serialized size no less than the threshold are
+     * compressed. Both can be overridden per query via query options.
+     */
+    public static final String KEY_OF_MAILBOX_COMPRESSION_TYPE = "pinot.query.runner.mailbox.compression.type";
+    public static final String DEFAULT_MAILBOX_COMPRESSION_TYPE = "PASS_THROUGH";
+    public static final String KEY_OF_MAILBOX_COMPRESSION_THRESHOLD_BYTES =
+        "pinot.query.runner.mailbox.compression.threshold.bytes";
+    public static final int DEFAULT_MAILBOX_COMPRESSION_THRESHOLD_BYTES = 64 * 1024;
+
+    /**
+     * Configuration for the max number of bytes pending in a receiving mailbox. gRPC senders are only allowed to send
+     * data within the credit granted by the receiver, i.e. the bytes consumed by the receiver plus this window.
+     */
+    public static final String KEY_OF_MAILBOX_MAX_PENDING_BYTES = "pinot.query.runner.mailbox.max.pending.bytes";
+    public static final long DEFAULT_MAILBOX_MAX_PENDING_BYTES = 20 * 1024 * 1024;
+
+    /**
+     * Configuration for the number of worker threads of the cooperative OpChain scheduler. When positive, the OpChains
+     * are run by a bounded pool of workers, and yield the worker when no data is available in their receiving
+     * mailboxes. When non-positive (default), each OpChain is run by its own thread until it finishes.
+     */
+    public static final String KEY_OF_OPCHAIN_SCHEDULER_NUM_THREADS =
+        "pinot.query.runner.opchain.scheduler.num.threads";
+    public static final int DEFAULT_OPCHAIN_SCHEDULER_NUM_THREADS = 0;
+    /**
+     * Configuration for the max time an OpChain runs before being re-queued by the cooperative OpChain scheduler, so
+     * that the OpChains without yielding cannot starve the other ones.
+     */
+    public static final String KEY_OF_OPCHAIN_SCHEDULER_TIME_SLICE_MS =
+        "pinot.query.runner.opchain.scheduler.time.slice.ms";
+    public static final long DEFAULT_OPCHAIN_SCHEDULER_TIME_SLICE_MS = 100;
+
     /**
      * Configuration for server port, port that opens and accepts
      * {@link org.apache.pinot.query.runtime.plan.DistributedStagePlan} and start executing query stages.
@@ -1138,8 +1206,14 @@ public class CommonConstants {
     public static final String KEY_OF_MAX_ROWS_IN_JOIN = "pinot.query.join.max.rows";
     public static final String KEY_OF_JOIN_OVERFLOW_MODE = "pinot.query.join.overflow.mode";
 
+    /**
+     * Mode when join overflow happens.
+     *   THROW: Break right table build process, and throw exception, no JOIN with left table performed.
+     *   BREAK: Break right table build process, continue to perform JOIN operation, results might be partial.
+     *   SPILL: Partition both sides of the join to local spill files and join each partition separately.
+     */
     public enum JoinOverFlowMode {
-      THROW, BREAK
+      THROW, BREAK, SPILL
     }
 
     /**
@@ -1152,6 +1226,21 @@ public class CommonConstants {
       THROW, BREAK
     }
 
+    /**
+     * Mode when the multi-stage group-by reaches the num groups limit.
+     *   BREAK: Stop accepting new groups, results might be partial.
+     *   SPILL: Hash partition the groups into local spill files, then merge each partition separately.
+     */
+    public enum GroupByOverFlowMode {
+      BREAK, SPILL
+    }
+
+    /**
+     * Configuration for sort spilling. Once the sort operator holds more rows than the limit, the rows are written to
+     * local disk as sorted runs, which are merged when producing the output. Sort does not spill when not configured.
+     */
+    public static final String KEY_OF_MAX_ROWS_IN_SORT = "pinot.query.sort.max.rows";
+
     /**
      * Constants related to plan versions.
      */